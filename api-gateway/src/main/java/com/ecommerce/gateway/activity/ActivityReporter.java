@@ -0,0 +1,137 @@
+package com.ecommerce.gateway.activity;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Avisa a Auth Service de la actividad de los usuarios autenticados (lastSeenAt).
+ *
+ * Todas las peticiones con token pasan por el Gateway, asi que es el unico sitio que ve la
+ * actividad de todos los servicios. En la peticion solo se apunta el instante en un mapa por
+ * subject (email); cada flush-interval-ms un hilo en segundo plano envia el mapa en un unico
+ * POST a /auth/internal/activity, sin esperar la respuesta.
+ *
+ * Es informativo: si el envio falla se pierde ese intervalo (el siguiente trae instantes mas
+ * recientes de los usuarios activos), y con max-pending subjects pendientes los nuevos se
+ * descartan hasta el siguiente envio.
+ */
+@Slf4j
+@Component
+public class ActivityReporter {
+
+    private final WebClient webClient;
+    private final boolean enabled;
+    private final String uri;
+    private final int maxPending;
+    private final Duration timeout;
+
+    private final ConcurrentHashMap<String, Long> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    private final Counter reported;
+    private final Counter dropped;
+    private final Counter failures;
+
+    public ActivityReporter(
+            WebClient.Builder loadBalancedWebClientBuilder,
+            MeterRegistry meterRegistry,
+            @Value("${gateway.activity.enabled:true}") boolean enabled,
+            @Value("${gateway.activity.uri:http://AUTH-SERVICE/auth/internal/activity}") String uri,
+            @Value("${gateway.activity.flush-interval-ms:10000}") long flushIntervalMillis,
+            @Value("${gateway.activity.max-pending:100000}") int maxPending,
+            @Value("${gateway.activity.timeout-ms:5000}") long timeoutMillis) {
+        this.webClient = loadBalancedWebClientBuilder.build();
+        this.enabled = enabled;
+        this.uri = uri;
+        this.maxPending = maxPending;
+        this.timeout = Duration.ofMillis(timeoutMillis);
+
+        this.reported = Counter.builder("gateway.activity.reported")
+                .description("Usuarios enviados a Auth Service como activos")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("gateway.activity.dropped")
+                .description("Usuarios descartados con el mapa de pendientes lleno")
+                .register(meterRegistry);
+        this.failures = Counter.builder("gateway.activity.failures")
+                .description("Envios de actividad fallidos")
+                .register(meterRegistry);
+        Gauge.builder("gateway.activity.pending", pending, Map::size)
+                .description("Usuarios con actividad pendiente de enviar")
+                .register(meterRegistry);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "activity-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Apunta la actividad de un subject ya verificado. No bloquea ni hace E/S.
+     */
+    public void recordSeen(String subject) {
+        if (!enabled || subject == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (pending.size() < maxPending) {
+            pending.merge(subject, now, Math::max);
+        } else if (pending.computeIfPresent(subject, (key, seenAt) -> Math.max(seenAt, now)) == null) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Envia lo acumulado. Las entradas se retiran una a una: la actividad que llega durante
+     * el envio queda para el siguiente.
+     */
+    void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<String, Long> seen = new HashMap<>();
+        for (String subject : pending.keySet()) {
+            Long seenAt = pending.remove(subject);
+            if (seenAt != null) {
+                seen.put(subject, seenAt);
+            }
+        }
+
+        webClient.post()
+                .uri(uri)
+                .bodyValue(Map.of("seen", seen))
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(timeout)
+                .subscribe(
+                        ignored -> reported.increment(seen.size()),
+                        error -> {
+                            failures.increment();
+                            log.warn("No se pudo enviar la actividad de {} usuario(s): {}", seen.size(), error.getMessage());
+                        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        flush();
+    }
+}
@@ -0,0 +1,70 @@
+package com.ecommerce.gateway.cache;
+
+/**
+ * Directivas de Cache-Control que usa la cache del Gateway (RFC 9111 y RFC 5861).
+ * Los valores en segundos son -1 si la directiva no esta presente.
+ */
+public record CacheDirectives(boolean noStore,
+                           boolean noCache,
+                           boolean isPrivate,
+                           boolean isPublic,
+                           boolean mustRevalidate,
+                           long maxAge,
+                           long sharedMaxAge,
+                           long staleWhileRevalidate,
+                           long staleIfError) {
+
+    private static final CacheDirectives EMPTY = new CacheDirectives(false, false, false, false, false, -1, -1, -1, -1);
+
+    public static CacheDirectives parse(String header) {
+        if (header == null || header.isBlank()) {
+            return EMPTY;
+        }
+
+        boolean noStore = false;
+        boolean noCache = false;
+        boolean isPrivate = false;
+        boolean isPublic = false;
+        boolean mustRevalidate = false;
+        long maxAge = -1;
+        long sharedMaxAge = -1;
+        long staleWhileRevalidate = -1;
+        long staleIfError = -1;
+
+        for (String part : header.split(",")) {
+            String directive = part.trim();
+            int equals = directive.indexOf('=');
+            String name = (equals < 0 ? directive : directive.substring(0, equals)).trim().toLowerCase();
+            String value = equals < 0 ? null : directive.substring(equals + 1).trim().replace("\"", "");
+
+            switch (name) {
+                case "no-store" -> noStore = true;
+                case "no-cache" -> noCache = true;
+                case "private" -> isPrivate = true;
+                case "public" -> isPublic = true;
+                case "must-revalidate", "proxy-revalidate" -> mustRevalidate = true;
+                case "max-age" -> maxAge = seconds(value);
+                case "s-maxage" -> sharedMaxAge = seconds(value);
+                case "stale-while-revalidate" -> staleWhileRevalidate = seconds(value);
+                case "stale-if-error" -> staleIfError = seconds(value);
+                default -> {
+                    // Directivas que no afectan a esta cache
+                }
+            }
+        }
+
+        return new CacheDirectives(noStore, noCache, isPrivate, isPublic, mustRevalidate,
+                maxAge, sharedMaxAge, staleWhileRevalidate, staleIfError);
+    }
+
+    private static long seconds(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
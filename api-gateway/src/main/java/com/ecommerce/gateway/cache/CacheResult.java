@@ -0,0 +1,31 @@
+package com.ecommerce.gateway.cache;
+
+/**
+ * Como se resolvio una peticion cacheable. Se devuelve en la cabecera X-Cache y etiqueta
+ * la metrica gateway.cache.requests.
+ */
+public enum CacheResult {
+
+    /** Fresca, servida sin ir al servicio. */
+    HIT(true),
+    /** Caducada dentro de stale-while-revalidate: servida y revalidada en segundo plano. */
+    STALE(true),
+    /** Caducada, el servicio respondio 304 al If-None-Match del Gateway. */
+    REVALIDATED(true),
+    /** Caducada, servida porque el servicio fallo dentro de stale-if-error. */
+    STALE_IF_ERROR(true),
+    /** No estaba en la cache (o no coincidia Vary): respuesta del servicio. */
+    MISS(false),
+    /** El cliente pidio no usar la cache (Cache-Control: no-store). */
+    BYPASS(false);
+
+    private final boolean servedFromCache;
+
+    CacheResult(boolean servedFromCache) {
+        this.servedFromCache = servedFromCache;
+    }
+
+    public boolean servedFromCache() {
+        return servedFromCache;
+    }
+}
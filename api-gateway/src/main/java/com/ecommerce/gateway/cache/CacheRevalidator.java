@@ -0,0 +1,92 @@
+package com.ecommerce.gateway.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revalidacion en segundo plano de las respuestas servidas con stale-while-revalidate.
+ *
+ * Pide de nuevo el recurso al servicio (via Eureka) con If-None-Match y las cabeceras de
+ * Vary de la peticion original: un 304 renueva la entrada, un 200 cacheable la sustituye.
+ * Solo hay una revalidacion en curso por clave; si falla, la entrada sigue como estaba.
+ */
+@Slf4j
+@Component
+public class CacheRevalidator {
+
+    private final WebClient webClient;
+    private final EdgeResponseStore store;
+    private final Duration timeout;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public CacheRevalidator(
+            WebClient.Builder loadBalancedWebClientBuilder,
+            EdgeResponseStore store,
+            @Value("${gateway.cache.revalidation-timeout-ms:5000}") long timeoutMillis) {
+        this.webClient = loadBalancedWebClientBuilder.build();
+        this.store = store;
+        this.timeout = Duration.ofMillis(timeoutMillis);
+    }
+
+    public void revalidate(String key, CachedResponse cached, CacheSettings settings) {
+        if (cached.revalidationUri() == null || !inFlight.add(key)) {
+            return;
+        }
+
+        webClient.get()
+                .uri(cached.revalidationUri())
+                .headers(headers -> {
+                    headers.addAll(requestHeaders(cached));
+                    if (cached.eTag() != null) {
+                        headers.setIfNoneMatch(cached.eTag());
+                    }
+                })
+                .exchangeToMono(response -> handle(key, cached, settings, response))
+                .timeout(timeout)
+                .doFinally(signal -> inFlight.remove(key))
+                .subscribe(
+                        ignored -> { },
+                        error -> log.debug("Revalidacion fallida de {}: {}", cached.revalidationUri(), error.getMessage()));
+    }
+
+    private Mono<Void> handle(String key, CachedResponse cached, CacheSettings settings, ClientResponse response) {
+        HttpHeaders headers = response.headers().asHttpHeaders();
+
+        if (response.statusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+            store.put(key, cached.revalidated(headers, settings, System.currentTimeMillis()));
+            return response.releaseBody();
+        }
+
+        // Sin Authorization en la peticion: las reglas de isStorable son las de una peticion anonima
+        if (!CachedResponse.isStorable(response.statusCode().value(), headers, false)
+                || headers.getContentLength() > store.maxEntryBytes()) {
+            return response.releaseBody();
+        }
+
+        return response.bodyToMono(byte[].class)
+                .defaultIfEmpty(new byte[0])
+                .doOnNext(body -> store.put(key, CachedResponse.create(headers, body, requestHeaders(cached),
+                        cached.revalidationUri(), settings, System.currentTimeMillis())))
+                .then();
+    }
+
+    private static HttpHeaders requestHeaders(CachedResponse cached) {
+        HttpHeaders headers = new HttpHeaders();
+        cached.varyValues().forEach((name, value) -> {
+            if (!value.isEmpty()) {
+                headers.set(name, value);
+            }
+        });
+        return headers;
+    }
+}
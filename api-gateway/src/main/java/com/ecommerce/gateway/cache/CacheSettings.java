@@ -0,0 +1,12 @@
+package com.ecommerce.gateway.cache;
+
+import java.time.Duration;
+
+/**
+ * Configuracion de cache de una ruta. Se aplica cuando la respuesta no trae su propio
+ * Cache-Control (max-age, s-maxage, stale-while-revalidate, stale-if-error).
+ */
+public record CacheSettings(Duration ttl,
+                            Duration staleWhileRevalidate,
+                            Duration staleIfError) {
+}
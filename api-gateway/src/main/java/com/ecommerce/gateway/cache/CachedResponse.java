@@ -0,0 +1,224 @@
+package com.ecommerce.gateway.cache;
+
+import org.springframework.http.HttpHeaders;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Respuesta guardada en la cache del Gateway con sus ventanas de validez:
+ *
+ * - fresca hasta freshUntil: se sirve sin ir al servicio.
+ * - hasta staleWhileRevalidateUntil: se sirve caducada y se revalida en segundo plano.
+ * - hasta staleIfErrorUntil: se sirve caducada si el servicio falla o responde 5xx.
+ *
+ * Pasadas las ventanas, el ETag aun sirve para revalidar con If-None-Match.
+ * Inmutable: revalidar crea una copia con ventanas nuevas.
+ */
+public final class CachedResponse {
+
+    // Cabeceras de la conexion o calculadas por peticion (CORS, Age): no se guardan
+    private static final Set<String> EXCLUDED_HEADERS = Set.of(
+            "connection", "keep-alive", "transfer-encoding", "upgrade", "set-cookie", "age", "x-cache");
+    private static final String CORS_PREFIX = "access-control-";
+    private static final int HEADER_OVERHEAD_BYTES = 64;
+
+    private final int status;
+    private final HttpHeaders headers;
+    private final byte[] body;
+    private final String eTag;
+    private final Map<String, String> varyValues;
+    private final String revalidationUri;
+    private final long storedAt;
+    private final long freshUntil;
+    private final long staleWhileRevalidateUntil;
+    private final long staleIfErrorUntil;
+
+    private CachedResponse(int status, HttpHeaders headers, byte[] body, Map<String, String> varyValues,
+                           String revalidationUri, CacheSettings settings, long now) {
+        this.status = status;
+        this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+        this.body = body;
+        this.eTag = headers.getETag();
+        this.varyValues = varyValues;
+        this.revalidationUri = revalidationUri;
+        this.storedAt = now;
+
+        CacheDirectives directives = CacheDirectives.parse(headers.getCacheControl());
+        long freshMillis;
+        if (directives.noCache()) {
+            freshMillis = 0;
+        } else if (directives.sharedMaxAge() >= 0) {
+            freshMillis = directives.sharedMaxAge() * 1000;
+        } else if (directives.maxAge() >= 0) {
+            freshMillis = directives.maxAge() * 1000;
+        } else {
+            freshMillis = settings.ttl().toMillis();
+        }
+        this.freshUntil = now + freshMillis;
+        this.staleWhileRevalidateUntil = freshUntil
+                + staleWindow(directives.staleWhileRevalidate(), settings.staleWhileRevalidate().toMillis(), directives);
+        this.staleIfErrorUntil = freshUntil
+                + staleWindow(directives.staleIfError(), settings.staleIfError().toMillis(), directives);
+    }
+
+    /**
+     * Guarda una respuesta 200 del servicio. Comprobar antes isStorable.
+     */
+    public static CachedResponse create(HttpHeaders responseHeaders, byte[] body, HttpHeaders requestHeaders,
+                                        String revalidationUri, CacheSettings settings, long now) {
+        return new CachedResponse(200, shareableHeaders(responseHeaders), body,
+                varyValues(responseHeaders.getVary(), requestHeaders), revalidationUri, settings, now);
+    }
+
+    /**
+     * Si una respuesta se puede guardar y servir a otros clientes (RFC 9111, secciones 3 y 3.5):
+     * nada de no-store, private, Set-Cookie ni Vary: *, y si la peticion llevaba Authorization,
+     * solo con permiso explicito del servicio (public, s-maxage o must-revalidate).
+     */
+    public static boolean isStorable(int status, HttpHeaders responseHeaders, boolean authorized) {
+        if (status != 200 || responseHeaders.containsKey(HttpHeaders.SET_COOKIE)
+                || responseHeaders.getVary().contains("*")) {
+            return false;
+        }
+
+        CacheDirectives directives = CacheDirectives.parse(responseHeaders.getCacheControl());
+        if (directives.noStore() || directives.isPrivate()) {
+            return false;
+        }
+        if (authorized && !directives.isPublic() && directives.sharedMaxAge() < 0 && !directives.mustRevalidate()) {
+            return false;
+        }
+        // Con no-cache solo tiene sentido guardarla si se puede revalidar
+        return !directives.noCache() || responseHeaders.getETag() != null;
+    }
+
+    /**
+     * Copia con las cabeceras del 304 del servicio y ventanas calculadas de nuevo (RFC 9111, 4.3.4).
+     */
+    public CachedResponse revalidated(HttpHeaders notModifiedHeaders, CacheSettings settings, long now) {
+        HttpHeaders merged = new HttpHeaders();
+        merged.putAll(headers);
+        shareableHeaders(notModifiedHeaders).forEach((name, values) -> {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                merged.put(name, values);
+            }
+        });
+        return new CachedResponse(status, merged, body, varyValues, revalidationUri, settings, now);
+    }
+
+    /**
+     * Si la peticion tiene los mismos valores que la original en las cabeceras de Vary.
+     */
+    public boolean matchesVary(HttpHeaders requestHeaders) {
+        for (Map.Entry<String, String> vary : varyValues.entrySet()) {
+            if (!vary.getValue().equals(headerValue(requestHeaders, vary.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isFresh(long now) {
+        return now < freshUntil;
+    }
+
+    public boolean canServeWhileRevalidating(long now) {
+        return now < staleWhileRevalidateUntil;
+    }
+
+    public boolean canServeOnError(long now) {
+        return now < staleIfErrorUntil;
+    }
+
+    /**
+     * Caducada, fuera de las ventanas y sin ETag para revalidar: ya no sirve para nada.
+     */
+    public boolean isUseless(long now) {
+        return eTag == null && now >= staleWhileRevalidateUntil && now >= staleIfErrorUntil;
+    }
+
+    public long ageSeconds(long now) {
+        return Math.max(0, (now - storedAt) / 1000);
+    }
+
+    /**
+     * Memoria aproximada que ocupa la entrada, para la expulsion por tamaño.
+     */
+    public long weight() {
+        long weight = body.length;
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            weight += HEADER_OVERHEAD_BYTES + header.getKey().length();
+            for (String value : header.getValue()) {
+                weight += value.length();
+            }
+        }
+        return weight;
+    }
+
+    public int status() {
+        return status;
+    }
+
+    public HttpHeaders headers() {
+        return headers;
+    }
+
+    public byte[] body() {
+        return body;
+    }
+
+    public String eTag() {
+        return eTag;
+    }
+
+    public String revalidationUri() {
+        return revalidationUri;
+    }
+
+    public Map<String, String> varyValues() {
+        return varyValues;
+    }
+
+    private static long staleWindow(long directiveSeconds, long defaultMillis, CacheDirectives directives) {
+        if (directives.mustRevalidate()) {
+            return 0;
+        }
+        return directiveSeconds >= 0 ? directiveSeconds * 1000 : defaultMillis;
+    }
+
+    /**
+     * Cabeceras de una respuesta que se pueden repetir a otro cliente: sin las de la conexion
+     * ni las calculadas por peticion (CORS, Age, X-Cache).
+     */
+    public static HttpHeaders shareableHeaders(HttpHeaders source) {
+        HttpHeaders stored = new HttpHeaders();
+        source.forEach((name, values) -> {
+            String lower = name.toLowerCase(Locale.ROOT);
+            if (!EXCLUDED_HEADERS.contains(lower) && !lower.startsWith(CORS_PREFIX)) {
+                stored.put(name, List.copyOf(values));
+            }
+        });
+        return stored;
+    }
+
+    private static Map<String, String> varyValues(List<String> varyNames, HttpHeaders requestHeaders) {
+        if (varyNames.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String name : varyNames) {
+            values.put(name.toLowerCase(Locale.ROOT), headerValue(requestHeaders, name));
+        }
+        return Collections.unmodifiableMap(values);
+    }
+
+    private static String headerValue(HttpHeaders headers, String name) {
+        List<String> values = headers.get(name);
+        return values == null ? "" : String.join(",", values);
+    }
+}
@@ -0,0 +1,211 @@
+package com.ecommerce.gateway.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Almacen en memoria de la cache de respuestas del Gateway (EdgeCache).
+ *
+ * Limitado por tamaño, no por numero de entradas: cada entrada pesa su cuerpo mas sus
+ * cabeceras, y al superar max-memory-mb se expulsan las menos usadas (LRU) hasta que cabe la
+ * nueva. Una respuesta mayor que max-entry-kb no se guarda.
+ *
+ * Las claves son "routeId path?query". Un indice por path (sin query) permite quitar de una
+ * vez todas las entradas de un recurso y de los que cuelgan de el, en cualquier ruta, cuando
+ * una escritura lo modifica (removeUnder).
+ *
+ * Metricas:
+ * - gateway.cache.requests{route, result}: peticiones por resultado (CacheResult).
+ * - gateway.cache.hit.ratio: fraccion de peticiones cacheables servidas desde la cache.
+ * - gateway.cache.entries, gateway.cache.used.bytes, gateway.cache.evictions.
+ */
+@Slf4j
+@Component
+public class EdgeResponseStore {
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final long maxBytes;
+    private final long maxEntryBytes;
+
+    private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final TreeMap<String, Set<String>> keysByPath = new TreeMap<>();
+    private long usedBytes;
+    private long evictions;
+
+    private final ConcurrentHashMap<String, Map<CacheResult, Counter>> countersByRoute = new ConcurrentHashMap<>();
+    private final LongAdder servedFromCache = new LongAdder();
+    private final LongAdder servedByService = new LongAdder();
+
+    public EdgeResponseStore(
+            MeterRegistry meterRegistry,
+            @Value("${gateway.cache.enabled:true}") boolean enabled,
+            @Value("${gateway.cache.max-memory-mb:64}") long maxMemoryMb,
+            @Value("${gateway.cache.max-entry-kb:512}") long maxEntryKb) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxBytes = maxMemoryMb * 1024 * 1024;
+        this.maxEntryBytes = Math.min(maxEntryKb * 1024, maxBytes);
+
+        Gauge.builder("gateway.cache.hit.ratio", this, EdgeResponseStore::hitRatio)
+                .description("Fraccion de peticiones cacheables servidas desde la cache")
+                .register(meterRegistry);
+        Gauge.builder("gateway.cache.entries", this, EdgeResponseStore::size)
+                .register(meterRegistry);
+        Gauge.builder("gateway.cache.used.bytes", this, EdgeResponseStore::usedBytes)
+                .description("Memoria aproximada ocupada por las respuestas guardadas")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        FunctionCounter.builder("gateway.cache.evictions", this, EdgeResponseStore::evictions)
+                .description("Respuestas expulsadas por falta de memoria")
+                .register(meterRegistry);
+
+        if (enabled) {
+            log.info("Cache de respuestas del Gateway: hasta {} MB, {} KB por respuesta", maxMemoryMb, maxEntryKb);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Tamaño maximo del cuerpo de una respuesta cacheable.
+     */
+    public long maxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    /**
+     * Entrada de la clave, o null si no esta. Las entradas que ya no sirven se quitan aqui.
+     */
+    public synchronized CachedResponse get(String key, long now) {
+        CachedResponse entry = entries.get(key);
+        if (entry != null && entry.isUseless(now)) {
+            remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Guarda la entrada sustituyendo la anterior, expulsando por LRU lo necesario.
+     */
+    public synchronized void put(String key, CachedResponse entry) {
+        long weight = entry.weight() + key.length();
+        if (!enabled || weight > maxEntryBytes) {
+            return;
+        }
+
+        remove(key);
+        Iterator<Map.Entry<String, CachedResponse>> lru = entries.entrySet().iterator();
+        while (usedBytes + weight > maxBytes && lru.hasNext()) {
+            Map.Entry<String, CachedResponse> eldest = lru.next();
+            lru.remove();
+            usedBytes -= eldest.getValue().weight() + eldest.getKey().length();
+            unindex(eldest.getKey());
+            evictions++;
+        }
+
+        entries.put(key, entry);
+        keysByPath.computeIfAbsent(pathOf(key), path -> new HashSet<>()).add(key);
+        usedBytes += weight;
+    }
+
+    public synchronized void remove(String key) {
+        CachedResponse removed = entries.remove(key);
+        if (removed != null) {
+            usedBytes -= removed.weight() + key.length();
+            unindex(key);
+        }
+    }
+
+    /**
+     * Quita, en todas las rutas y con cualquier query, las entradas cuyo path es prefix o
+     * cuelga de el ("prefix/...") y cumple paths. Devuelve cuantas se quitaron.
+     */
+    public synchronized int removeUnder(String prefix, Predicate<String> paths) {
+        List<String> keys = new ArrayList<>();
+        for (Map.Entry<String, Set<String>> indexed
+                : keysByPath.subMap(prefix, true, prefix + Character.MAX_VALUE, false).entrySet()) {
+            String path = indexed.getKey();
+            boolean under = path.length() == prefix.length() || path.charAt(prefix.length()) == '/';
+            if (under && paths.test(path)) {
+                keys.addAll(indexed.getValue());
+            }
+        }
+        keys.forEach(this::remove);
+        return keys.size();
+    }
+
+    private void unindex(String key) {
+        String path = pathOf(key);
+        Set<String> keys = keysByPath.get(path);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            keysByPath.remove(path);
+        }
+    }
+
+    private static String pathOf(String key) {
+        int start = key.indexOf(' ') + 1;
+        int query = key.indexOf('?', start);
+        return key.substring(start, query < 0 ? key.length() : query);
+    }
+
+    public void record(String routeId, CacheResult result) {
+        countersByRoute.computeIfAbsent(routeId, this::createCounters).get(result).increment();
+        if (result.servedFromCache()) {
+            servedFromCache.increment();
+        } else if (result == CacheResult.MISS) {
+            servedByService.increment();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long usedBytes() {
+        return usedBytes;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    private double hitRatio() {
+        long hits = servedFromCache.sum();
+        long total = hits + servedByService.sum();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    private Map<CacheResult, Counter> createCounters(String routeId) {
+        Map<CacheResult, Counter> counters = new EnumMap<>(CacheResult.class);
+        for (CacheResult result : CacheResult.values()) {
+            counters.put(result, Counter.builder("gateway.cache.requests")
+                    .tag("route", routeId)
+                    .tag("result", result.name())
+                    .description("Peticiones GET por resultado de la cache del Gateway")
+                    .register(meterRegistry));
+        }
+        return counters;
+    }
+}
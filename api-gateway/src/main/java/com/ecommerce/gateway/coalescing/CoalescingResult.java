@@ -0,0 +1,16 @@
+package com.ecommerce.gateway.coalescing;
+
+/**
+ * Resultado de una peticion en el filtro Coalesce; etiqueta gateway.coalescing.requests.
+ */
+public enum CoalescingResult {
+
+    /** Primera peticion de la clave: va al servicio y reparte su respuesta. */
+    LEADER,
+    /** Recibio la respuesta del lider: una llamada al servicio ahorrada. */
+    FOLLOWER,
+    /** Espero al lider pero tuvo que ir al servicio (tiempo agotado, respuesta no compartible o Vary distinto). */
+    FALLBACK,
+    /** El lider ya tenia max-followers seguidores: fue directamente al servicio. */
+    OVERFLOW
+}
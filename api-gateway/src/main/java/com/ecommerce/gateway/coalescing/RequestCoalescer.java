@@ -0,0 +1,126 @@
+package com.ecommerce.gateway.coalescing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Peticiones en curso del filtro Coalesce (single-flight): por cada clave, la primera
+ * peticion (lider) va al servicio y las identicas que llegan mientras tanto (seguidores)
+ * esperan su respuesta en lugar de enviar otra copia.
+ *
+ * Metricas:
+ * - gateway.coalescing.requests{route, result}: por CoalescingResult. FOLLOWER es el numero
+ *   de llamadas al servicio ahorradas.
+ * - gateway.coalescing.in_flight: claves con un lider en curso.
+ */
+@Component
+public class RequestCoalescer {
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final long maxBodyBytes;
+
+    private final ConcurrentHashMap<String, Flight> flights = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Map<CoalescingResult, Counter>> countersByRoute = new ConcurrentHashMap<>();
+
+    public RequestCoalescer(
+            MeterRegistry meterRegistry,
+            @Value("${gateway.coalescing.enabled:true}") boolean enabled,
+            @Value("${gateway.coalescing.max-body-kb:1024}") long maxBodyKb) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxBodyBytes = maxBodyKb * 1024;
+
+        Gauge.builder("gateway.coalescing.in_flight", flights, Map::size)
+                .description("Peticiones lider en curso con seguidores posibles")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Tamaño maximo del cuerpo que el lider lee en memoria para repartir.
+     */
+    public long maxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    /**
+     * Se une a la peticion en curso de la clave o, si no hay ninguna, pasa a ser su lider.
+     * Un seguidor que llega justo cuando el lider termina recibe igualmente su respuesta
+     * (Sinks.one la conserva).
+     */
+    public Membership join(String key) {
+        Flight created = new Flight();
+        Flight existing = flights.putIfAbsent(key, created);
+        return existing == null ? new Membership(created, true) : new Membership(existing, false);
+    }
+
+    /**
+     * Quita la peticion del mapa y entrega la respuesta a los seguidores (null: que vayan al
+     * servicio). Solo cuenta la primera llamada.
+     */
+    public void complete(String key, Flight flight, SharedResponse response) {
+        flights.remove(key, flight);
+        if (response == null) {
+            flight.sink.tryEmitEmpty();
+        } else {
+            flight.sink.tryEmitValue(response);
+        }
+    }
+
+    public void record(String routeId, CoalescingResult result) {
+        countersByRoute.computeIfAbsent(routeId, this::createCounters).get(result).increment();
+    }
+
+    private Map<CoalescingResult, Counter> createCounters(String routeId) {
+        Map<CoalescingResult, Counter> counters = new EnumMap<>(CoalescingResult.class);
+        for (CoalescingResult result : CoalescingResult.values()) {
+            counters.put(result, Counter.builder("gateway.coalescing.requests")
+                    .tag("route", routeId)
+                    .tag("result", result.name())
+                    .description("Peticiones GET por resultado del agrupamiento (FOLLOWER = llamada ahorrada)")
+                    .register(meterRegistry));
+        }
+        return counters;
+    }
+
+    public record Membership(Flight flight, boolean leader) {
+    }
+
+    /**
+     * Una peticion lider en curso y sus seguidores.
+     */
+    public static final class Flight {
+
+        private final Sinks.One<SharedResponse> sink = Sinks.one();
+        private final AtomicInteger followers = new AtomicInteger();
+
+        /**
+         * Reserva un hueco de seguidor; false si ya hay maxFollowers.
+         */
+        public boolean tryFollow(int maxFollowers) {
+            return followers.incrementAndGet() <= maxFollowers;
+        }
+
+        /**
+         * Respuesta del lider, o vacio si no es compartible o no llega en maxWait.
+         */
+        public Mono<SharedResponse> response(Duration maxWait) {
+            return sink.asMono().timeout(maxWait, Mono.empty());
+        }
+    }
+}
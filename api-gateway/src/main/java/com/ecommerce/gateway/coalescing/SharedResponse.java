@@ -0,0 +1,42 @@
+package com.ecommerce.gateway.coalescing;
+
+import com.ecommerce.gateway.cache.CacheDirectives;
+import org.springframework.http.HttpHeaders;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Respuesta del lider de una peticion agrupada, con el cuerpo ya leido, que se reparte a los
+ * seguidores. Guarda las cabeceras de la peticion del lider para comprobar el Vary de la
+ * respuesta contra cada seguidor.
+ */
+public record SharedResponse(int status, HttpHeaders headers, byte[] body, HttpHeaders leaderRequestHeaders) {
+
+    /**
+     * Si la respuesta se puede entregar a otros clientes: nada de no-store, private,
+     * Set-Cookie ni Vary: *.
+     */
+    public static boolean isShareable(HttpHeaders responseHeaders) {
+        if (responseHeaders.containsKey(HttpHeaders.SET_COOKIE) || responseHeaders.getVary().contains("*")) {
+            return false;
+        }
+        CacheDirectives directives = CacheDirectives.parse(responseHeaders.getCacheControl());
+        return !directives.noStore() && !directives.isPrivate();
+    }
+
+    /**
+     * Si el seguidor coincide con el lider en todas las cabeceras del Vary de la respuesta
+     * (puede nombrar cabeceras que no forman parte de la clave de agrupacion).
+     */
+    public boolean matchesVary(HttpHeaders requestHeaders) {
+        for (String name : headers.getVary()) {
+            List<String> leader = leaderRequestHeaders.get(name);
+            List<String> follower = requestHeaders.get(name);
+            if (!Objects.equals(leader, follower)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
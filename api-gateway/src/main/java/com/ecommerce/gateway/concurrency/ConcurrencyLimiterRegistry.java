@@ -0,0 +1,66 @@
+package com.ecommerce.gateway.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Un GradientLimit por ruta (bulkhead): una ruta saturada solo rechaza sus propias peticiones.
+ *
+ * Metricas por ruta: gateway.concurrency.limit, gateway.concurrency.in_flight y
+ * gateway.concurrency.rejected.
+ */
+@Component
+public class ConcurrencyLimiterRegistry {
+
+    private final MeterRegistry meterRegistry;
+    private final double tolerance;
+    private final double smoothing;
+    private final int longWindow;
+
+    private final ConcurrentHashMap<String, RouteLimiter> limiters = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimiterRegistry(
+            MeterRegistry meterRegistry,
+            @Value("${gateway.concurrency.tolerance:1.5}") double tolerance,
+            @Value("${gateway.concurrency.smoothing:0.2}") double smoothing,
+            @Value("${gateway.concurrency.long-window:600}") int longWindow) {
+        this.meterRegistry = meterRegistry;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.longWindow = longWindow;
+    }
+
+    /**
+     * Limitador de la ruta; se crea con estos limites la primera vez.
+     */
+    public RouteLimiter limiter(String routeId, int initialLimit, int minLimit, int maxLimit) {
+        return limiters.computeIfAbsent(routeId, id -> createLimiter(id, initialLimit, minLimit, maxLimit));
+    }
+
+    private RouteLimiter createLimiter(String routeId, int initialLimit, int minLimit, int maxLimit) {
+        GradientLimit limit = new GradientLimit(initialLimit, minLimit, maxLimit, tolerance, smoothing, longWindow);
+
+        Gauge.builder("gateway.concurrency.limit", limit, GradientLimit::limit)
+                .tag("route", routeId)
+                .description("Limite de concurrencia estimado de la ruta")
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.in_flight", limit, GradientLimit::inFlight)
+                .tag("route", routeId)
+                .description("Peticiones en curso de la ruta")
+                .register(meterRegistry);
+        Counter rejected = Counter.builder("gateway.concurrency.rejected")
+                .tag("route", routeId)
+                .description("Peticiones rechazadas con 503 por superar el limite de concurrencia")
+                .register(meterRegistry);
+
+        return new RouteLimiter(limit, rejected);
+    }
+
+    public record RouteLimiter(GradientLimit limit, Counter rejected) {
+    }
+}
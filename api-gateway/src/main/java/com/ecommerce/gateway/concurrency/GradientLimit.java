@@ -0,0 +1,113 @@
+package com.ecommerce.gateway.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limite de concurrencia adaptativo de una ruta (algoritmo Gradient2 de Netflix
+ * concurrency-limits) y las peticiones en curso contra el.
+ *
+ * Compara dos medias de latencia: la corta (ultimas ~10 respuestas) y la larga (ultimas
+ * ~600, la latencia "sin cola"). Mientras la corta no supera tolerance veces la larga el
+ * limite crece en sqrt(limite) por actualizacion; si la supera, se multiplica por
+ * tolerance * larga / corta (como mucho a la mitad). Un drop (error, 503 o 504 del servicio)
+ * lo reduce un 10 %. Con pocas peticiones en curso (menos de la mitad del limite) no se toca:
+ * la latencia no dice nada de la capacidad.
+ *
+ * tryAcquire es un CAS; las actualizaciones del limite se serializan con el monitor.
+ */
+public final class GradientLimit {
+
+    private static final double DROP_BACKOFF = 0.9;
+    private static final double SHORT_ALPHA = 2.0 / (10 + 1);
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final double longAlpha;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    private double estimatedLimit;
+    private double shortRtt;
+    private double longRtt;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing,
+                         int longWindow) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.longAlpha = 2.0 / (longWindow + 1);
+        this.estimatedLimit = clamp(initialLimit);
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Ocupa un hueco si hay peticiones en curso por debajo del limite.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libera el hueco y, si la respuesta es una muestra valida (no cancelada), ajusta el limite.
+     */
+    public void release(long rttNanos, boolean dropped, boolean sample) {
+        int inFlightAtCompletion = inFlight.getAndDecrement();
+        if (sample) {
+            update(rttNanos, inFlightAtCompletion, dropped);
+        }
+    }
+
+    private synchronized void update(long rttNanos, int inFlightAtCompletion, boolean dropped) {
+        if (longRtt == 0) {
+            shortRtt = rttNanos;
+            longRtt = rttNanos;
+            return;
+        }
+
+        shortRtt += SHORT_ALPHA * (rttNanos - shortRtt);
+        longRtt += longAlpha * (rttNanos - longRtt);
+        // La latencia bajo mucho (p. ej. tras un despliegue): acercar antes la referencia
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        double newLimit;
+        if (dropped) {
+            newLimit = estimatedLimit * DROP_BACKOFF;
+        } else {
+            if (inFlightAtCompletion < estimatedLimit / 2) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+            double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            newLimit = estimatedLimit * (1 - smoothing) + target * smoothing;
+        }
+
+        estimatedLimit = clamp(newLimit);
+        limit = (int) estimatedLimit;
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+}
@@ -1,9 +1,11 @@
 package com.ecommerce.gateway.config;
 
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
 
 /**
  * Configuracion adicional del Gateway usando Java en lugar de YAML.
@@ -30,4 +32,15 @@ public class GatewayConfig {
 
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * WebClient que resuelve http://SERVICE-ID/... via Eureka, para las peticiones que hace
+     * el propio Gateway fuera de una ruta (revalidacion en segundo plano de la cache, envio de
+     * la actividad de los usuarios).
+     */
+    @Bean
+    @LoadBalanced
+    public WebClient.Builder loadBalancedWebClientBuilder() {
+        return WebClient.builder();
+    }
+}
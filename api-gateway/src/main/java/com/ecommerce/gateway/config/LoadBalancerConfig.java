@@ -0,0 +1,17 @@
+package com.ecommerce.gateway.config;
+
+import com.ecommerce.gateway.loadbalancer.PeakEwmaLoadBalancerConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Balanceo de las rutas lb:// (y del WebClient @LoadBalanced) con PeakEwmaLoadBalancer en
+ * lugar del round-robin por defecto. Con gateway.load-balancer.peak-ewma.enabled=false se
+ * vuelve al round-robin.
+ */
+@Configuration
+@ConditionalOnProperty(name = "gateway.load-balancer.peak-ewma.enabled", havingValue = "true", matchIfMissing = true)
+@LoadBalancerClients(defaultConfiguration = PeakEwmaLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
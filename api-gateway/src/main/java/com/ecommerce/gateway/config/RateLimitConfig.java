@@ -0,0 +1,90 @@
+package com.ecommerce.gateway.config;
+
+import com.ecommerce.gateway.ratelimit.JwtSubjectResolver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.cloud.gateway.support.ipresolver.RemoteAddressResolver;
+import org.springframework.cloud.gateway.support.ipresolver.XForwardedRemoteAddressResolver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Claves del rate limiter (InMemoryRateLimiter), elegidas por ruta con
+ * key-resolver: "#{@nombreDelBean}" en application.yml:
+ *
+ * - userKeyResolver (por defecto): usuario del JWT verificado, si no API key, si no IP.
+ * - apiKeyResolver: API key, si no IP.
+ *
+ * Solo las API keys de gateway.rate-limit.api-keys tienen bucket propio: con cualquier otra
+ * la clave es la IP, asi un cliente no puede abrir buckets nuevos cambiando el header.
+ * - clientIpKeyResolver: IP del cliente (para login/registro, donde aun no hay token).
+ *
+ * La IP es la de la conexion; con trusted-proxies > 0 se toma de X-Forwarded-For saltando
+ * ese numero de proxies propios.
+ */
+@Configuration
+public class RateLimitConfig {
+
+    private static final String UNKNOWN_CLIENT = "unknown";
+
+    private final RemoteAddressResolver remoteAddressResolver;
+    private final String apiKeyHeader;
+    private final Set<String> knownApiKeys;
+
+    public RateLimitConfig(
+            @Value("${gateway.rate-limit.trusted-proxies:0}") int trustedProxies,
+            @Value("${gateway.rate-limit.api-key-header:X-API-Key}") String apiKeyHeader,
+            @Value("${gateway.rate-limit.api-keys:}") String apiKeys) {
+        this.remoteAddressResolver = trustedProxies > 0
+                ? XForwardedRemoteAddressResolver.maxTrustedIndex(trustedProxies)
+                : new RemoteAddressResolver() { };
+        this.apiKeyHeader = apiKeyHeader;
+        this.knownApiKeys = Arrays.stream(apiKeys.split(","))
+                .map(String::trim)
+                .filter(key -> !key.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Bean
+    @Primary
+    public KeyResolver userKeyResolver(JwtSubjectResolver jwtSubjectResolver) {
+        return exchange -> {
+            String subject = jwtSubjectResolver.subject(exchange.getRequest().getHeaders());
+            return subject != null ? Mono.just("user:" + subject) : apiKeyOrIp(exchange);
+        };
+    }
+
+    @Bean
+    public KeyResolver apiKeyResolver() {
+        return this::apiKeyOrIp;
+    }
+
+    @Bean
+    public KeyResolver clientIpKeyResolver() {
+        return exchange -> Mono.just(clientIp(exchange));
+    }
+
+    private Mono<String> apiKeyOrIp(ServerWebExchange exchange) {
+        String apiKey = exchange.getRequest().getHeaders().getFirst(apiKeyHeader);
+        if (apiKey != null && knownApiKeys.contains(apiKey.trim())) {
+            return Mono.just("api-key:" + apiKey.trim());
+        }
+        return Mono.just(clientIp(exchange));
+    }
+
+    private String clientIp(ServerWebExchange exchange) {
+        InetSocketAddress address = remoteAddressResolver.resolve(exchange);
+        if (address == null) {
+            return "ip:" + UNKNOWN_CLIENT;
+        }
+        return "ip:" + (address.getAddress() != null ? address.getAddress().getHostAddress() : address.getHostString());
+    }
+}
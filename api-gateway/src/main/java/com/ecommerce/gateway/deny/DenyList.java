@@ -0,0 +1,107 @@
+package com.ecommerce.gateway.deny;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriUtils;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Rutas que el Gateway no deja pasar nunca (endpoints internos de los servicios).
+ *
+ * Los patrones de gateway.deny-list.patterns (sintaxis PathPattern, separados por comas) se
+ * compilan una vez al arrancar y se comparan con la ruta que Spring ya ha parseado: por
+ * segmentos decodificados y sin parametros de matriz, asi que /api/users/%69nternal/... o
+ * /api/users/internal;x=1/... tambien se deniegan.
+ *
+ * Antes de comparar la ruta se normaliza como la resolveria el servicio: se quitan los
+ * segmentos vacios y ".", cada ".." elimina el segmento anterior y un "/" codificado (%2F)
+ * separa segmentos. Asi //api/users//internal, /api/orders/../users/internal o
+ * /api/x/..;/users/internal tampoco pasan.
+ *
+ * Cada patron tiene su contador gateway.deny.requests{pattern}.
+ */
+@Slf4j
+@Component
+public class DenyList {
+
+    private final List<Rule> rules;
+
+    public DenyList(
+            MeterRegistry meterRegistry,
+            @Value("${gateway.deny-list.patterns:/api/users/internal/**,/user-service/users/internal/**}") String[] patterns) {
+        List<Rule> compiled = new ArrayList<>();
+        for (String pattern : patterns) {
+            String trimmed = pattern.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            Counter denials = Counter.builder("gateway.deny.requests")
+                    .tag("pattern", trimmed)
+                    .description("Peticiones rechazadas con 403 por la lista de denegacion")
+                    .register(meterRegistry);
+            compiled.add(new Rule(PathPatternParser.defaultInstance.parse(trimmed), denials));
+        }
+        this.rules = List.copyOf(compiled);
+
+        log.info("Lista de denegacion del Gateway: {} patron(es)", rules.size());
+    }
+
+    /**
+     * true si algun patron cubre la ruta; cuenta la denegacion en el primero que coincide.
+     */
+    public boolean denies(PathContainer path) {
+        PathContainer normalized = normalize(path);
+        for (Rule rule : rules) {
+            if (rule.pattern().matches(normalized)) {
+                rule.denials().increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Ruta con los segmentos decodificados y sin matriz, resueltos "." y ".." y sin vacios.
+     */
+    static PathContainer normalize(PathContainer path) {
+        Deque<String> segments = new ArrayDeque<>();
+        for (PathContainer.Element element : path.elements()) {
+            if (!(element instanceof PathContainer.PathSegment segment)) {
+                continue;
+            }
+            for (String value : segment.valueToMatch().split("/", -1)) {
+                if (value.isEmpty() || value.equals(".")) {
+                    continue;
+                }
+                if (value.equals("..")) {
+                    segments.pollLast();
+                } else {
+                    segments.addLast(value);
+                }
+            }
+        }
+
+        if (segments.isEmpty()) {
+            return PathContainer.parsePath("/");
+        }
+        StringBuilder normalized = new StringBuilder();
+        for (String segment : segments) {
+            normalized.append('/').append(UriUtils.encodePathSegment(segment, StandardCharsets.UTF_8));
+        }
+        return PathContainer.parsePath(normalized.toString());
+    }
+
+    private record Rule(PathPattern pattern, Counter denials) {
+    }
+}
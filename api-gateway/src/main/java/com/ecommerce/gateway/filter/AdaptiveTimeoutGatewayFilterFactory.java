@@ -0,0 +1,101 @@
+package com.ecommerce.gateway.filter;
+
+import com.ecommerce.gateway.resilience.AdaptiveTimeout;
+import com.ecommerce.gateway.resilience.AdaptiveTimeoutRegistry;
+import lombok.Data;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Timeout de respuesta adaptativo por ruta (ver AdaptiveTimeout). Se activa por ruta en
+ * application.yml:
+ *
+ * <pre>
+ * filters:
+ *   - name: AdaptiveTimeout
+ *     args:
+ *       floor: 1s
+ *       ceiling: 10s
+ *       percentile: 0.99
+ *       multiplier: 3
+ * </pre>
+ *
+ * Se ejecuta justo antes de RouteToRequestUrlFilter, por dentro de BudgetedRetry (cada
+ * intento tiene su timeout): lo que mide es el tiempo hasta las cabeceras de la respuesta
+ * del servicio, porque el cuerpo lo escribe despues NettyWriteResponseFilter. Si expira, la
+ * peticion al servicio se cancela y se responde 504.
+ *
+ * Antes de cancelar se marca TIMED_OUT_ATTR: InstanceStatsFilter ve esa cancelacion y la
+ * cuenta como un fallo lento de la instancia, no como un cliente que se fue.
+ */
+@Component
+public class AdaptiveTimeoutGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<AdaptiveTimeoutGatewayFilterFactory.Config> {
+
+    static final int ORDER = RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER - 1;
+
+    public static final String TIMED_OUT_ATTR = AdaptiveTimeoutGatewayFilterFactory.class.getName() + ".timedOut";
+
+    private final AdaptiveTimeoutRegistry timeoutRegistry;
+
+    public AdaptiveTimeoutGatewayFilterFactory(AdaptiveTimeoutRegistry timeoutRegistry) {
+        super(Config.class);
+        this.timeoutRegistry = timeoutRegistry;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("floor", "ceiling");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+            if (route == null) {
+                return chain.filter(exchange);
+            }
+
+            AdaptiveTimeoutRegistry.RouteTimeout routeTimeout = timeoutRegistry.timeout(route.getId(),
+                    config.getFloor(), config.getCeiling(), config.getPercentile(), config.getMultiplier());
+            AdaptiveTimeout timeout = routeTimeout.timeout();
+            // Cada intento de BudgetedRetry empieza sin la marca del anterior
+            exchange.getAttributes().remove(TIMED_OUT_ATTR);
+            // La marca se pone en el mismo hilo y antes de que timeout cancele la peticion
+            Mono<Long> expiry = Mono.delay(timeout.timeout())
+                    .doOnNext(tick -> exchange.getAttributes().put(TIMED_OUT_ATTR, Boolean.TRUE));
+            long start = System.nanoTime();
+            return chain.filter(exchange)
+                    .timeout(expiry)
+                    .doOnSuccess(ignored -> timeout.recordLatency(System.nanoTime() - start))
+                    .onErrorResume(TimeoutException.class, e -> {
+                        timeout.recordTimeout();
+                        routeTimeout.expired().increment();
+                        // Sin escribir la respuesta: BudgetedRetry aun puede reintentar
+                        exchange.getResponse().setStatusCode(HttpStatus.GATEWAY_TIMEOUT);
+                        return Mono.empty();
+                    });
+        }, ORDER);
+    }
+
+    @Data
+    public static class Config {
+
+        private Duration floor = Duration.ofSeconds(1);
+        private Duration ceiling = Duration.ofSeconds(10);
+        private double percentile = 0.99;
+        private double multiplier = 3;
+    }
+}
@@ -0,0 +1,93 @@
+package com.ecommerce.gateway.filter;
+
+import com.ecommerce.gateway.loadbalancer.PeakEwmaLoadBalancer;
+import com.ecommerce.gateway.ratelimit.JwtSubjectResolver;
+import lombok.Data;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Balanceo con afinidad por clave (hash consistente con carga acotada en PeakEwmaLoadBalancer).
+ * Se activa por ruta en application.yml:
+ *
+ * <pre>
+ * filters:
+ *   - name: AffinityKey
+ *     args:
+ *       patterns: /api/users/email/{key}, /api/users/{key:\d+}, /api/users/{key:\d+}/**
+ *       jwtSubject: true
+ * </pre>
+ *
+ * La clave es la variable {key} del primer patron que coincide con el path original (el
+ * filtro va antes que StripPrefix); si no coincide ninguno y jwtSubject es true, el usuario
+ * del JWT verificado. Sin clave, la peticion se balancea con P2C como las demas.
+ *
+ * Requiere gateway.load-balancer.peak-ewma.enabled (con round-robin no hay afinidad).
+ */
+@Component
+public class AffinityKeyGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<AffinityKeyGatewayFilterFactory.Config> {
+
+    private static final String KEY_VARIABLE = "key";
+
+    private final JwtSubjectResolver jwtSubjectResolver;
+
+    public AffinityKeyGatewayFilterFactory(JwtSubjectResolver jwtSubjectResolver) {
+        super(Config.class);
+        this.jwtSubjectResolver = jwtSubjectResolver;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("patterns");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        List<PathPattern> patterns = new ArrayList<>();
+        for (String pattern : config.getPatterns()) {
+            PathPattern parsed = PathPatternParser.defaultInstance.parse(pattern.trim());
+            if (!parsed.getPatternString().contains("{" + KEY_VARIABLE)) {
+                throw new IllegalArgumentException("El patron de AffinityKey no tiene la variable {key}: " + pattern);
+            }
+            patterns.add(parsed);
+        }
+
+        // Orden 0: antes de los filtros de la ruta (StripPrefix tiene el 1 si es el primero)
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            String key = affinityKey(exchange, patterns, config.isJwtSubject());
+            if (key != null) {
+                exchange.getAttributes().put(PeakEwmaLoadBalancer.AFFINITY_KEY_ATTR, key);
+            }
+            return chain.filter(exchange);
+        }, 0);
+    }
+
+    private String affinityKey(ServerWebExchange exchange, List<PathPattern> patterns, boolean jwtSubject) {
+        ServerHttpRequest request = exchange.getRequest();
+        PathContainer path = request.getPath().pathWithinApplication();
+        for (PathPattern pattern : patterns) {
+            PathPattern.PathMatchInfo match = pattern.matchAndExtract(path);
+            if (match != null) {
+                return match.getUriVariables().get(KEY_VARIABLE);
+            }
+        }
+        return jwtSubject ? jwtSubjectResolver.subject(request.getHeaders()) : null;
+    }
+
+    @Data
+    public static class Config {
+        private List<String> patterns = new ArrayList<>();
+        private boolean jwtSubject = true;
+    }
+}
@@ -0,0 +1,161 @@
+package com.ecommerce.gateway.filter;
+
+import com.ecommerce.gateway.loadbalancer.PeakEwmaLoadBalancer;
+import com.ecommerce.gateway.resilience.RetryBudget;
+import lombok.Data;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Reintentos con presupuesto (RetryBudget) y backoff exponencial con jitter. Se activa por
+ * ruta en application.yml, normalmente junto a AdaptiveTimeout:
+ *
+ * <pre>
+ * filters:
+ *   - name: BudgetedRetry
+ *     args:
+ *       retries: 2
+ *       methods: GET, HEAD, OPTIONS
+ *       statuses: 502, 503, 504
+ *       backoff: 25ms
+ *       maxBackoff: 500ms
+ * </pre>
+ *
+ * Se reintenta un error de conexion (IOException) o una respuesta con un codigo de statuses
+ * (504 incluye los timeouts de AdaptiveTimeout), si la respuesta no se ha empezado a escribir
+ * y queda presupuesto. Solo metodos idempotentes sin cuerpo: el cuerpo de la peticion no se
+ * guarda y no se podria volver a enviar.
+ *
+ * Va antes que AdaptiveTimeout y RouteToRequestUrlFilter: cada intento vuelve a pasar por el
+ * balanceador, que salta las instancias que ya fallaron en esta peticion (tambien con
+ * afinidad por clave, ver PeakEwmaLoadBalancer.markTried). Los filtros anteriores de la ruta
+ * (rate limiter, limite de concurrencia, cache) ven una sola peticion.
+ */
+@Component
+public class BudgetedRetryGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<BudgetedRetryGatewayFilterFactory.Config> {
+
+    private static final int ORDER = AdaptiveTimeoutGatewayFilterFactory.ORDER - 1;
+
+    private final RetryBudget retryBudget;
+
+    public BudgetedRetryGatewayFilterFactory(RetryBudget retryBudget) {
+        super(Config.class);
+        this.retryBudget = retryBudget;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("retries");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+            if (route == null) {
+                return chain.filter(exchange);
+            }
+
+            retryBudget.onRequest();
+            if (!config.getMethods().contains(exchange.getRequest().getMethod())) {
+                return chain.filter(exchange);
+            }
+            return attempt(exchange, chain, config, route.getId(), 0);
+        }, ORDER);
+    }
+
+    private Mono<Void> attempt(ServerWebExchange exchange, GatewayFilterChain chain, Config config,
+                               String routeId, int retries) {
+        return chain.filter(exchange)
+                .then(Mono.fromSupplier(Optional::<Throwable>empty))
+                .onErrorResume(error -> Mono.just(Optional.of(error)))
+                .flatMap(error -> {
+                    if (!retryable(exchange.getResponse(), error, config)
+                            || retries >= config.getRetries()
+                            || !retryBudget.tryRetry(routeId)) {
+                        return error.<Mono<Void>>map(Mono::error).orElseGet(Mono::empty);
+                    }
+
+                    reset(exchange);
+                    return Mono.delay(backoff(config, retries))
+                            .then(attempt(exchange, chain, config, routeId, retries + 1));
+                });
+    }
+
+    private static boolean retryable(ServerHttpResponse response, Optional<Throwable> error, Config config) {
+        if (response.isCommitted()) {
+            return false;
+        }
+        if (error.isPresent()) {
+            return error.get() instanceof IOException;
+        }
+        HttpStatusCode status = response.getStatusCode();
+        return status != null && config.getStatuses().contains(status.value());
+    }
+
+    /**
+     * Deja el exchange como antes del intento, apuntando la instancia que fallo para que el
+     * balanceador elija otra. La respuesta descartada no se ha leido: se cierra su conexion en
+     * lugar de devolverla al pool.
+     */
+    private static void reset(ServerWebExchange exchange) {
+        Response<ServiceInstance> lbResponse = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (lbResponse != null && lbResponse.hasServer()) {
+            PeakEwmaLoadBalancer.markTried(exchange.getAttributes(), lbResponse.getServer());
+        }
+
+        Connection connection = exchange.getAttribute(CLIENT_RESPONSE_CONN_ATTR);
+        if (connection != null) {
+            connection.dispose();
+        }
+        ServerWebExchangeUtils.reset(exchange);
+        exchange.getAttributes().remove(CLIENT_RESPONSE_CONN_ATTR);
+        exchange.getAttributes().remove(CLIENT_RESPONSE_ATTR);
+        exchange.getResponse().setStatusCode(null);
+    }
+
+    /**
+     * Full jitter: al azar entre 0 y backoff * 2^retries (como mucho maxBackoff), para que
+     * los reintentos de muchas peticiones que fallaron a la vez no lleguen juntos.
+     */
+    private static Duration backoff(Config config, int retries) {
+        long cap = Math.min(config.getMaxBackoff().toMillis(), config.getBackoff().toMillis() << Math.min(retries, 20));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(cap + 1));
+    }
+
+    @Data
+    public static class Config {
+
+        private int retries = 2;
+        private List<HttpMethod> methods = new ArrayList<>(List.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS));
+        private List<Integer> statuses = new ArrayList<>(List.of(502, 503, 504));
+        private Duration backoff = Duration.ofMillis(25);
+        private Duration maxBackoff = Duration.ofMillis(500);
+    }
+}
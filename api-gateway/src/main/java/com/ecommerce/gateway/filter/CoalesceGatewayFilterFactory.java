@@ -0,0 +1,201 @@
+package com.ecommerce.gateway.filter;
+
+import com.ecommerce.gateway.cache.CachedResponse;
+import com.ecommerce.gateway.coalescing.CoalescingResult;
+import com.ecommerce.gateway.coalescing.RequestCoalescer;
+import com.ecommerce.gateway.coalescing.SharedResponse;
+import lombok.Data;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Agrupa GETs identicos concurrentes (single-flight). Se activa por ruta en application.yml,
+ * despues de EdgeCache si la ruta la tiene:
+ *
+ * <pre>
+ * filters:
+ *   - name: Coalesce
+ *     args:
+ *       varyHeaders: Accept, Accept-Encoding, Accept-Language
+ *       maxFollowers: 1000
+ *       maxWait: 2s
+ * </pre>
+ *
+ * Dos peticiones son identicas si coinciden ruta, path, query, las cabeceras de varyHeaders
+ * y las condicionales (If-None-Match, If-Modified-Since). Solo la primera (lider) va al
+ * servicio; su cuerpo se lee una vez y se reparte a las demas (seguidores).
+ *
+ * Nunca se agrupan peticiones con Authorization o Cookie, y un seguidor va al servicio por
+ * su cuenta si la respuesta del lider no es compartible (SharedResponse.isShareable), si su
+ * Vary nombra cabeceras en las que difieren, si el cuerpo no cabe en max-body-kb o si no
+ * llega en maxWait. Pasados maxFollowers, las peticiones van directamente al servicio.
+ *
+ * Como EdgeCache, se ejecuta antes que NettyWriteResponseFilter para leer el cuerpo.
+ */
+@Component
+public class CoalesceGatewayFilterFactory extends AbstractGatewayFilterFactory<CoalesceGatewayFilterFactory.Config> {
+
+    private static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    private static final List<String> CONDITIONAL_HEADERS = List.of(
+            HttpHeaders.IF_NONE_MATCH, HttpHeaders.IF_MODIFIED_SINCE);
+
+    private final RequestCoalescer coalescer;
+
+    public CoalesceGatewayFilterFactory(RequestCoalescer coalescer) {
+        super(Config.class);
+        this.coalescer = coalescer;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("maxFollowers", "maxWait");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new OrderedGatewayFilter((exchange, chain) -> filter(exchange, chain, config), ORDER);
+    }
+
+    private Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain, Config config) {
+        ServerHttpRequest request = exchange.getRequest();
+        HttpHeaders requestHeaders = request.getHeaders();
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (!coalescer.isEnabled() || request.getMethod() != HttpMethod.GET || route == null
+                || requestHeaders.containsKey(HttpHeaders.AUTHORIZATION)
+                || requestHeaders.containsKey(HttpHeaders.COOKIE)) {
+            return chain.filter(exchange);
+        }
+
+        String routeId = route.getId();
+        String key = coalescingKey(routeId, request.getURI(), requestHeaders, config.getVaryHeaders());
+        RequestCoalescer.Membership membership = coalescer.join(key);
+        RequestCoalescer.Flight flight = membership.flight();
+
+        if (membership.leader()) {
+            coalescer.record(routeId, CoalescingResult.LEADER);
+            LeaderResponse leaderResponse = new LeaderResponse(exchange.getResponse(), key, flight, requestHeaders);
+            return chain.filter(exchange.mutate().response(leaderResponse).build())
+                    .doFinally(signal -> coalescer.complete(key, flight, null));
+        }
+
+        if (!flight.tryFollow(config.getMaxFollowers())) {
+            coalescer.record(routeId, CoalescingResult.OVERFLOW);
+            return chain.filter(exchange);
+        }
+
+        return flight.response(config.getMaxWait())
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(shared -> {
+                    if (shared.isPresent() && shared.get().matchesVary(requestHeaders)) {
+                        coalescer.record(routeId, CoalescingResult.FOLLOWER);
+                        return write(exchange.getResponse(), shared.get());
+                    }
+                    coalescer.record(routeId, CoalescingResult.FALLBACK);
+                    return chain.filter(exchange);
+                });
+    }
+
+    private static Mono<Void> write(ServerHttpResponse response, SharedResponse shared) {
+        HttpHeaders headers = response.getHeaders();
+        shared.headers().forEach((name, values) -> {
+            if (!headers.containsKey(name)) {
+                headers.put(name, values);
+            }
+        });
+        response.setStatusCode(HttpStatusCode.valueOf(shared.status()));
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(shared.body())));
+    }
+
+    private static String coalescingKey(String routeId, URI uri, HttpHeaders headers, List<String> varyHeaders) {
+        StringBuilder key = new StringBuilder(routeId).append(' ').append(uri.getRawPath());
+        if (uri.getRawQuery() != null) {
+            key.append('?').append(uri.getRawQuery());
+        }
+        appendHeaders(key, headers, varyHeaders);
+        appendHeaders(key, headers, CONDITIONAL_HEADERS);
+        return key.toString();
+    }
+
+    private static void appendHeaders(StringBuilder key, HttpHeaders headers, List<String> names) {
+        for (String name : names) {
+            List<String> values = headers.get(name);
+            if (values != null) {
+                key.append('\n').append(name).append(':').append(String.join(",", values));
+            }
+        }
+    }
+
+    /**
+     * Respuesta del lider: lee el cuerpo una vez, lo entrega a los seguidores y lo escribe
+     * al cliente. Si no es compartible, los seguidores van al servicio.
+     */
+    private class LeaderResponse extends ServerHttpResponseDecorator {
+
+        private final String key;
+        private final RequestCoalescer.Flight flight;
+        private final HttpHeaders requestHeaders;
+
+        private LeaderResponse(ServerHttpResponse delegate, String key, RequestCoalescer.Flight flight,
+                               HttpHeaders requestHeaders) {
+            super(delegate);
+            this.key = key;
+            this.flight = flight;
+            this.requestHeaders = requestHeaders;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            long contentLength = getHeaders().getContentLength();
+            if (!SharedResponse.isShareable(getHeaders())
+                    || contentLength <= 0 || contentLength > coalescer.maxBodyBytes()) {
+                coalescer.complete(key, flight, null);
+                return super.writeWith(body);
+            }
+
+            HttpStatusCode statusCode = getStatusCode();
+            int status = statusCode == null ? 200 : statusCode.value();
+            return DataBufferUtils.join(body).flatMap(buffer -> {
+                byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+                DataBufferUtils.release(buffer);
+
+                coalescer.complete(key, flight, new SharedResponse(
+                        status, CachedResponse.shareableHeaders(getHeaders()), bytes, requestHeaders));
+                return getDelegate().writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            });
+        }
+    }
+
+    @Data
+    public static class Config {
+
+        private List<String> varyHeaders = List.of(
+                HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING, HttpHeaders.ACCEPT_LANGUAGE);
+        private int maxFollowers = 1000;
+        private Duration maxWait = Duration.ofSeconds(2);
+    }
+}
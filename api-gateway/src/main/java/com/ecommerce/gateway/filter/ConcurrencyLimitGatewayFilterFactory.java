@@ -0,0 +1,101 @@
+package com.ecommerce.gateway.filter;
+
+import com.ecommerce.gateway.concurrency.ConcurrencyLimiterRegistry;
+import lombok.Data;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.List;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Limite de concurrencia adaptativo por ruta (bulkhead). Se activa por ruta en application.yml:
+ *
+ * <pre>
+ * filters:
+ *   - name: ConcurrencyLimit
+ *     args:
+ *       initialLimit: 20
+ *       minLimit: 4
+ *       maxLimit: 200
+ * </pre>
+ *
+ * Cada ruta tiene su GradientLimit: si sus peticiones en curso llegan al limite estimado, las
+ * nuevas se rechazan en el acto con 503 y Retry-After, en lugar de esperar en el pool de
+ * conexiones de reactor-netty hasta agotar el timeout. La latencia medida es hasta las
+ * cabeceras de la respuesta del servicio; un error, 503 o 504 del servicio cuenta como drop.
+ */
+@Component
+public class ConcurrencyLimitGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<ConcurrencyLimitGatewayFilterFactory.Config> {
+
+    public static final String LIMITED_HEADER = "X-Concurrency-Limited";
+
+    private final ConcurrencyLimiterRegistry limiterRegistry;
+
+    public ConcurrencyLimitGatewayFilterFactory(ConcurrencyLimiterRegistry limiterRegistry) {
+        super(Config.class);
+        this.limiterRegistry = limiterRegistry;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("initialLimit", "minLimit", "maxLimit");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+            if (route == null) {
+                return chain.filter(exchange);
+            }
+
+            ConcurrencyLimiterRegistry.RouteLimiter limiter = limiterRegistry.limiter(
+                    route.getId(), config.getInitialLimit(), config.getMinLimit(), config.getMaxLimit());
+            if (!limiter.limit().tryAcquire()) {
+                limiter.rejected().increment();
+                return reject(exchange.getResponse());
+            }
+
+            long start = System.nanoTime();
+            return chain.filter(exchange)
+                    .doFinally(signal -> limiter.limit().release(
+                            System.nanoTime() - start, dropped(exchange, signal), signal != SignalType.CANCEL));
+        };
+    }
+
+    private static Mono<Void> reject(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set("Retry-After", "1");
+        response.getHeaders().set(LIMITED_HEADER, "true");
+        return response.setComplete();
+    }
+
+    private static boolean dropped(ServerWebExchange exchange, SignalType signal) {
+        if (signal == SignalType.ON_ERROR) {
+            return true;
+        }
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        return status != null
+                && (status.value() == HttpStatus.SERVICE_UNAVAILABLE.value()
+                || status.value() == HttpStatus.GATEWAY_TIMEOUT.value());
+    }
+
+    @Data
+    public static class Config {
+
+        private int initialLimit = 20;
+        private int minLimit = 4;
+        private int maxLimit = 200;
+    }
+}
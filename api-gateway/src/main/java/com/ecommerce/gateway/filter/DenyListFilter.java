@@ -0,0 +1,68 @@
+package com.ecommerce.gateway.filter;
+
+import com.ecommerce.gateway.deny.DenyList;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Responde 403 a las rutas de DenyList sin resolver instancia en Eureka ni abrir conexion con
+ * ningun servicio. Sustituye a la antigua ruta block-user-internal (SetStatus=403), que
+ * reenviaba la peticion a USER-SERVICE y solo cambiaba el codigo de la respuesta.
+ *
+ * Cabeceras y cuerpo se construyen una vez: el cuerpo no lleva timestamp ni path.
+ *
+ * Va justo despues de AccessLogFilter, para que los rechazos queden en el access log y en
+ * las metricas por ruta, y antes del descarte por sobrecarga: rechazar es mas barato.
+ */
+@Component
+public class DenyListFilter implements GlobalFilter, Ordered {
+
+    public static final String BLOCKED_HEADER = "X-Internal-Blocked";
+
+    private static final byte[] BODY =
+            "{\"status\":403,\"error\":\"Forbidden\",\"message\":\"Acceso denegado\"}"
+                    .getBytes(StandardCharsets.UTF_8);
+    private static final HttpHeaders HEADERS = forbiddenHeaders();
+
+    private final DenyList denyList;
+
+    public DenyListFilter(DenyList denyList) {
+        this.denyList = denyList;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!denyList.denies(exchange.getRequest().getPath().pathWithinApplication())) {
+            return chain.filter(exchange);
+        }
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.FORBIDDEN);
+        response.getHeaders().putAll(HEADERS);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(BODY)));
+    }
+
+    private static HttpHeaders forbiddenHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setContentLength(BODY.length);
+        headers.setCacheControl("no-store");
+        headers.set(BLOCKED_HEADER, "true");
+        return HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 1;
+    }
+}
@@ -0,0 +1,372 @@
+package com.ecommerce.gateway.filter;
+
+import com.ecommerce.gateway.cache.CacheDirectives;
+import com.ecommerce.gateway.cache.CacheResult;
+import com.ecommerce.gateway.cache.CacheRevalidator;
+import com.ecommerce.gateway.cache.CacheSettings;
+import com.ecommerce.gateway.cache.CachedResponse;
+import com.ecommerce.gateway.cache.EdgeResponseStore;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Cache de respuestas GET en el Gateway. Se activa por ruta en application.yml:
+ *
+ * <pre>
+ * filters:
+ *   - name: EdgeCache
+ *     args:
+ *       ttl: 60s                   # si el servicio no manda max-age / s-maxage
+ *       staleWhileRevalidate: 30s  # si no manda stale-while-revalidate
+ *       staleIfError: 5m           # si no manda stale-if-error
+ * </pre>
+ *
+ * - Fresca: se responde desde la cache sin ir al servicio (ni al balanceador).
+ * - Caducada dentro de stale-while-revalidate: se responde desde la cache y CacheRevalidator
+ *   la pide de nuevo en segundo plano.
+ * - Caducada con ETag: se reenvia con el If-None-Match del Gateway; un 304 renueva la entrada
+ *   y el cliente recibe el cuerpo guardado (o su propio 304 si su If-None-Match coincide).
+ * - Si el servicio falla o responde 5xx dentro de stale-if-error, se sirve la caducada.
+ *
+ * Una escritura (POST, PUT, PATCH, DELETE) por una ruta con EdgeCache que responde 2xx/3xx
+ * quita de la cache, en todas las rutas, el recurso escrito y los listados de su coleccion
+ * (ver invalidateAfterWrite).
+ *
+ * Las respuestas privadas no se comparten: ver CachedResponse.isStorable (no-store, private,
+ * Set-Cookie, Authorization sin public/s-maxage) y matchesVary. La cabecera X-Cache indica
+ * el resultado (CacheResult).
+ *
+ * Se ejecuta antes que NettyWriteResponseFilter para poder leer el cuerpo de la respuesta
+ * del servicio (igual que ModifyResponseBody).
+ */
+@Slf4j
+@Component
+public class EdgeCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<EdgeCacheGatewayFilterFactory.Config> {
+
+    public static final String CACHE_HEADER = "X-Cache";
+
+    private static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+
+    private static final Set<HttpMethod> UNSAFE_METHODS =
+            Set.of(HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH, HttpMethod.DELETE);
+
+    private final EdgeResponseStore store;
+    private final CacheRevalidator revalidator;
+
+    public EdgeCacheGatewayFilterFactory(EdgeResponseStore store, CacheRevalidator revalidator) {
+        super(Config.class);
+        this.store = store;
+        this.revalidator = revalidator;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("ttl", "staleWhileRevalidate", "staleIfError");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        CacheSettings settings = new CacheSettings(config.getTtl(), config.getStaleWhileRevalidate(), config.getStaleIfError());
+        return new OrderedGatewayFilter((exchange, chain) -> filter(exchange, chain, settings), ORDER);
+    }
+
+    private Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain, CacheSettings settings) {
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (!store.isEnabled() || route == null) {
+            return chain.filter(exchange);
+        }
+        if (UNSAFE_METHODS.contains(request.getMethod())) {
+            ServerHttpResponse response = exchange.getResponse();
+            String path = request.getURI().getRawPath();
+            response.beforeCommit(() -> {
+                HttpStatusCode status = response.getStatusCode();
+                if (status != null && (status.is2xxSuccessful() || status.is3xxRedirection())) {
+                    invalidateAfterWrite(request.getMethod(), path);
+                }
+                return Mono.empty();
+            });
+            return chain.filter(exchange);
+        }
+        if (request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+
+        String routeId = route.getId();
+        HttpHeaders requestHeaders = request.getHeaders();
+        CacheDirectives requestDirectives = CacheDirectives.parse(requestHeaders.getCacheControl());
+        if (requestDirectives.noStore()) {
+            store.record(routeId, CacheResult.BYPASS);
+            return chain.filter(exchange);
+        }
+
+        String key = cacheKey(routeId, request.getURI());
+        long now = System.currentTimeMillis();
+        CachedResponse cached = store.get(key, now);
+        if (cached != null && !cached.matchesVary(requestHeaders)) {
+            cached = null;
+        }
+
+        // Con no-cache del cliente la entrada solo sirve para revalidar
+        if (cached != null && !requestDirectives.noCache()) {
+            if (cached.isFresh(now)) {
+                return serve(exchange.getResponse(), request, routeId, cached, now, CacheResult.HIT);
+            }
+            if (cached.canServeWhileRevalidating(now)) {
+                revalidator.revalidate(key, cached, settings);
+                return serve(exchange.getResponse(), request, routeId, cached, now, CacheResult.STALE);
+            }
+        }
+
+        return forward(exchange, chain, new Lookup(routeId, key, cached, settings));
+    }
+
+    private Mono<Void> forward(ServerWebExchange exchange, GatewayFilterChain chain, Lookup lookup) {
+        ServerHttpRequest request = exchange.getRequest();
+        ServerHttpResponse response = exchange.getResponse();
+        CachedResponse cached = lookup.cached();
+
+        // Cabeceras ya puestas por el Gateway (CORS): se conservan si se sirve desde la cache
+        HttpHeaders gatewayHeaders = new HttpHeaders();
+        gatewayHeaders.putAll(response.getHeaders());
+
+        boolean revalidating = cached != null && cached.eTag() != null;
+        ServerHttpRequest upstreamRequest = revalidating
+                ? request.mutate().headers(headers -> headers.setIfNoneMatch(cached.eTag())).build()
+                : request;
+        CachingResponse cachingResponse = new CachingResponse(exchange, lookup, revalidating, gatewayHeaders);
+
+        return chain.filter(exchange.mutate().request(upstreamRequest).response(cachingResponse).build())
+                .onErrorResume(error -> {
+                    if (cached == null || response.isCommitted() || !cached.canServeOnError(System.currentTimeMillis())) {
+                        return Mono.error(error);
+                    }
+                    log.warn("Servicio no disponible para {}, se sirve la respuesta cacheada: {}",
+                            request.getPath(), error.getMessage());
+                    resetHeaders(response, gatewayHeaders);
+                    return serve(response, request, lookup.routeId(), cached, System.currentTimeMillis(),
+                            CacheResult.STALE_IF_ERROR);
+                });
+    }
+
+    private Mono<Void> serve(ServerHttpResponse response, ServerHttpRequest request, String routeId,
+                             CachedResponse cached, long now, CacheResult result) {
+        store.record(routeId, result);
+
+        HttpHeaders headers = response.getHeaders();
+        cached.headers().forEach((name, values) -> {
+            if (!headers.containsKey(name)) {
+                headers.put(name, values);
+            }
+        });
+        headers.set(HttpHeaders.AGE, Long.toString(cached.ageSeconds(now)));
+        headers.set(CACHE_HEADER, result.name());
+
+        if (cached.eTag() != null && request.getHeaders().getIfNoneMatch().contains(cached.eTag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            return response.setComplete();
+        }
+
+        response.setStatusCode(HttpStatusCode.valueOf(cached.status()));
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private static void resetHeaders(ServerHttpResponse response, HttpHeaders gatewayHeaders) {
+        response.getHeaders().clear();
+        response.getHeaders().putAll(gatewayHeaders);
+    }
+
+    /**
+     * Quita lo que la escritura ha podido cambiar. La coleccion es el path hasta el primer
+     * segmento numerico (el id): /api/users/5/roles/3 escribe el usuario 5 de /api/users.
+     *
+     * - Con id: el recurso y lo que cuelga de el (/api/users/5, /api/users/5/...) y todo lo
+     *   de la coleccion que no sea otro id: listados, busquedas y accesos por otra clave
+     *   (/api/users?page=1, /api/users/active, /api/users/email/...).
+     * - POST sin id (alta): lo mismo salvo los recursos por id, que no cambian.
+     * - PUT, PATCH o DELETE sin id (operaciones en bloque, /api/users/status): toda la
+     *   coleccion del padre.
+     */
+    private void invalidateAfterWrite(HttpMethod method, String path) {
+        String[] segments = path.split("/");
+        int idIndex = -1;
+        for (int i = 1; i < segments.length && idIndex < 0; i++) {
+            if (isId(segments[i])) {
+                idIndex = i;
+            }
+        }
+
+        String collection;
+        Predicate<String> affected;
+        if (idIndex > 0) {
+            collection = String.join("/", Arrays.copyOfRange(segments, 0, idIndex));
+            String id = segments[idIndex];
+            affected = cachedPath -> {
+                String next = firstSegment(cachedPath.substring(collection.length()));
+                return next.equals(id) || !isId(next);
+            };
+        } else if (method == HttpMethod.POST) {
+            collection = path;
+            affected = cachedPath -> !isId(firstSegment(cachedPath.substring(collection.length())));
+        } else {
+            int parent = path.lastIndexOf('/');
+            collection = parent > 0 ? path.substring(0, parent) : path;
+            affected = cachedPath -> true;
+        }
+
+        if (collection.isEmpty() || collection.equals("/")) {
+            return;
+        }
+        int removed = store.removeUnder(collection, affected);
+        if (removed > 0) {
+            log.debug("{} {}: {} respuesta(s) cacheada(s) invalidada(s)", method, path, removed);
+        }
+    }
+
+    private static String firstSegment(String rest) {
+        int start = rest.startsWith("/") ? 1 : 0;
+        int end = rest.indexOf('/', start);
+        return rest.substring(start, end < 0 ? rest.length() : end);
+    }
+
+    private static boolean isId(String segment) {
+        return !segment.isEmpty() && segment.chars().allMatch(Character::isDigit);
+    }
+
+    private static String cacheKey(String routeId, URI uri) {
+        String query = uri.getRawQuery();
+        return routeId + ' ' + uri.getRawPath() + (query == null ? "" : '?' + query);
+    }
+
+    /**
+     * URL para revalidar fuera de la ruta: la del servicio ya con los filtros de la ruta
+     * aplicados (StripPrefix), y con el id del servicio en lugar de la instancia si es lb://.
+     */
+    private static String revalidationUri(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        URI requestUrl = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+        if (route == null || requestUrl == null) {
+            return null;
+        }
+
+        URI routeUri = route.getUri();
+        String base = "lb".equals(routeUri.getScheme())
+                ? "http://" + routeUri.getHost()
+                : requestUrl.getScheme() + "://" + requestUrl.getRawAuthority();
+        String query = requestUrl.getRawQuery();
+        return base + requestUrl.getRawPath() + (query == null ? "" : '?' + query);
+    }
+
+    private static Mono<Void> discard(Publisher<? extends DataBuffer> body) {
+        return Flux.from(body).doOnNext(DataBufferUtils::release).then();
+    }
+
+    private record Lookup(String routeId, String key, CachedResponse cached, CacheSettings settings) {
+    }
+
+    /**
+     * Respuesta del servicio: la guarda si es cacheable, o la sustituye por la cacheada
+     * si es un 304 a la revalidacion del Gateway o un 5xx dentro de stale-if-error.
+     */
+    private class CachingResponse extends ServerHttpResponseDecorator {
+
+        private final ServerWebExchange exchange;
+        private final Lookup lookup;
+        private final boolean revalidating;
+        private final HttpHeaders gatewayHeaders;
+
+        private CachingResponse(ServerWebExchange exchange, Lookup lookup, boolean revalidating,
+                                HttpHeaders gatewayHeaders) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+            this.lookup = lookup;
+            this.revalidating = revalidating;
+            this.gatewayHeaders = gatewayHeaders;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpStatusCode statusCode = getStatusCode();
+            int status = statusCode == null ? 200 : statusCode.value();
+            long now = System.currentTimeMillis();
+            CachedResponse cached = lookup.cached();
+            ServerHttpRequest request = exchange.getRequest();
+
+            if (revalidating && status == HttpStatus.NOT_MODIFIED.value()) {
+                CachedResponse refreshed = cached.revalidated(getHeaders(), lookup.settings(), now);
+                store.put(lookup.key(), refreshed);
+                resetHeaders(getDelegate(), gatewayHeaders);
+                return discard(body).then(serve(getDelegate(), request, lookup.routeId(), refreshed, now,
+                        CacheResult.REVALIDATED));
+            }
+            if (cached != null && statusCode != null && statusCode.is5xxServerError() && cached.canServeOnError(now)) {
+                resetHeaders(getDelegate(), gatewayHeaders);
+                return discard(body).then(serve(getDelegate(), request, lookup.routeId(), cached, now,
+                        CacheResult.STALE_IF_ERROR));
+            }
+
+            store.record(lookup.routeId(), CacheResult.MISS);
+            getHeaders().set(CACHE_HEADER, CacheResult.MISS.name());
+
+            long contentLength = getHeaders().getContentLength();
+            boolean authorized = request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION);
+            if (!CachedResponse.isStorable(status, getHeaders(), authorized)
+                    || contentLength <= 0 || contentLength > store.maxEntryBytes()) {
+                if (cached != null && status < 500) {
+                    // El recurso cambio y ya no es cacheable (o no existe): la entrada esta obsoleta
+                    store.remove(lookup.key());
+                }
+                return super.writeWith(body);
+            }
+
+            return DataBufferUtils.join(body).flatMap(buffer -> {
+                byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+                DataBufferUtils.release(buffer);
+
+                store.put(lookup.key(), CachedResponse.create(getHeaders(), bytes, request.getHeaders(),
+                        revalidationUri(exchange), lookup.settings(), now));
+                return getDelegate().writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            });
+        }
+    }
+
+    @Data
+    public static class Config {
+
+        private Duration ttl = Duration.ofSeconds(30);
+        private Duration staleWhileRevalidate = Duration.ZERO;
+        private Duration staleIfError = Duration.ZERO;
+    }
+}
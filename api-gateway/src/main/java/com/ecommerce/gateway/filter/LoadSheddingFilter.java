@@ -0,0 +1,71 @@
+package com.ecommerce.gateway.filter;
+
+import com.ecommerce.gateway.shedding.OverloadDetector;
+import com.ecommerce.gateway.shedding.Priority;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Descarte por prioridad bajo sobrecarga. La prioridad es la de la metadata de la ruta en
+ * application.yml (priority: CRITICAL | HIGH | NORMAL | LOW, por defecto NORMAL); si
+ * OverloadDetector indica que esa clase se esta descartando, se responde 503 en el acto, sin
+ * tocar cache, balanceador ni servicio.
+ *
+ * Las rutas con response-timeout fijo en la metadata (p. ej. la importacion masiva, que tarda
+ * minutos por diseño) cuentan como peticiones en curso pero no aportan muestras de latencia:
+ * una sola respuesta suya dispararia la media del intervalo sin que haya sobrecarga.
+ *
+ * Va despues de AccessLogFilter, para que los descartes queden en el access log y en las
+ * metricas por ruta, y de DenyListFilter.
+ */
+@Component
+public class LoadSheddingFilter implements GlobalFilter, Ordered {
+
+    public static final String PRIORITY_METADATA = "priority";
+    public static final String SHED_HEADER = "X-Load-Shed";
+
+    private final OverloadDetector overloadDetector;
+
+    public LoadSheddingFilter(OverloadDetector overloadDetector) {
+        this.overloadDetector = overloadDetector;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        Priority priority = Priority.fromMetadata(route == null ? null : route.getMetadata().get(PRIORITY_METADATA));
+
+        if (overloadDetector.shouldShed(priority)) {
+            overloadDetector.recordShed(priority);
+            return shed(exchange.getResponse());
+        }
+
+        boolean latencySample = route == null || !route.getMetadata().containsKey(RESPONSE_TIMEOUT_ATTR);
+        overloadDetector.onStart();
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> overloadDetector.onComplete(System.nanoTime() - start, latencySample));
+    }
+
+    private static Mono<Void> shed(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set("Retry-After", "1");
+        response.getHeaders().set(SHED_HEADER, "true");
+        return response.setComplete();
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 2;
+    }
+}
@@ -0,0 +1,63 @@
+package com.ecommerce.gateway.filter;
+
+import com.ecommerce.gateway.activity.ActivityReporter;
+import com.ecommerce.gateway.ratelimit.JwtSubjectResolver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Cabecera de identidad (X-User-Email) hacia los servicios: se descarta la que envie el
+ * cliente y, si la peticion trae un access token valido, se pone su subject. User Service
+ * la usa como actor de la auditoria, asi que no puede venir del cliente.
+ *
+ * Es el punto por el que pasa toda peticion autenticada: aqui se apunta tambien la actividad
+ * del usuario para Auth Service (ActivityReporter).
+ */
+@Component
+public class UserIdentityFilter implements GlobalFilter, Ordered {
+
+    private final JwtSubjectResolver jwtSubjectResolver;
+    private final ActivityReporter activityReporter;
+    private final String identityHeader;
+
+    public UserIdentityFilter(
+            JwtSubjectResolver jwtSubjectResolver,
+            ActivityReporter activityReporter,
+            @Value("${gateway.identity.header:X-User-Email}") String identityHeader) {
+        this.jwtSubjectResolver = jwtSubjectResolver;
+        this.activityReporter = activityReporter;
+        this.identityHeader = identityHeader;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String subject = jwtSubjectResolver.subject(request.getHeaders());
+        if (subject == null && !request.getHeaders().containsKey(identityHeader)) {
+            return chain.filter(exchange);
+        }
+        activityReporter.recordSeen(subject);
+
+        ServerHttpRequest mutated = request.mutate()
+                .headers(headers -> {
+                    headers.remove(identityHeader);
+                    if (subject != null) {
+                        headers.set(identityHeader, subject);
+                    }
+                })
+                .build();
+        return chain.filter(exchange.mutate().request(mutated).build());
+    }
+
+    @Override
+    public int getOrder() {
+        // Despues del descarte por sobrecarga: no se verifica el token de lo que se rechaza
+        return Ordered.HIGHEST_PRECEDENCE + 3;
+    }
+}
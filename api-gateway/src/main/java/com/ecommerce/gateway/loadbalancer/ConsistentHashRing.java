@@ -0,0 +1,142 @@
+package com.ecommerce.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Anillo de hash consistente de las instancias de un servicio, para PeakEwmaLoadBalancer.
+ *
+ * Cada instancia ocupa virtualNodes puntos del anillo, calculados a partir de host:port (y no
+ * de su posicion en la lista de Eureka). Una clave va a la instancia del primer punto en
+ * sentido horario desde su hash. Al anadir una instancia solo se mueven las claves que caen
+ * en sus nuevos arcos (1/n del total); al quitarla, solo las suyas.
+ *
+ * Inmutable: si cambian las instancias se construye otro.
+ */
+final class ConsistentHashRing {
+
+    private final long[] points;
+    private final int[] owners;
+    private final ServiceInstance[] instances;
+    private final Set<String> addresses;
+
+    private ConsistentHashRing(long[] points, int[] owners, ServiceInstance[] instances, Set<String> addresses) {
+        this.points = points;
+        this.owners = owners;
+        this.instances = instances;
+        this.addresses = addresses;
+    }
+
+    static ConsistentHashRing build(List<ServiceInstance> instances, int virtualNodes) {
+        int nodes = Math.max(virtualNodes, 1);
+        long[][] entries = new long[instances.size() * nodes][];
+        Set<String> addresses = new HashSet<>();
+        for (int i = 0; i < instances.size(); i++) {
+            String address = address(instances.get(i));
+            addresses.add(address);
+            for (int v = 0; v < nodes; v++) {
+                entries[i * nodes + v] = new long[] {hash(address + "#" + v), i};
+            }
+        }
+        Arrays.sort(entries, (a, b) -> Long.compare(a[0], b[0]));
+
+        long[] points = new long[entries.length];
+        int[] owners = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            points[i] = entries[i][0];
+            owners[i] = (int) entries[i][1];
+        }
+        return new ConsistentHashRing(points, owners, instances.toArray(new ServiceInstance[0]), addresses);
+    }
+
+    /**
+     * true si el anillo se construyo con las mismas instancias (mismos host:port).
+     */
+    boolean hasInstances(List<ServiceInstance> candidates) {
+        if (candidates.size() != instances.length) {
+            return false;
+        }
+        for (ServiceInstance candidate : candidates) {
+            if (!addresses.contains(address(candidate))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Instancia a la que corresponde la clave, sin tener en cuenta carga ni exclusiones.
+     */
+    ServiceInstance owner(String key) {
+        return points.length == 0 ? null : instances[owners[start(key)]];
+    }
+
+    /**
+     * Recorre el anillo desde la clave y devuelve la primera instancia que cumple accept,
+     * o null si no la cumple ninguna. Cada instancia se evalua una sola vez.
+     */
+    ServiceInstance choose(String key, Predicate<ServiceInstance> accept) {
+        if (points.length == 0) {
+            return null;
+        }
+
+        boolean[] visited = new boolean[instances.length];
+        int remaining = instances.length;
+        int index = start(key);
+        for (int step = 0; step < points.length && remaining > 0; step++) {
+            int owner = owners[(index + step) % points.length];
+            if (visited[owner]) {
+                continue;
+            }
+            visited[owner] = true;
+            remaining--;
+            if (accept.test(instances[owner])) {
+                return instances[owner];
+            }
+        }
+        return null;
+    }
+
+    int size() {
+        return instances.length;
+    }
+
+    /**
+     * Primer punto con hash mayor o igual que el de la clave (o el primero, dando la vuelta).
+     */
+    private int start(String key) {
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return index == points.length ? 0 : index;
+    }
+
+    static String address(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+
+    /**
+     * FNV-1a de 64 bits con el mezclado final de MurmurHash3: String.hashCode (32 bits y
+     * poca dispersion en claves parecidas) agruparia los puntos del anillo.
+     */
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
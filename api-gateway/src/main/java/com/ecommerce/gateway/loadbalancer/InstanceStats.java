@@ -0,0 +1,122 @@
+package com.ecommerce.gateway.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Estado de una instancia para PeakEwmaLoadBalancer: peticiones en curso, latencia
+ * (peak EWMA) y tasa de errores (EWMA por peticion).
+ *
+ * La latencia es "peak EWMA" (como Finagle/Linkerd): una muestra mayor que la media la
+ * sustituye directamente, asi una instancia que empieza a ir lenta (pausa de GC) se penaliza
+ * en la primera respuesta; las muestras menores la bajan poco a poco. Ademas decae con el
+ * tiempo sin respuestas, para que una instancia que dejo de elegirse por lenta se vuelva a
+ * probar.
+ */
+final class InstanceStats {
+
+    private final String serviceId;
+    private final String instance;
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private double latencyNanos;
+    private long lastUpdateNanos;
+    private double errorRate;
+    private long ejectedUntilNanos;
+    private boolean ejected;
+    private volatile long lastUsedNanos;
+
+    InstanceStats(String serviceId, String instance, long nowNanos) {
+        this.serviceId = serviceId;
+        this.instance = instance;
+        this.lastUpdateNanos = nowNanos;
+        this.lastUsedNanos = nowNanos;
+    }
+
+    void start(long nowNanos) {
+        outstanding.incrementAndGet();
+        lastUsedNanos = nowNanos;
+    }
+
+    /**
+     * Registra el final de una peticion. Devuelve true si con ella la instancia queda excluida.
+     */
+    synchronized boolean complete(long nowNanos, long sampleNanos, Outcome outcome, double decayNanos,
+                                  double errorAlpha, double errorThreshold, long ejectionNanos) {
+        outstanding.decrementAndGet();
+        lastUsedNanos = nowNanos;
+        if (outcome == Outcome.CANCELLED) {
+            return false;
+        }
+
+        double weight = Math.exp(-Math.max(0, nowNanos - lastUpdateNanos) / decayNanos);
+        latencyNanos = sampleNanos > latencyNanos
+                ? sampleNanos
+                : latencyNanos * weight + sampleNanos * (1 - weight);
+        lastUpdateNanos = nowNanos;
+
+        errorRate = errorRate * (1 - errorAlpha) + (outcome == Outcome.FAILURE ? errorAlpha : 0);
+        if (!ejected && errorRate >= errorThreshold) {
+            ejected = true;
+            ejectedUntilNanos = nowNanos + ejectionNanos;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Excluida por errores. Al terminar la exclusion vuelve con la tasa de errores a cero.
+     */
+    synchronized boolean isEjected(long nowNanos) {
+        if (ejected && nowNanos >= ejectedUntilNanos) {
+            ejected = false;
+            errorRate = 0;
+        }
+        return ejected;
+    }
+
+    /**
+     * Coste de enviarle una peticion: latencia esperada por peticiones en curso + 1. Sin
+     * ninguna muestra aun, una penalizacion enorme si ya tiene peticiones en curso: recibe
+     * de una en una hasta tener su primera medida.
+     */
+    synchronized double cost(long nowNanos, double decayNanos) {
+        int pending = outstanding.get();
+        double latency = latencyNanos * Math.exp(-Math.max(0, nowNanos - lastUpdateNanos) / decayNanos);
+        if (latency == 0 && pending > 0) {
+            return Double.MAX_VALUE / 2 + pending;
+        }
+        return latency * (pending + 1);
+    }
+
+    synchronized double latencyMillis() {
+        return latencyNanos / 1_000_000;
+    }
+
+    synchronized double errorRate() {
+        return errorRate;
+    }
+
+    int outstanding() {
+        return outstanding.get();
+    }
+
+    long lastUsedNanos() {
+        return lastUsedNanos;
+    }
+
+    String serviceId() {
+        return serviceId;
+    }
+
+    String instance() {
+        return instance;
+    }
+
+    enum Outcome {
+        SUCCESS,
+        /** Error de conexion, timeout o 5xx. */
+        FAILURE,
+        /** El cliente cancelo: solo cuenta para las peticiones en curso. */
+        CANCELLED
+    }
+}
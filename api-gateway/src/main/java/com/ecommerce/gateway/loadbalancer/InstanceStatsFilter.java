@@ -0,0 +1,67 @@
+package com.ecommerce.gateway.loadbalancer;
+
+import com.ecommerce.gateway.filter.AdaptiveTimeoutGatewayFilterFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+
+/**
+ * Justo despues de elegir instancia (ReactiveLoadBalancerClientFilter) cuenta la peticion en
+ * curso y, al recibir la respuesta del servicio, registra en InstanceStatsRegistry el tiempo
+ * hasta las cabeceras y si fue un error (excepcion o 5xx).
+ *
+ * Con doFinally tambien se descuentan las peticiones canceladas por el cliente, que los
+ * LoadBalancerLifecycle no notifican. Una cancelacion por AdaptiveTimeout (TIMED_OUT_ATTR) es
+ * en cambio un fallo: se registra con el tiempo transcurrido, para que la instancia lenta
+ * suba de coste y cuente para su exclusion.
+ */
+@Component
+public class InstanceStatsFilter implements GlobalFilter, Ordered {
+
+    private final InstanceStatsRegistry statsRegistry;
+
+    public InstanceStatsFilter(InstanceStatsRegistry statsRegistry) {
+        this.statsRegistry = statsRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> lbResponse = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return chain.filter(exchange);
+        }
+
+        InstanceStats stats = statsRegistry.onStart(lbResponse.getServer());
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> statsRegistry.onComplete(stats, System.nanoTime() - start, outcome(exchange, signal)));
+    }
+
+    private static InstanceStats.Outcome outcome(ServerWebExchange exchange, SignalType signal) {
+        if (signal == SignalType.CANCEL) {
+            return Boolean.TRUE.equals(exchange.getAttribute(AdaptiveTimeoutGatewayFilterFactory.TIMED_OUT_ATTR))
+                    ? InstanceStats.Outcome.FAILURE
+                    : InstanceStats.Outcome.CANCELLED;
+        }
+        if (signal == SignalType.ON_ERROR) {
+            return InstanceStats.Outcome.FAILURE;
+        }
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        return status != null && status.is5xxServerError() ? InstanceStats.Outcome.FAILURE : InstanceStats.Outcome.SUCCESS;
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+}
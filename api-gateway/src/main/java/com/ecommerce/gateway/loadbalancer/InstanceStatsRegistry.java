@@ -0,0 +1,177 @@
+package com.ecommerce.gateway.loadbalancer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Estadisticas por instancia que usa PeakEwmaLoadBalancer, alimentadas por
+ * InstanceStatsFilter con cada respuesta de un servicio lb://.
+ *
+ * Una instancia cuya tasa de errores (EWMA con peso error-alpha por peticion) llega a
+ * error-threshold se excluye durante ejection-ms. Las instancias sin trafico durante
+ * idle-timeout-ms (p. ej. dadas de baja en Eureka) se olvidan.
+ *
+ * Metricas por instancia: gateway.lb.instance.latency (peak EWMA, ms),
+ * gateway.lb.instance.outstanding, gateway.lb.instance.error_rate; y gateway.lb.ejections{service}
+ * y gateway.lb.affinity.requests{service,result} (owner, spill o fallback, ver PeakEwmaLoadBalancer).
+ */
+@Slf4j
+@Component
+public class InstanceStatsRegistry {
+
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier clock;
+    private final double decayNanos;
+    private final double errorAlpha;
+    private final double errorThreshold;
+    private final long ejectionNanos;
+    private final long idleNanos;
+
+    private final ConcurrentHashMap<String, InstanceStats> stats = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, List<Meter>> metersByInstance = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Counter> affinityCounters = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService cleaner;
+
+    @Autowired
+    public InstanceStatsRegistry(
+            MeterRegistry meterRegistry,
+            @Value("${gateway.load-balancer.latency-decay-ms:10000}") long decayMillis,
+            @Value("${gateway.load-balancer.error-alpha:0.1}") double errorAlpha,
+            @Value("${gateway.load-balancer.error-threshold:0.5}") double errorThreshold,
+            @Value("${gateway.load-balancer.ejection-ms:30000}") long ejectionMillis,
+            @Value("${gateway.load-balancer.idle-timeout-ms:600000}") long idleTimeoutMillis) {
+        this(meterRegistry, decayMillis, errorAlpha, errorThreshold, ejectionMillis, idleTimeoutMillis, System::nanoTime);
+    }
+
+    InstanceStatsRegistry(MeterRegistry meterRegistry, long decayMillis, double errorAlpha, double errorThreshold,
+                          long ejectionMillis, long idleTimeoutMillis, LongSupplier clock) {
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.decayNanos = TimeUnit.MILLISECONDS.toNanos(decayMillis);
+        this.errorAlpha = errorAlpha;
+        this.errorThreshold = errorThreshold;
+        this.ejectionNanos = TimeUnit.MILLISECONDS.toNanos(ejectionMillis);
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+
+        this.cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lb-stats-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cleaner.scheduleWithFixedDelay(this::removeIdle, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Devuelve las estadisticas de la instancia, que se pasan despues a onComplete.
+     */
+    InstanceStats onStart(ServiceInstance instance) {
+        InstanceStats instanceStats = stats(instance);
+        instanceStats.start(clock.getAsLong());
+        return instanceStats;
+    }
+
+    void onComplete(InstanceStats instanceStats, long latencyNanos, InstanceStats.Outcome outcome) {
+        boolean ejected = instanceStats.complete(clock.getAsLong(), latencyNanos, outcome,
+                decayNanos, errorAlpha, errorThreshold, ejectionNanos);
+        if (ejected) {
+            log.warn("Instancia {} de {} excluida {} ms por tasa de errores {}",
+                    instanceStats.instance(), instanceStats.serviceId(),
+                    TimeUnit.NANOSECONDS.toMillis(ejectionNanos), String.format("%.2f", instanceStats.errorRate()));
+            Counter.builder("gateway.lb.ejections")
+                    .tag("service", instanceStats.serviceId())
+                    .description("Instancias excluidas del balanceo por tasa de errores")
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    double cost(ServiceInstance instance) {
+        return stats(instance).cost(clock.getAsLong(), decayNanos);
+    }
+
+    boolean isEjected(ServiceInstance instance) {
+        return stats(instance).isEjected(clock.getAsLong());
+    }
+
+    int outstanding(ServiceInstance instance) {
+        return stats(instance).outstanding();
+    }
+
+    void recordAffinity(String serviceId, String result) {
+        affinityCounters.computeIfAbsent(serviceId + "/" + result, key -> Counter.builder("gateway.lb.affinity.requests")
+                        .tag("service", String.valueOf(serviceId))
+                        .tag("result", result)
+                        .description("Peticiones con clave de afinidad por resultado: su instancia, otra por carga o P2C")
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    InstanceStats stats(ServiceInstance instance) {
+        String key = key(instance);
+        InstanceStats instanceStats = stats.get(key);
+        if (instanceStats == null) {
+            instanceStats = stats.computeIfAbsent(key, k -> createStats(k, instance));
+        }
+        return instanceStats;
+    }
+
+    private InstanceStats createStats(String key, ServiceInstance instance) {
+        String address = instance.getHost() + ":" + instance.getPort();
+        InstanceStats instanceStats = new InstanceStats(instance.getServiceId(), address, clock.getAsLong());
+
+        Tags tags = Tags.of("service", String.valueOf(instance.getServiceId()), "instance", address);
+        metersByInstance.put(key, List.of(
+                Gauge.builder("gateway.lb.instance.latency", instanceStats, InstanceStats::latencyMillis)
+                        .tags(tags)
+                        .description("Latencia peak EWMA de la instancia")
+                        .baseUnit("milliseconds")
+                        .register(meterRegistry),
+                Gauge.builder("gateway.lb.instance.outstanding", instanceStats, InstanceStats::outstanding)
+                        .tags(tags)
+                        .description("Peticiones en curso hacia la instancia")
+                        .register(meterRegistry),
+                Gauge.builder("gateway.lb.instance.error_rate", instanceStats, InstanceStats::errorRate)
+                        .tags(tags)
+                        .description("Tasa de errores EWMA de la instancia")
+                        .register(meterRegistry)));
+        return instanceStats;
+    }
+
+    private void removeIdle() {
+        long now = clock.getAsLong();
+        stats.forEach((key, instanceStats) -> {
+            if (instanceStats.outstanding() == 0 && now - instanceStats.lastUsedNanos() > idleNanos
+                    && stats.remove(key, instanceStats)) {
+                List<Meter> meters = metersByInstance.remove(key);
+                if (meters != null) {
+                    meters.forEach(meterRegistry::remove);
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cleaner.shutdownNow();
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getServiceId() + "/" + instance.getHost() + ":" + instance.getPort();
+    }
+}
@@ -0,0 +1,238 @@
+package com.ecommerce.gateway.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * Balanceador para las rutas lb:// que sustituye al round-robin de Spring Cloud LoadBalancer.
+ *
+ * Power of two choices: de las instancias que da Eureka (sin las excluidas por errores)
+ * toma dos al azar y elige la de menor coste, latencia peak EWMA x (peticiones en curso + 1)
+ * (ver InstanceStats). Una instancia lenta o en pausa de GC acumula peticiones en curso y
+ * latencia alta y deja de recibir su parte, sin el efecto rebaño de elegir siempre la mejor.
+ *
+ * Si todas las instancias estan excluidas, se eligen entre todas.
+ *
+ * Afinidad: si la peticion trae el atributo AFFINITY_KEY_ATTR (filtro AffinityKey de la
+ * ruta), se elige con un ConsistentHashRing para que las peticiones de una misma clave (un
+ * usuario) vayan siempre a la misma instancia y aprovechen su cache. Carga acotada
+ * (Mirrokni et al.): una instancia con load-factor veces la media de peticiones en curso, o
+ * excluida, se salta y la clave pasa a la siguiente del anillo. Si no queda ninguna, P2C.
+ *
+ * Reintentos: las instancias de TRIED_INSTANCES_ATTR (las que ya fallaron en esta peticion,
+ * ver markTried) se saltan tanto en el anillo como en P2C, para que el reintento no vuelva a
+ * la misma instancia aunque la clave de afinidad sea la misma. Si ya se han probado todas,
+ * se elige entre todas.
+ */
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    public static final String AFFINITY_KEY_ATTR = PeakEwmaLoadBalancer.class.getName() + ".affinityKey";
+    public static final String TRIED_INSTANCES_ATTR = PeakEwmaLoadBalancer.class.getName() + ".triedInstances";
+
+    static final int DEFAULT_VIRTUAL_NODES = 160;
+    static final double DEFAULT_LOAD_FACTOR = 1.25;
+
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+    private final String serviceId;
+    private final InstanceStatsRegistry statsRegistry;
+    private final Supplier<RandomGenerator> random;
+    private final int virtualNodes;
+    private final double loadFactor;
+
+    /**
+     * Ultima lista de instancias vista y su anillo; el anillo se reutiliza mientras no
+     * cambien las instancias.
+     */
+    private volatile RingSnapshot ring;
+
+    public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                String serviceId, InstanceStatsRegistry statsRegistry,
+                                int virtualNodes, double loadFactor) {
+        this(serviceInstanceListSupplierProvider, serviceId, statsRegistry, ThreadLocalRandom::current,
+                virtualNodes, loadFactor);
+    }
+
+    PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                         String serviceId, InstanceStatsRegistry statsRegistry, Supplier<RandomGenerator> random) {
+        this(serviceInstanceListSupplierProvider, serviceId, statsRegistry, random,
+                DEFAULT_VIRTUAL_NODES, DEFAULT_LOAD_FACTOR);
+    }
+
+    PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                         String serviceId, InstanceStatsRegistry statsRegistry, Supplier<RandomGenerator> random,
+                         int virtualNodes, double loadFactor) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.serviceId = serviceId;
+        this.statsRegistry = statsRegistry;
+        this.random = random;
+        this.virtualNodes = virtualNodes;
+        this.loadFactor = Math.max(loadFactor, 1.0);
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+                .getIfAvailable(NoopServiceInstanceListSupplier::new);
+        String affinityKey = attribute(request, AFFINITY_KEY_ATTR) instanceof String key ? key : null;
+        Set<String> tried = triedInstances(attribute(request, TRIED_INSTANCES_ATTR));
+        return supplier.get(request).next().map(instances -> {
+            ServiceInstance chosen = affinityKey == null
+                    ? choose(instances, tried)
+                    : choose(instances, affinityKey, tried);
+            return chosen == null ? new EmptyResponse() : new DefaultResponse(chosen);
+        });
+    }
+
+    /**
+     * Anota en los atributos de la peticion la instancia de un intento fallido, para que el
+     * siguiente intento elija otra.
+     */
+    @SuppressWarnings("unchecked")
+    public static void markTried(Map<String, Object> attributes, ServiceInstance instance) {
+        Set<String> tried = (Set<String>) attributes.computeIfAbsent(TRIED_INSTANCES_ATTR,
+                name -> ConcurrentHashMap.newKeySet());
+        tried.add(address(instance));
+    }
+
+    ServiceInstance choose(List<ServiceInstance> instances, String affinityKey) {
+        return choose(instances, affinityKey, Set.of());
+    }
+
+    ServiceInstance choose(List<ServiceInstance> instances, String affinityKey, Set<String> tried) {
+        if (instances.isEmpty()) {
+            return null;
+        }
+
+        ConsistentHashRing current = ring(instances);
+        int capacity = capacity(instances);
+        ServiceInstance chosen = current.choose(affinityKey, instance ->
+                !tried.contains(address(instance))
+                        && !statsRegistry.isEjected(instance)
+                        && statsRegistry.outstanding(instance) < capacity);
+        if (chosen == null) {
+            statsRegistry.recordAffinity(serviceId, "fallback");
+            return choose(instances, tried);
+        }
+
+        statsRegistry.recordAffinity(serviceId, chosen == current.owner(affinityKey) ? "owner" : "spill");
+        return chosen;
+    }
+
+    ServiceInstance choose(List<ServiceInstance> instances) {
+        return choose(instances, Set.<String>of());
+    }
+
+    ServiceInstance choose(List<ServiceInstance> instances, Set<String> tried) {
+        if (instances.isEmpty()) {
+            return null;
+        }
+
+        List<ServiceInstance> candidates = healthy(untried(instances, tried));
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+
+        RandomGenerator generator = random.get();
+        int first = generator.nextInt(candidates.size());
+        int second = generator.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+
+        ServiceInstance a = candidates.get(first);
+        ServiceInstance b = candidates.get(second);
+        return statsRegistry.cost(a) <= statsRegistry.cost(b) ? a : b;
+    }
+
+    /**
+     * Peticiones en curso que puede tener una instancia antes de pasar sus claves a la
+     * siguiente: load-factor veces la media, contando la que se esta eligiendo.
+     */
+    private int capacity(List<ServiceInstance> instances) {
+        long outstanding = 1;
+        for (ServiceInstance instance : instances) {
+            outstanding += statsRegistry.outstanding(instance);
+        }
+        return (int) Math.ceil(loadFactor * outstanding / instances.size());
+    }
+
+    private ConsistentHashRing ring(List<ServiceInstance> instances) {
+        RingSnapshot snapshot = ring;
+        if (snapshot != null && snapshot.source() == instances) {
+            return snapshot.ring();
+        }
+
+        ConsistentHashRing current = snapshot != null && snapshot.ring().hasInstances(instances)
+                ? snapshot.ring()
+                : ConsistentHashRing.build(instances, virtualNodes);
+        ring = new RingSnapshot(instances, current);
+        return current;
+    }
+
+    private static Object attribute(Request request, String name) {
+        if (request.getContext() instanceof RequestDataContext context) {
+            RequestData requestData = context.getClientRequest();
+            Map<String, Object> attributes = requestData == null ? null : requestData.getAttributes();
+            return attributes == null ? null : attributes.get(name);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String> triedInstances(Object attribute) {
+        return attribute instanceof Set<?> tried ? (Set<String>) tried : Set.of();
+    }
+
+    private static String address(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+
+    private static List<ServiceInstance> untried(List<ServiceInstance> instances, Set<String> tried) {
+        if (tried.isEmpty()) {
+            return instances;
+        }
+        List<ServiceInstance> untried = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            if (!tried.contains(address(instance))) {
+                untried.add(instance);
+            }
+        }
+        return untried.isEmpty() ? instances : untried;
+    }
+
+    private List<ServiceInstance> healthy(List<ServiceInstance> instances) {
+        List<ServiceInstance> healthy = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            if (!statsRegistry.isEjected(instance)) {
+                healthy.add(instance);
+            }
+        }
+        return healthy.isEmpty() ? instances : healthy;
+    }
+
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    private record RingSnapshot(List<ServiceInstance> source, ConsistentHashRing ring) {
+    }
+}
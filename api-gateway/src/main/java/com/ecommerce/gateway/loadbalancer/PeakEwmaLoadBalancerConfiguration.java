@@ -0,0 +1,32 @@
+package com.ecommerce.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Configuracion de cada cliente de Spring Cloud LoadBalancer (un contexto hijo por servicio),
+ * registrada con @LoadBalancerClients en LoadBalancerConfig. Sin @Configuration a proposito:
+ * no debe cargarse en el contexto principal por el escaneo de componentes.
+ */
+public class PeakEwmaLoadBalancerConfiguration {
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> peakEwmaLoadBalancer(
+            Environment environment,
+            LoadBalancerClientFactory loadBalancerClientFactory,
+            InstanceStatsRegistry instanceStatsRegistry) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new PeakEwmaLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                serviceId,
+                instanceStatsRegistry,
+                environment.getProperty("gateway.load-balancer.affinity.virtual-nodes", Integer.class,
+                        PeakEwmaLoadBalancer.DEFAULT_VIRTUAL_NODES),
+                environment.getProperty("gateway.load-balancer.affinity.load-factor", Double.class,
+                        PeakEwmaLoadBalancer.DEFAULT_LOAD_FACTOR));
+    }
+}
@@ -0,0 +1,25 @@
+package com.ecommerce.gateway.logging;
+
+/**
+ * Registro de acceso de una peticion. Las instancias viven en las celdas de AccessLogRingBuffer
+ * y se reutilizan: el filtro rellena los campos y el escritor los lee antes de liberar la celda.
+ */
+final class AccessLogEvent {
+
+    long timestampMillis;
+    String requestId;
+    String method;
+    String path;
+    String routeId;
+    int status;
+    long durationNanos;
+    String remoteAddress;
+
+    void clear() {
+        requestId = null;
+        method = null;
+        path = null;
+        routeId = null;
+        remoteAddress = null;
+    }
+}
@@ -0,0 +1,88 @@
+package com.ecommerce.gateway.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Anillo de eventos de acceso reutilizables entre los hilos de Netty y el hilo que escribe el log.
+ *
+ * Cada celda tiene un AccessLogEvent creado al arrancar y una secuencia que dice de quien es
+ * el turno: igual a la posicion, la celda esta libre para un productor; posicion + 1, el evento
+ * esta completo y lo puede leer el escritor. Asi una peticion no reserva memoria para su
+ * linea de log, y con el anillo lleno claim devuelve -1 en lugar de esperar.
+ */
+final class AccessLogRingBuffer {
+
+    private final int mask;
+    private final AccessLogEvent[] events;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+
+    // Siguiente posicion a leer. Solo avanza en release, desde el hilo escritor; es volatile
+    // para que size() sea fiable si se consulta desde fuera de ese hilo
+    private volatile long head;
+
+    AccessLogRingBuffer(int requestedCapacity) {
+        int capacity = Math.max(2, Integer.highestOneBit(requestedCapacity - 1) << 1);
+        this.mask = capacity - 1;
+        this.events = new AccessLogEvent[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            events[i] = new AccessLogEvent();
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Reserva una celda y devuelve su posicion, o -1 si la cola esta llena.
+     * El evento de la celda se obtiene con eventAt y se publica con publish.
+     */
+    long claim() {
+        while (true) {
+            long position = tail.get();
+            long difference = sequences.get((int) (position & mask)) - position;
+
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    return position;
+                }
+            } else if (difference < 0) {
+                return -1;
+            }
+            // difference > 0: tail ya quedo atras (otro hilo de Netty gano el CAS); se relee
+        }
+    }
+
+    AccessLogEvent eventAt(long position) {
+        return events[(int) (position & mask)];
+    }
+
+    /**
+     * La escritura volatil ordena las de los campos del evento.
+     */
+    void publish(long position) {
+        sequences.set((int) (position & mask), position + 1);
+    }
+
+    /**
+     * Siguiente evento publicado, o null si no hay. Solo debe llamarlo el consumidor,
+     * que despues de leerlo debe llamar a release.
+     */
+    AccessLogEvent peek() {
+        long position = head;
+        int index = (int) (position & mask);
+        return sequences.get(index) == position + 1 ? events[index] : null;
+    }
+
+    void release() {
+        long position = head;
+        int index = (int) (position & mask);
+        events[index].clear();
+        sequences.set(index, position + events.length);
+        head = position + 1;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+}
@@ -0,0 +1,169 @@
+package com.ecommerce.gateway.logging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Access log asincrono del Gateway: una linea JSON por peticion en el logger "access-log".
+ *
+ * Los hilos de Netty solo rellenan un evento preasignado de AccessLogRingBuffer; el formateo
+ * (fecha, JSON) y la escritura del log los hace un unico hilo en segundo plano. Con la cola
+ * llena el evento se descarta (nunca se bloquea un event loop) y se cuenta.
+ *
+ * Las respuestas 1xx-3xx se muestrean con success-sample-rate; los 4xx y 5xx se registran siempre.
+ */
+@Slf4j
+@Component
+public class AccessLogWriter {
+
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("access-log");
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final boolean enabled;
+    private final double successSampleRate;
+    private final AccessLogRingBuffer buffer;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    private final StringBuilder line = new StringBuilder(256);
+
+    private final Counter written;
+    private final Counter dropped;
+
+    public AccessLogWriter(
+            MeterRegistry meterRegistry,
+            @Value("${gateway.access-log.enabled:true}") boolean enabled,
+            @Value("${gateway.access-log.success-sample-rate:0.1}") double successSampleRate,
+            @Value("${gateway.access-log.buffer-capacity:8192}") int bufferCapacity) {
+        this.enabled = enabled;
+        this.successSampleRate = successSampleRate;
+        this.buffer = new AccessLogRingBuffer(bufferCapacity);
+
+        this.written = Counter.builder("gateway.access_log.events")
+                .tag("result", "written")
+                .description("Registros de acceso escritos")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("gateway.access_log.events")
+                .tag("result", "dropped")
+                .description("Registros de acceso descartados con la cola llena")
+                .register(meterRegistry);
+        Gauge.builder("gateway.access_log.pending", buffer, AccessLogRingBuffer::size)
+                .description("Registros de acceso pendientes de escribir")
+                .register(meterRegistry);
+
+        this.writerThread = new Thread(this::run, "access-log-writer");
+        this.writerThread.setDaemon(true);
+        if (enabled) {
+            writerThread.start();
+        }
+    }
+
+    /**
+     * Decide el muestreo antes de capturar nada de la peticion.
+     */
+    public boolean shouldLog(int status) {
+        if (!enabled) {
+            return false;
+        }
+        return status >= 400
+                || successSampleRate >= 1.0
+                || (successSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < successSampleRate);
+    }
+
+    public void log(long timestampMillis, String requestId, String method, String path, String routeId,
+                    int status, long durationNanos, String remoteAddress) {
+        long position = buffer.claim();
+        if (position < 0) {
+            dropped.increment();
+            return;
+        }
+
+        AccessLogEvent event = buffer.eventAt(position);
+        event.timestampMillis = timestampMillis;
+        event.requestId = requestId;
+        event.method = method;
+        event.path = path;
+        event.routeId = routeId;
+        event.status = status;
+        event.durationNanos = durationNanos;
+        event.remoteAddress = remoteAddress;
+        buffer.publish(position);
+    }
+
+    private void run() {
+        while (running || buffer.size() > 0) {
+            AccessLogEvent event = buffer.peek();
+            if (event == null) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            try {
+                ACCESS_LOG.info(format(event));
+                written.increment();
+            } catch (RuntimeException e) {
+                log.warn("No se pudo escribir un registro de acceso: {}", e.getMessage());
+            } finally {
+                buffer.release();
+            }
+        }
+    }
+
+    private String format(AccessLogEvent event) {
+        line.setLength(0);
+        line.append("{\"ts\":\"").append(Instant.ofEpochMilli(event.timestampMillis)).append('"');
+        appendField("id", event.requestId);
+        appendField("method", event.method);
+        appendField("path", event.path);
+        appendField("route", event.routeId);
+        line.append(",\"status\":").append(event.status);
+        line.append(",\"durationMs\":").append(event.durationNanos / 1_000_000)
+                .append('.').append(String.format("%03d", (event.durationNanos / 1_000) % 1_000));
+        appendField("remote", event.remoteAddress);
+        line.append('}');
+        return line.toString();
+    }
+
+    private void appendField(String name, String value) {
+        line.append(",\"").append(name).append("\":");
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c < 0x20) {
+                line.append(String.format("\\u%04x", (int) c));
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.ecommerce.gateway.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Latencia y respuestas por ruta del Gateway.
+ *
+ * - gateway.route.latency{route}: Timer con histograma de percentiles.
+ * - gateway.route.responses{route, status, outcome}: contador por codigo HTTP.
+ *
+ * Los medidores se crean una vez por ruta y codigo y se guardan aqui, para no pasar por el
+ * registro de Micrometer en cada peticion.
+ */
+@Component
+public class RouteMetrics {
+
+    private static final int MAX_STATUS = 600;
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<String, RouteMeters> routes = new ConcurrentHashMap<>();
+
+    public RouteMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void record(String routeId, int status, long durationNanos) {
+        RouteMeters meters = routes.computeIfAbsent(routeId, this::createRouteMeters);
+        meters.latency.record(durationNanos, TimeUnit.NANOSECONDS);
+        meters.responses(status).increment();
+    }
+
+    private RouteMeters createRouteMeters(String routeId) {
+        Timer latency = Timer.builder("gateway.route.latency")
+                .tag("route", routeId)
+                .description("Latencia de las peticiones por ruta, incluido el Gateway")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+        return new RouteMeters(routeId, latency);
+    }
+
+    private final class RouteMeters {
+
+        private final String routeId;
+        private final Timer latency;
+        private final AtomicReferenceArray<Counter> responsesByStatus = new AtomicReferenceArray<>(MAX_STATUS);
+
+        private RouteMeters(String routeId, Timer latency) {
+            this.routeId = routeId;
+            this.latency = latency;
+        }
+
+        private Counter responses(int status) {
+            int index = status > 0 && status < MAX_STATUS ? status : 0;
+            Counter counter = responsesByStatus.get(index);
+            if (counter == null) {
+                // Micrometer devuelve el mismo contador si dos hilos lo registran a la vez
+                counter = Counter.builder("gateway.route.responses")
+                        .tag("route", routeId)
+                        .tag("status", index == 0 ? "UNKNOWN" : Integer.toString(index))
+                        .tag("outcome", outcome(index))
+                        .description("Respuestas por ruta y codigo HTTP")
+                        .register(meterRegistry);
+                responsesByStatus.set(index, counter);
+            }
+            return counter;
+        }
+    }
+
+    private static String outcome(int status) {
+        if (status >= 500) {
+            return "SERVER_ERROR";
+        }
+        if (status >= 400) {
+            return "CLIENT_ERROR";
+        }
+        if (status >= 300) {
+            return "REDIRECTION";
+        }
+        if (status >= 200) {
+            return "SUCCESS";
+        }
+        return status >= 100 ? "INFORMATIONAL" : "UNKNOWN";
+    }
+}
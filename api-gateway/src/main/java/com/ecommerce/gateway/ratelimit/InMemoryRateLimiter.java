@@ -0,0 +1,179 @@
+package com.ecommerce.gateway.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limiter en memoria para el filtro RequestRateLimiter, sin Redis. La clave la da el
+ * KeyResolver de la ruta (ver RateLimitConfig) y la configuracion se pone por ruta:
+ *
+ * <pre>
+ * - name: RequestRateLimiter
+ *   args:
+ *     key-resolver: "#{@clientIpKeyResolver}"
+ *     in-memory-rate-limiter.replenishRate: 0.2   # tokens por segundo
+ *     in-memory-rate-limiter.burstCapacity: 5
+ * </pre>
+ *
+ * Un TokenBucket (un AtomicLong) por ruta y clave, en un ConcurrentHashMap: admitir una
+ * peticion es una lectura del mapa y un CAS. Los buckets que llevan idle-timeout-ms llenos se
+ * quitan en segundo plano; si se pasa de max-keys, se barre antes de tiempo.
+ *
+ * Al ser en memoria, cada instancia del Gateway limita por su cuenta: con N instancias el
+ * limite efectivo es hasta N veces el configurado.
+ *
+ * Metricas: gateway.rate_limit.requests{route, result=allowed|denied} y gateway.rate_limit.buckets.
+ */
+@Slf4j
+@Component
+public class InMemoryRateLimiter extends AbstractRateLimiter<InMemoryRateLimiter.Config> {
+
+    public static final String CONFIGURATION_PROPERTY_NAME = "in-memory-rate-limiter";
+
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    public static final String REPLENISH_RATE_HEADER = "X-RateLimit-Replenish-Rate";
+    public static final String BURST_CAPACITY_HEADER = "X-RateLimit-Burst-Capacity";
+    public static final String REQUESTED_TOKENS_HEADER = "X-RateLimit-Requested-Tokens";
+
+    private final MeterRegistry meterRegistry;
+    private final Config defaultConfig;
+    private final long idleNanos;
+    private final int maxKeys;
+
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, RouteCounters> countersByRoute = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper;
+
+    public InMemoryRateLimiter(
+            ConfigurationService configurationService,
+            MeterRegistry meterRegistry,
+            @Value("${gateway.rate-limit.default-replenish-rate:10}") double defaultReplenishRate,
+            @Value("${gateway.rate-limit.default-burst-capacity:20}") int defaultBurstCapacity,
+            @Value("${gateway.rate-limit.idle-timeout-ms:60000}") long idleTimeoutMillis,
+            @Value("${gateway.rate-limit.sweep-interval-ms:10000}") long sweepIntervalMillis,
+            @Value("${gateway.rate-limit.max-keys:200000}") int maxKeys) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        this.meterRegistry = meterRegistry;
+        this.defaultConfig = new Config();
+        this.defaultConfig.setReplenishRate(defaultReplenishRate);
+        this.defaultConfig.setBurstCapacity(defaultBurstCapacity);
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.maxKeys = maxKeys;
+
+        Gauge.builder("gateway.rate_limit.buckets", buckets, Map::size)
+                .description("Claves con bucket en memoria (todas las rutas)")
+                .register(meterRegistry);
+
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limit-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, sweepIntervalMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = getConfig().getOrDefault(routeId, defaultConfig);
+        long remaining = tryAcquire(routeId, id, config, System.nanoTime());
+
+        RouteCounters counters = countersByRoute.computeIfAbsent(routeId, this::createCounters);
+        (remaining >= 0 ? counters.allowed : counters.denied).increment();
+
+        Map<String, String> headers = config.isIncludeHeaders()
+                ? Map.of(
+                        REMAINING_HEADER, Long.toString(Math.max(remaining, 0)),
+                        REPLENISH_RATE_HEADER, Double.toString(config.getReplenishRate()),
+                        BURST_CAPACITY_HEADER, Integer.toString(config.getBurstCapacity()),
+                        REQUESTED_TOKENS_HEADER, Integer.toString(config.getRequestedTokens()))
+                : Map.of();
+        return Mono.just(new Response(remaining >= 0, headers));
+    }
+
+    /**
+     * Consume los tokens de la peticion; devuelve los que quedan o -1 si se deniega.
+     */
+    long tryAcquire(String routeId, String id, Config config, long nowNanos) {
+        if (config.getReplenishRate() <= 0 || config.getBurstCapacity() < config.getRequestedTokens()) {
+            return -1;
+        }
+
+        String key = routeId + '\n' + id;
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(nowNanos));
+            if (buckets.size() > maxKeys) {
+                sweeper.execute(this::sweep);
+            }
+        }
+
+        long intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / config.getReplenishRate()));
+        return bucket.tryAcquire(nowNanos, intervalNanos, intervalNanos * config.getBurstCapacity(),
+                config.getRequestedTokens());
+    }
+
+    /**
+     * Quita los buckets llenos desde hace idle-timeout-ms. Una peticion concurrente con el
+     * borrado puede actuar sobre el bucket quitado y el siguiente empieza lleno: como mucho
+     * se admite una rafaga de mas.
+     */
+    void sweep() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        buckets.entrySet().removeIf(entry -> entry.getValue().isIdle(now, idleNanos));
+        int removed = before - buckets.size();
+        if (removed > 0) {
+            log.debug("Rate limiter: {} bucket(s) inactivos eliminados", removed);
+        }
+    }
+
+    int bucketCount() {
+        return buckets.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    private RouteCounters createCounters(String routeId) {
+        return new RouteCounters(counter(routeId, "allowed"), counter(routeId, "denied"));
+    }
+
+    private Counter counter(String routeId, String result) {
+        return Counter.builder("gateway.rate_limit.requests")
+                .tag("route", routeId)
+                .tag("result", result)
+                .description("Peticiones evaluadas por el rate limiter en memoria")
+                .register(meterRegistry);
+    }
+
+    private record RouteCounters(Counter allowed, Counter denied) {
+    }
+
+    @Data
+    public static class Config {
+
+        /** Tokens por segundo (admite decimales: 0.2 = uno cada 5 s). */
+        private double replenishRate = 10;
+        /** Tokens maximos acumulados: la rafaga admitida tras un periodo sin peticiones. */
+        private int burstCapacity = 20;
+        private int requestedTokens = 1;
+        private boolean includeHeaders = true;
+    }
+}
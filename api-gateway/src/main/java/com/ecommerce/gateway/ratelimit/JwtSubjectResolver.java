@@ -0,0 +1,110 @@
+package com.ecommerce.gateway.ratelimit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Obtiene el usuario (subject, el email) del access token de una peticion para usarlo como
+ * clave del rate limiter. Verifica la firma HMAC con el mismo secreto que auth-service
+ * (jwt.secret) y la expiracion: un token inventado no puede abrir buckets nuevos a voluntad.
+ *
+ * Los tokens ya verificados se guardan hasta max-cached-tokens, para no calcular el HMAC en
+ * cada peticion del mismo usuario.
+ */
+@Component
+public class JwtSubjectResolver {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final Map<String, String> MAC_ALGORITHMS = Map.of(
+            "HS256", "HmacSHA256",
+            "HS384", "HmacSHA384",
+            "HS512", "HmacSHA512");
+
+    private final ObjectMapper objectMapper;
+    private final byte[] secret;
+    private final int maxCachedTokens;
+    private final ConcurrentHashMap<String, VerifiedToken> verified = new ConcurrentHashMap<>();
+
+    public JwtSubjectResolver(
+            ObjectMapper objectMapper,
+            @Value("${gateway.rate-limit.jwt-secret:}") String secret,
+            @Value("${gateway.rate-limit.max-cached-tokens:10000}") int maxCachedTokens) {
+        this.objectMapper = objectMapper;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.maxCachedTokens = maxCachedTokens;
+    }
+
+    /**
+     * Subject del token Bearer si la firma es valida y no ha expirado; si no, null.
+     */
+    public String subject(HttpHeaders headers) {
+        String authorization = headers.getFirst(HttpHeaders.AUTHORIZATION);
+        if (secret.length == 0 || authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            return null;
+        }
+
+        String token = authorization.substring(BEARER_PREFIX.length()).trim();
+        long nowSeconds = System.currentTimeMillis() / 1000;
+        VerifiedToken cached = verified.get(token);
+        if (cached != null) {
+            return cached.expiresAt() > nowSeconds ? cached.subject() : null;
+        }
+
+        VerifiedToken verifiedToken = verify(token);
+        if (verifiedToken == null || verifiedToken.expiresAt() <= nowSeconds) {
+            return null;
+        }
+        if (verified.size() >= maxCachedTokens) {
+            verified.clear();
+        }
+        verified.put(token, verifiedToken);
+        return verifiedToken.subject();
+    }
+
+    private VerifiedToken verify(String token) {
+        int firstDot = token.indexOf('.');
+        int secondDot = token.indexOf('.', firstDot + 1);
+        if (firstDot < 0 || secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            return null;
+        }
+
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            JsonNode header = objectMapper.readTree(decoder.decode(token.substring(0, firstDot)));
+            String macAlgorithm = MAC_ALGORITHMS.get(header.path("alg").asText());
+            if (macAlgorithm == null) {
+                return null;
+            }
+
+            Mac mac = Mac.getInstance(macAlgorithm);
+            mac.init(new SecretKeySpec(secret, macAlgorithm));
+            byte[] expected = mac.doFinal(token.substring(0, secondDot).getBytes(StandardCharsets.US_ASCII));
+            if (!MessageDigest.isEqual(expected, decoder.decode(token.substring(secondDot + 1)))) {
+                return null;
+            }
+
+            JsonNode payload = objectMapper.readTree(decoder.decode(token.substring(firstDot + 1, secondDot)));
+            String subject = payload.path("sub").asText(null);
+            long expiresAt = payload.path("exp").asLong(0);
+            return subject == null || subject.isBlank() ? null : new VerifiedToken(subject, expiresAt);
+        } catch (IllegalArgumentException | IOException | GeneralSecurityException e) {
+            return null;
+        }
+    }
+
+    private record VerifiedToken(String subject, long expiresAt) {
+    }
+}
@@ -0,0 +1,46 @@
+package com.ecommerce.gateway.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket sin locks, implementado como GCRA (generic cell rate algorithm): en lugar de
+ * tokens y ultima recarga guarda un unico instante, el "tiempo teorico de llegada" (tat).
+ * Cada token adelanta el tat un intervalo (1 / replenishRate); una peticion se admite si el
+ * nuevo tat no queda mas de burstCapacity intervalos por delante de ahora. Es equivalente a
+ * un bucket de burstCapacity tokens que se rellena a replenishRate, con un solo CAS.
+ *
+ * Con tat <= ahora el bucket esta lleno: igual que uno nuevo, asi que se puede descartar.
+ */
+final class TokenBucket {
+
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(long nowNanos) {
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Consume tokens si hay suficientes. Devuelve los tokens que quedan, o -1 si se deniega.
+     */
+    long tryAcquire(long nowNanos, long intervalNanos, long capacityNanos, int tokens) {
+        long increment = intervalNanos * tokens;
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long next = Math.max(tat, nowNanos) + increment;
+            long ahead = next - nowNanos;
+            if (ahead > capacityNanos) {
+                return -1;
+            }
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                return (capacityNanos - ahead) / intervalNanos;
+            }
+        }
+    }
+
+    /**
+     * Lleno desde hace al menos idleNanos.
+     */
+    boolean isIdle(long nowNanos, long idleNanos) {
+        return nowNanos - theoreticalArrival.get() >= idleNanos;
+    }
+}
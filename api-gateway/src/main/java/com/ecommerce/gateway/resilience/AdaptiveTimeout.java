@@ -0,0 +1,80 @@
+package com.ecommerce.gateway.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timeout de una ruta calculado de su propia latencia: multiplier veces el percentil de la
+ * ultima ventana, entre floor y ceiling. Hasta reunir minSamples muestras vale ceiling.
+ *
+ * Los timeouts se cuentan aparte, como peticiones mas lentas que cualquier latencia medida:
+ * el percentil se calcula sobre todas las peticiones de la ventana. Si expiran mas de un
+ * (1 - percentile), ese percentil no se conoce (esta por encima del timeout) y el timeout se
+ * duplica, como mucho, en cada ventana en lugar de saltar al maximo; cuando las expiraciones
+ * bajan, vuelve a calcularse de la latencia y baja con ella.
+ */
+public class AdaptiveTimeout {
+
+    private static final long MAX_GROWTH = 2;
+
+    private final long floorMillis;
+    private final long ceilingMillis;
+    private final double percentile;
+    private final double multiplier;
+    private final long minSamples;
+
+    private final LatencyHistogram window = new LatencyHistogram();
+    private final LongAdder expired = new LongAdder();
+    private volatile long timeoutMillis;
+
+    AdaptiveTimeout(Duration floor, Duration ceiling, double percentile, double multiplier, long minSamples) {
+        this.floorMillis = floor.toMillis();
+        this.ceilingMillis = Math.max(ceiling.toMillis(), floorMillis);
+        this.percentile = percentile;
+        this.multiplier = multiplier;
+        this.minSamples = minSamples;
+        this.timeoutMillis = ceilingMillis;
+    }
+
+    public Duration timeout() {
+        return Duration.ofMillis(timeoutMillis);
+    }
+
+    public void recordLatency(long nanos) {
+        window.record(nanos / 1_000_000);
+    }
+
+    public void recordTimeout() {
+        expired.increment();
+    }
+
+    /**
+     * Recalcula el timeout con la ventana que termina y empieza una nueva. Con pocas muestras
+     * se mantiene el valor anterior y la ventana sigue acumulando.
+     */
+    void rotate() {
+        long completed = window.count();
+        long timedOut = expired.sum();
+        long total = completed + timedOut;
+        if (total == 0 || total < minSamples) {
+            return;
+        }
+
+        long next;
+        if (timedOut > (1 - percentile) * total) {
+            next = timeoutMillis * MAX_GROWTH;
+        } else {
+            // Las expiradas quedan por encima de todas las medidas: el percentil de la ventana
+            // es el de las completadas con el rango ajustado
+            long observed = window.percentile(Math.min(1.0, percentile * total / completed));
+            next = (long) Math.ceil(observed * multiplier);
+        }
+        window.reset();
+        expired.add(-timedOut);
+        timeoutMillis = Math.max(floorMillis, Math.min(ceilingMillis, next));
+    }
+
+    long timeoutMillis() {
+        return timeoutMillis;
+    }
+}
@@ -0,0 +1,80 @@
+package com.ecommerce.gateway.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Un AdaptiveTimeout por ruta, recalculado cada window-ms con la latencia de esa ventana.
+ *
+ * Metricas por ruta: gateway.timeout.current (ms) y gateway.timeout.expired.
+ */
+@Component
+public class AdaptiveTimeoutRegistry {
+
+    private final MeterRegistry meterRegistry;
+    private final long minSamples;
+
+    private final ConcurrentHashMap<String, RouteTimeout> timeouts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    public AdaptiveTimeoutRegistry(
+            MeterRegistry meterRegistry,
+            @Value("${gateway.timeouts.window-ms:10000}") long windowMillis,
+            @Value("${gateway.timeouts.min-samples:50}") long minSamples) {
+        this.meterRegistry = meterRegistry;
+        this.minSamples = minSamples;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "adaptive-timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::rotate, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Timeout de la ruta; se crea con estos parametros la primera vez.
+     */
+    public RouteTimeout timeout(String routeId, Duration floor, Duration ceiling, double percentile, double multiplier) {
+        return timeouts.computeIfAbsent(routeId, id -> createTimeout(id, floor, ceiling, percentile, multiplier));
+    }
+
+    private RouteTimeout createTimeout(String routeId, Duration floor, Duration ceiling,
+                                       double percentile, double multiplier) {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(floor, ceiling, percentile, multiplier, minSamples);
+
+        Gauge.builder("gateway.timeout.current", timeout, AdaptiveTimeout::timeoutMillis)
+                .tag("route", routeId)
+                .description("Timeout de respuesta actual de la ruta")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Counter expired = Counter.builder("gateway.timeout.expired")
+                .tag("route", routeId)
+                .description("Intentos cortados con 504 por superar el timeout de la ruta")
+                .register(meterRegistry);
+
+        return new RouteTimeout(timeout, expired);
+    }
+
+    private void rotate() {
+        timeouts.values().forEach(routeTimeout -> routeTimeout.timeout().rotate());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public record RouteTimeout(AdaptiveTimeout timeout, Counter expired) {
+    }
+}
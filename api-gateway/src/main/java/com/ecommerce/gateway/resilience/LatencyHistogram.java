@@ -0,0 +1,77 @@
+package com.ecommerce.gateway.resilience;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latencias en ms para estimar percentiles sin guardar las muestras.
+ *
+ * Buckets log-lineales: 1 ms cada uno hasta 8 ms y, a partir de ahi, 8 por cada potencia de
+ * 2 (error relativo por debajo del 12.5%), hasta unos 131 s; lo que pase de ahi cuenta en el
+ * ultimo. Grabar es un incremento atomico, sin locks.
+ */
+class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 8;
+    private static final int SUB_BITS = 3;
+    private static final int MAX_EXPONENT = 16;
+    private static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BITS + 1) * SUB_BUCKETS;
+    private static final long MAX_MILLIS = upperBound(BUCKETS - 1);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    void record(long millis) {
+        counts.incrementAndGet(bucket(Math.max(0, Math.min(millis, MAX_MILLIS))));
+    }
+
+    long count() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Limite superior del bucket en el que cae el percentil (0-1), o -1 si no hay muestras.
+     */
+    long percentile(double percentile) {
+        long total = count();
+        if (total == 0) {
+            return -1;
+        }
+
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return MAX_MILLIS;
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    static int bucket(long millis) {
+        if (millis < SUB_BUCKETS) {
+            return (int) millis;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(millis);
+        int sub = (int) (millis >>> (exponent - SUB_BITS)) - SUB_BUCKETS;
+        return SUB_BUCKETS + (exponent - SUB_BITS) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = (bucket - SUB_BUCKETS) / SUB_BUCKETS + SUB_BITS;
+        int sub = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+}
@@ -0,0 +1,129 @@
+package com.ecommerce.gateway.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Presupuesto de reintentos comun a todas las rutas con filtro BudgetedRetry.
+ *
+ * Cada peticion original deposita ratio reintentos (0.1 = como mucho un 10% de carga extra)
+ * y cada reintento retira uno; el saldo no pasa de max-retries. Ademas se depositan
+ * min-retries-per-second, para que con poco trafico un fallo aislado tambien se reintente.
+ * Cuando un servicio cae, los reintentos agotan el saldo enseguida y dejan de multiplicar
+ * la carga sobre el.
+ *
+ * Metricas: gateway.retry.budget.balance y, por ruta, gateway.retry.attempts y
+ * gateway.retry.budget_exhausted.
+ */
+@Component
+public class RetryBudget {
+
+    private static final long UNIT = 1000;
+
+    private final MeterRegistry meterRegistry;
+    private final long depositPerRequest;
+    private final long depositPerSecond;
+    private final long maxBalance;
+
+    private final AtomicLong balance;
+    private final ConcurrentHashMap<String, RouteRetries> routes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    @Autowired
+    public RetryBudget(
+            MeterRegistry meterRegistry,
+            @Value("${gateway.retry-budget.ratio:0.1}") double ratio,
+            @Value("${gateway.retry-budget.min-retries-per-second:1}") double minRetriesPerSecond,
+            @Value("${gateway.retry-budget.max-retries:100}") long maxRetries) {
+        this(meterRegistry, ratio, minRetriesPerSecond, maxRetries, true);
+    }
+
+    RetryBudget(MeterRegistry meterRegistry, double ratio, double minRetriesPerSecond, long maxRetries,
+                boolean scheduled) {
+        this.meterRegistry = meterRegistry;
+        this.depositPerRequest = Math.round(ratio * UNIT);
+        this.depositPerSecond = Math.round(minRetriesPerSecond * UNIT);
+        this.maxBalance = maxRetries * UNIT;
+        this.balance = new AtomicLong(Math.min(depositPerSecond, maxBalance));
+
+        Gauge.builder("gateway.retry.budget.balance", this, RetryBudget::available)
+                .description("Reintentos disponibles en el presupuesto")
+                .register(meterRegistry);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "retry-budget");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (scheduled && depositPerSecond > 0) {
+            scheduler.scheduleAtFixedRate(this::tick, 1, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    public void onRequest() {
+        deposit(depositPerRequest);
+    }
+
+    /**
+     * Retira un reintento del saldo; false si no queda (y lo cuenta en la ruta).
+     */
+    public boolean tryRetry(String routeId) {
+        RouteRetries counters = routes.computeIfAbsent(routeId, this::createCounters);
+        long current;
+        do {
+            current = balance.get();
+            if (current < UNIT) {
+                counters.exhausted().increment();
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - UNIT));
+
+        counters.attempts().increment();
+        return true;
+    }
+
+    double available() {
+        return (double) balance.get() / UNIT;
+    }
+
+    void tick() {
+        deposit(depositPerSecond);
+    }
+
+    private void deposit(long amount) {
+        if (amount > 0 && balance.get() < maxBalance) {
+            balance.accumulateAndGet(amount, (current, added) -> Math.min(current + added, maxBalance));
+        }
+    }
+
+    private RouteRetries createCounters(String routeId) {
+        return new RouteRetries(
+                Counter.builder("gateway.retry.attempts")
+                        .tag("route", routeId)
+                        .description("Reintentos hechos por la ruta")
+                        .register(meterRegistry),
+                Counter.builder("gateway.retry.budget_exhausted")
+                        .tag("route", routeId)
+                        .description("Reintentos no hechos por falta de presupuesto")
+                        .register(meterRegistry));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private record RouteRetries(Counter attempts, Counter exhausted) {
+    }
+}
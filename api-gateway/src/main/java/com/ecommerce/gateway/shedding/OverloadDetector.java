@@ -0,0 +1,188 @@
+package com.ecommerce.gateway.shedding;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.netty.http.HttpResources;
+import reactor.netty.resources.LoopResources;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Detector de sobrecarga del Gateway para LoadSheddingFilter. Cada probe-interval-ms:
+ *
+ * - Mide el lag de cada event loop de reactor-netty: el tiempo entre encolar una tarea vacia
+ *   y que se ejecute. Un loop bloqueado cuya sonda aun no se ha ejecutado cuenta con el
+ *   tiempo que lleva esperando.
+ * - Toma las peticiones en curso y la latencia media de las respuestas del intervalo (sin las
+ *   rutas de timeout fijo, ver LoadSheddingFilter).
+ *
+ * y actualiza OverloadState, que decide que prioridades se descartan.
+ *
+ * Metricas: gateway.overload.pressure, gateway.overload.event_loop_lag (ms),
+ * gateway.overload.in_flight, gateway.overload.latency_ratio, gateway.overload.shedding{priority}
+ * (1 si se descarta) y gateway.shed.requests{priority}.
+ */
+@Slf4j
+@Component
+public class OverloadDetector {
+
+    private static final long PENDING = -1;
+
+    private final boolean enabled;
+    private final OverloadState state;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder latencySum = new LongAdder();
+    private final LongAdder latencyCount = new LongAdder();
+    private final Map<Priority, Counter> shedCounters = new EnumMap<>(Priority.class);
+
+    private final List<EventExecutor> eventLoops = new ArrayList<>();
+    private final AtomicLongArray probeSubmitted;
+    private final AtomicLongArray probeLag;
+    private final ScheduledExecutorService prober;
+
+    public OverloadDetector(
+            MeterRegistry meterRegistry,
+            @Value("${gateway.load-shedding.enabled:true}") boolean enabled,
+            @Value("${gateway.load-shedding.probe-interval-ms:100}") long probeIntervalMillis,
+            @Value("${gateway.load-shedding.max-event-loop-lag-ms:50}") long maxLagMillis,
+            @Value("${gateway.load-shedding.max-in-flight:2000}") int maxInFlight,
+            @Value("${gateway.load-shedding.latency-ratio-limit:3.0}") double latencyRatioLimit,
+            @Value("${gateway.load-shedding.thresholds.high:0.95}") double highThreshold,
+            @Value("${gateway.load-shedding.thresholds.normal:0.8}") double normalThreshold,
+            @Value("${gateway.load-shedding.thresholds.low:0.6}") double lowThreshold,
+            @Value("${gateway.load-shedding.hysteresis:0.1}") double hysteresis) {
+        this.enabled = enabled;
+
+        double[] thresholds = new double[Priority.values().length];
+        thresholds[Priority.HIGH.ordinal()] = highThreshold;
+        thresholds[Priority.NORMAL.ordinal()] = normalThreshold;
+        thresholds[Priority.LOW.ordinal()] = lowThreshold;
+        this.state = new OverloadState(TimeUnit.MILLISECONDS.toNanos(maxLagMillis), maxInFlight,
+                latencyRatioLimit, thresholds, hysteresis);
+
+        Gauge.builder("gateway.overload.pressure", state, OverloadState::pressure)
+                .description("Presion de sobrecarga (1.0 = en el limite de alguna señal)")
+                .register(meterRegistry);
+        Gauge.builder("gateway.overload.event_loop_lag", state, OverloadState::eventLoopLagMillis)
+                .description("Mayor lag de los event loops de reactor-netty")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("gateway.overload.in_flight", inFlight, AtomicInteger::get)
+                .description("Peticiones en curso en el Gateway")
+                .register(meterRegistry);
+        Gauge.builder("gateway.overload.latency_ratio", state, OverloadState::latencyRatio)
+                .description("Latencia reciente respecto a la de referencia")
+                .register(meterRegistry);
+        for (Priority priority : Priority.values()) {
+            Gauge.builder("gateway.overload.shedding", state, s -> s.shouldShed(priority) ? 1 : 0)
+                    .tag("priority", priority.name())
+                    .description("1 si se estan descartando las peticiones de esta prioridad")
+                    .register(meterRegistry);
+            shedCounters.put(priority, Counter.builder("gateway.shed.requests")
+                    .tag("priority", priority.name())
+                    .description("Peticiones descartadas con 503 por sobrecarga")
+                    .register(meterRegistry));
+        }
+
+        EventLoopGroup serverLoops = HttpResources.get().onServer(LoopResources.DEFAULT_NATIVE);
+        serverLoops.forEach(eventLoops::add);
+        this.probeSubmitted = new AtomicLongArray(eventLoops.size());
+        this.probeLag = new AtomicLongArray(eventLoops.size());
+
+        this.prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "overload-detector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            prober.scheduleAtFixedRate(this::tick, probeIntervalMillis, probeIntervalMillis, TimeUnit.MILLISECONDS);
+            log.info("Deteccion de sobrecarga activa sobre {} event loop(s)", eventLoops.size());
+        }
+    }
+
+    public boolean shouldShed(Priority priority) {
+        return enabled && state.shouldShed(priority);
+    }
+
+    public void recordShed(Priority priority) {
+        shedCounters.get(priority).increment();
+    }
+
+    public void onStart() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * @param latencySample false en rutas cuya latencia no es comparable (timeout fijo largo)
+     */
+    public void onComplete(long latencyNanos, boolean latencySample) {
+        inFlight.decrementAndGet();
+        if (!latencySample) {
+            return;
+        }
+        latencySum.add(latencyNanos);
+        latencyCount.increment();
+    }
+
+    private void tick() {
+        try {
+            long count = latencyCount.sumThenReset();
+            long sum = latencySum.sumThenReset();
+            state.update(eventLoopLag(), inFlight.get(), count == 0 ? -1 : sum / count);
+            probeEventLoops();
+        } catch (RuntimeException e) {
+            log.error("Error actualizando el detector de sobrecarga: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Mayor lag de la ultima ronda de sondas (o lo que lleva esperando una sin ejecutar).
+     */
+    private long eventLoopLag() {
+        long now = System.nanoTime();
+        long max = 0;
+        for (int i = 0; i < eventLoops.size(); i++) {
+            long lag = probeLag.get(i);
+            if (lag == PENDING) {
+                lag = now - probeSubmitted.get(i);
+            }
+            max = Math.max(max, lag);
+        }
+        return max;
+    }
+
+    private void probeEventLoops() {
+        for (int i = 0; i < eventLoops.size(); i++) {
+            if (probeLag.get(i) == PENDING) {
+                // La sonda anterior sigue en cola: no apilar otra
+                continue;
+            }
+            int index = i;
+            long submitted = System.nanoTime();
+            probeSubmitted.set(index, submitted);
+            probeLag.set(index, PENDING);
+            eventLoops.get(index).execute(() -> probeLag.set(index, System.nanoTime() - submitted));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        prober.shutdownNow();
+    }
+}
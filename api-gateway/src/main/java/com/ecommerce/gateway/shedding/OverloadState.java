@@ -0,0 +1,111 @@
+package com.ecommerce.gateway.shedding;
+
+/**
+ * Calcula la presion de sobrecarga del Gateway y que clases de prioridad se descartan.
+ *
+ * La presion es la mayor de tres señales normalizadas (1.0 = en el limite):
+ * - lag del event loop / max-event-loop-lag
+ * - peticiones en curso / max-in-flight
+ * - (latencia reciente / latencia de referencia - 1) / (latency-ratio-limit - 1)
+ *
+ * La latencia de referencia es una media lenta que solo se actualiza sin presion, para que
+ * una sobrecarga larga no la convierta en la nueva normalidad.
+ *
+ * Cada clase se empieza a descartar cuando la presion llega a su umbral y se deja de
+ * descartar cuando baja de umbral - hysteresis, para no oscilar en cada actualizacion.
+ */
+public final class OverloadState {
+
+    private static final double SHORT_ALPHA = 0.3;
+    private static final double BASELINE_ALPHA = 0.02;
+
+    private final double maxLagNanos;
+    private final double maxInFlight;
+    private final double latencyRatioLimit;
+    private final double[] thresholds;
+    private final double hysteresis;
+
+    private double shortLatency;
+    private double baselineLatency;
+    private volatile double pressure;
+    private volatile double lastLagNanos;
+    private volatile double latencyRatio = 1;
+    private volatile int shedMask;
+
+    /**
+     * @param thresholds umbral de presion por Priority (ordinal); CRITICAL se ignora
+     */
+    public OverloadState(long maxLagNanos, int maxInFlight, double latencyRatioLimit, double[] thresholds,
+                         double hysteresis) {
+        this.maxLagNanos = maxLagNanos;
+        this.maxInFlight = maxInFlight;
+        this.latencyRatioLimit = latencyRatioLimit;
+        this.thresholds = thresholds.clone();
+        this.thresholds[Priority.CRITICAL.ordinal()] = Double.POSITIVE_INFINITY;
+        this.hysteresis = hysteresis;
+    }
+
+    /**
+     * Actualiza la presion con las medidas del ultimo intervalo.
+     *
+     * @param meanLatencyNanos latencia media de las respuestas del intervalo, o -1 si no hubo
+     */
+    public synchronized void update(long lagNanos, int inFlight, long meanLatencyNanos) {
+        if (meanLatencyNanos >= 0) {
+            if (baselineLatency == 0) {
+                baselineLatency = meanLatencyNanos;
+                shortLatency = meanLatencyNanos;
+            } else {
+                shortLatency += SHORT_ALPHA * (meanLatencyNanos - shortLatency);
+            }
+        }
+        latencyRatio = baselineLatency > 0 ? shortLatency / baselineLatency : 1;
+        lastLagNanos = lagNanos;
+
+        double lagPressure = lagNanos / maxLagNanos;
+        double inFlightPressure = inFlight / maxInFlight;
+        double latencyPressure = Math.max(0, (latencyRatio - 1) / (latencyRatioLimit - 1));
+        double current = Math.max(lagPressure, Math.max(inFlightPressure, latencyPressure));
+        pressure = current;
+
+        if (meanLatencyNanos >= 0 && current < lowestThreshold()) {
+            baselineLatency += BASELINE_ALPHA * (meanLatencyNanos - baselineLatency);
+        }
+
+        int mask = shedMask;
+        for (Priority priority : Priority.values()) {
+            int bit = 1 << priority.ordinal();
+            double threshold = thresholds[priority.ordinal()];
+            if (current >= threshold) {
+                mask |= bit;
+            } else if (current < threshold - hysteresis) {
+                mask &= ~bit;
+            }
+        }
+        shedMask = mask;
+    }
+
+    public boolean shouldShed(Priority priority) {
+        return (shedMask & (1 << priority.ordinal())) != 0;
+    }
+
+    public double pressure() {
+        return pressure;
+    }
+
+    public double eventLoopLagMillis() {
+        return lastLagNanos / 1_000_000;
+    }
+
+    public double latencyRatio() {
+        return latencyRatio;
+    }
+
+    private double lowestThreshold() {
+        double lowest = Double.POSITIVE_INFINITY;
+        for (double threshold : thresholds) {
+            lowest = Math.min(lowest, threshold);
+        }
+        return lowest;
+    }
+}
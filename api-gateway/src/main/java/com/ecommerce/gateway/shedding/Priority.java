@@ -0,0 +1,27 @@
+package com.ecommerce.gateway.shedding;
+
+/**
+ * Clase de prioridad de una ruta, en su metadata de application.yml (priority: LOW).
+ * Bajo sobrecarga se descartan primero las clases mas bajas; CRITICAL nunca.
+ */
+public enum Priority {
+
+    /** Login, checkout: nunca se descarta. */
+    CRITICAL,
+    HIGH,
+    /** Por defecto si la ruta no indica prioridad. */
+    NORMAL,
+    /** Listados de administracion y busquedas. */
+    LOW;
+
+    public static Priority fromMetadata(Object value) {
+        if (value == null) {
+            return NORMAL;
+        }
+        try {
+            return valueOf(value.toString().trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return NORMAL;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.ecommerce.gateway.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ajuste del limite con muestras sinteticas: las peticiones en curso se fijan ocupando huecos
+ * y cada muestra es un tryAcquire + release mas.
+ */
+class GradientLimitTest {
+
+    private static final int INITIAL_LIMIT = 20;
+
+    private final GradientLimit limit = new GradientLimit(INITIAL_LIMIT, 2, 100, 1.5, 0.2, 600);
+
+    @Test
+    void growsWhileLatencyIsStable() {
+        hold(15);
+
+        int previous = limit.limit();
+        for (int i = 0; i < 10; i++) {
+            sample(10, false);
+            assertTrue(limit.limit() >= previous, "el limite bajo con latencia estable");
+            previous = limit.limit();
+        }
+
+        assertTrue(limit.limit() > INITIAL_LIMIT, "limite " + limit.limit());
+    }
+
+    @Test
+    void stopsGrowingOnceLessThanHalfTheLimitIsInUse() {
+        hold(15);
+        for (int i = 0; i < 200; i++) {
+            sample(10, false);
+        }
+
+        // 16 en curso al completar: por encima de 32 el limite ya no se usa y no crece
+        assertTrue(limit.limit() > INITIAL_LIMIT && limit.limit() <= 32, "limite " + limit.limit());
+    }
+
+    @Test
+    void shrinksWhenLatencySpikes() {
+        hold(15);
+        for (int i = 0; i < 30; i++) {
+            sample(10, false);
+        }
+        int healthy = limit.limit();
+
+        // 21 en curso al completar: por encima de la mitad del limite, la latencia cuenta
+        hold(5);
+        for (int i = 0; i < 3; i++) {
+            sample(200, false);
+        }
+
+        assertTrue(limit.limit() < healthy, "limite " + limit.limit() + " con latencia x20, antes " + healthy);
+    }
+
+    @Test
+    void backsOffTenPercentPerDrop() {
+        sample(10, false);
+
+        sample(10, true);
+        assertEquals(18, limit.limit());
+        sample(10, true);
+        assertEquals(16, limit.limit());
+        sample(10, true);
+        assertEquals(14, limit.limit());
+
+        for (int i = 0; i < 50; i++) {
+            sample(10, true);
+        }
+        assertEquals(2, limit.limit());
+    }
+
+    @Test
+    void ignoresLatencyWhileApplicationLimited() {
+        // Una peticion en curso de 20 posibles: la latencia no dice nada de la capacidad
+        for (int i = 0; i < 50; i++) {
+            sample(1, false);
+        }
+        for (int i = 0; i < 50; i++) {
+            sample(500, false);
+        }
+
+        assertEquals(INITIAL_LIMIT, limit.limit());
+    }
+
+    @Test
+    void rejectsOnceTheLimitIsReachedAndIgnoresCancelledRequests() {
+        hold(INITIAL_LIMIT);
+        assertFalse(limit.tryAcquire());
+
+        limit.release(TimeUnit.MILLISECONDS.toNanos(10), false, false);
+        assertEquals(INITIAL_LIMIT - 1, limit.inFlight());
+        assertEquals(INITIAL_LIMIT, limit.limit());
+        assertTrue(limit.tryAcquire());
+    }
+
+    private void hold(int requests) {
+        for (int i = 0; i < requests; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+    }
+
+    private void sample(long rttMillis, boolean dropped) {
+        assertTrue(limit.tryAcquire(), "sin hueco para la muestra");
+        limit.release(TimeUnit.MILLISECONDS.toNanos(rttMillis), dropped, true);
+    }
+}
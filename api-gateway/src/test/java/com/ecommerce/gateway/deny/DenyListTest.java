@@ -0,0 +1,76 @@
+package com.ecommerce.gateway.deny;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Patrones de application.yml contra rutas parseadas como las ve DenyListFilter
+ * (pathWithinApplication de la peticion, sin decodificar ni normalizar).
+ */
+class DenyListTest {
+
+    private static final String API_PATTERN = "/api/users/internal/**";
+    private static final String DISCOVERY_PATTERN = "/user-service/users/internal/**";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DenyList denyList = new DenyList(meterRegistry, new String[]{API_PATTERN, DISCOVERY_PATTERN});
+
+    @Test
+    void deniesInternalRoutesThroughTheApiAndTheDiscoveryLocator() {
+        assertTrue(denies("/api/users/internal/by-email"));
+        assertTrue(denies("/api/users/internal"));
+        assertTrue(denies("/user-service/users/internal/by-email"));
+
+        assertEquals(1, denials(API_PATTERN));
+        assertEquals(1, denials(DISCOVERY_PATTERN));
+    }
+
+    @Test
+    void allowsPublicRoutes() {
+        assertFalse(denies("/api/users/42"));
+        assertFalse(denies("/api/users/internals"));
+        assertFalse(denies("/user-service/users/42"));
+        assertFalse(denies("/"));
+    }
+
+    @Test
+    void deniesEncodedSegmentsAndMatrixParameters() {
+        assertTrue(denies("/api/users/%69nternal/by-email"));
+        assertTrue(denies("/api/users/internal;x=1/by-email"));
+        assertTrue(denies("/user-service/users;v=2/%69nternal/by-email"));
+    }
+
+    @Test
+    void deniesEmptyAndDotSegments() {
+        assertTrue(denies("//api/users//internal/by-email"));
+        assertTrue(denies("/api/users/./internal/by-email"));
+        assertTrue(denies("/api/orders/../users/internal/by-email"));
+        assertTrue(denies("/api/x/..;/users/internal/by-email"));
+        assertTrue(denies("/api/x/%2e%2e/users/internal/by-email"));
+        assertTrue(denies("/api/x%2F..%2Fusers/internal/by-email"));
+        assertTrue(denies("/../../user-service/users/internal/by-email"));
+
+        assertFalse(denies("/api/users/internal/../42"));
+    }
+
+    private boolean denies(String path) {
+        PathContainer parsed = MockServerHttpRequest.method(HttpMethod.GET, URI.create("http://localhost" + path))
+                .build()
+                .getPath()
+                .pathWithinApplication();
+        return denyList.denies(parsed);
+    }
+
+    private double denials(String pattern) {
+        return meterRegistry.get("gateway.deny.requests").tag("pattern", pattern).counter().count();
+    }
+}
@@ -0,0 +1,147 @@
+package com.ecommerce.gateway.filter;
+
+import com.ecommerce.gateway.loadbalancer.PeakEwmaLoadBalancer;
+import com.ecommerce.gateway.resilience.RetryBudget;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.isAlreadyRouted;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.setAlreadyRouted;
+
+/**
+ * BudgetedRetry contra una cadena de filtros simulada: que se reintenta, que no, y como queda
+ * el exchange entre intentos. Sin backoff, para no esperar.
+ */
+class BudgetedRetryGatewayFilterFactoryTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    private static final ServiceInstance FIRST =
+            new DefaultServiceInstance("stub-0", "USER-SERVICE", "10.0.0.1", 8080, false);
+
+    private final RetryBudget retryBudget = new RetryBudget(new SimpleMeterRegistry(), 1.0, 10, 100);
+    private final MockServerWebExchange exchange =
+            MockServerWebExchange.from(MockServerHttpRequest.get("http://localhost/api/users/42"));
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        retryBudget.shutdown();
+    }
+
+    @Test
+    void retriesConnectionErrorsOnAnotherInstance() {
+        run(exchange -> {
+            if (attempts.incrementAndGet() == 1) {
+                exchange.getAttributes().put(GATEWAY_LOADBALANCER_RESPONSE_ATTR, new DefaultResponse(FIRST));
+                return Mono.error(new ConnectException("Connection refused"));
+            }
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            return Mono.empty();
+        });
+
+        assertEquals(2, attempts.get());
+        assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+        assertEquals(Set.of("10.0.0.1:8080"), exchange.getAttribute(PeakEwmaLoadBalancer.TRIED_INSTANCES_ATTR));
+    }
+
+    @Test
+    void doesNotRetryErrorsOtherThanIOException() {
+        assertThrows(IllegalStateException.class, () -> run(exchange -> {
+            attempts.incrementAndGet();
+            return Mono.error(new IllegalStateException("fallo del filtro"));
+        }));
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void resetsTheExchangeBeforeRetryingAStatus() {
+        Connection connection = mock(Connection.class);
+        List<Object> seenOnRetry = new ArrayList<>();
+
+        run(exchange -> {
+            if (attempts.incrementAndGet() == 1) {
+                setAlreadyRouted(exchange);
+                exchange.getAttributes().put(CLIENT_RESPONSE_CONN_ATTR, connection);
+                exchange.getAttributes().put(CLIENT_RESPONSE_ATTR, new Object());
+                exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+                return Mono.empty();
+            }
+            seenOnRetry.add(isAlreadyRouted(exchange));
+            seenOnRetry.add(exchange.getAttributes().containsKey(CLIENT_RESPONSE_CONN_ATTR));
+            seenOnRetry.add(exchange.getAttributes().containsKey(CLIENT_RESPONSE_ATTR));
+            seenOnRetry.add(String.valueOf(exchange.getResponse().getStatusCode()));
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            return Mono.empty();
+        });
+
+        assertEquals(2, attempts.get());
+        assertEquals(List.of(false, false, false, "null"), seenOnRetry);
+        // La respuesta descartada no se ha leido: su conexion no vuelve al pool
+        verify(connection).dispose();
+        assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+    }
+
+    @Test
+    void doesNotRetryOnceTheResponseIsCommitted() {
+        run(exchange -> {
+            attempts.incrementAndGet();
+            exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            return exchange.getResponse().setComplete();
+        });
+
+        assertEquals(1, attempts.get());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exchange.getResponse().getStatusCode());
+    }
+
+    @Test
+    void stopsAfterTheConfiguredRetries() {
+        run(exchange -> {
+            attempts.incrementAndGet();
+            exchange.getResponse().setStatusCode(HttpStatus.BAD_GATEWAY);
+            return Mono.empty();
+        });
+
+        assertEquals(3, attempts.get());
+        assertEquals(HttpStatus.BAD_GATEWAY, exchange.getResponse().getStatusCode());
+    }
+
+    private void run(GatewayFilterChain chain) {
+        BudgetedRetryGatewayFilterFactory.Config config = new BudgetedRetryGatewayFilterFactory.Config();
+        config.setBackoff(Duration.ZERO);
+        config.setMaxBackoff(Duration.ZERO);
+
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, Route.async()
+                .id("user-service")
+                .uri("lb://USER-SERVICE")
+                .predicate(candidate -> true)
+                .build());
+        new BudgetedRetryGatewayFilterFactory(retryBudget).apply(config).filter(exchange, chain).block(TIMEOUT);
+    }
+}
@@ -0,0 +1,98 @@
+package com.ecommerce.gateway.loadbalancer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Afinidad por clave: reparto del anillo, claves movidas al escalar y carga acotada.
+ */
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 100_000;
+
+    @Test
+    void scaleOutMovesOnlyKeysTakenByTheNewInstance() {
+        List<ServiceInstance> instances = instances(4);
+        ConsistentHashRing before = ConsistentHashRing.build(instances, PeakEwmaLoadBalancer.DEFAULT_VIRTUAL_NODES);
+        instances.add(instance(4));
+        ConsistentHashRing after = ConsistentHashRing.build(instances, PeakEwmaLoadBalancer.DEFAULT_VIRTUAL_NODES);
+
+        int moved = 0;
+        Map<ServiceInstance, Integer> perInstance = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            String key = String.valueOf(i);
+            ServiceInstance owner = after.owner(key);
+            perInstance.merge(owner, 1, Integer::sum);
+            if (owner != before.owner(key)) {
+                moved++;
+                // Ninguna clave cambia entre instancias que ya estaban
+                assertSame(instances.get(4), owner);
+            }
+        }
+
+        // Ideal: 1/5 de las claves
+        double movedShare = (double) moved / KEYS;
+        assertTrue(movedShare > 0.15 && movedShare < 0.25, "claves movidas: " + movedShare);
+        for (int count : perInstance.values()) {
+            // Con 160 nodos virtuales cada instancia queda cerca de 1/5
+            assertTrue(Math.abs(count - KEYS / 5) < KEYS / 5 * 0.2, "reparto desigual: " + perInstance.values());
+        }
+    }
+
+    @Test
+    void hotKeySpillsToTheNextInstanceOnceItsOwnerIsFull() {
+        InstanceStatsRegistry registry = new InstanceStatsRegistry(
+                new SimpleMeterRegistry(), 10_000, 0.1, 0.5, 30_000, 600_000, System::nanoTime);
+        try {
+            List<ServiceInstance> instances = instances(5);
+            Random random = new Random(42);
+            PeakEwmaLoadBalancer loadBalancer = new PeakEwmaLoadBalancer(null, "STUB-SERVICE", registry, () -> random);
+
+            // Sin carga, la misma clave siempre a la misma instancia
+            ServiceInstance owner = loadBalancer.choose(instances, "user-42");
+            for (int i = 0; i < 10; i++) {
+                assertSame(owner, loadBalancer.choose(instances, "user-42"));
+            }
+
+            // 500 peticiones en curso de la misma clave: ninguna instancia pasa del limite
+            for (int i = 0; i < 500; i++) {
+                registry.onStart(loadBalancer.choose(instances, "user-42"));
+            }
+            int limit = (int) Math.ceil(PeakEwmaLoadBalancer.DEFAULT_LOAD_FACTOR * 500 / instances.size());
+            int total = 0;
+            for (ServiceInstance instance : instances) {
+                int outstanding = registry.outstanding(instance);
+                total += outstanding;
+                assertTrue(outstanding <= limit, instance.getHost() + " con " + outstanding + " en curso");
+            }
+            assertEquals(500, total);
+            assertEquals(limit, registry.outstanding(owner));
+        } finally {
+            registry.shutdown();
+        }
+    }
+
+    private static List<ServiceInstance> instances(int count) {
+        List<ServiceInstance> instances = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            instances.add(instance(i));
+        }
+        return instances;
+    }
+
+    private static ServiceInstance instance(int i) {
+        return new DefaultServiceInstance("stub-" + i, "STUB-SERVICE", "10.0.0." + (i + 1), 8080, false);
+    }
+}
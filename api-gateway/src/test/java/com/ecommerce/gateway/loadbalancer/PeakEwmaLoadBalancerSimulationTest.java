@@ -0,0 +1,205 @@
+package com.ecommerce.gateway.loadbalancer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Simulacion de eventos discretos (reloj virtual) de cinco instancias stub con 4 hilos cada
+ * una: cuatro rapidas (10 ms de media) y una lenta (100 ms, p. ej. en pausas de GC). Las
+ * peticiones llegan a 1 por ms (Poisson) y se comparan los p99 de round-robin y de
+ * PeakEwmaLoadBalancer.
+ *
+ * Con round-robin la instancia lenta recibe 1/5 de las peticiones, mas de lo que puede
+ * atender, y su cola crece sin limite.
+ *
+ * Es la comprobacion de extremo a extremo; las piezas (peak EWMA, coste, exclusion, P2C) se
+ * prueban por separado en PeakEwmaLoadBalancerTest. Semillas fijas y 20 000 peticiones: el
+ * resultado es siempre el mismo y tarda poco.
+ */
+@Slf4j
+class PeakEwmaLoadBalancerSimulationTest {
+
+    private static final int REQUESTS = 20_000;
+    private static final int WORKERS_PER_INSTANCE = 4;
+    private static final double MEAN_INTERARRIVAL_MS = 1.0;
+    private static final double[] MEAN_SERVICE_MS = {10, 10, 10, 10, 100};
+
+    private long now;
+    private InstanceStatsRegistry registry;
+    private List<ServiceInstance> instances;
+
+    @BeforeEach
+    void setUp() {
+        registry = new InstanceStatsRegistry(new SimpleMeterRegistry(), 10_000, 0.1, 0.5, 30_000, 600_000, () -> now);
+        instances = new ArrayList<>();
+        for (int i = 0; i < MEAN_SERVICE_MS.length; i++) {
+            instances.add(new DefaultServiceInstance("stub-" + i, "STUB-SERVICE", "10.0.0." + (i + 1), 8080, false));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.shutdown();
+    }
+
+    @Test
+    void peakEwmaHasLowerP99ThanRoundRobin() {
+        double roundRobinP99 = simulate(new RoundRobin());
+        double peakEwmaP99 = simulate(new PeakEwma());
+
+        log.info("p99 round-robin: {} ms, peak EWMA + P2C: {} ms",
+                String.format("%.1f", roundRobinP99), String.format("%.1f", peakEwmaP99));
+        assertTrue(peakEwmaP99 < roundRobinP99,
+                "p99 con peak EWMA (" + peakEwmaP99 + " ms) deberia ser menor que con round-robin (" + roundRobinP99 + " ms)");
+    }
+
+    /**
+     * Devuelve el p99 de latencia en ms.
+     */
+    private double simulate(Strategy strategy) {
+        now = 0;
+        Random random = new Random(42);
+        Map<ServiceInstance, Stub> stubs = new HashMap<>();
+        for (int i = 0; i < instances.size(); i++) {
+            stubs.put(instances.get(i), new Stub(MEAN_SERVICE_MS[i]));
+        }
+
+        PriorityQueue<Event> events = new PriorityQueue<>();
+        events.add(new Event(0, null));
+        long[] latencies = new long[REQUESTS];
+        int arrivals = 0;
+        int completed = 0;
+
+        while (!events.isEmpty()) {
+            Event event = events.poll();
+            now = event.time();
+
+            if (event.job() == null) {
+                ServiceInstance instance = strategy.choose(instances);
+                Job job = new Job(now, instance, strategy.onStart(instance));
+                Stub stub = stubs.get(instance);
+                if (stub.busy < WORKERS_PER_INSTANCE) {
+                    start(stub, job, random, events);
+                } else {
+                    stub.queue.add(job);
+                }
+                if (++arrivals < REQUESTS) {
+                    events.add(new Event(now + exponentialNanos(random, MEAN_INTERARRIVAL_MS), null));
+                }
+            } else {
+                Job job = event.job();
+                Stub stub = stubs.get(job.instance());
+                stub.busy--;
+                long latency = now - job.arrival();
+                latencies[completed++] = latency;
+                strategy.onComplete(job, latency);
+                if (!stub.queue.isEmpty()) {
+                    start(stub, stub.queue.poll(), random, events);
+                }
+            }
+        }
+
+        Arrays.sort(latencies);
+        return latencies[(int) (REQUESTS * 0.99)] / 1_000_000.0;
+    }
+
+    private void start(Stub stub, Job job, Random random, PriorityQueue<Event> events) {
+        stub.busy++;
+        events.add(new Event(now + exponentialNanos(random, stub.meanServiceMs), job));
+    }
+
+    private static long exponentialNanos(Random random, double meanMs) {
+        return (long) (-Math.log(1 - random.nextDouble()) * TimeUnit.MILLISECONDS.toNanos(1) * meanMs);
+    }
+
+    private interface Strategy {
+
+        ServiceInstance choose(List<ServiceInstance> instances);
+
+        InstanceStats onStart(ServiceInstance instance);
+
+        void onComplete(Job job, long latencyNanos);
+    }
+
+    private static final class RoundRobin implements Strategy {
+
+        private int next;
+
+        @Override
+        public ServiceInstance choose(List<ServiceInstance> instances) {
+            return instances.get(next++ % instances.size());
+        }
+
+        @Override
+        public InstanceStats onStart(ServiceInstance instance) {
+            return null;
+        }
+
+        @Override
+        public void onComplete(Job job, long latencyNanos) {
+        }
+    }
+
+    private final class PeakEwma implements Strategy {
+
+        private final Random random = new Random(7);
+        private final PeakEwmaLoadBalancer loadBalancer = new PeakEwmaLoadBalancer(null, "STUB-SERVICE", registry, () -> random);
+
+        @Override
+        public ServiceInstance choose(List<ServiceInstance> instances) {
+            return loadBalancer.choose(instances);
+        }
+
+        @Override
+        public InstanceStats onStart(ServiceInstance instance) {
+            return registry.onStart(instance);
+        }
+
+        @Override
+        public void onComplete(Job job, long latencyNanos) {
+            registry.onComplete(job.stats(), latencyNanos, InstanceStats.Outcome.SUCCESS);
+        }
+    }
+
+    private static final class Stub {
+
+        private final double meanServiceMs;
+        private final ArrayDeque<Job> queue = new ArrayDeque<>();
+        private int busy;
+
+        private Stub(double meanServiceMs) {
+            this.meanServiceMs = meanServiceMs;
+        }
+    }
+
+    private record Job(long arrival, ServiceInstance instance, InstanceStats stats) {
+    }
+
+    /**
+     * Llegada de una peticion (job null) o fin de su servicio.
+     */
+    private record Event(long time, Job job) implements Comparable<Event> {
+
+        @Override
+        public int compareTo(Event other) {
+            return Long.compare(time, other.time);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.ecommerce.gateway.loadbalancer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Peak EWMA de InstanceStats (pico, decaimiento y exclusion por errores) y eleccion P2C de
+ * PeakEwmaLoadBalancer (tambien en los reintentos), con un reloj controlado por el test.
+ */
+class PeakEwmaLoadBalancerTest {
+
+    private static final long DECAY_MS = 10_000;
+    private static final double DECAY_NANOS = TimeUnit.MILLISECONDS.toNanos(DECAY_MS);
+    private static final long EJECTION_MS = 30_000;
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private long now;
+    private InstanceStatsRegistry registry;
+    private PeakEwmaLoadBalancer loadBalancer;
+
+    @BeforeEach
+    void setUp() {
+        registry = new InstanceStatsRegistry(new SimpleMeterRegistry(), DECAY_MS, 0.5, 0.5, EJECTION_MS, 600_000,
+                () -> now);
+        Random random = new Random(42);
+        loadBalancer = new PeakEwmaLoadBalancer(null, "STUB-SERVICE", registry, () -> random);
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.shutdown();
+    }
+
+    @Test
+    void slowerSampleReplacesTheAverageAtOnce() {
+        InstanceStats stats = new InstanceStats("STUB-SERVICE", "10.0.0.1:8080", 0);
+
+        complete(stats, 0, 10 * MS, InstanceStats.Outcome.SUCCESS);
+        complete(stats, 0, 100 * MS, InstanceStats.Outcome.SUCCESS);
+
+        assertEquals(100.0, stats.latencyMillis(), 1e-9);
+    }
+
+    @Test
+    void fasterSamplesPullTheAverageDownWithElapsedTime() {
+        InstanceStats stats = new InstanceStats("STUB-SERVICE", "10.0.0.1:8080", 0);
+        complete(stats, 0, 100 * MS, InstanceStats.Outcome.SUCCESS);
+
+        // Una constante de decaimiento despues, la media anterior pesa e^-1
+        complete(stats, TimeUnit.MILLISECONDS.toNanos(DECAY_MS), 0, InstanceStats.Outcome.SUCCESS);
+
+        assertEquals(100.0 * Math.exp(-1), stats.latencyMillis(), 1e-6);
+    }
+
+    @Test
+    void costDecaysWithoutResponsesAndGrowsWithOutstandingRequests() {
+        InstanceStats stats = new InstanceStats("STUB-SERVICE", "10.0.0.1:8080", 0);
+        complete(stats, 0, 100 * MS, InstanceStats.Outcome.SUCCESS);
+
+        assertEquals(100.0 * MS, stats.cost(0, DECAY_NANOS), 1e-3);
+        assertEquals(100.0 * MS * Math.exp(-1), stats.cost((long) DECAY_NANOS, DECAY_NANOS), 1e-3);
+
+        stats.start(0);
+        stats.start(0);
+        assertEquals(3 * 100.0 * MS, stats.cost(0, DECAY_NANOS), 1e-3);
+    }
+
+    @Test
+    void unmeasuredInstanceGetsOneRequestAtATime() {
+        InstanceStats stats = new InstanceStats("STUB-SERVICE", "10.0.0.1:8080", 0);
+
+        assertEquals(0.0, stats.cost(0, DECAY_NANOS));
+        stats.start(0);
+        assertTrue(stats.cost(0, DECAY_NANOS) > Double.MAX_VALUE / 4);
+    }
+
+    @Test
+    void cancelledRequestsOnlyReleaseTheOutstandingSlot() {
+        InstanceStats stats = new InstanceStats("STUB-SERVICE", "10.0.0.1:8080", 0);
+
+        complete(stats, 0, 500 * MS, InstanceStats.Outcome.CANCELLED);
+
+        assertEquals(0, stats.outstanding());
+        assertEquals(0.0, stats.latencyMillis());
+        assertEquals(0.0, stats.errorRate());
+    }
+
+    @Test
+    void failuresEjectTheInstanceUntilTheEjectionEnds() {
+        InstanceStats stats = new InstanceStats("STUB-SERVICE", "10.0.0.1:8080", 0);
+        long ejectionNanos = TimeUnit.MILLISECONDS.toNanos(EJECTION_MS);
+
+        stats.start(0);
+        assertFalse(stats.complete(0, MS, InstanceStats.Outcome.SUCCESS, DECAY_NANOS, 0.5, 0.5, ejectionNanos));
+        stats.start(0);
+        assertTrue(stats.complete(0, MS, InstanceStats.Outcome.FAILURE, DECAY_NANOS, 0.5, 0.5, ejectionNanos));
+        // Ya excluida: los siguientes fallos no vuelven a contarse como exclusion
+        stats.start(0);
+        assertFalse(stats.complete(0, MS, InstanceStats.Outcome.FAILURE, DECAY_NANOS, 0.5, 0.5, ejectionNanos));
+
+        assertTrue(stats.isEjected(ejectionNanos - 1));
+        assertFalse(stats.isEjected(ejectionNanos));
+        assertEquals(0.0, stats.errorRate());
+    }
+
+    @Test
+    void choosesTheCheaperOfTwoInstances() {
+        ServiceInstance fast = instance(0);
+        ServiceInstance slow = instance(1);
+        respond(fast, 10 * MS, InstanceStats.Outcome.SUCCESS);
+        respond(slow, 100 * MS, InstanceStats.Outcome.SUCCESS);
+
+        for (int i = 0; i < 20; i++) {
+            assertSame(fast, loadBalancer.choose(List.of(fast, slow)));
+        }
+    }
+
+    @Test
+    void outstandingRequestsShiftChoiceToTheSlowerInstance() {
+        ServiceInstance fast = instance(0);
+        ServiceInstance slow = instance(1);
+        respond(fast, 10 * MS, InstanceStats.Outcome.SUCCESS);
+        respond(slow, 30 * MS, InstanceStats.Outcome.SUCCESS);
+
+        // 10 ms x (3 + 1) en curso > 30 ms x 1
+        for (int i = 0; i < 3; i++) {
+            registry.onStart(fast);
+        }
+
+        assertSame(slow, loadBalancer.choose(List.of(fast, slow)));
+    }
+
+    @Test
+    void skipsEjectedInstancesUnlessAllAreEjected() {
+        List<ServiceInstance> instances = List.of(instance(0), instance(1), instance(2));
+        ServiceInstance failing = instances.get(0);
+        respond(failing, MS, InstanceStats.Outcome.FAILURE);
+        assertTrue(registry.isEjected(failing));
+
+        for (int i = 0; i < 50; i++) {
+            assertNotSame(failing, loadBalancer.choose(instances));
+        }
+
+        respond(instances.get(1), MS, InstanceStats.Outcome.FAILURE);
+        respond(instances.get(2), MS, InstanceStats.Outcome.FAILURE);
+        // Todas excluidas: se sigue eligiendo entre todas antes que no responder
+        assertTrue(instances.contains(loadBalancer.choose(instances)));
+
+        now += TimeUnit.MILLISECONDS.toNanos(EJECTION_MS);
+        assertFalse(registry.isEjected(failing));
+    }
+
+    @Test
+    void retriesSkipInstancesAlreadyTriedEvenWithAffinity() {
+        List<ServiceInstance> instances = List.of(instance(0), instance(1), instance(2));
+        ServiceInstance owner = loadBalancer.choose(instances, "user-42");
+
+        Map<String, Object> attributes = new HashMap<>();
+        PeakEwmaLoadBalancer.markTried(attributes, owner);
+        Set<String> tried = triedInstances(attributes);
+        for (int i = 0; i < 20; i++) {
+            assertNotSame(owner, loadBalancer.choose(instances, "user-42", tried));
+            assertNotSame(owner, loadBalancer.choose(instances, tried));
+        }
+
+        // Probadas todas: se sigue eligiendo entre todas
+        instances.forEach(instance -> PeakEwmaLoadBalancer.markTried(attributes, instance));
+        assertTrue(instances.contains(loadBalancer.choose(instances, "user-42", triedInstances(attributes))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String> triedInstances(Map<String, Object> attributes) {
+        return (Set<String>) attributes.get(PeakEwmaLoadBalancer.TRIED_INSTANCES_ATTR);
+    }
+
+    private void respond(ServiceInstance instance, long latencyNanos, InstanceStats.Outcome outcome) {
+        registry.onComplete(registry.onStart(instance), latencyNanos, outcome);
+    }
+
+    private static void complete(InstanceStats stats, long nowNanos, long sampleNanos, InstanceStats.Outcome outcome) {
+        stats.start(nowNanos);
+        stats.complete(nowNanos, sampleNanos, outcome, DECAY_NANOS, 0.1, 0.5,
+                TimeUnit.MILLISECONDS.toNanos(EJECTION_MS));
+    }
+
+    private static ServiceInstance instance(int i) {
+        return new DefaultServiceInstance("stub-" + i, "STUB-SERVICE", "10.0.0." + (i + 1), 8080, false);
+    }
+}
@@ -0,0 +1,121 @@
+package com.ecommerce.gateway.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Coste por peticion de InMemoryRateLimiter.isAllowed, en nanosegundos: una sola clave
+ * caliente, muchas claves distintas y varios hilos a la vez.
+ *
+ * Solo se ejecuta con -Dbenchmark=true. Iteraciones e hilos: -Dbenchmark.iterations y
+ * -Dbenchmark.threads. Falla si algun escenario supera -Dbenchmark.max-ns (5000 por defecto).
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class InMemoryRateLimiterBenchmarkTest {
+
+    private static final String ROUTE = "benchmark-route";
+    private static final int DISTINCT_KEYS = 100_000;
+
+    private InMemoryRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        // Sin ConfigurationService: todas las rutas usan la configuracion por defecto
+        rateLimiter = new InMemoryRateLimiter(null, new SimpleMeterRegistry(),
+                1_000_000, 1_000_000, 60_000, 60_000, Integer.MAX_VALUE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        rateLimiter.shutdown();
+    }
+
+    @Test
+    void measureOverheadPerRequest() throws InterruptedException {
+        int iterations = Integer.getInteger("benchmark.iterations", 2_000_000);
+        int threads = Integer.getInteger("benchmark.threads", Runtime.getRuntime().availableProcessors());
+
+        String[] keys = new String[DISTINCT_KEYS];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "user:" + i + "@example.com";
+        }
+
+        double maxNanos = Double.parseDouble(System.getProperty("benchmark.max-ns", "5000"));
+
+        // Calentamiento del JIT
+        run(iterations, i -> keys[i % keys.length]);
+
+        double singleKey = run(iterations, i -> keys[0]);
+        double distinctKeys = run(iterations, i -> keys[i % keys.length]);
+        double concurrent = runConcurrently(iterations, threads, keys);
+        log.info("ns/peticion: una clave {}, {} claves {}, {} hilos con claves aleatorias {}",
+                String.format("%.1f", singleKey), DISTINCT_KEYS, String.format("%.1f", distinctKeys),
+                threads, String.format("%.1f", concurrent));
+
+        assertEquals(DISTINCT_KEYS, rateLimiter.bucketCount());
+        assertTrue(singleKey < maxNanos, () -> "una clave: " + singleKey + " ns/peticion");
+        assertTrue(distinctKeys < maxNanos, () -> DISTINCT_KEYS + " claves: " + distinctKeys + " ns/peticion");
+        assertTrue(concurrent < maxNanos, () -> threads + " hilos: " + concurrent + " ns/peticion");
+    }
+
+    private double run(int iterations, KeySource keySource) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            rateLimiter.isAllowed(ROUTE, keySource.key(i)).block();
+        }
+        return (double) (System.nanoTime() - start) / iterations;
+    }
+
+    private double runConcurrently(int iterations, int threads, String[] keys) throws InterruptedException {
+        int perThread = iterations / threads;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        rateLimiter.isAllowed(ROUTE, keys[random.nextInt(keys.length)]).block();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        // Tiempo de pared por peticion multiplicado por los hilos: coste medio de cada una
+        return (double) elapsed * threads / ((long) perThread * threads);
+    }
+
+    @FunctionalInterface
+    private interface KeySource {
+        String key(int iteration);
+    }
+}
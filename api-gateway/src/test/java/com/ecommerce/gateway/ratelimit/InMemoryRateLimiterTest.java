@@ -0,0 +1,43 @@
+package com.ecommerce.gateway.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryRateLimiterTest {
+
+    private static final String ROUTE = "test-route";
+
+    private InMemoryRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        // Sin ConfigurationService: todas las rutas usan la configuracion por defecto
+        rateLimiter = new InMemoryRateLimiter(null, new SimpleMeterRegistry(),
+                1_000_000, 1_000_000, 60_000, 60_000, Integer.MAX_VALUE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        rateLimiter.shutdown();
+    }
+
+    @Test
+    void deniesOnceTheBurstIsConsumed() {
+        InMemoryRateLimiter.Config config = new InMemoryRateLimiter.Config();
+        config.setReplenishRate(1);
+        config.setBurstCapacity(5);
+
+        long now = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(rateLimiter.tryAcquire(ROUTE, "ip:10.0.0.1", config, now) >= 0);
+        }
+        assertEquals(-1, rateLimiter.tryAcquire(ROUTE, "ip:10.0.0.1", config, now));
+        // Un segundo despues hay un token nuevo
+        assertEquals(0, rateLimiter.tryAcquire(ROUTE, "ip:10.0.0.1", config, now + 1_000_000_000L));
+    }
+}
@@ -0,0 +1,154 @@
+package com.ecommerce.gateway.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Simulaciones con reloj virtual de AdaptiveTimeout y RetryBudget.
+ */
+class TimeoutAndRetryBudgetSimulationTest {
+
+    private static final int REQUESTS_PER_SECOND = 200;
+    private static final int MAX_RETRIES = 2;
+
+    /**
+     * Latencia log-normal (mediana 20 ms): el timeout queda cerca de 3 x p99. Si el servicio
+     * pasa a ser 4 veces mas lento, el timeout sube con el en unas pocas ventanas en lugar de
+     * cortar casi todas las peticiones.
+     */
+    @Test
+    void timeoutFollowsObservedP99() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(Duration.ofMillis(100), Duration.ofSeconds(10), 0.99, 3, 50);
+        Random random = new Random(42);
+
+        runWindow(timeout, random, 20);
+        long fast = timeout.timeoutMillis();
+        // p99 de la log-normal: 20 ms * e^(2.326 * 0.5) = 64 ms; 3 x p99 = 192 ms
+        assertTrue(fast >= 170 && fast <= 230, "timeout con mediana de 20 ms: " + fast);
+
+        int expired = 0;
+        for (int window = 0; window < 5; window++) {
+            expired = runWindow(timeout, random, 80);
+        }
+        long slow = timeout.timeoutMillis();
+        assertTrue(slow >= 680 && slow <= 920, "timeout con mediana de 80 ms: " + slow);
+        assertTrue(expired < 10 * REQUESTS_PER_SECOND * 0.01, "expirados en la ultima ventana: " + expired);
+    }
+
+    /**
+     * Una ventana en la que el servicio se cuelga (mediana de 5 s) duplica el timeout en lugar
+     * de llevarlo al maximo, y al recuperarse el servicio vuelve a 3 x p99.
+     */
+    @Test
+    void timeoutGrowthIsBoundedPerWindowAndRecovers() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(Duration.ofMillis(100), Duration.ofSeconds(10), 0.99, 3, 50);
+        Random random = new Random(42);
+
+        runWindow(timeout, random, 20);
+        long fast = timeout.timeoutMillis();
+
+        runWindow(timeout, random, 5000);
+        assertEquals(2 * fast, timeout.timeoutMillis());
+        runWindow(timeout, random, 5000);
+        assertEquals(4 * fast, timeout.timeoutMillis());
+
+        runWindow(timeout, random, 20);
+        long recovered = timeout.timeoutMillis();
+        assertTrue(recovered >= 170 && recovered <= 230, "timeout tras recuperarse: " + recovered);
+    }
+
+    /**
+     * Un servicio con un 2% de errores y, entre los segundos 20 y 40, caido del todo. Con 2
+     * reintentos sin presupuesto la caida triplica la carga; con RetryBudget la carga extra
+     * queda en un 10% mas el minimo por segundo y el saldo acumulado antes (max-retries), y
+     * los errores sueltos se siguen reintentando.
+     */
+    @Test
+    void budgetCapsRetryAmplificationDuringOutage() {
+        RetryBudget budget = new RetryBudget(new SimpleMeterRegistry(), 0.1, 1, 100, false);
+        Random random = new Random(42);
+
+        long originals = 0;
+        long naiveAttempts = 0;
+        long budgetedAttempts = 0;
+        long outageOriginals = 0;
+        long outageBudgetedAttempts = 0;
+        long transientFailures = 0;
+        long transientFailuresRecovered = 0;
+
+        for (int second = 0; second < 60; second++) {
+            boolean outage = second >= 20 && second < 40;
+            double failureRate = outage ? 1.0 : 0.02;
+            budget.tick();
+
+            for (int i = 0; i < REQUESTS_PER_SECOND; i++) {
+                originals++;
+                budget.onRequest();
+
+                // Sin presupuesto: hasta MAX_RETRIES reintentos mientras falle
+                int attempts = 1;
+                while (random.nextDouble() < failureRate && attempts <= MAX_RETRIES) {
+                    attempts++;
+                }
+                naiveAttempts += attempts;
+
+                // Con presupuesto
+                int budgeted = 1;
+                boolean failed = random.nextDouble() < failureRate;
+                if (failed && !outage) {
+                    transientFailures++;
+                }
+                while (failed && budgeted <= MAX_RETRIES && budget.tryRetry("sim")) {
+                    budgeted++;
+                    failed = random.nextDouble() < failureRate;
+                }
+                if (!outage && budgeted > 1 && !failed) {
+                    transientFailuresRecovered++;
+                }
+                budgetedAttempts += budgeted;
+
+                if (outage) {
+                    outageOriginals++;
+                    outageBudgetedAttempts += budgeted;
+                }
+            }
+        }
+
+        double naiveAmplification = (double) naiveAttempts / originals;
+        double outageAmplification = (double) outageBudgetedAttempts / outageOriginals;
+        double recovered = (double) transientFailuresRecovered / transientFailures;
+        long outageRetries = outageBudgetedAttempts - outageOriginals;
+        assertTrue(outageRetries <= 0.1 * outageOriginals + 20 + 100,
+                "intentos por peticion durante la caida: " + outageAmplification);
+        assertTrue(naiveAmplification > 1.5, "intentos por peticion sin presupuesto: " + naiveAmplification);
+        assertTrue(budgetedAttempts < naiveAttempts);
+        assertTrue(recovered > 0.95, "errores sueltos recuperados: " + recovered);
+        budget.shutdown();
+    }
+
+    /**
+     * Una ventana de 10 s de trafico con latencia log-normal de la mediana dada; devuelve los
+     * timeouts expirados.
+     */
+    private static int runWindow(AdaptiveTimeout timeout, Random random, double medianMillis) {
+        int expired = 0;
+        long limitNanos = timeout.timeout().toNanos();
+        for (int i = 0; i < 10 * REQUESTS_PER_SECOND; i++) {
+            long latencyNanos = (long) (medianMillis * Math.exp(0.5 * random.nextGaussian()) * 1_000_000);
+            if (latencyNanos > limitNanos) {
+                timeout.recordTimeout();
+                expired++;
+            } else {
+                timeout.recordLatency(latencyNanos);
+            }
+        }
+        timeout.rotate();
+        return expired;
+    }
+}
@@ -0,0 +1,196 @@
+package com.ecommerce.gateway.shedding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sobrecarga sintetica con reloj virtual: un backend de 500 hilos (10 ms de media, capacidad
+ * 50 peticiones/ms) recibe, tras 10 s de carga normal en los que se aprende la latencia de
+ * referencia, 100 peticiones/ms: el doble de lo que puede atender, repartidas entre las
+ * cuatro prioridades. OverloadState se actualiza cada 100 ms con las peticiones en
+ * curso y la latencia del intervalo, como hace OverloadDetector, y con los valores de
+ * gateway.load-shedding en application.yml.
+ *
+ * Sin descarte la cola crece sin limite; con descarte las clases bajas absorben el exceso y
+ * el p99 de CRITICAL y HIGH queda dentro del SLO.
+ */
+@Slf4j
+class LoadSheddingSimulationTest {
+
+    private static final long SIMULATED_MS = 30_000;
+    private static final int WORKERS = 500;
+    private static final double MEAN_SERVICE_MS = 10;
+    private static final double ARRIVALS_PER_MS = 100;
+    private static final double WARMUP_ARRIVALS_PER_MS = 25;
+    private static final long WARMUP_MS = 10_000;
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final double SLO_P99_MS = 250;
+
+    // gateway.load-shedding en application.yml
+    private static final long MAX_EVENT_LOOP_LAG_MS = 50;
+    private static final int MAX_IN_FLIGHT = 2000;
+    private static final double LATENCY_RATIO_LIMIT = 3.0;
+    private static final double HIGH_THRESHOLD = 0.95;
+    private static final double NORMAL_THRESHOLD = 0.8;
+    private static final double LOW_THRESHOLD = 0.6;
+    private static final double HYSTERESIS = 0.1;
+
+    private static final Priority[] MIX = {
+            Priority.CRITICAL, Priority.CRITICAL,
+            Priority.HIGH, Priority.HIGH,
+            Priority.NORMAL, Priority.NORMAL, Priority.NORMAL,
+            Priority.LOW, Priority.LOW, Priority.LOW};
+
+    @Test
+    void highPriorityP99StaysWithinSloUnderOverload() {
+        Result withoutShedding = simulate(false);
+        Result withShedding = simulate(true);
+
+        for (Priority priority : Priority.values()) {
+            log.info("{}: p99 sin descarte {} ms, con descarte {} ms, {} % descartadas", priority,
+                    String.format("%.1f", withoutShedding.p99Millis(priority)),
+                    String.format("%.1f", withShedding.p99Millis(priority)),
+                    String.format("%.1f", withShedding.shedPercent(priority)));
+        }
+
+        assertTrue(withShedding.p99Millis(Priority.CRITICAL) < SLO_P99_MS);
+        assertTrue(withShedding.p99Millis(Priority.HIGH) < SLO_P99_MS);
+        assertEquals(0, withShedding.shedPercent(Priority.CRITICAL));
+        assertTrue(withShedding.shedPercent(Priority.LOW) > withShedding.shedPercent(Priority.HIGH));
+        assertTrue(withoutShedding.p99Millis(Priority.CRITICAL) > SLO_P99_MS);
+    }
+
+    private Result simulate(boolean shedding) {
+        double[] thresholds = new double[Priority.values().length];
+        thresholds[Priority.HIGH.ordinal()] = HIGH_THRESHOLD;
+        thresholds[Priority.NORMAL.ordinal()] = NORMAL_THRESHOLD;
+        thresholds[Priority.LOW.ordinal()] = LOW_THRESHOLD;
+        // Sin event loop en la simulacion: el lag queda siempre a 0
+        OverloadState state = new OverloadState(TimeUnit.MILLISECONDS.toNanos(MAX_EVENT_LOOP_LAG_MS), MAX_IN_FLIGHT,
+                LATENCY_RATIO_LIMIT, thresholds, HYSTERESIS);
+
+        Random random = new Random(42);
+        Result result = new Result();
+        PriorityQueue<Event> events = new PriorityQueue<>();
+        ArrayDeque<Job> queue = new ArrayDeque<>();
+        long end = TimeUnit.MILLISECONDS.toNanos(SIMULATED_MS);
+        long warmupEnd = TimeUnit.MILLISECONDS.toNanos(WARMUP_MS);
+        int busy = 0;
+        int inFlight = 0;
+        long windowLatencySum = 0;
+        long windowCount = 0;
+
+        events.add(new Event(0, EventType.ARRIVAL, null));
+        events.add(new Event(TICK_NANOS, EventType.TICK, null));
+
+        while (!events.isEmpty()) {
+            Event event = events.poll();
+            long now = event.time();
+
+            switch (event.type()) {
+                case ARRIVAL -> {
+                    Priority priority = MIX[random.nextInt(MIX.length)];
+                    if (shedding && state.shouldShed(priority)) {
+                        result.shed(priority);
+                    } else {
+                        Job job = new Job(now, priority);
+                        inFlight++;
+                        if (busy < WORKERS) {
+                            busy++;
+                            events.add(new Event(now + exponentialNanos(random, MEAN_SERVICE_MS), EventType.DONE, job));
+                        } else {
+                            queue.add(job);
+                        }
+                    }
+                    double rate = now < warmupEnd ? WARMUP_ARRIVALS_PER_MS : ARRIVALS_PER_MS;
+                    long next = now + exponentialNanos(random, 1 / rate);
+                    if (next < end) {
+                        events.add(new Event(next, EventType.ARRIVAL, null));
+                    }
+                }
+                case DONE -> {
+                    Job job = event.job();
+                    long latency = now - job.arrival();
+                    result.completed(job.priority(), latency);
+                    windowLatencySum += latency;
+                    windowCount++;
+                    inFlight--;
+                    busy--;
+                    if (!queue.isEmpty()) {
+                        busy++;
+                        events.add(new Event(now + exponentialNanos(random, MEAN_SERVICE_MS), EventType.DONE, queue.poll()));
+                    }
+                }
+                case TICK -> {
+                    state.update(0, inFlight, windowCount == 0 ? -1 : windowLatencySum / windowCount);
+                    windowLatencySum = 0;
+                    windowCount = 0;
+                    if (now + TICK_NANOS < end) {
+                        events.add(new Event(now + TICK_NANOS, EventType.TICK, null));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static long exponentialNanos(Random random, double meanMs) {
+        return (long) (-Math.log(1 - random.nextDouble()) * TimeUnit.MILLISECONDS.toNanos(1) * meanMs);
+    }
+
+    private enum EventType {
+        ARRIVAL, DONE, TICK
+    }
+
+    private record Job(long arrival, Priority priority) {
+    }
+
+    private record Event(long time, EventType type, Job job) implements Comparable<Event> {
+
+        @Override
+        public int compareTo(Event other) {
+            return Long.compare(time, other.time);
+        }
+    }
+
+    private static final class Result {
+
+        private final Map<Priority, List<Long>> latencies = new EnumMap<>(Priority.class);
+        private final Map<Priority, Integer> shed = new EnumMap<>(Priority.class);
+
+        private void completed(Priority priority, long latencyNanos) {
+            latencies.computeIfAbsent(priority, p -> new ArrayList<>()).add(latencyNanos);
+        }
+
+        private void shed(Priority priority) {
+            shed.merge(priority, 1, Integer::sum);
+        }
+
+        private double p99Millis(Priority priority) {
+            List<Long> values = latencies.getOrDefault(priority, List.of());
+            if (values.isEmpty()) {
+                return 0;
+            }
+            List<Long> sorted = values.stream().sorted().toList();
+            return sorted.get((int) (sorted.size() * 0.99)) / 1_000_000.0;
+        }
+
+        private double shedPercent(Priority priority) {
+            int completed = latencies.getOrDefault(priority, List.of()).size();
+            int dropped = shed.getOrDefault(priority, 0);
+            return completed + dropped == 0 ? 0 : 100.0 * dropped / (completed + dropped);
+        }
+    }
+}
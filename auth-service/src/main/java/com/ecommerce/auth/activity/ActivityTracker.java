@@ -0,0 +1,240 @@
+package com.ecommerce.auth.activity;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Registra lastLoginAt y lastSeenAt de cada usuario sin escribir en cada peticion.
+ *
+ * lastSeenAt refleja las peticiones autenticadas de cualquier servicio: el Gateway, por el que
+ * pasan todas, las acumula y las envia aqui por lotes (POST /auth/internal/activity).
+ *
+ * Los eventos se acumulan en un mapa por userId que solo guarda el instante mas reciente;
+ * cada flush-interval-ms se vuelca con un UPDATE por lote de usuarios. Un usuario muy activo
+ * genera una sola fila escrita por intervalo.
+ *
+ * El UPDATE usa GREATEST, asi nunca retrocede un valor escrito por otra instancia.
+ *
+ * Con max-pending usuarios pendientes se adelanta un volcado (uno solo a la vez) y, hasta que
+ * termine, la actividad de usuarios que no estan ya en el mapa se descarta y se cuenta en
+ * auth.activity.dropped.
+ */
+@Slf4j
+@Component
+public class ActivityTracker {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxPending;
+
+    private final ConcurrentHashMap<Long, Activity> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean earlyFlushScheduled = new AtomicBoolean();
+
+    private final Counter logins;
+    private final Counter seen;
+    private final Counter rowsWritten;
+    private final Counter flushFailures;
+    private final Counter dropped;
+
+    public ActivityTracker(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${auth.activity.enabled:true}") boolean enabled,
+            @Value("${auth.activity.flush-interval-ms:10000}") long flushIntervalMillis,
+            @Value("${auth.activity.batch-size:500}") int batchSize,
+            @Value("${auth.activity.max-pending:100000}") int maxPending) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+
+        this.logins = Counter.builder("auth.activity.events")
+                .tag("type", "login")
+                .description("Logins registrados")
+                .register(meterRegistry);
+        this.seen = Counter.builder("auth.activity.events")
+                .tag("type", "seen")
+                .description("Usuarios activos registrados a partir de los avisos del Gateway")
+                .register(meterRegistry);
+        this.rowsWritten = Counter.builder("auth.activity.rows_written")
+                .description("Filas de credentials actualizadas por los volcados")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("auth.activity.flush_failures")
+                .description("Volcados fallidos (los eventos se reintentan en el siguiente)")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("auth.activity.dropped")
+                .description("Eventos descartados con el mapa de pendientes lleno")
+                .register(meterRegistry);
+        Gauge.builder("auth.activity.pending", pending, Map::size)
+                .description("Usuarios con actividad pendiente de volcar")
+                .register(meterRegistry);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "activity-tracker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void recordLogin(Long userId) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (record(userId, new Activity(now, now))) {
+            logins.increment();
+        }
+    }
+
+    /**
+     * Actividad de un usuario en el instante seenAt (el Gateway la envia con retraso).
+     */
+    public void recordSeen(Long userId, LocalDateTime seenAt) {
+        if (!enabled || userId == null || seenAt == null) {
+            return;
+        }
+        if (record(userId, new Activity(null, seenAt))) {
+            seen.increment();
+        }
+    }
+
+    /**
+     * Acumula la actividad. Con el mapa lleno solo se actualizan los usuarios que ya estan:
+     * un usuario nuevo no cabe hasta que termine el volcado adelantado.
+     */
+    private boolean record(Long userId, Activity activity) {
+        if (pending.size() < maxPending) {
+            pending.merge(userId, activity, Activity::latest);
+            return true;
+        }
+
+        scheduleEarlyFlush();
+        if (pending.computeIfPresent(userId, (id, current) -> Activity.latest(current, activity)) != null) {
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    private void scheduleEarlyFlush() {
+        if (!earlyFlushScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            scheduler.execute(() -> {
+                try {
+                    flush();
+                } finally {
+                    earlyFlushScheduled.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Apagando: el volcado final lo hace shutdown
+            earlyFlushScheduled.set(false);
+        }
+    }
+
+    /**
+     * Vuelca la actividad acumulada. Las entradas se retiran del mapa una a una: un evento
+     * que llega durante el volcado crea una entrada nueva para el siguiente.
+     */
+    synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // Ordenado por userId para que dos instancias no se bloqueen entre si
+        TreeMap<Long, Activity> snapshot = new TreeMap<>();
+        for (Long userId : pending.keySet()) {
+            Activity activity = pending.remove(userId);
+            if (activity != null) {
+                snapshot.put(userId, activity);
+            }
+        }
+
+        List<Map.Entry<Long, Activity>> entries = new ArrayList<>(snapshot.entrySet());
+        for (int from = 0; from < entries.size(); from += batchSize) {
+            List<Map.Entry<Long, Activity>> batch = entries.subList(from, Math.min(from + batchSize, entries.size()));
+            try {
+                rowsWritten.increment(writeBatch(batch));
+            } catch (RuntimeException e) {
+                flushFailures.increment();
+                log.error("Error volcando la actividad de {} usuario(s): {}", batch.size(), e.getMessage());
+                // Devolver al mapa para el siguiente intento sin perder eventos mas recientes
+                batch.forEach(entry -> pending.merge(entry.getKey(), entry.getValue(), Activity::latest));
+            }
+        }
+
+        log.debug("Actividad volcada para {} usuario(s)", snapshot.size());
+    }
+
+    private int writeBatch(List<Map.Entry<Long, Activity>> batch) {
+        StringBuilder sql = new StringBuilder(
+                "UPDATE credentials c SET " +
+                "last_login_at = GREATEST(c.last_login_at, v.last_login_at), " +
+                "last_seen_at = GREATEST(c.last_seen_at, v.last_seen_at) " +
+                "FROM (VALUES ");
+        Object[] args = new Object[batch.size() * 3];
+
+        for (int i = 0; i < batch.size(); i++) {
+            Map.Entry<Long, Activity> entry = batch.get(i);
+            sql.append(i == 0 ? "" : ", ")
+                    .append("(CAST(? AS bigint), CAST(? AS timestamp), CAST(? AS timestamp))");
+            args[i * 3] = entry.getKey();
+            args[i * 3 + 1] = entry.getValue().lastLoginAt();
+            args[i * 3 + 2] = entry.getValue().lastSeenAt();
+        }
+
+        sql.append(") AS v(user_id, last_login_at, last_seen_at) WHERE c.user_id = v.user_id");
+        return jdbcTemplate.update(sql.toString(), args);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        flush();
+    }
+
+    /**
+     * Ultimo login y ultima actividad pendientes de un usuario (lastLoginAt puede ser null).
+     */
+    private record Activity(LocalDateTime lastLoginAt, LocalDateTime lastSeenAt) {
+
+        private static Activity latest(Activity a, Activity b) {
+            return new Activity(max(a.lastLoginAt, b.lastLoginAt), max(a.lastSeenAt, b.lastSeenAt));
+        }
+
+        private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+            if (a == null) {
+                return b;
+            }
+            if (b == null) {
+                return a;
+            }
+            return a.isAfter(b) ? a : b;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.ecommerce.auth.client;
+
+import com.ecommerce.datasource.ReadYourWrites;
+import feign.InvocationContext;
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import feign.ResponseInterceptor;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * Propaga X-Last-Write (ver ReadYourWrites) en las llamadas Feign al User Service, para que
+ * sus lecturas vayan al primario tras una escritura reciente:
+ *
+ * - Se envia el mas reciente entre el que trae la peticion entrante y los que han devuelto
+ *   las llamadas anteriores de la misma peticion (p. ej. el alta del registro).
+ * - El que devuelve el User Service se copia a la respuesta de Auth Service, para que el
+ *   cliente lo reenvie en sus siguientes peticiones.
+ *
+ * Las llamadas hechas fuera del hilo de la peticion (UserLookupCollapser) lo pasan con
+ * withLastWrite.
+ */
+@Component
+public class LastWritePropagation implements RequestInterceptor, ResponseInterceptor {
+
+    private static final String LAST_WRITE_ATTRIBUTE = LastWritePropagation.class.getName() + ".LAST_WRITE";
+
+    private static final ThreadLocal<Long> DETACHED_LAST_WRITE = new ThreadLocal<>();
+
+    @Override
+    public void apply(RequestTemplate template) {
+        long lastWrite = currentLastWrite();
+        if (lastWrite > 0) {
+            template.header(ReadYourWrites.LAST_WRITE_HEADER, String.valueOf(lastWrite));
+        }
+    }
+
+    @Override
+    public Object intercept(InvocationContext invocationContext, Chain chain) throws Exception {
+        Collection<String> values = invocationContext.response().headers().get(ReadYourWrites.LAST_WRITE_HEADER);
+        if (values != null) {
+            values.forEach(value -> recordLastWrite(parse(value)));
+        }
+        return chain.next(invocationContext);
+    }
+
+    /**
+     * Instante de la ultima escritura conocida para la peticion en curso (0 si no hay).
+     */
+    public static long currentLastWrite() {
+        Long detached = DETACHED_LAST_WRITE.get();
+        if (detached != null) {
+            return detached;
+        }
+
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return 0;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        long fromClient = parse(request.getHeader(ReadYourWrites.LAST_WRITE_HEADER));
+        return request.getAttribute(LAST_WRITE_ATTRIBUTE) instanceof Long recorded
+                ? Math.max(fromClient, recorded)
+                : fromClient;
+    }
+
+    /**
+     * Ejecuta call enviando lastWrite como X-Last-Write (llamadas sin contexto de peticion).
+     */
+    public static <T> T withLastWrite(long lastWrite, Supplier<T> call) {
+        if (lastWrite <= 0) {
+            return call.get();
+        }
+        DETACHED_LAST_WRITE.set(lastWrite);
+        try {
+            return call.get();
+        } finally {
+            DETACHED_LAST_WRITE.remove();
+        }
+    }
+
+    private static void recordLastWrite(long lastWrite) {
+        if (lastWrite <= 0
+                || !(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return;
+        }
+
+        HttpServletRequest request = attributes.getRequest();
+        if (request.getAttribute(LAST_WRITE_ATTRIBUTE) instanceof Long recorded && recorded >= lastWrite) {
+            return;
+        }
+        request.setAttribute(LAST_WRITE_ATTRIBUTE, lastWrite);
+
+        HttpServletResponse response = attributes.getResponse();
+        if (response != null && !response.isCommitted()) {
+            response.setHeader(ReadYourWrites.LAST_WRITE_HEADER, String.valueOf(lastWrite));
+        }
+    }
+
+    private static long parse(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.ecommerce.auth.client;
+
+import com.ecommerce.auth.model.AuthPrincipalDTO;
+import com.ecommerce.auth.model.UserBatchRequestDTO;
+import com.ecommerce.auth.model.UserBatchResponseDTO;
+import com.ecommerce.auth.model.UserDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Agrupa las busquedas individuales de usuarios que llegan casi a la vez
+ * en una sola llamada a POST /users/batch del User Service (y las de principales para el
+ * login en una a POST /users/internal/principals).
+ *
+ * Cada busqueda espera como maximo window-ms a que se acumulen otras;
+ * si se alcanza max-batch-size el lote se envia de inmediato.
+ * Busquedas concurrentes de la misma clave comparten el mismo resultado.
+ */
+@Slf4j
+@Component
+public class UserLookupCollapser {
+
+    private final UserServiceClient userServiceClient;
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final long timeoutMillis;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Object lock = new Object();
+    private PendingBatch pending = new PendingBatch();
+
+    public UserLookupCollapser(
+            UserServiceClient userServiceClient,
+            @Value("${user-service.lookup-collapser.enabled:true}") boolean enabled,
+            @Value("${user-service.lookup-collapser.window-ms:5}") long windowMillis,
+            @Value("${user-service.lookup-collapser.max-batch-size:100}") int maxBatchSize,
+            @Value("${user-service.lookup-collapser.timeout-ms:6000}") long timeoutMillis,
+            @Value("${user-service.lookup-collapser.threads:2}") int threads) {
+        this.userServiceClient = userServiceClient;
+        this.enabled = enabled;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.timeoutMillis = timeoutMillis;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "user-lookup-collapser-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Equivalente a UserServiceClient.getUserByEmail, pero devuelve null si el usuario no existe.
+     */
+    public UserDTO getUserByEmail(String email) {
+        if (!enabled) {
+            return userServiceClient.getUserByEmail(email);
+        }
+
+        CompletableFuture<UserDTO> future;
+        synchronized (lock) {
+            future = pending.byEmail.computeIfAbsent(email, key -> new CompletableFuture<>());
+            pending.trackLastWrite();
+            onEnqueued();
+        }
+        return await(future);
+    }
+
+    /**
+     * Equivalente a UserServiceClient.getUserById, pero devuelve null si el usuario no existe.
+     */
+    public UserDTO getUserById(Long id) {
+        if (!enabled) {
+            return userServiceClient.getUserById(id);
+        }
+
+        CompletableFuture<UserDTO> future;
+        synchronized (lock) {
+            future = pending.byId.computeIfAbsent(id, key -> new CompletableFuture<>());
+            pending.trackLastWrite();
+            onEnqueued();
+        }
+        return await(future);
+    }
+
+    /**
+     * Equivalente a UserServiceClient.getAuthPrincipal, pero devuelve null si el usuario no existe.
+     */
+    public AuthPrincipalDTO getAuthPrincipal(String email) {
+        if (!enabled) {
+            return userServiceClient.getAuthPrincipal(email);
+        }
+
+        CompletableFuture<AuthPrincipalDTO> future;
+        synchronized (lock) {
+            future = pending.principalsByEmail.computeIfAbsent(email, key -> new CompletableFuture<>());
+            pending.trackLastWrite();
+            onEnqueued();
+        }
+        return await(future);
+    }
+
+    /**
+     * Debe llamarse con el lock tomado.
+     */
+    private void onEnqueued() {
+        if (pending.size() >= maxBatchSize) {
+            PendingBatch batch = pending;
+            pending = new PendingBatch();
+            scheduler.execute(() -> dispatch(batch));
+        } else if (!pending.flushScheduled) {
+            pending.flushScheduled = true;
+            PendingBatch batch = pending;
+            scheduler.schedule(() -> flush(batch), windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush(PendingBatch batch) {
+        synchronized (lock) {
+            if (pending != batch) {
+                // Ya se envio al alcanzar el tamaño maximo
+                return;
+            }
+            pending = new PendingBatch();
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(PendingBatch batch) {
+        if (!batch.principalsByEmail.isEmpty()) {
+            dispatchPrincipals(batch.principalsByEmail, batch.lastWrite);
+        }
+        if (batch.byId.isEmpty() && batch.byEmail.isEmpty()) {
+            return;
+        }
+
+        UserBatchRequestDTO request = UserBatchRequestDTO.builder()
+                .ids(new ArrayList<>(batch.byId.keySet()))
+                .emails(new ArrayList<>(batch.byEmail.keySet()))
+                .build();
+
+        log.debug("Enviando lote de usuarios: {} id(s), {} email(s)",
+                request.getIds().size(), request.getEmails().size());
+
+        try {
+            UserBatchResponseDTO response = LastWritePropagation.withLastWrite(batch.lastWrite,
+                    () -> userServiceClient.getUsersBatch(request));
+
+            batch.byId.forEach((id, future) -> future.complete(response.getUsersById().get(id)));
+            batch.byEmail.forEach((email, future) -> future.complete(response.getUsersByEmail().get(email)));
+        } catch (RuntimeException e) {
+            log.error("Error en la consulta por lotes al User Service: {}", e.getMessage());
+            batch.byId.values().forEach(future -> future.completeExceptionally(e));
+            batch.byEmail.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private void dispatchPrincipals(Map<String, CompletableFuture<AuthPrincipalDTO>> principalsByEmail,
+                                    long lastWrite) {
+        UserBatchRequestDTO request = UserBatchRequestDTO.builder()
+                .ids(List.of())
+                .emails(new ArrayList<>(principalsByEmail.keySet()))
+                .build();
+
+        log.debug("Enviando lote de principales: {} email(s)", request.getEmails().size());
+
+        try {
+            Map<String, AuthPrincipalDTO> response = LastWritePropagation.withLastWrite(lastWrite,
+                    () -> userServiceClient.getAuthPrincipals(request));
+            principalsByEmail.forEach((email, future) -> future.complete(response.get(email)));
+        } catch (RuntimeException e) {
+            log.error("Error en la consulta de principales por lotes al User Service: {}", e.getMessage());
+            principalsByEmail.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // Propagar la excepcion original (p. ej. FeignException) para conservar el manejo existente
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Error consultando el User Service", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Tiempo de espera agotado consultando el User Service", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Consulta al User Service interrumpida", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * Busquedas acumuladas a la espera de enviarse en el mismo lote.
+     */
+    private static final class PendingBatch {
+        private final Map<Long, CompletableFuture<UserDTO>> byId = new HashMap<>();
+        private final Map<String, CompletableFuture<UserDTO>> byEmail = new HashMap<>();
+        private final Map<String, CompletableFuture<AuthPrincipalDTO>> principalsByEmail = new HashMap<>();
+        private boolean flushScheduled;
+        // X-Last-Write mas reciente del lote: si una peticion acaba de escribir, todo el lote lee del primario
+        private long lastWrite;
+
+        private void trackLastWrite() {
+            lastWrite = Math.max(lastWrite, LastWritePropagation.currentLastWrite());
+        }
+
+        private int size() {
+            return byId.size() + byEmail.size() + principalsByEmail.size();
+        }
+    }
+}
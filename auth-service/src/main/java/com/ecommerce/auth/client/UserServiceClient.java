@@ -1,5 +1,8 @@
 package com.ecommerce.auth.client;
 
+import com.ecommerce.auth.model.AuthPrincipalDTO;
+import com.ecommerce.auth.model.UserBatchRequestDTO;
+import com.ecommerce.auth.model.UserBatchResponseDTO;
 import com.ecommerce.auth.model.UserDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
@@ -14,11 +17,29 @@ public interface UserServiceClient {
     @GetMapping("/{id}")
     UserDTO getUserById(@PathVariable("id") Long id);
 
+    /**
+     * Endpoint interno con solo id, nombres, estado y roles (una busqueda por indice en User Service).
+     */
+    @GetMapping("/internal/principal")
+    AuthPrincipalDTO getAuthPrincipal(@RequestParam("email") String email);
+
+    /**
+     * Varios principales por email (solo se usa emails). Usar a traves de UserLookupCollapser.
+     */
+    @PostMapping("/internal/principals")
+    Map<String, AuthPrincipalDTO> getAuthPrincipals(@RequestBody UserBatchRequestDTO batchRequest);
+
     @GetMapping("/exists")
     Map<String, Boolean> checkEmailExists(@RequestParam("email") String email);
 
     @PostMapping
     UserDTO createUser(@RequestBody Map<String, String> userRequest);
 
+    /**
+     * Consulta por lotes. Usar a traves de UserLookupCollapser para las busquedas individuales.
+     */
+    @PostMapping("/batch")
+    UserBatchResponseDTO getUsersBatch(@RequestBody UserBatchRequestDTO batchRequest);
+
 
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.ecommerce.auth.controller;
 
+import com.ecommerce.auth.dto.request.ActivityReportDTO;
 import com.ecommerce.auth.dto.request.LoginRequestDTO;
 import com.ecommerce.auth.dto.request.RefreshTokenRequestDTO;
 import com.ecommerce.auth.dto.request.RegisterRequestDTO;
@@ -136,4 +137,15 @@ public class AuthController {
 
         return ResponseEntity.ok(response);
     }
+
+    //Uso interno (API Gateway): actividad de los usuarios autenticados, agrupada por intervalo.
+    //El Gateway rechaza /api/auth/internal/** desde fuera (DenyListFilter)
+    @PostMapping("/internal/activity")
+    public ResponseEntity<Void> recordActivity(@Valid @RequestBody ActivityReportDTO report) {
+        log.debug("Solicitud REST interna con la actividad de {} usuario(s)", report.getSeen().size());
+
+        authService.recordActivity(report.getSeen());
+
+        return ResponseEntity.accepted().build();
+    }
 }
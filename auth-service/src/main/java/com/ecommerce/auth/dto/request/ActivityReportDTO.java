@@ -0,0 +1,22 @@
+package com.ecommerce.auth.dto.request;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Actividad enviada por el Gateway: email (subject del token) -> ultima peticion, en epoch millis.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ActivityReportDTO {
+
+    @NotNull(message = "seen es obligatorio")
+    private Map<String, Long> seen;
+}
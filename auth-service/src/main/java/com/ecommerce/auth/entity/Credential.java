@@ -48,6 +48,15 @@ public class Credential {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    /**
+     * Solo lectura desde JPA: las escribe ActivityTracker con UPDATEs agrupados.
+     */
+    @Column(name = "last_login_at", insertable = false, updatable = false)
+    private LocalDateTime lastLoginAt;
+
+    @Column(name = "last_seen_at", insertable = false, updatable = false)
+    private LocalDateTime lastSeenAt;
+
     @Override
     public String toString() {
         return "Credential{" +
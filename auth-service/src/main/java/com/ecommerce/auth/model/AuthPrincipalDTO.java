@@ -0,0 +1,23 @@
+package com.ecommerce.auth.model;
+
+import lombok.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Datos minimos de un usuario para autenticarlo (proyeccion auth_principal de User Service).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AuthPrincipalDTO {
+    private Long id;
+    private String email;
+    private String firstName;
+    private String lastName;
+    private Boolean isActive;
+    @Builder.Default
+    private Set<String> roles = new HashSet<>();
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.auth.model;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserBatchRequestDTO {
+    @Builder.Default
+    private List<Long> ids = new ArrayList<>();
+    @Builder.Default
+    private List<String> emails = new ArrayList<>();
+}
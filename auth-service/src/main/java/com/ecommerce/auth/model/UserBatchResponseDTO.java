@@ -0,0 +1,23 @@
+package com.ecommerce.auth.model;
+
+import lombok.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserBatchResponseDTO {
+    @Builder.Default
+    private Map<Long, UserDTO> usersById = new HashMap<>();
+    @Builder.Default
+    private Map<String, UserDTO> usersByEmail = new HashMap<>();
+    @Builder.Default
+    private Set<Long> missingIds = new HashSet<>();
+    @Builder.Default
+    private Set<String> missingEmails = new HashSet<>();
+}
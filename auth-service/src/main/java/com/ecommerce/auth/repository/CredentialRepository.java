@@ -2,8 +2,12 @@ package com.ecommerce.auth.repository;
 
 import com.ecommerce.auth.entity.Credential;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -20,4 +24,10 @@ public interface CredentialRepository extends JpaRepository<Credential, Long> {
      * Verifica si existe credencial para ese usuario.
      */
     boolean existsByUserId(Long userId);
+
+    /**
+     * Pares (email, userId) de varios emails en una consulta, sin cargar las credenciales.
+     */
+    @Query("SELECT c.email, c.userId FROM Credential c WHERE c.email IN :emails")
+    List<Object[]> findUserIdsByEmailIn(@Param("emails") Collection<String> emails);
 }
\ No newline at end of file
@@ -72,6 +72,7 @@ public class SecurityConfig {
                                 "/auth/login",
                                 "/auth/register",
                                 "/auth/refresh",
+                                "/auth/internal/**",
                                 "/actuator/**",
                                 "/error"
                         ).permitAll()
@@ -1,7 +1,7 @@
 package com.ecommerce.auth.security.service;
 
-import com.ecommerce.auth.client.UserServiceClient;
-import com.ecommerce.auth.model.UserDTO;
+import com.ecommerce.auth.client.UserLookupCollapser;
+import com.ecommerce.auth.model.AuthPrincipalDTO;
 import feign.FeignException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.GrantedAuthority;
@@ -19,10 +19,10 @@ import java.util.stream.Collectors;
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
-    private final UserServiceClient userServiceClient;
+    private final UserLookupCollapser userLookupCollapser;
 
-    public CustomUserDetailsService(UserServiceClient userServiceClient) {
-        this.userServiceClient = userServiceClient;
+    public CustomUserDetailsService(UserLookupCollapser userLookupCollapser) {
+        this.userLookupCollapser = userLookupCollapser;
     }
 
     @Override
@@ -30,33 +30,35 @@ public class CustomUserDetailsService implements UserDetailsService {
         log.info("Cargando usuario por correo electrónico: {}", email);
 
         try {
-            UserDTO userDTO = userServiceClient.getUserByEmail(email);
-            if (userDTO == null) {
+            // Proyeccion auth_principal: sin entidades ni DTOs de rol completos.
+            // Los logins concurrentes se agrupan en una sola llamada a /users/internal/principals
+            AuthPrincipalDTO principal = userLookupCollapser.getAuthPrincipal(email);
+            if (principal == null) {
                 log.error("Usuario no encontrado: {}", email);
                 throw new UsernameNotFoundException("Usuario no encontrado con el correo electrónico: " + email);
             }
 
-            if (!userDTO.getIsActive()) {
+            if (!Boolean.TRUE.equals(principal.getIsActive())) {
                 log.warn("La cuenta de usuario está inactiva: {}", email);
                 throw new UsernameNotFoundException("La cuenta de usuario está inactiva");
             }
 
-            Set<GrantedAuthority> authorities = userDTO.getRoles() != null
-                    ? userDTO.getRoles().stream()
-                    .filter(role -> role != null && role.getName() != null)
-                    .map(role -> new SimpleGrantedAuthority(role.getName()))
+            Set<GrantedAuthority> authorities = principal.getRoles() != null
+                    ? principal.getRoles().stream()
+                    .filter(role -> role != null)
+                    .map(SimpleGrantedAuthority::new)
                     .collect(Collectors.toSet())
                     : Collections.emptySet();
 
             log.info("Usuario cargado exitosamente: {} con roles: {}", email, authorities);
 
             return new CustomUserDetails(
-                    userDTO.getEmail(),
-                    userDTO.getId(),
-                    userDTO.getFirstName(),
-                    userDTO.getLastName(),
+                    principal.getEmail(),
+                    principal.getId(),
+                    principal.getFirstName(),
+                    principal.getLastName(),
                     authorities,
-                    userDTO.getIsActive()
+                    principal.getIsActive()
             );
 
         } catch (FeignException.NotFound e) {
@@ -5,6 +5,8 @@ import com.ecommerce.auth.dto.request.RefreshTokenRequestDTO;
 import com.ecommerce.auth.dto.request.RegisterRequestDTO;
 import com.ecommerce.auth.dto.response.AuthResponseDTO;
 
+import java.util.Map;
+
 
 public interface AuthService {
 
@@ -18,4 +20,9 @@ public interface AuthService {
 
 
     boolean validateToken(String token);
+
+    /**
+     * Registra la actividad enviada por el Gateway (email -> ultima peticion en epoch millis).
+     */
+    void recordActivity(Map<String, Long> seenByEmail);
 }
\ No newline at end of file
@@ -2,6 +2,9 @@ package com.ecommerce.auth.service;
 
 import com.ecommerce.auth.entity.Credential;
 
+import java.util.Collection;
+import java.util.Map;
+
 public interface CredentialService {
 
     Credential createCredential(Long userId, String email, String passwordHash);
@@ -11,4 +14,9 @@ public interface CredentialService {
     boolean validatePassword(String rawPassword, String email);
 
     void updatePassword(String email, String newPasswordHash);
+
+    /**
+     * userId de cada email con credenciales; los que no existen no aparecen.
+     */
+    Map<String, Long> findUserIdsByEmail(Collection<String> emails);
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.ecommerce.auth.service.impl;
 
 
+import com.ecommerce.auth.activity.ActivityTracker;
+import com.ecommerce.auth.client.UserLookupCollapser;
 import com.ecommerce.auth.client.UserServiceClient;
 import com.ecommerce.auth.dto.request.LoginRequestDTO;
 import com.ecommerce.auth.dto.request.RefreshTokenRequestDTO;
@@ -21,6 +23,9 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -32,21 +37,27 @@ public class AuthServiceImpl implements AuthService {
 
     private final CustomUserDetailsService userDetailsService;
     private final UserServiceClient userServiceClient;
+    private final UserLookupCollapser userLookupCollapser;
     private final JwtUtil jwtUtil;
     private final PasswordEncoder passwordEncoder;
     private final CredentialService credentialService;
+    private final ActivityTracker activityTracker;
 
     public AuthServiceImpl(
             CustomUserDetailsService userDetailsService,
             UserServiceClient userServiceClient,
+            UserLookupCollapser userLookupCollapser,
             JwtUtil jwtUtil,
             PasswordEncoder passwordEncoder,
-            CredentialService credentialService) {
+            CredentialService credentialService,
+            ActivityTracker activityTracker) {
         this.userDetailsService = userDetailsService;
         this.userServiceClient = userServiceClient;
+        this.userLookupCollapser = userLookupCollapser;
         this.jwtUtil = jwtUtil;
         this.passwordEncoder = passwordEncoder;
         this.credentialService = credentialService;
+        this.activityTracker = activityTracker;
     }
 
     @Override
@@ -131,6 +142,9 @@ public class AuthServiceImpl implements AuthService {
             String accessToken = jwtUtil.generateAccessToken(userDetails);
             String refreshToken = jwtUtil.generateRefreshToken(userDetails);
 
+            // Se vuelca en el siguiente intervalo, no en la peticion
+            activityTracker.recordLogin(credential.getUserId());
+
             log.info("Inicio de sesión exitoso para: {}", loginRequest.getEmail());
 
             return AuthResponseDTO.builder()
@@ -175,7 +189,10 @@ public class AuthServiceImpl implements AuthService {
             UserDetails userDetails = userDetailsService.loadUserByUsername(email);
 
 
-            UserDTO user = userServiceClient.getUserByEmail(email);
+            UserDTO user = userLookupCollapser.getUserByEmail(email);
+            if (user == null) {
+                throw new InvalidTokenException("Usuario no encontrado para el refresh token");
+            }
 
 
             String newAccessToken = jwtUtil.generateAccessToken(userDetails);
@@ -214,4 +231,24 @@ public class AuthServiceImpl implements AuthService {
             return false;
         }
     }
+
+    @Override
+    public void recordActivity(Map<String, Long> seenByEmail) {
+        if (seenByEmail == null || seenByEmail.isEmpty()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        Map<String, Long> userIds = credentialService.findUserIdsByEmail(seenByEmail.keySet());
+        userIds.forEach((email, userId) -> {
+            Long seenAt = seenByEmail.get(email);
+            if (seenAt != null) {
+                // Un reloj adelantado en el Gateway no puede dejar lastSeenAt en el futuro
+                activityTracker.recordSeen(userId, LocalDateTime.ofInstant(
+                        Instant.ofEpochMilli(Math.min(seenAt, now)), ZoneId.systemDefault()));
+            }
+        });
+        log.debug("Actividad recibida del Gateway: {} email(s), {} usuario(s) conocidos",
+                seenByEmail.size(), userIds.size());
+    }
 }
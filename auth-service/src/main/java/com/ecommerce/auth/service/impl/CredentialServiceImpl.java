@@ -9,6 +9,10 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 @Slf4j
 @Service
 @Transactional
@@ -61,4 +65,17 @@ public class CredentialServiceImpl implements CredentialService {
         credential.setPasswordHash(newPasswordHash);
         credentialRepository.save(credential);
     }
-}
\ No newline at end of file
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Long> findUserIdsByEmail(Collection<String> emails) {
+        Map<String, Long> userIds = new HashMap<>();
+        if (emails.isEmpty()) {
+            return userIds;
+        }
+        for (Object[] row : credentialRepository.findUserIdsByEmailIn(emails)) {
+            userIds.put((String) row[0], (Long) row[1]);
+        }
+        return userIds;
+    }
+}
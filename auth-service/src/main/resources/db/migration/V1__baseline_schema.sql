@@ -0,0 +1,13 @@
+-- Esquema base del Auth Service (equivalente a lo que generaba ddl-auto: update).
+-- IF NOT EXISTS permite aplicarlo sobre bases de datos creadas antes de usar Flyway.
+-- Las consultas de CredentialRepository (email, user_id) usan los indices unicos.
+
+CREATE TABLE IF NOT EXISTS credentials (
+    id            BIGSERIAL    PRIMARY KEY,
+    user_id       BIGINT       NOT NULL UNIQUE,
+    email         VARCHAR(100) NOT NULL UNIQUE,
+    password_hash VARCHAR(255) NOT NULL,
+    is_active     BOOLEAN      NOT NULL,
+    created_at    TIMESTAMP(6) NOT NULL,
+    updated_at    TIMESTAMP(6)
+);
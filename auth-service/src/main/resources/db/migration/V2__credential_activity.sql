@@ -0,0 +1,5 @@
+-- Ultimo login y ultima actividad por usuario. Los escribe ActivityTracker en lotes;
+-- NULL si el usuario no ha entrado desde que existe la columna.
+
+ALTER TABLE credentials ADD COLUMN IF NOT EXISTS last_login_at TIMESTAMP(6);
+ALTER TABLE credentials ADD COLUMN IF NOT EXISTS last_seen_at TIMESTAMP(6);
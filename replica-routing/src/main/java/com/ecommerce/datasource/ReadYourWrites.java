@@ -0,0 +1,75 @@
+package com.ecommerce.datasource;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.function.Supplier;
+
+/**
+ * Lectura de las propias escrituras.
+ *
+ * Tras un commit, las lecturas del mismo hilo van al primario durante sticky-window-ms.
+ * Entre peticiones, la respuesta lleva X-Last-Write con el instante del commit; si el
+ * cliente lo reenvia, ReadYourWritesFilter fija el primario hasta que venza la misma ventana.
+ */
+public final class ReadYourWrites {
+
+    public static final String LAST_WRITE_HEADER = "X-Last-Write";
+
+    private static final ThreadLocal<Long> PINNED_UNTIL = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static boolean isPinnedToPrimary() {
+        Long until = PINNED_UNTIL.get();
+        return until != null && System.currentTimeMillis() < until;
+    }
+
+    public static void pinToPrimaryUntil(long untilMillis) {
+        Long current = PINNED_UNTIL.get();
+        if (current == null || current < untilMillis) {
+            PINNED_UNTIL.set(untilMillis);
+        }
+    }
+
+    /**
+     * Ejecuta read con las lecturas del hilo en el primario, para consultas que no admiten el
+     * retraso de una replica. La transaccion debe empezar dentro de read.
+     */
+    public static <T> T onPrimary(Supplier<T> read) {
+        Long previous = PINNED_UNTIL.get();
+        PINNED_UNTIL.set(Long.MAX_VALUE);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                PINNED_UNTIL.remove();
+            } else {
+                PINNED_UNTIL.set(previous);
+            }
+        }
+    }
+
+    public static void clear() {
+        PINNED_UNTIL.remove();
+    }
+
+    /**
+     * Se llama tras el commit de una transaccion de escritura.
+     */
+    static void recordWrite(long stickyWindowMillis) {
+        long now = System.currentTimeMillis();
+        pinToPrimaryUntil(now + stickyWindowMillis);
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            HttpServletResponse response = servletAttributes.getResponse();
+            if (response != null && !response.isCommitted()) {
+                response.setHeader(LAST_WRITE_HEADER, String.valueOf(now));
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.ecommerce.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Fija el primario para toda la peticion si el cliente escribio hace menos de sticky-window-ms
+ * (segun el X-Last-Write que recibio en una respuesta anterior).
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final long stickyWindowMillis;
+
+    public ReadYourWritesFilter(long stickyWindowMillis) {
+        this.stickyWindowMillis = stickyWindowMillis;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String lastWrite = request.getHeader(ReadYourWrites.LAST_WRITE_HEADER);
+        if (lastWrite != null) {
+            pinIfRecent(lastWrite);
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.clear();
+        }
+    }
+
+    private void pinIfRecent(String lastWrite) {
+        try {
+            ReadYourWrites.pinToPrimaryUntil(Long.parseLong(lastWrite.trim()) + stickyWindowMillis);
+        } catch (NumberFormatException e) {
+            // Cabecera invalida: se ignora y se enruta normalmente
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.ecommerce.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide periodicamente el retraso de cada replica con lag-query y marca como no
+ * disponibles las que superan max-lag-ms o no responden.
+ *
+ * Es el dueño de los pools de replica: al cerrarse, cierra tambien sus DataSources.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements Closeable {
+
+    private final List<ReplicaPool> replicas;
+    private final String lagQuery;
+    private final long maxLagMillis;
+
+    private ScheduledExecutorService scheduler;
+
+    public ReplicaLagMonitor(List<ReplicaPool> replicas, String lagQuery, long maxLagMillis) {
+        this.replicas = List.copyOf(replicas);
+        this.lagQuery = lagQuery;
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    public List<ReplicaPool> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * Hace una primera comprobacion sincrona y programa las siguientes.
+     */
+    public synchronized void start(long intervalMillis) {
+        checkAll();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::checkAll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void checkAll() {
+        for (ReplicaPool replica : replicas) {
+            check(replica);
+        }
+    }
+
+    private void check(ReplicaPool replica) {
+        boolean wasAvailable = replica.isAvailable();
+        try (Connection connection = replica.getDataSource().getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+
+            long lag = resultSet.next() ? resultSet.getLong(1) : 0;
+            boolean available = lag <= maxLagMillis;
+            replica.update(lag, available);
+
+            if (wasAvailable && !available) {
+                log.warn("Replica {} retirada de las lecturas: retraso {} ms (maximo {} ms)",
+                        replica.getName(), lag, maxLagMillis);
+            } else if (!wasAvailable && available) {
+                log.info("Replica {} disponible para lecturas: retraso {} ms", replica.getName(), lag);
+            }
+        } catch (SQLException e) {
+            replica.update(-1, false);
+            if (wasAvailable) {
+                log.warn("Replica {} retirada de las lecturas: {}", replica.getName(), e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        for (ReplicaPool replica : replicas) {
+            if (replica.getDataSource() instanceof Closeable closeable) {
+                try {
+                    closeable.close();
+                } catch (IOException e) {
+                    log.warn("Error cerrando el pool de la replica {}: {}", replica.getName(), e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.ecommerce.datasource;
+
+import javax.sql.DataSource;
+
+/**
+ * Pool de conexiones de una replica junto con su ultimo retraso medido.
+ */
+public class ReplicaPool {
+
+    private final String name;
+    private final DataSource dataSource;
+
+    private volatile long lagMillis = -1;
+    private volatile boolean available = false;
+
+    public ReplicaPool(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Retraso en milisegundos de la ultima comprobacion, o -1 si no se pudo medir.
+     */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    void update(long lagMillis, boolean available) {
+        this.lagMillis = lagMillis;
+        this.available = available;
+    }
+}
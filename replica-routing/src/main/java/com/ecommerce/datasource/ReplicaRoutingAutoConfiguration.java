@@ -0,0 +1,89 @@
+package com.ecommerce.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sustituye el DataSource autoconfigurado por uno que enruta las transacciones readOnly
+ * a las replicas. Solo se activa con replica-routing.enabled=true.
+ *
+ * Se registra como autoconfiguracion (META-INF/spring): basta con añadir la dependencia
+ * replica-routing al servicio.
+ */
+@Slf4j
+@AutoConfiguration(before = DataSourceAutoConfiguration.class)
+@ConditionalOnProperty(prefix = "replica-routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties({ReplicaRoutingProperties.class, DataSourceProperties.class})
+public class ReplicaRoutingAutoConfiguration {
+
+    /**
+     * Pool del primario: spring.datasource.* para la conexion y spring.datasource.hikari.*
+     * (tamaño, timeouts...) enlazado sobre el pool, como hace el DataSource autoconfigurado.
+     */
+    @Bean(destroyMethod = "close")
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties, MeterRegistry meterRegistry) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primary.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+        primary.setMetricRegistry(meterRegistry);
+        return primary;
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaLagMonitor replicaLagMonitor(ReplicaRoutingProperties properties,
+                                               DataSourceProperties dataSourceProperties,
+                                               MeterRegistry meterRegistry) {
+        List<ReplicaPool> replicas = new ArrayList<>();
+        for (ReplicaRoutingProperties.Replica replica : properties.getReplicas()) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName(replica.getName());
+            pool.setJdbcUrl(replica.getUrl());
+            pool.setUsername(replica.getUsername() != null ? replica.getUsername() : dataSourceProperties.getUsername());
+            pool.setPassword(replica.getPassword() != null ? replica.getPassword() : dataSourceProperties.getPassword());
+            pool.setMaximumPoolSize(replica.getMaximumPoolSize());
+            pool.setReadOnly(true);
+            pool.setMetricRegistry(meterRegistry);
+            replicas.add(new ReplicaPool(replica.getName(), pool));
+        }
+
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replicas, properties.getLagQuery(), properties.getMaxLagMs());
+        monitor.start(properties.getLagCheckMs());
+
+        log.info("Enrutado de lecturas a replicas activado: {} replica(s)", replicas.size());
+        return monitor;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource,
+                                 ReplicaLagMonitor replicaLagMonitor,
+                                 ReplicaRoutingProperties properties,
+                                 MeterRegistry meterRegistry) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(
+                primaryDataSource, replicaLagMonitor.getReplicas(), properties.getStickyWindowMs(), meterRegistry);
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public ReadYourWritesFilter readYourWritesFilter(ReplicaRoutingProperties properties) {
+        return new ReadYourWritesFilter(properties.getStickyWindowMs());
+    }
+}
@@ -0,0 +1,131 @@
+package com.ecommerce.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Envia las transacciones readOnly a una replica disponible (round robin) y el resto al primario.
+ *
+ * Debe usarse detras de un LazyConnectionDataSourceProxy: JpaTransactionManager pide la
+ * conexion antes de marcar la transaccion como readOnly, y el proxy retrasa la eleccion
+ * hasta la primera sentencia.
+ *
+ * Las lecturas van al primario si no hay replicas dentro del retraso maximo o si el hilo
+ * acaba de escribir (ver ReadYourWrites).
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private static final Object WRITE_TRACKED = ReplicaRoutingDataSource.class.getName() + ".WRITE_TRACKED";
+
+    private final List<ReplicaPool> replicas;
+    private final long stickyWindowMillis;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Map<String, Counter> routingCounters = new ConcurrentHashMap<>();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<ReplicaPool> replicas,
+                                    long stickyWindowMillis, MeterRegistry meterRegistry) {
+        this.replicas = List.copyOf(replicas);
+        this.stickyWindowMillis = stickyWindowMillis;
+        this.meterRegistry = meterRegistry;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (ReplicaPool replica : this.replicas) {
+            targets.put(replica.getName(), replica.getDataSource());
+
+            Gauge.builder("datasource.replica.lag", replica, ReplicaPool::getLagMillis)
+                    .tag("pool", replica.getName())
+                    .baseUnit("milliseconds")
+                    .description("Retraso medido de la replica (-1 si no responde)")
+                    .register(meterRegistry);
+            Gauge.builder("datasource.replica.available", replica, pool -> pool.isAvailable() ? 1 : 0)
+                    .tag("pool", replica.getName())
+                    .description("1 si la replica recibe lecturas")
+                    .register(meterRegistry);
+        }
+
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            trackWrite();
+            return route(PRIMARY, "write");
+        }
+
+        if (ReadYourWrites.isPinnedToPrimary()) {
+            return route(PRIMARY, "read_your_writes");
+        }
+
+        ReplicaPool replica = nextAvailableReplica();
+        if (replica == null) {
+            return route(PRIMARY, "no_replica");
+        }
+        return route(replica.getName(), "read");
+    }
+
+    private ReplicaPool nextAvailableReplica() {
+        List<ReplicaPool> available = new ArrayList<>(replicas.size());
+        for (ReplicaPool replica : replicas) {
+            if (replica.isAvailable()) {
+                available.add(replica);
+            }
+        }
+        if (available.isEmpty()) {
+            return null;
+        }
+        return available.get(Math.floorMod(nextReplica.getAndIncrement(), available.size()));
+    }
+
+    /**
+     * Registra una sola vez por transaccion el aviso de escritura para despues del commit.
+     */
+    private void trackWrite() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(WRITE_TRACKED)) {
+            return;
+        }
+
+        TransactionSynchronizationManager.bindResource(WRITE_TRACKED, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ReadYourWrites.recordWrite(stickyWindowMillis);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(WRITE_TRACKED);
+            }
+        });
+    }
+
+    private String route(String target, String reason) {
+        routingCounters.computeIfAbsent(target + ':' + reason, key -> Counter.builder("datasource.routing")
+                        .tag("pool", target)
+                        .tag("reason", reason)
+                        .description("Conexiones enrutadas por pool y motivo")
+                        .register(meterRegistry))
+                .increment();
+        return target;
+    }
+}
@@ -0,0 +1,50 @@
+package com.ecommerce.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuracion de las replicas de lectura (replica-routing.* en application.yml).
+ * La conexion al primario sigue siendo spring.datasource.*.
+ */
+@Data
+@ConfigurationProperties(prefix = "replica-routing")
+public class ReplicaRoutingProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Retraso maximo admitido; una replica mas atrasada deja de recibir lecturas.
+     */
+    private long maxLagMs = 1000;
+
+    private long lagCheckMs = 1000;
+
+    /**
+     * Tiempo durante el que un cliente que acaba de escribir lee del primario.
+     */
+    private long stickyWindowMs = 5000;
+
+    /**
+     * Consulta que devuelve el retraso de la replica en milisegundos.
+     * En un servidor que no esta en recuperacion (primario) devuelve 0.
+     */
+    private String lagQuery = "SELECT CASE " +
+            "WHEN NOT pg_is_in_recovery() THEN 0 " +
+            "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Data
+    public static class Replica {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,123 @@
+package com.ecommerce.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Enrutado con dos bases de datos H2 embebidas: cada una tiene una tabla node con su nombre,
+ * asi cada consulta indica a que pool ha ido.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private static final long STICKY_WINDOW_MS = 60_000;
+
+    private JdbcTemplate primaryJdbc;
+    private JdbcTemplate replicaJdbc;
+    private ReplicaLagMonitor monitor;
+    private SimpleMeterRegistry meterRegistry;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTransaction;
+    private TransactionTemplate writeTransaction;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = embedded("primary");
+        DataSource replica = embedded("replica");
+        primaryJdbc = new JdbcTemplate(primary);
+        replicaJdbc = new JdbcTemplate(replica);
+
+        replicaJdbc.execute("CREATE TABLE replica_lag (lag_ms BIGINT)");
+        replicaJdbc.update("INSERT INTO replica_lag VALUES (0)");
+
+        monitor = new ReplicaLagMonitor(
+                List.of(new ReplicaPool("replica-1", replica)), "SELECT lag_ms FROM replica_lag", 1000);
+        monitor.checkAll();
+
+        meterRegistry = new SimpleMeterRegistry();
+        DataSource routing = new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(
+                primary, monitor.getReplicas(), STICKY_WINDOW_MS, meterRegistry));
+
+        jdbcTemplate = new JdbcTemplate(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        writeTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadYourWrites.clear();
+        primaryJdbc.execute("DROP ALL OBJECTS");
+        replicaJdbc.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        assertEquals("replica", readOnlyTransaction.execute(status -> currentNode()));
+        assertEquals(1.0, meterRegistry.get("datasource.routing")
+                .tag("pool", "replica-1").tag("reason", "read").counter().count());
+    }
+
+    @Test
+    void readWriteTransactionsGoToPrimary() {
+        assertEquals("primary", writeTransaction.execute(status -> currentNode()));
+    }
+
+    @Test
+    void readsAfterCommitStickToPrimary() {
+        writeTransaction.executeWithoutResult(status ->
+                jdbcTemplate.update("UPDATE node SET name = name"));
+
+        assertEquals("primary", readOnlyTransaction.execute(status -> currentNode()));
+
+        ReadYourWrites.clear();
+        assertEquals("replica", readOnlyTransaction.execute(status -> currentNode()));
+    }
+
+    @Test
+    void rolledBackWritesDoNotStick() {
+        writeTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE node SET name = name");
+            status.setRollbackOnly();
+        });
+
+        assertEquals("replica", readOnlyTransaction.execute(status -> currentNode()));
+    }
+
+    @Test
+    void laggingReplicaIsSkipped() {
+        replicaJdbc.update("UPDATE replica_lag SET lag_ms = 5000");
+        monitor.checkAll();
+        assertEquals("primary", readOnlyTransaction.execute(status -> currentNode()));
+
+        replicaJdbc.update("UPDATE replica_lag SET lag_ms = 10");
+        monitor.checkAll();
+        assertEquals("replica", readOnlyTransaction.execute(status -> currentNode()));
+    }
+
+    private String currentNode() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static DataSource embedded(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE node (name VARCHAR(20))");
+        jdbc.update("INSERT INTO node VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,11 @@
+package com.ecommerce.user.audit;
+
+import com.ecommerce.user.entity.AuditAction;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento de auditoria pendiente de escribir.
+ */
+public record AuditRecord(LocalDateTime occurredAt, String actor, AuditAction action, Long entityId, String details) {
+}
@@ -0,0 +1,91 @@
+package com.ecommerce.user.audit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cola circular acotada, sin locks, con varios productores y un unico consumidor
+ * (esquema de D. Vyukov: cada celda lleva un numero de secuencia que indica si esta libre
+ * o publicada).
+ *
+ * offer devuelve la posicion asignada al elemento, o -1 si la cola esta llena; el
+ * consumidor avanza en ese mismo orden, lo que permite esperar a que una posicion concreta
+ * se haya consumido.
+ */
+final class AuditRingBuffer {
+
+    private final int mask;
+    private final AuditRecord[] slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+
+    // Solo lo modifica el consumidor; volatile para que size() lo vea desde otros hilos
+    private volatile long head;
+
+    AuditRingBuffer(int requestedCapacity) {
+        int capacity = Math.max(2, Integer.highestOneBit(requestedCapacity - 1) << 1);
+        this.mask = capacity - 1;
+        this.slots = new AuditRecord[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    long offer(AuditRecord record) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = record;
+                    // Publica la celda: la escritura volatil ordena la de slots[index]
+                    sequences.set(index, position + 1);
+                    return position;
+                }
+            } else if (difference < 0) {
+                return -1;
+            }
+            // difference > 0: otro productor tomo la posicion, reintentar
+        }
+    }
+
+    /**
+     * Extrae hasta max elementos publicados en orden. Solo debe llamarlo el consumidor.
+     */
+    int drainTo(List<AuditRecord> target, int max) {
+        int drained = 0;
+        long position = head;
+        while (drained < max) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            target.add(slots[index]);
+            slots[index] = null;
+            sequences.set(index, position + slots.length);
+            position++;
+            drained++;
+        }
+        head = position;
+        return drained;
+    }
+
+    /**
+     * Posicion del siguiente elemento a consumir (todas las anteriores ya se extrajeron).
+     */
+    long consumedUpTo() {
+        return head;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+}
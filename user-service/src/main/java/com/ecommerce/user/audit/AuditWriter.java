@@ -0,0 +1,299 @@
+package com.ecommerce.user.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Escritor en segundo plano del historial de auditoria.
+ *
+ * Los eventos se encolan en un AuditRingBuffer y un unico hilo los inserta en lotes
+ * (un INSERT multi-fila por lote), fuera de la transaccion y del hilo de la peticion.
+ *
+ * Durabilidad:
+ * - periodic: enqueue vuelve enseguida; el hilo escribe cada flush-interval-ms o al llenar un lote.
+ * - commit: enqueue espera (hasta commit-timeout-ms) a que el evento este escrito. Las peticiones
+ *   concurrentes comparten el mismo INSERT.
+ *
+ *   Si el lote no se puede escribir, la espera termina sin marcar el evento como escrito
+ *   (se cuenta en audit.events{result=failed}).
+ *
+ * Con la cola llena, backpressure=block espera hasta offer-timeout-ms a que haya hueco;
+ * backpressure=drop descarta el evento. Los descartes se cuentan en audit.events{result=dropped}.
+ */
+@Slf4j
+@Component
+public class AuditWriter {
+
+    public enum Durability { COMMIT, PERIODIC }
+
+    public enum Backpressure { BLOCK, DROP }
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO audit_event (occurred_at, actor, action, entity_type, entity_id, details) VALUES ";
+    private static final int COLUMNS = 6;
+    private static final int MAX_ACTOR_LENGTH = 100;
+    private static final int MAX_DETAILS_LENGTH = 500;
+
+    /**
+     * Lotes fallidos recordados para las esperas commit. Una espera dura como mucho
+     * commit-timeout-ms, asi que basta con los ultimos.
+     */
+    private static final int MAX_FAILED_RANGES = 64;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditRingBuffer buffer;
+    private final Durability durability;
+    private final Backpressure backpressure;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutNanos;
+    private final long commitTimeoutMillis;
+
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    private final Object persistedMonitor = new Object();
+    // Posicion hasta la que los lotes estan resueltos (escritos o fallidos)
+    private volatile long persistedUpTo;
+    // Rangos [desde, hasta) de los lotes que no se pudieron escribir; protegido por persistedMonitor
+    private final Deque<long[]> failedRanges = new ArrayDeque<>();
+
+    private final Counter enqueued;
+    private final Counter dropped;
+    private final Counter written;
+    private final Counter failed;
+    private final Counter commitTimeouts;
+    private final DistributionSummary batchSizes;
+
+    public AuditWriter(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${user-service.audit.durability:periodic}") String durability,
+            @Value("${user-service.audit.backpressure:block}") String backpressure,
+            @Value("${user-service.audit.buffer-capacity:8192}") int bufferCapacity,
+            @Value("${user-service.audit.batch-size:500}") int batchSize,
+            @Value("${user-service.audit.flush-interval-ms:200}") long flushIntervalMillis,
+            @Value("${user-service.audit.offer-timeout-ms:50}") long offerTimeoutMillis,
+            @Value("${user-service.audit.commit-timeout-ms:1000}") long commitTimeoutMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.buffer = new AuditRingBuffer(bufferCapacity);
+        this.durability = Durability.valueOf(durability.trim().toUpperCase(Locale.ROOT));
+        this.backpressure = Backpressure.valueOf(backpressure.trim().toUpperCase(Locale.ROOT));
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.offerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMillis);
+        this.commitTimeoutMillis = commitTimeoutMillis;
+
+        this.enqueued = eventCounter(meterRegistry, "enqueued");
+        this.dropped = eventCounter(meterRegistry, "dropped");
+        this.written = eventCounter(meterRegistry, "written");
+        this.failed = eventCounter(meterRegistry, "failed");
+        this.commitTimeouts = Counter.builder("audit.commit.timeouts")
+                .description("Esperas de durabilidad commit que vencieron antes de escribir el evento")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("audit.batch.size")
+                .description("Eventos por INSERT")
+                .register(meterRegistry);
+        Gauge.builder("audit.buffer.size", buffer, AuditRingBuffer::size)
+                .description("Eventos de auditoria pendientes de escribir")
+                .register(meterRegistry);
+
+        this.writerThread = new Thread(this::run, "audit-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+
+        log.info("Auditoria asincrona: durabilidad {}, backpressure {}, cola de {} eventos, lotes de {}",
+                this.durability, this.backpressure, buffer.capacity(), batchSize);
+    }
+
+    /**
+     * Encola un evento. Con durabilidad commit, espera a que este escrito.
+     */
+    public void enqueue(AuditRecord record) {
+        long position = buffer.offer(record);
+        if (position < 0) {
+            position = offerWithBackpressure(record);
+            if (position < 0) {
+                dropped.increment();
+                log.warn("Cola de auditoria llena: evento {} descartado", record.action());
+                return;
+            }
+        }
+        enqueued.increment();
+
+        if (durability == Durability.COMMIT) {
+            LockSupport.unpark(writerThread);
+            awaitPersisted(position);
+        } else if (buffer.size() >= batchSize) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    private long offerWithBackpressure(AuditRecord record) {
+        if (backpressure == Backpressure.DROP) {
+            return -1;
+        }
+
+        long deadline = System.nanoTime() + offerTimeoutNanos;
+        LockSupport.unpark(writerThread);
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+            long position = buffer.offer(record);
+            if (position >= 0) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private void awaitPersisted(long position) {
+        long deadline = System.currentTimeMillis() + commitTimeoutMillis;
+        synchronized (persistedMonitor) {
+            long remaining = commitTimeoutMillis;
+            while (persistedUpTo <= position && remaining > 0) {
+                try {
+                    persistedMonitor.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                remaining = deadline - System.currentTimeMillis();
+            }
+            if (persistedUpTo > position && failed(position)) {
+                log.warn("Evento de auditoria en posicion {} no escrito: el lote fallo", position);
+                return;
+            }
+        }
+        if (persistedUpTo <= position) {
+            commitTimeouts.increment();
+        }
+    }
+
+    private void run() {
+        List<AuditRecord> batch = new ArrayList<>(batchSize);
+        while (running || buffer.size() > 0) {
+            batch.clear();
+            long from = buffer.consumedUpTo();
+            buffer.drainTo(batch, batchSize);
+
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(flushIntervalNanos);
+                continue;
+            }
+
+            if (write(batch)) {
+                publishPersisted(buffer.consumedUpTo());
+            } else {
+                publishFailed(from, buffer.consumedUpTo());
+            }
+
+            // En modo periodico se deja acumular el siguiente lote
+            if (durability == Durability.PERIODIC && batch.size() < batchSize && running) {
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+        }
+    }
+
+    private boolean write(List<AuditRecord> batch) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + batch.size() * 22);
+        sql.append(INSERT_PREFIX);
+        Object[] args = new Object[batch.size() * COLUMNS];
+
+        for (int i = 0; i < batch.size(); i++) {
+            AuditRecord record = batch.get(i);
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?)");
+
+            int offset = i * COLUMNS;
+            args[offset] = record.occurredAt();
+            args[offset + 1] = truncate(record.actor(), MAX_ACTOR_LENGTH);
+            args[offset + 2] = record.action().name();
+            args[offset + 3] = record.action().getEntityType();
+            args[offset + 4] = record.entityId();
+            args[offset + 5] = truncate(record.details(), MAX_DETAILS_LENGTH);
+        }
+
+        // Un reintento para fallos transitorios; despues el lote se pierde y se cuenta
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            try {
+                jdbcTemplate.update(sql.toString(), args);
+                written.increment(batch.size());
+                batchSizes.record(batch.size());
+                return true;
+            } catch (RuntimeException e) {
+                if (attempt == 2) {
+                    failed.increment(batch.size());
+                    log.error("No se pudo escribir un lote de {} evento(s) de auditoria: {}",
+                            batch.size(), e.getMessage());
+                }
+            }
+        }
+        return false;
+    }
+
+    private void publishPersisted(long position) {
+        synchronized (persistedMonitor) {
+            persistedUpTo = position;
+            persistedMonitor.notifyAll();
+        }
+    }
+
+    private void publishFailed(long from, long to) {
+        synchronized (persistedMonitor) {
+            if (failedRanges.size() == MAX_FAILED_RANGES) {
+                failedRanges.removeFirst();
+            }
+            failedRanges.addLast(new long[]{from, to});
+            persistedUpTo = to;
+            persistedMonitor.notifyAll();
+        }
+    }
+
+    private boolean failed(long position) {
+        for (long[] range : failedRanges) {
+            if (position >= range[0] && position < range[1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (buffer.size() > 0) {
+            log.warn("Auditoria detenida con {} evento(s) sin escribir", buffer.size());
+        }
+    }
+
+    private static Counter eventCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("audit.events")
+                .tag("result", result)
+                .description("Eventos de auditoria por resultado")
+                .register(meterRegistry);
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+}
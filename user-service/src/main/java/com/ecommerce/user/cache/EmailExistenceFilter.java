@@ -0,0 +1,282 @@
+package com.ecommerce.user.cache;
+
+import com.ecommerce.user.entity.UserChange;
+import com.ecommerce.user.entity.UserChangeType;
+import com.ecommerce.user.repository.UserRepository;
+import com.ecommerce.user.service.UserChangeFeedService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Filtro de Bloom con los emails registrados.
+ *
+ * Un "no" es definitivo y evita consultar PostgreSQL; un "quizas" se confirma contra la base
+ * de datos (y, en la creacion, contra la restriccion unica). Mientras no se ha cargado,
+ * todas las consultas responden "quizas".
+ *
+ * Los borrados y cambios de email no se pueden quitar del filtro: se cuentan como entradas
+ * obsoletas y el filtro se reconstruye cuando superan rebuild-stale-ratio.
+ *
+ * Cada instancia tiene su propio filtro: los altas y cambios de email hechos en otras
+ * instancias se añaden leyendo el change feed cada remote-sync-ms. Hasta entonces un "no"
+ * puede ser falso para esos emails (la creacion lo detecta igualmente con la restriccion
+ * unica); si la sincronizacion deja de funcionar durante mas de max-sync-lag-ms, el filtro
+ * responde "quizas" a todo. La carga y la sincronizacion leen del primario, no de una replica.
+ */
+@Slf4j
+@Component
+public class EmailExistenceFilter {
+
+    private final UserRepository userRepository;
+    private final UserChangeFeedService userChangeFeedService;
+    private final TransactionTemplate primaryTransaction;
+    private final long expectedInsertions;
+    private final double fpp;
+    private final double rebuildStaleRatio;
+    private final int syncBatchSize;
+    private final long maxSyncLagMillis;
+
+    private volatile ScalableBloomFilter current;
+    private volatile ScalableBloomFilter building;
+
+    // Ultima entrada del change feed ya reflejada en el filtro y momento de la ultima lectura correcta
+    private volatile long syncedSeq;
+    private volatile long lastSyncMillis;
+
+    private final AtomicLong staleEntries = new AtomicLong();
+
+    private final Counter definiteNegatives;
+    private final Counter truePositives;
+    private final Counter falsePositives;
+
+    public EmailExistenceFilter(
+            UserRepository userRepository,
+            UserChangeFeedService userChangeFeedService,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${user-service.email-filter.expected-insertions:100000}") long expectedInsertions,
+            @Value("${user-service.email-filter.fpp:0.01}") double fpp,
+            @Value("${user-service.email-filter.rebuild-stale-ratio:0.2}") double rebuildStaleRatio,
+            @Value("${user-service.email-filter.sync-batch-size:1000}") int syncBatchSize,
+            @Value("${user-service.email-filter.max-sync-lag-ms:10000}") long maxSyncLagMillis) {
+        this.userRepository = userRepository;
+        this.userChangeFeedService = userChangeFeedService;
+        // Sin readOnly: ReplicaRoutingDataSource envia la transaccion al primario
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+        this.expectedInsertions = expectedInsertions;
+        this.fpp = fpp;
+        this.rebuildStaleRatio = rebuildStaleRatio;
+        this.syncBatchSize = syncBatchSize;
+        this.maxSyncLagMillis = maxSyncLagMillis;
+
+        this.definiteNegatives = Counter.builder("user.email.filter.lookups")
+                .tag("result", "negative")
+                .description("Consultas de email resueltas por el filtro sin tocar la base de datos")
+                .register(meterRegistry);
+        this.truePositives = Counter.builder("user.email.filter.lookups")
+                .tag("result", "true_positive")
+                .description("Positivos del filtro confirmados por la base de datos")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("user.email.filter.lookups")
+                .tag("result", "false_positive")
+                .description("Positivos del filtro que la base de datos descarto")
+                .register(meterRegistry);
+
+        Gauge.builder("user.email.filter.false_positive_rate", this, EmailExistenceFilter::observedFalsePositiveRate)
+                .description("Falsos positivos observados / consultas de emails inexistentes")
+                .register(meterRegistry);
+        Gauge.builder("user.email.filter.expected_fpp", this, EmailExistenceFilter::expectedFpp)
+                .description("Tasa de falsos positivos teorica segun el llenado del filtro")
+                .register(meterRegistry);
+        Gauge.builder("user.email.filter.size", this, filter -> filter.current == null ? 0 : filter.current.size())
+                .description("Emails insertados en el filtro")
+                .register(meterRegistry);
+        Gauge.builder("user.email.filter.stale_entries", staleEntries, AtomicLong::get)
+                .description("Emails borrados o reemplazados que siguen en el filtro")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    /**
+     * Devuelve false solo si el email no esta registrado (salvo los de otras instancias aun
+     * no leidos del change feed).
+     */
+    public boolean mightContain(String email) {
+        ScalableBloomFilter filter = current;
+        if (filter == null || System.currentTimeMillis() - lastSyncMillis > maxSyncLagMillis) {
+            return true;
+        }
+
+        boolean result = filter.mightContain(normalize(email));
+        if (!result) {
+            definiteNegatives.increment();
+        }
+        return result;
+    }
+
+    /**
+     * Registra el resultado de la base de datos para un positivo del filtro (metrica de falsos positivos).
+     */
+    public void recordPositiveOutcome(boolean existsInDatabase) {
+        if (current == null) {
+            return;
+        }
+        if (existsInDatabase) {
+            truePositives.increment();
+        } else {
+            falsePositives.increment();
+        }
+    }
+
+    /**
+     * Añade un email. Se llama antes de insertar para no abrir una ventana de falsos negativos.
+     */
+    public void add(String email) {
+        String key = normalize(email);
+
+        ScalableBloomFilter filter = current;
+        if (filter != null) {
+            filter.put(key);
+        }
+
+        // Si hay una reconstruccion en curso, el email tambien debe quedar en el filtro nuevo
+        ScalableBloomFilter next = building;
+        if (next != null) {
+            next.put(key);
+        }
+    }
+
+    /**
+     * Anota que un email del filtro ya no existe (usuario borrado o email cambiado).
+     */
+    public void markStale() {
+        staleEntries.incrementAndGet();
+    }
+
+    /**
+     * Reconstruye el filtro cuando las entradas obsoletas superan el umbral configurado.
+     */
+    @Scheduled(fixedDelayString = "${user-service.email-filter.rebuild-check-ms:300000}",
+            initialDelayString = "${user-service.email-filter.rebuild-check-ms:300000}")
+    public void rebuildIfStale() {
+        ScalableBloomFilter filter = current;
+        if (filter == null || filter.size() == 0) {
+            return;
+        }
+
+        if ((double) staleEntries.get() / filter.size() >= rebuildStaleRatio) {
+            log.info("Reconstruyendo filtro de emails: {} entrada(s) obsoleta(s) de {}",
+                    staleEntries.get(), filter.size());
+            rebuild();
+        }
+    }
+
+    /**
+     * Añade los emails de los usuarios creados o modificados desde la ultima lectura del
+     * change feed (incluidos los de otras instancias).
+     */
+    @Scheduled(fixedDelayString = "${user-service.email-filter.remote-sync-ms:1000}",
+            initialDelayString = "${user-service.email-filter.remote-sync-ms:1000}")
+    public synchronized void syncRemoteChanges() {
+        ScalableBloomFilter filter = current;
+        if (filter == null) {
+            return;
+        }
+
+        try {
+            long after = syncedSeq;
+            List<UserChange> changes;
+            do {
+                changes = userChangeFeedService.readCommitted(after, syncBatchSize);
+                if (changes.isEmpty()) {
+                    break;
+                }
+
+                List<Long> userIds = changes.stream()
+                        .filter(change -> change.getChangeType() == UserChangeType.CREATED
+                                || change.getChangeType() == UserChangeType.UPDATED)
+                        .map(UserChange::getUserId)
+                        .distinct()
+                        .toList();
+                if (!userIds.isEmpty()) {
+                    List<String> emails = primaryTransaction.execute(status -> userRepository.findEmailsByIdIn(userIds));
+                    emails.forEach(this::add);
+                }
+
+                after = changes.get(changes.size() - 1).getSeq();
+                syncedSeq = after;
+            } while (changes.size() == syncBatchSize);
+
+            lastSyncMillis = System.currentTimeMillis();
+        } catch (RuntimeException e) {
+            log.warn("No se pudo leer el change feed para el filtro de emails: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Carga todos los emails desde la base de datos en un filtro nuevo y lo publica.
+     * La posicion del change feed se toma antes de leer los emails: lo registrado durante la
+     * carga se vuelve a añadir en la siguiente sincronizacion.
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        long staleBefore = staleEntries.get();
+
+        ScalableBloomFilter next = new ScalableBloomFilter(expectedInsertions, fpp);
+        building = next;
+        try {
+            // Sin horizonte aun (transaccion larga al arrancar): se relee el feed desde el principio
+            long feedPosition = Math.max(0, userChangeFeedService.committedSequence());
+            primaryTransaction.executeWithoutResult(status -> {
+                try (Stream<String> emails = userRepository.streamAllEmails()) {
+                    emails.forEach(email -> next.put(normalize(email)));
+                }
+            });
+
+            current = next;
+            syncedSeq = feedPosition;
+            lastSyncMillis = System.currentTimeMillis();
+            staleEntries.addAndGet(-staleBefore);
+
+            log.info("Filtro de emails cargado: {} email(s), {} KB, fpp esperada {} en {} ms",
+                    next.size(), next.sizeInBytes() / 1024, String.format("%.5f", next.expectedFpp()),
+                    System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("No se pudo cargar el filtro de emails, se consultará la base de datos: {}", e.getMessage());
+        } finally {
+            building = null;
+        }
+    }
+
+    private double observedFalsePositiveRate() {
+        double negatives = definiteNegatives.count() + falsePositives.count();
+        return negatives == 0 ? 0.0 : falsePositives.count() / negatives;
+    }
+
+    private double expectedFpp() {
+        ScalableBloomFilter filter = current;
+        return filter == null ? 1.0 : filter.expectedFpp();
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,91 @@
+package com.ecommerce.user.cache;
+
+/**
+ * Sketch Count-Min de contadores de 4 bits para la admision TinyLFU (Einziger et al., 2017).
+ *
+ * Estima cuantas veces se ha pedido una clave en la ventana reciente. Cuando el numero de
+ * incrementos llega a sampleSize, todos los contadores se dividen entre dos: las claves que
+ * dejaron de pedirse pierden peso frente a las actuales.
+ *
+ * No es seguro para uso concurrente: cada segmento de OffHeapResponseStore tiene el suyo.
+ */
+class FrequencySketch {
+
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int expectedEntries) {
+        int size = Integer.highestOneBit(Math.max(expectedEntries, 16) - 1) << 1;
+        this.table = new long[size];
+        this.tableMask = size - 1;
+        this.sampleSize = 10 * size;
+    }
+
+    /**
+     * Frecuencia estimada (0-15): el minimo de los cuatro contadores de la clave.
+     */
+    int frequency(long key) {
+        long hash = spread(key);
+        int min = MAX_COUNT;
+        for (int i = 0; i < 4; i++) {
+            min = Math.min(min, counter(hash, i));
+        }
+        return min;
+    }
+
+    void increment(long key) {
+        long hash = spread(key);
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            int index = index(hash, i);
+            int shift = offset(hash, i) << 2;
+            if (((table[index] >>> shift) & 0xFL) < MAX_COUNT) {
+                table[index] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    private int counter(long hash, int i) {
+        return (int) ((table[index(hash, i)] >>> (offset(hash, i) << 2)) & 0xFL);
+    }
+
+    /**
+     * Cada funcion hash usa 16 bits distintos del hash para elegir la palabra.
+     */
+    private int index(long hash, int i) {
+        return (int) (hash >>> (i << 4)) & tableMask;
+    }
+
+    /**
+     * Posicion del contador (0-15) dentro de la palabra, tomada de un segundo hash para que
+     * no dependa de los bits que eligen la palabra.
+     */
+    private static int offset(long hash, int i) {
+        return (int) ((hash * 0x9E3779B97F4A7C15L) >>> (48 + (i << 2))) & 0xF;
+    }
+
+    private static long spread(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
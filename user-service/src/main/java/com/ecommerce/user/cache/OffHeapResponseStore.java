@@ -0,0 +1,314 @@
+package com.ecommerce.user.cache;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Almacen de respuestas serializadas fuera del heap, indexado por una clave long.
+ *
+ * La memoria son paginas de ByteBuffer directo, reservadas bajo demanda hasta maxBytes y
+ * divididas en bloques de blockSize bytes. Cada valor ocupa los bloques que necesite (no
+ * tienen que ser contiguos), asi que no hay fragmentacion: liberar un valor devuelve sus
+ * bloques a la lista libre. En el heap solo queda el indice (clave, bloques, metadatos).
+ *
+ * Expulsion LRU con admision TinyLFU: cuando falta espacio, un valor nuevo solo desplaza
+ * al menos reciente si se ha pedido mas veces que el. Asi un recorrido de claves que se
+ * piden una sola vez no vacia el almacen de las claves calientes.
+ *
+ * Esta dividido en segmentos con su propio lock, paginas, LRU y sketch de frecuencias.
+ *
+ * onDiscard recibe clave y metadatos de cada valor que sale del almacen sin pasar por remove
+ * (expulsado o sustituido en un put), para que el llamador limpie sus indices. Se ejecuta con
+ * el lock del segmento: debe ser rapido y no volver a llamar al almacen.
+ *
+ * @param <M> metadatos guardados en el heap junto a cada valor
+ */
+public class OffHeapResponseStore<M> {
+
+    private final Segment<M>[] segments;
+    private final int segmentMask;
+
+    public OffHeapResponseStore(long maxBytes, int segmentCount, int blockSize, int pageSize) {
+        this(maxBytes, segmentCount, blockSize, pageSize, (key, meta) -> { });
+    }
+
+    @SuppressWarnings("unchecked")
+    public OffHeapResponseStore(long maxBytes, int segmentCount, int blockSize, int pageSize,
+                                BiConsumer<Long, M> onDiscard) {
+        if (blockSize <= 0 || pageSize < blockSize) {
+            throw new IllegalArgumentException("pageSize debe ser mayor o igual que blockSize");
+        }
+        int count = Integer.highestOneBit(Math.max(segmentCount, 1));
+        long bytesPerSegment = maxBytes / count;
+        if (bytesPerSegment < pageSize) {
+            throw new IllegalArgumentException("maxBytes no alcanza para una pagina por segmento");
+        }
+
+        this.segments = new Segment[count];
+        this.segmentMask = count - 1;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(bytesPerSegment, blockSize, pageSize, onDiscard);
+        }
+    }
+
+    /**
+     * Copia al heap el valor de la clave, o null si no esta. Cuenta como acceso para TinyLFU.
+     */
+    public Hit<M> get(long key) {
+        return segment(key).get(key);
+    }
+
+    /**
+     * Guarda el valor sustituyendo el anterior. Devuelve false si no se admitio
+     * (demasiado grande o menos frecuente que lo que tendria que expulsar).
+     */
+    public boolean put(long key, byte[] value, M meta) {
+        return segment(key).put(key, value, meta);
+    }
+
+    /**
+     * Quita la clave y devuelve sus metadatos, o null si no estaba.
+     */
+    public M remove(long key) {
+        return segment(key).remove(key);
+    }
+
+    public void clear() {
+        for (Segment<M> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment<M> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Bytes fuera del heap ocupados por valores (bloques en uso).
+     */
+    public long usedBytes() {
+        long used = 0;
+        for (Segment<M> segment : segments) {
+            used += segment.usedBytes();
+        }
+        return used;
+    }
+
+    /**
+     * Bytes fuera del heap reservados (paginas creadas), como mucho maxBytes.
+     */
+    public long reservedBytes() {
+        long reserved = 0;
+        for (Segment<M> segment : segments) {
+            reserved += segment.reservedBytes();
+        }
+        return reserved;
+    }
+
+    public long evictions() {
+        long evictions = 0;
+        for (Segment<M> segment : segments) {
+            evictions += segment.evictions();
+        }
+        return evictions;
+    }
+
+    public long rejections() {
+        long rejections = 0;
+        for (Segment<M> segment : segments) {
+            rejections += segment.rejections();
+        }
+        return rejections;
+    }
+
+    private Segment<M> segment(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return segments[(int) (hash >>> 40) & segmentMask];
+    }
+
+    /**
+     * Valor copiado al heap y sus metadatos.
+     */
+    public record Hit<M>(byte[] value, M meta) {
+    }
+
+    private record Entry<M>(int[] blocks, int length, M meta) {
+    }
+
+    private static final class Segment<M> {
+
+        private final int blockSize;
+        private final int pageSize;
+        private final int blocksPerPage;
+        private final ByteBuffer[] pages;
+        private final int maxBlocks;
+        private final int maxEntryBlocks;
+
+        private final LinkedHashMap<Long, Entry<M>> entries = new LinkedHashMap<>(256, 0.75f, true);
+        private final FrequencySketch sketch;
+        private final BiConsumer<Long, M> onDiscard;
+
+        private int[] freeBlocks;
+        private int freeCount;
+        private int pageCount;
+        private long evictions;
+        private long rejections;
+
+        private Segment(long maxBytes, int blockSize, int pageSize, BiConsumer<Long, M> onDiscard) {
+            this.blockSize = blockSize;
+            this.onDiscard = onDiscard;
+            this.pageSize = pageSize;
+            this.blocksPerPage = pageSize / blockSize;
+            this.pages = new ByteBuffer[(int) (maxBytes / pageSize)];
+            this.maxBlocks = pages.length * blocksPerPage;
+            // Un valor no puede ocupar mas de una octava parte del segmento
+            this.maxEntryBlocks = Math.max(1, maxBlocks / 8);
+            this.freeBlocks = new int[blocksPerPage];
+            // Suponiendo valores de unos 2 bloques
+            this.sketch = new FrequencySketch(Math.max(maxBlocks / 2, 16));
+        }
+
+        private synchronized Hit<M> get(long key) {
+            sketch.increment(key);
+            Entry<M> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+
+            byte[] value = new byte[entry.length()];
+            int copied = 0;
+            for (int block : entry.blocks()) {
+                int length = Math.min(blockSize, entry.length() - copied);
+                pages[block / blocksPerPage].get((block % blocksPerPage) * blockSize, value, copied, length);
+                copied += length;
+            }
+            return new Hit<>(value, entry.meta());
+        }
+
+        private synchronized boolean put(long key, byte[] value, M meta) {
+            int needed = (value.length + blockSize - 1) / blockSize;
+            if (needed > maxEntryBlocks) {
+                rejections++;
+                return false;
+            }
+
+            // El valor anterior sale aunque el nuevo no se admita
+            Entry<M> previous = entries.remove(key);
+            if (previous != null) {
+                release(previous);
+                onDiscard.accept(key, previous.meta());
+            }
+
+            // Admision: cada victima debe ser menos frecuente que la clave nueva
+            int candidateFrequency = sketch.frequency(key);
+            Iterator<Map.Entry<Long, Entry<M>>> lru = entries.entrySet().iterator();
+            while (available() < needed) {
+                Map.Entry<Long, Entry<M>> victim = lru.next();
+                if (sketch.frequency(victim.getKey()) >= candidateFrequency) {
+                    rejections++;
+                    return false;
+                }
+                lru.remove();
+                release(victim.getValue());
+                evictions++;
+                onDiscard.accept(victim.getKey(), victim.getValue().meta());
+            }
+
+            int[] blocks = new int[needed];
+            int written = 0;
+            for (int i = 0; i < needed; i++) {
+                int block = allocate();
+                int length = Math.min(blockSize, value.length - written);
+                pages[block / blocksPerPage].put((block % blocksPerPage) * blockSize, value, written, length);
+                blocks[i] = block;
+                written += length;
+            }
+            entries.put(key, new Entry<>(blocks, value.length, meta));
+            return true;
+        }
+
+        private synchronized M remove(long key) {
+            Entry<M> entry = entries.remove(key);
+            release(entry);
+            return entry == null ? null : entry.meta();
+        }
+
+        /**
+         * Devuelve todos los bloques a la lista libre; las paginas se conservan.
+         */
+        private synchronized void clear() {
+            entries.values().forEach(this::release);
+            entries.clear();
+        }
+
+        private synchronized int size() {
+            return entries.size();
+        }
+
+        private synchronized long usedBytes() {
+            return (long) (pageCount * blocksPerPage - freeCount) * blockSize;
+        }
+
+        private synchronized long reservedBytes() {
+            return (long) pageCount * pageSize;
+        }
+
+        private synchronized long evictions() {
+            return evictions;
+        }
+
+        private synchronized long rejections() {
+            return rejections;
+        }
+
+        /**
+         * Bloques libres mas los de las paginas que aun se pueden crear.
+         */
+        private int available() {
+            return freeCount + (pages.length - pageCount) * blocksPerPage;
+        }
+
+        private int allocate() {
+            if (freeCount == 0) {
+                addPage();
+            }
+            return freeBlocks[--freeCount];
+        }
+
+        private void addPage() {
+            pages[pageCount] = ByteBuffer.allocateDirect(pageSize);
+            int first = pageCount * blocksPerPage;
+            pageCount++;
+            ensureFreeCapacity(pageCount * blocksPerPage);
+            // En orden inverso para repartir los bloques de la pagina de principio a fin
+            for (int block = first + blocksPerPage - 1; block >= first; block--) {
+                freeBlocks[freeCount++] = block;
+            }
+        }
+
+        private void release(Entry<M> entry) {
+            if (entry == null) {
+                return;
+            }
+            ensureFreeCapacity(freeCount + entry.blocks().length);
+            for (int block : entry.blocks()) {
+                freeBlocks[freeCount++] = block;
+            }
+        }
+
+        private void ensureFreeCapacity(int capacity) {
+            if (freeBlocks.length < capacity) {
+                int[] grown = new int[Math.min(Math.max(capacity, freeBlocks.length * 2), maxBlocks)];
+                System.arraycopy(freeBlocks, 0, grown, 0, freeCount);
+                freeBlocks = grown;
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.ecommerce.user.cache;
+
+/**
+ * ETags fuertes de los recursos de usuario y rol, derivados del id y la version.
+ *
+ * Comparar un ETag solo exige conocer la version actual, que se obtiene sin leer la entidad
+ * (UserRepository.findVersionById) o del catalogo de roles en memoria.
+ */
+public final class ResourceETags {
+
+    private ResourceETags() {
+    }
+
+    /**
+     * El detalle de un usuario incluye nombre y descripcion de sus roles, que cambian sin tocar
+     * la version del usuario: por eso se añade la version del catalogo de roles
+     * (RoleCatalog.version(), igual en todas las instancias que han leido la misma tabla).
+     */
+    public static String user(Long id, Long version, String rolesVersion) {
+        return "\"" + id + "-" + version + "-" + rolesVersion + "\"";
+    }
+
+    public static String role(Long id, Long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    /**
+     * Partes de un ETag de user ("id-version-roles"), de role ("id-version") o de una version
+     * suelta (formato anterior). Las que no trae el valor quedan a null.
+     *
+     * @throws NumberFormatException si el valor no tiene ese formato
+     */
+    public static Parsed parse(String eTag) {
+        String trimmed = eTag.trim();
+        String value = unquote(trimmed.startsWith("W/") ? trimmed.substring(2) : trimmed);
+        String[] parts = value.split("-", -1);
+        return switch (parts.length) {
+            case 1 -> new Parsed(null, Long.parseLong(parts[0]), null);
+            case 2 -> new Parsed(Long.parseLong(parts[0]), Long.parseLong(parts[1]), null);
+            case 3 -> new Parsed(Long.parseLong(parts[0]), Long.parseLong(parts[1]), parts[2]);
+            default -> throw new NumberFormatException("ETag con formato desconocido: " + eTag);
+        };
+    }
+
+    /**
+     * Indica si algun valor del header If-None-Match coincide con el ETag actual.
+     */
+    public static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String unquote(String value) {
+        return value.replace("\"", "");
+    }
+
+    public record Parsed(Long id, long version, String rolesVersion) {
+    }
+}
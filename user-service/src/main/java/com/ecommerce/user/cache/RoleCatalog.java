@@ -0,0 +1,240 @@
+package com.ecommerce.user.cache;
+
+import com.ecommerce.datasource.ReadYourWrites;
+import com.ecommerce.user.dto.response.RoleResponseDTO;
+import com.ecommerce.user.mapper.RoleMapper;
+import com.ecommerce.user.repository.RoleRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Catálogo de roles en memoria.
+ * Mantiene una foto inmutable de la tabla roles con las respuestas JSON ya serializadas,
+ * de modo que las lecturas de /roles no tocan la base de datos ni Jackson.
+ * La foto se reconstruye cuando esta instancia crea, actualiza o elimina un rol, y cada
+ * check-ms si otra instancia lo ha cambiado. Se lee siempre del primario: una replica con
+ * retraso devolveria la foto anterior al cambio.
+ *
+ * Los DTOs de la foto no salen de aqui: getAllRoles, findById y findByName devuelven copias,
+ * para que un llamador que modifique la suya no cambie el catalogo de los demas.
+ *
+ * version() resume los roles (id y version de cada uno, por id): con la misma tabla es igual en
+ * todas las instancias, y forma parte del ETag del detalle de usuario.
+ */
+@Slf4j
+@Component
+public class RoleCatalog {
+
+    private final RoleRepository roleRepository;
+    private final RoleMapper roleMapper;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readTransaction;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    public RoleCatalog(
+            RoleRepository roleRepository,
+            RoleMapper roleMapper,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager) {
+        this.roleRepository = roleRepository;
+        this.roleMapper = roleMapper;
+        this.objectMapper = objectMapper;
+
+        // Transaccion propia: la recarga puede ejecutarse en afterCommit de otra transaccion
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    public List<RoleResponseDTO> getAllRoles() {
+        return current().roles.stream().map(RoleCatalog::copy).collect(Collectors.toList());
+    }
+
+    public Optional<RoleResponseDTO> findById(Long id) {
+        return Optional.ofNullable(current().rolesById.get(id)).map(RoleCatalog::copy);
+    }
+
+    public Optional<RoleResponseDTO> findByName(String name) {
+        return Optional.ofNullable(current().rolesByName.get(name)).map(RoleCatalog::copy);
+    }
+
+    public SerializedResponse getAllRolesResponse() {
+        return current().allRolesResponse;
+    }
+
+    /**
+     * Resumen de 8 caracteres del contenido de la tabla roles (ids y versiones).
+     */
+    public String version() {
+        return current().version;
+    }
+
+    public Optional<SerializedResponse> findResponseById(Long id) {
+        return Optional.ofNullable(current().responsesById.get(id));
+    }
+
+    public Optional<SerializedResponse> findResponseByName(String name) {
+        Snapshot current = current();
+        RoleResponseDTO role = current.rolesByName.get(name);
+        return role == null ? Optional.empty() : Optional.of(current.responsesById.get(role.getId()));
+    }
+
+    /**
+     * Reconstruye la foto desde la base de datos y la publica de forma atómica.
+     * Está sincronizado para que dos reconstrucciones concurrentes no publiquen datos viejos.
+     */
+    public synchronized void refresh() {
+        List<RoleResponseDTO> roles = loadRoles();
+        snapshot.set(buildSnapshot(roles));
+
+        log.info("Catálogo de roles recargado: {} rol(es)", roles.size());
+    }
+
+    /**
+     * Recoge los cambios de roles hechos desde otras instancias. La tabla es pequeña: se lee
+     * entera y solo se publica una foto nueva si la version ha cambiado.
+     */
+    @Scheduled(fixedDelayString = "${user-service.role-catalog.check-ms:5000}",
+            initialDelayString = "${user-service.role-catalog.check-ms:5000}")
+    public synchronized void refreshIfChanged() {
+        Snapshot current = snapshot.get();
+        List<RoleResponseDTO> roles = loadRoles();
+        if (current != null && current.version.equals(version(roles))) {
+            return;
+        }
+
+        snapshot.set(buildSnapshot(roles));
+        log.info("Catálogo de roles recargado por cambios de otra instancia: {} rol(es)", roles.size());
+    }
+
+    private List<RoleResponseDTO> loadRoles() {
+        return ReadYourWrites.onPrimary(() -> readTransaction.execute(status ->
+                roleRepository.findAll(Sort.by("id")).stream()
+                        .map(roleMapper::toResponseDTO)
+                        .collect(Collectors.toList())));
+    }
+
+    /**
+     * Programa la recarga para cuando la transacción actual haga commit.
+     * Si no hay transacción activa, recarga inmediatamente.
+     */
+    public void refreshAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refresh();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refresh();
+            }
+        });
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            // Primera lectura antes de que DataInitializer haya publicado la foto
+            refresh();
+            current = snapshot.get();
+        }
+        return current;
+    }
+
+    private Snapshot buildSnapshot(List<RoleResponseDTO> roles) {
+        Map<Long, RoleResponseDTO> rolesById = new LinkedHashMap<>();
+        Map<String, RoleResponseDTO> rolesByName = new LinkedHashMap<>();
+        Map<Long, SerializedResponse> responsesById = new LinkedHashMap<>();
+
+        for (RoleResponseDTO role : roles) {
+            rolesById.put(role.getId(), role);
+            rolesByName.put(role.getName(), role);
+            responsesById.put(role.getId(),
+                    SerializedResponse.of(serialize(role), ResourceETags.role(role.getId(), role.getVersion())));
+        }
+
+        return new Snapshot(
+                Collections.unmodifiableList(roles),
+                Collections.unmodifiableMap(rolesById),
+                Collections.unmodifiableMap(rolesByName),
+                Collections.unmodifiableMap(responsesById),
+                SerializedResponse.of(serialize(roles)),
+                version(roles)
+        );
+    }
+
+    private static RoleResponseDTO copy(RoleResponseDTO role) {
+        return RoleResponseDTO.builder()
+                .id(role.getId())
+                .name(role.getName())
+                .description(role.getDescription())
+                .createdAt(role.getCreatedAt())
+                .updatedAt(role.getUpdatedAt())
+                .version(role.getVersion())
+                .build();
+    }
+
+    private static String version(List<RoleResponseDTO> roles) {
+        StringBuilder content = new StringBuilder(roles.size() * 8);
+        for (RoleResponseDTO role : roles) {
+            content.append(role.getId()).append(':').append(role.getVersion()).append(';');
+        }
+        return DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)).substring(0, 8);
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el catálogo de roles", e);
+        }
+    }
+
+    /**
+     * Foto inmutable del catálogo. Sus DTOs solo se entregan copiados.
+     */
+    private static final class Snapshot {
+
+        private final List<RoleResponseDTO> roles;
+        private final Map<Long, RoleResponseDTO> rolesById;
+        private final Map<String, RoleResponseDTO> rolesByName;
+        private final Map<Long, SerializedResponse> responsesById;
+        private final SerializedResponse allRolesResponse;
+        private final String version;
+
+        private Snapshot(List<RoleResponseDTO> roles,
+                         Map<Long, RoleResponseDTO> rolesById,
+                         Map<String, RoleResponseDTO> rolesByName,
+                         Map<Long, SerializedResponse> responsesById,
+                         SerializedResponse allRolesResponse,
+                         String version) {
+            this.roles = roles;
+            this.rolesById = rolesById;
+            this.rolesByName = rolesByName;
+            this.responsesById = responsesById;
+            this.allRolesResponse = allRolesResponse;
+            this.version = version;
+        }
+    }
+}
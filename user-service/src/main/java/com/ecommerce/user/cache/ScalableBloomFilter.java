@@ -0,0 +1,192 @@
+package com.ecommerce.user.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom escalable (Almeida et al., 2007).
+ *
+ * Empieza con una etapa dimensionada para expectedInsertions elementos. Cuando se llena,
+ * añade una etapa nueva el doble de grande y con la mitad de tasa de falsos positivos.
+ * La primera etapa usa fpp / 2, asi la tasa total queda acotada por fpp aunque el numero
+ * de elementos crezca.
+ *
+ * Es seguro para uso concurrente: los bits se fijan con operaciones atomicas y las consultas
+ * no bloquean. No admite borrado.
+ */
+public class ScalableBloomFilter {
+
+    private static final int GROWTH_FACTOR = 2;
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private final List<Stage> stages = new CopyOnWriteArrayList<>();
+    private final AtomicLong size = new AtomicLong();
+
+    public ScalableBloomFilter(long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions debe ser positivo");
+        }
+        if (fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("fpp debe estar entre 0 y 1");
+        }
+        stages.add(new Stage(expectedInsertions, fpp * (1 - TIGHTENING_RATIO)));
+    }
+
+    public void put(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L);
+
+        // Si ya esta presente no se consume capacidad
+        if (mightContain(h1, h2)) {
+            return;
+        }
+
+        currentStage().put(h1, h2);
+        size.incrementAndGet();
+    }
+
+    public boolean mightContain(String value) {
+        long h1 = hash(value);
+        return mightContain(h1, mix(h1 ^ 0x9E3779B97F4A7C15L));
+    }
+
+    /**
+     * Numero aproximado de elementos insertados.
+     */
+    public long size() {
+        return size.get();
+    }
+
+    /**
+     * Tasa de falsos positivos esperada segun el llenado actual de cada etapa.
+     */
+    public double expectedFpp() {
+        double probabilityAllNegative = 1.0;
+        for (Stage stage : stages) {
+            probabilityAllNegative *= 1.0 - stage.expectedFpp();
+        }
+        return 1.0 - probabilityAllNegative;
+    }
+
+    /**
+     * Memoria ocupada por los bits de todas las etapas.
+     */
+    public long sizeInBytes() {
+        long bytes = 0;
+        for (Stage stage : stages) {
+            bytes += stage.bitSize / 8;
+        }
+        return bytes;
+    }
+
+    private boolean mightContain(long h1, long h2) {
+        for (Stage stage : stages) {
+            if (stage.mightContain(h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Stage currentStage() {
+        Stage last = stages.get(stages.size() - 1);
+        if (last.count.get() < last.capacity) {
+            return last;
+        }
+
+        synchronized (stages) {
+            last = stages.get(stages.size() - 1);
+            if (last.count.get() >= last.capacity) {
+                last = new Stage(last.capacity * GROWTH_FACTOR, last.fpp * TIGHTENING_RATIO);
+                stages.add(last);
+            }
+            return last;
+        }
+    }
+
+    /**
+     * FNV-1a de 64 bits sobre UTF-8 seguido del finalizador de MurmurHash3 para mejorar la dispersion.
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Filtro de Bloom clasico de tamaño fijo con doble hashing (Kirsch-Mitzenmacher).
+     */
+    private static final class Stage {
+
+        private final long capacity;
+        private final double fpp;
+        private final long bitSize;
+        private final int hashFunctions;
+        private final AtomicLongArray bits;
+        private final AtomicLong count = new AtomicLong();
+
+        private Stage(long capacity, double fpp) {
+            this.capacity = capacity;
+            this.fpp = fpp;
+
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+            // Redondear a multiplo de 64 para llenar palabras completas
+            this.bitSize = Math.max(64, ((optimalBits + 63) / 64) * 64);
+            this.hashFunctions = Math.max(1, (int) Math.round((double) bitSize / capacity * Math.log(2)));
+            this.bits = new AtomicLongArray(Math.toIntExact(bitSize / 64));
+        }
+
+        private void put(long h1, long h2) {
+            long combined = h1;
+            for (int i = 0; i < hashFunctions; i++) {
+                long index = (combined & Long.MAX_VALUE) % bitSize;
+                setBit(index);
+                combined += h2;
+            }
+            count.incrementAndGet();
+        }
+
+        private boolean mightContain(long h1, long h2) {
+            long combined = h1;
+            for (int i = 0; i < hashFunctions; i++) {
+                long index = (combined & Long.MAX_VALUE) % bitSize;
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+                combined += h2;
+            }
+            return true;
+        }
+
+        private void setBit(long index) {
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    return;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+
+        private double expectedFpp() {
+            return Math.pow(1 - Math.exp(-(double) hashFunctions * count.get() / bitSize), hashFunctions);
+        }
+    }
+}
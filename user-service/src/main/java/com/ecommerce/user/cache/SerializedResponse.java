@@ -0,0 +1,66 @@
+package com.ecommerce.user.cache;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Respuesta JSON ya serializada junto con su ETag fuerte.
+ * Es inmutable: los bytes no se deben modificar una vez construida.
+ */
+public final class SerializedResponse {
+
+    private final byte[] body;
+    private final String eTag;
+
+    private SerializedResponse(byte[] body, String eTag) {
+        this.body = body;
+        this.eTag = eTag;
+    }
+
+    /**
+     * Construye la respuesta calculando el ETag a partir del contenido.
+     */
+    public static SerializedResponse of(byte[] body) {
+        return new SerializedResponse(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+    }
+
+    /**
+     * Construye la respuesta con un ETag ya calculado (p. ej. id + version).
+     */
+    public static SerializedResponse of(byte[] body, String eTag) {
+        return new SerializedResponse(body, eTag);
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Indica si el header If-None-Match del cliente coincide con el ETag actual.
+     */
+    public boolean matches(String ifNoneMatch) {
+        return ResourceETags.matches(ifNoneMatch, eTag);
+    }
+
+    /**
+     * Devuelve 304 si el cliente ya tiene esta versión, o 200 con los bytes tal cual.
+     */
+    public ResponseEntity<byte[]> toResponseEntity(String ifNoneMatch) {
+        if (matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .build();
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(eTag)
+                .body(body);
+    }
+}
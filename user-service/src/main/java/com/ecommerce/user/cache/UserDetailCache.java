@@ -0,0 +1,314 @@
+package com.ecommerce.user.cache;
+
+import com.ecommerce.datasource.ReadYourWrites;
+import com.ecommerce.user.dto.response.UserDetailResponseDTO;
+import com.ecommerce.user.entity.UserChange;
+import com.ecommerce.user.service.UserChangeFeedService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache de GET /users/{id} y /users/email/{email} con el JSON ya serializado fuera del heap
+ * (OffHeapResponseStore). Un acierto se responde sin JPA ni Jackson, y el ETag viaja con el
+ * valor, asi que un If-None-Match tambien se resuelve desde la cache.
+ *
+ * Invalidacion:
+ * - Mutaciones locales: UserServiceImpl llama a invalidate tras el commit.
+ * - Mutaciones en otras instancias: se leen del change feed (user_change_log) cada
+ *   remote-invalidation-ms.
+ * - Roles: cada valor guarda la version del catalogo de roles con el que se genero y deja de
+ *   servirse si el catalogo cambia (el detalle incluye nombre y descripcion de los roles).
+ *
+ * Una lectura de la base de datos solo se guarda si no hubo ninguna invalidacion mientras
+ * tanto (contador generation): asi no se vuelve a guardar un valor anterior a un commit.
+ * Por lo mismo, esa lectura va siempre al primario (load): una replica atrasada devolveria
+ * el valor anterior despues de que la invalidacion ya hubiera pasado.
+ */
+@Slf4j
+@Component
+public class UserDetailCache {
+
+    private static final int REMOTE_CHANGES_PAGE = 1000;
+
+    private final ObjectMapper objectMapper;
+    private final RoleCatalog roleCatalog;
+    private final UserChangeFeedService userChangeFeedService;
+    private final boolean enabled;
+
+    private final OffHeapResponseStore<CachedUser> store;
+    private final ConcurrentHashMap<String, Long> idsByEmail = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile long lastSeenChange = -1;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public UserDetailCache(
+            ObjectMapper objectMapper,
+            RoleCatalog roleCatalog,
+            UserChangeFeedService userChangeFeedService,
+            MeterRegistry meterRegistry,
+            @Value("${user-service.detail-cache.enabled:true}") boolean enabled,
+            @Value("${user-service.detail-cache.max-memory-mb:256}") long maxMemoryMb,
+            @Value("${user-service.detail-cache.segments:16}") int segments,
+            @Value("${user-service.detail-cache.block-size:512}") int blockSize,
+            @Value("${user-service.detail-cache.page-size-kb:1024}") int pageSizeKb) {
+        this.objectMapper = objectMapper;
+        this.roleCatalog = roleCatalog;
+        this.userChangeFeedService = userChangeFeedService;
+        this.enabled = enabled;
+        this.store = enabled
+                ? new OffHeapResponseStore<>(maxMemoryMb * 1024 * 1024, segments, blockSize, pageSizeKb * 1024,
+                        (id, meta) -> idsByEmail.remove(emailKey(meta.email()), id))
+                : null;
+
+        this.hits = Counter.builder("user.detail.cache.requests")
+                .tag("result", "hit")
+                .description("Lecturas de detalle de usuario servidas desde la cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("user.detail.cache.requests")
+                .tag("result", "miss")
+                .description("Lecturas de detalle de usuario que fueron a la base de datos")
+                .register(meterRegistry);
+
+        if (enabled) {
+            FunctionCounter.builder("user.detail.cache.evictions", store, OffHeapResponseStore::evictions)
+                    .description("Valores expulsados por falta de memoria")
+                    .register(meterRegistry);
+            FunctionCounter.builder("user.detail.cache.rejections", store, OffHeapResponseStore::rejections)
+                    .description("Valores no admitidos (TinyLFU o demasiado grandes)")
+                    .register(meterRegistry);
+            Gauge.builder("user.detail.cache.entries", store, OffHeapResponseStore::size)
+                    .register(meterRegistry);
+            Gauge.builder("user.detail.cache.used.bytes", store, OffHeapResponseStore::usedBytes)
+                    .description("Memoria fuera del heap ocupada por valores")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+            Gauge.builder("user.detail.cache.reserved.bytes", store, OffHeapResponseStore::reservedBytes)
+                    .description("Memoria fuera del heap reservada (como mucho max-memory-mb)")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+
+            log.info("Cache de detalle de usuarios fuera del heap: hasta {} MB en {} segmento(s)",
+                    maxMemoryMb, segments);
+        }
+    }
+
+    public Optional<SerializedResponse> getById(Long id) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return lookup(id, null);
+    }
+
+    /**
+     * Los emails no distinguen mayusculas. El valor encontrado se comprueba contra el email
+     * pedido: si el usuario lo ha cambiado, el indice por email puede ir por detras.
+     */
+    public Optional<SerializedResponse> getByEmail(String email) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        Long id = idsByEmail.get(emailKey(email));
+        if (id == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        return lookup(id, email);
+    }
+
+    private Optional<SerializedResponse> lookup(Long id, String expectedEmail) {
+        OffHeapResponseStore.Hit<CachedUser> hit = store.get(id);
+        if (hit == null) {
+            if (expectedEmail != null) {
+                idsByEmail.remove(emailKey(expectedEmail), id);
+            }
+            misses.increment();
+            return Optional.empty();
+        }
+        if (expectedEmail != null && !hit.meta().email().equalsIgnoreCase(expectedEmail)) {
+            idsByEmail.remove(emailKey(expectedEmail), id);
+            misses.increment();
+            return Optional.empty();
+        }
+        if (!hit.meta().rolesVersion().equals(currentRolesVersion())) {
+            invalidate(id);
+            misses.increment();
+            return Optional.empty();
+        }
+
+        hits.increment();
+        return Optional.of(SerializedResponse.of(hit.value(), hit.meta().eTag()));
+    }
+
+    /**
+     * Lee el usuario con loader (que debe abrir su propia transaccion) y lo guarda si no hubo
+     * invalidaciones mientras tanto. Devuelve la respuesta en cualquier caso.
+     *
+     * Con la cache activa la lectura va al primario: el valor guardado se sirve hasta la
+     * siguiente invalidacion, no solo durante el retraso de la replica.
+     */
+    public SerializedResponse load(Supplier<UserDetailResponseDTO> loader) {
+        long loadGeneration = generation.get();
+        UserDetailResponseDTO user = enabled ? ReadYourWrites.onPrimary(loader) : loader.get();
+        return store(user, loadGeneration);
+    }
+
+    private SerializedResponse store(UserDetailResponseDTO user, long loadGeneration) {
+        String rolesVersion = currentRolesVersion();
+        String eTag = ResourceETags.user(user.getId(), user.getVersion(), rolesVersion);
+        byte[] body = serialize(user);
+
+        if (enabled && generation.get() == loadGeneration) {
+            if (store.put(user.getId(), body, new CachedUser(user.getEmail(), eTag, rolesVersion))) {
+                idsByEmail.put(emailKey(user.getEmail()), user.getId());
+            }
+            // Una invalidacion concurrente con el put: quitar lo que se acaba de guardar
+            if (generation.get() != loadGeneration) {
+                invalidate(user.getId());
+            }
+        }
+
+        return SerializedResponse.of(body, eTag);
+    }
+
+    public void invalidate(Long id) {
+        if (!enabled) {
+            return;
+        }
+        generation.incrementAndGet();
+        CachedUser removed = store.remove(id);
+        if (removed != null) {
+            idsByEmail.remove(emailKey(removed.email()), id);
+        }
+    }
+
+    /**
+     * Invalida ahora y de nuevo tras el commit: entre medias otra peticion podria volver a
+     * leer el valor anterior.
+     */
+    public void invalidateAfterCommit(Long id) {
+        invalidate(id);
+        if (!enabled || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(id);
+            }
+        });
+    }
+
+    /**
+     * Vacia la cache tras el commit (actualizaciones masivas).
+     */
+    public void invalidateAllAfterCommit() {
+        if (!enabled) {
+            return;
+        }
+        invalidateAll();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidateAll();
+            }
+        });
+    }
+
+    private void invalidateAll() {
+        generation.incrementAndGet();
+        store.clear();
+        idsByEmail.clear();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startFromLatestChange() {
+        if (enabled) {
+            lastSeenChange = userChangeFeedService.committedSequence();
+        }
+    }
+
+    /**
+     * Invalida los usuarios modificados por otras instancias (y, de nuevo, por esta).
+     */
+    @Scheduled(fixedDelayString = "${user-service.detail-cache.remote-invalidation-ms:1000}")
+    public void invalidateRemoteChanges() {
+        if (!enabled) {
+            return;
+        }
+        if (lastSeenChange < 0) {
+            // El horizonte del change feed no estaba disponible al arrancar: se parte de el
+            // vaciando lo que se haya guardado hasta ahora
+            long start = userChangeFeedService.committedSequence();
+            if (start >= 0) {
+                invalidateAll();
+                lastSeenChange = start;
+            }
+            return;
+        }
+
+        try {
+            List<UserChange> changes;
+            do {
+                long after = lastSeenChange;
+                changes = userChangeFeedService.readCommitted(after, REMOTE_CHANGES_PAGE);
+                for (UserChange change : changes) {
+                    invalidate(change.getUserId());
+                    lastSeenChange = change.getSeq();
+                }
+            } while (changes.size() == REMOTE_CHANGES_PAGE);
+        } catch (RuntimeException e) {
+            // Sin poder leer el feed no se sabe que ha cambiado: vaciar
+            log.error("Error leyendo el change feed para la cache de usuarios: {}", e.getMessage());
+            invalidateAll();
+        }
+    }
+
+    private static String emailKey(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    private String currentRolesVersion() {
+        return roleCatalog.version();
+    }
+
+    private byte[] serialize(UserDetailResponseDTO user) {
+        try {
+            return objectMapper.writeValueAsBytes(user);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el usuario " + user.getId(), e);
+        }
+    }
+
+    /**
+     * Metadatos en el heap de cada valor cacheado.
+     */
+    private record CachedUser(String email, String eTag, String rolesVersion) {
+    }
+}
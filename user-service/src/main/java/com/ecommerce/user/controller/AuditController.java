@@ -0,0 +1,47 @@
+package com.ecommerce.user.controller;
+
+import com.ecommerce.user.dto.response.AuditPageResponseDTO;
+import com.ecommerce.user.entity.AuditAction;
+import com.ecommerce.user.service.AuditService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * Consulta del historial de auditoria. Es interno: el API Gateway bloquea /api/users/internal/**.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/users/internal/audit")
+public class AuditController {
+
+    private final AuditService auditService;
+
+    public AuditController(AuditService auditService) {
+        this.auditService = auditService;
+    }
+
+    //Buscar eventos de auditoria (todos los filtros son opcionales)
+    @GetMapping
+    public ResponseEntity<AuditPageResponseDTO> search(
+            @RequestParam(required = false) String entityType,
+            @RequestParam(required = false) Long entityId,
+            @RequestParam(required = false) String actor,
+            @RequestParam(required = false) AuditAction action,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+
+        log.info("Solicitud REST para consultar auditoría");
+
+        return ResponseEntity.ok(auditService.search(entityType, entityId, actor, action, from, to, page, size));
+    }
+}
@@ -1,16 +1,19 @@
 package com.ecommerce.user.controller;
 
+import com.ecommerce.user.cache.ResourceETags;
+import com.ecommerce.user.cache.RoleCatalog;
 import com.ecommerce.user.dto.request.RoleCreateRequestDTO;
 import com.ecommerce.user.dto.response.RoleResponseDTO;
+import com.ecommerce.user.exception.ResourceNotFoundException;
 import com.ecommerce.user.service.RoleService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 
@@ -20,9 +23,11 @@ import java.util.Map;
 public class RoleController {
 
     private final RoleService roleService;
+    private final RoleCatalog roleCatalog;
 
-    public RoleController(RoleService roleService) {
+    public RoleController(RoleService roleService, RoleCatalog roleCatalog) {
         this.roleService = roleService;
+        this.roleCatalog = roleCatalog;
     }
 
     //Crear nuevo rol
@@ -37,34 +42,40 @@ public class RoleController {
         return new ResponseEntity<>(createdRole, HttpStatus.CREATED);
     }
 
-    //OBtener rol por id
+    //OBtener rol por id (servido desde el catalogo en memoria, JSON ya serializado; ETag id + version)
     @GetMapping("/{id}")
-    public ResponseEntity<RoleResponseDTO> getRoleById(@PathVariable Long id) {
-        log.info("Solicitud REST para obtener rol por ID: {}", id);
+    public ResponseEntity<byte[]> getRoleById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
-        RoleResponseDTO role = roleService.getRoleById(id);
+        log.info("Solicitud REST para obtener rol por ID: {}", id);
 
-        return ResponseEntity.ok(role);
+        return roleCatalog.findResponseById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Role", "id", id))
+                .toResponseEntity(ifNoneMatch);
     }
 
-    //Obtener rol por nombre
+    //Obtener rol por nombre (servido desde el catalogo en memoria)
     @GetMapping("/name/{name}")
-    public ResponseEntity<RoleResponseDTO> getRoleByName(@PathVariable String name) {
-        log.info("Solicitud REST para obtener rol por nombre: {}", name);
+    public ResponseEntity<byte[]> getRoleByName(
+            @PathVariable String name,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
-        RoleResponseDTO role = roleService.getRoleByName(name);
+        log.info("Solicitud REST para obtener rol por nombre: {}", name);
 
-        return ResponseEntity.ok(role);
+        return roleCatalog.findResponseByName(name)
+                .orElseThrow(() -> new ResourceNotFoundException("Role", "name", name))
+                .toResponseEntity(ifNoneMatch);
     }
 
-    //Obtener todos los roles
+    //Obtener todos los roles (servido desde el catalogo en memoria)
     @GetMapping
-    public ResponseEntity<List<RoleResponseDTO>> getAllRoles() {
-        log.info("Solicitud REST para obtener todos los roles");
+    public ResponseEntity<byte[]> getAllRoles(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
-        List<RoleResponseDTO> roles = roleService.getAllRoles();
+        log.info("Solicitud REST para obtener todos los roles");
 
-        return ResponseEntity.ok(roles);
+        return roleCatalog.getAllRolesResponse().toResponseEntity(ifNoneMatch);
     }
 
     //Actualizar rol
@@ -77,7 +88,9 @@ public class RoleController {
 
         RoleResponseDTO updatedRole = roleService.updateRole(id, requestDTO);
 
-        return ResponseEntity.ok(updatedRole);
+        return ResponseEntity.ok()
+                .eTag(ResourceETags.role(updatedRole.getId(), updatedRole.getVersion()))
+                .body(updatedRole);
     }
 
     //ELiminar rol solo si no está asignado
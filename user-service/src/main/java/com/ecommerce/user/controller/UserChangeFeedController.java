@@ -0,0 +1,49 @@
+package com.ecommerce.user.controller;
+
+import com.ecommerce.user.dto.response.UserChangeFeedResponseDTO;
+import com.ecommerce.user.exception.InvalidOperationException;
+import com.ecommerce.user.service.UserChangeFeedService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+
+/**
+ * Change feed para servicios que mantienen copias locales de usuarios.
+ * Es interno: el API Gateway bloquea /api/users/internal/**.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/users/internal/changes")
+public class UserChangeFeedController {
+
+    private final UserChangeFeedService userChangeFeedService;
+
+    public UserChangeFeedController(UserChangeFeedService userChangeFeedService) {
+        this.userChangeFeedService = userChangeFeedService;
+    }
+
+    /**
+     * Cambios posteriores a after. Con waitMs > 0 es un long-poll: si no hay cambios,
+     * la respuesta espera hasta que llegue alguno o venza el tiempo (lote vacio).
+     * El consumidor debe repetir la peticion con after = nextSequence.
+     */
+    @GetMapping
+    public DeferredResult<UserChangeFeedResponseDTO> getChanges(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "500") int limit,
+            @RequestParam(defaultValue = "true") boolean compact,
+            @RequestParam(defaultValue = "0") long waitMs) {
+
+        if (after < 0 || limit <= 0) {
+            throw new InvalidOperationException("after debe ser >= 0 y limit mayor que 0");
+        }
+
+        log.debug("Solicitud de change feed: after={}, limit={}, compact={}, waitMs={}", after, limit, compact, waitMs);
+
+        return userChangeFeedService.pollChanges(after, limit, compact, waitMs);
+    }
+}
@@ -1,22 +1,43 @@
 package com.ecommerce.user.controller;
 
+import com.ecommerce.user.cache.ResourceETags;
+import com.ecommerce.user.cache.RoleCatalog;
+import com.ecommerce.user.cache.SerializedResponse;
+import com.ecommerce.user.cache.UserDetailCache;
 import com.ecommerce.user.dto.request.AssignRoleRequestDTO;
+import com.ecommerce.user.dto.request.UserBatchRequestDTO;
+import com.ecommerce.user.dto.request.UserBulkStatusRequestDTO;
 import com.ecommerce.user.dto.request.UserCreateRequestDTO;
 import com.ecommerce.user.dto.request.UserUpdateRequestDTO;
+import com.ecommerce.user.dto.response.AuthPrincipalResponseDTO;
+import com.ecommerce.user.dto.response.UserBatchResponseDTO;
 import com.ecommerce.user.dto.response.UserDetailResponseDTO;
+import com.ecommerce.user.dto.response.UserPageResponseDTO;
 import com.ecommerce.user.dto.response.UserResponseDTO;
 import com.ecommerce.user.entity.User;
+import com.ecommerce.user.exception.InvalidOperationException;
+import com.ecommerce.user.exception.PreconditionFailedException;
 import com.ecommerce.user.exception.ResourceNotFoundException;
+import com.ecommerce.user.repository.UserVersion;
+import com.ecommerce.user.service.UserImportService;
 import com.ecommerce.user.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 
 @Slf4j
@@ -25,9 +46,18 @@ import java.util.Map;
 public class UserController {
 
     private final UserService userService;
-
-    public UserController(UserService userService) {
+    private final UserImportService userImportService;
+    private final RoleCatalog roleCatalog;
+    private final UserDetailCache userDetailCache;
+
+    public UserController(UserService userService,
+                          UserImportService userImportService,
+                          RoleCatalog roleCatalog,
+                          UserDetailCache userDetailCache) {
         this.userService = userService;
+        this.userImportService = userImportService;
+        this.roleCatalog = roleCatalog;
+        this.userDetailCache = userDetailCache;
     }
 
     //Crear nuevo usuario
@@ -42,24 +72,98 @@ public class UserController {
         return new ResponseEntity<>(createdUser, HttpStatus.CREATED);
     }
 
-    //Obtener usuario por id
+    //Alta masiva: cuerpo NDJSON con un usuario por linea. La respuesta se va enviando por lotes:
+    //una linea NDJSON con el resultado de cada linea recibida y al final una con el resumen
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public void importUsers(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.info("Solicitud REST para alta masiva de usuarios");
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+
+        userImportService.importUsers(request.getInputStream(), response.getOutputStream());
+    }
+
+    //Obtener usuario por id (JSON ya serializado desde la cache fuera del heap si esta).
+    //Sin cache, con If-None-Match solo se consulta la version: 304 si no ha cambiado
     @GetMapping("/{id}")
-    public ResponseEntity<UserDetailResponseDTO> getUserById(@PathVariable Long id) {
+    public ResponseEntity<byte[]> getUserById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
         log.info("Solicitud REST para obtener usuario por ID: {}", id);
 
-        UserDetailResponseDTO user = userService.getUserById(id);
+        Optional<SerializedResponse> cached = userDetailCache.getById(id);
+        if (cached.isPresent()) {
+            return cached.get().toResponseEntity(ifNoneMatch);
+        }
 
-        return ResponseEntity.ok(user);
+        if (ifNoneMatch != null) {
+            String currentETag = userETag(id, userService.getUserVersion(id));
+            if (ResourceETags.matches(ifNoneMatch, currentETag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(currentETag).build();
+            }
+        }
+
+        return userDetailCache.load(() -> userService.getUserById(id)).toResponseEntity(null);
     }
 
-    //obtener usuario por email
+    //obtener usuario por email (misma cache que por id). Sin cache, con If-None-Match solo se
+    //consultan id y version: 304 si no ha cambiado
     @GetMapping("/email/{email}")
-    public ResponseEntity<UserDetailResponseDTO> getUserByEmail(@PathVariable String email) {
+    public ResponseEntity<byte[]> getUserByEmail(
+            @PathVariable String email,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
         log.info("Solicitud REST para obtener usuario por email: {}", email);
 
-        UserDetailResponseDTO user = userService.getUserByEmail(email);
+        Optional<SerializedResponse> cached = userDetailCache.getByEmail(email);
+        if (cached.isPresent()) {
+            return cached.get().toResponseEntity(ifNoneMatch);
+        }
 
-        return ResponseEntity.ok(user);
+        if (ifNoneMatch != null) {
+            UserVersion current = userService.getUserVersionByEmail(email);
+            String currentETag = userETag(current.id(), current.version());
+            if (ResourceETags.matches(ifNoneMatch, currentETag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(currentETag).build();
+            }
+        }
+
+        return userDetailCache.load(() -> userService.getUserByEmail(email)).toResponseEntity(ifNoneMatch);
+    }
+
+    //Uso interno (Auth Service): principal minimo para login. El gateway bloquea /api/users/internal/**
+    @GetMapping("/internal/principal")
+    public ResponseEntity<AuthPrincipalResponseDTO> getAuthPrincipal(@RequestParam String email) {
+        log.debug("Solicitud REST interna para obtener principal: {}", email);
+
+        AuthPrincipalResponseDTO principal = userService.getAuthPrincipalByEmail(email);
+
+        return ResponseEntity.ok(principal);
+    }
+
+    //Uso interno (Auth Service): varios principales en una llamada, para agrupar logins concurrentes
+    @PostMapping("/internal/principals")
+    public ResponseEntity<Map<String, AuthPrincipalResponseDTO>> getAuthPrincipals(
+            @Valid @RequestBody UserBatchRequestDTO requestDTO) {
+        List<String> emails = requestDTO.getEmails() != null ? requestDTO.getEmails() : List.of();
+        log.debug("Solicitud REST interna para obtener {} principal(es)", emails.size());
+
+        return ResponseEntity.ok(userService.getAuthPrincipalsByEmail(emails));
+    }
+
+    //Obtener varios usuarios por ids y/o emails en una sola llamada
+    @PostMapping("/batch")
+    public ResponseEntity<UserBatchResponseDTO> getUsersBatch(
+            @Valid @RequestBody UserBatchRequestDTO requestDTO) {
+
+        log.info("Solicitud REST para obtener usuarios en lote");
+
+        UserBatchResponseDTO users = userService.getUsersBatch(requestDTO);
+
+        return ResponseEntity.ok(users);
     }
 
     //obtener todos los usuarios
@@ -82,6 +186,23 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
+    //Listado filtrado y paginado (todos los filtros son opcionales)
+    @GetMapping("/filter")
+    public ResponseEntity<UserPageResponseDTO> filterUsers(
+            @RequestParam(required = false) Boolean isActive,
+            @RequestParam(required = false) String roleName,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @RequestParam(required = false) String namePrefix,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        log.info("Solicitud REST para listar usuarios filtrados");
+
+        return ResponseEntity.ok(userService.filterUsers(
+                isActive, roleName, createdFrom, createdTo, namePrefix, page, size));
+    }
+
     //Buscar usuarios
     @GetMapping("/search")
     public ResponseEntity<List<UserResponseDTO>> searchUsers(
@@ -104,17 +225,48 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
-    //Actualizar usuario
+    //Actualizar usuario (If-Match opcional con la version esperada)
     @PutMapping("/{id}")
     public ResponseEntity<UserDetailResponseDTO> updateUser(
             @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody UserUpdateRequestDTO requestDTO) {
 
         log.info("Solicitud REST para actualizar usuario: {}", id);
 
-        UserDetailResponseDTO updatedUser = userService.updateUser(id, requestDTO);
+        UserDetailResponseDTO updatedUser = userService.updateUser(id, requestDTO, parseVersion(id, ifMatch));
+
+        return withETag(updatedUser);
+    }
+
+    //Actualizacion parcial con JSON Merge Patch (If-Match opcional con la version esperada)
+    @PatchMapping(value = "/{id}", consumes = "application/merge-patch+json")
+    public ResponseEntity<UserDetailResponseDTO> patchUser(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody Map<String, Object> patch) {
+
+        log.info("Solicitud REST para aplicar merge patch al usuario: {}", id);
+
+        UserDetailResponseDTO updatedUser = userService.patchUser(id, patch, parseVersion(id, ifMatch));
 
-        return ResponseEntity.ok(updatedUser);
+        return withETag(updatedUser);
+    }
+
+    //Activar o desactivar usuarios en bloque (por lista de IDs o criterios)
+    @PatchMapping("/status")
+    public ResponseEntity<Map<String, Object>> updateUsersStatus(
+            @Valid @RequestBody UserBulkStatusRequestDTO requestDTO) {
+
+        log.info("Solicitud REST para actualizar estado en bloque: isActive={}", requestDTO.getIsActive());
+
+        int updated = userService.updateUsersStatus(requestDTO);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("isActive", requestDTO.getIsActive());
+        response.put("updated", updated);
+
+        return ResponseEntity.ok(response);
     }
 
     //Desactivar usuario
@@ -182,5 +334,39 @@ public class UserController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Extrae la version del header If-Match: el ETag devuelto por los GET ("7-3-ab12cd34")
+     * o la version sola ("3", 3 o W/"3"). "*" acepta cualquier version.
+     *
+     * Con el ETag completo tambien se comprueban el id y la version del catalogo de roles: un
+     * ETag de otro usuario, o de un detalle con otros roles, no coincide con el actual (412).
+     */
+    private Long parseVersion(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        ResourceETags.Parsed parsed;
+        try {
+            parsed = ResourceETags.parse(ifMatch);
+        } catch (NumberFormatException e) {
+            throw new InvalidOperationException("If-Match inválido: " + ifMatch);
+        }
+
+        if ((parsed.id() != null && !parsed.id().equals(id))
+                || (parsed.rolesVersion() != null && !parsed.rolesVersion().equals(roleCatalog.version()))) {
+            throw new PreconditionFailedException("User", id, ifMatch.trim());
+        }
+        return parsed.version();
+    }
 
+    private String userETag(Long id, Long version) {
+        return ResourceETags.user(id, version, roleCatalog.version());
+    }
+
+    private ResponseEntity<UserDetailResponseDTO> withETag(UserDetailResponseDTO user) {
+        return ResponseEntity.ok()
+                .eTag(userETag(user.getId(), user.getVersion()))
+                .body(user);
+    }
 }
\ No newline at end of file
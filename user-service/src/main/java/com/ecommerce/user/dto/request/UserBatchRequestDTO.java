@@ -0,0 +1,20 @@
+package com.ecommerce.user.dto.request;
+
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+import java.util.List;
+
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserBatchRequestDTO {
+
+    @Size(max = 500, message = "No se pueden consultar más de 500 IDs por solicitud")
+    private List<@NotNull @Positive Long> ids;
+
+    @Size(max = 500, message = "No se pueden consultar más de 500 emails por solicitud")
+    private List<@NotBlank @Email String> emails;
+}
@@ -0,0 +1,35 @@
+package com.ecommerce.user.dto.request;
+
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+
+/**
+ * Activacion/desactivacion masiva. Se aplica a los usuarios que cumplan
+ * todos los criterios informados (al menos uno es obligatorio).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserBulkStatusRequestDTO {
+
+    @NotNull(message = "isActive es obligatorio")
+    private Boolean isActive;
+
+    @Size(max = 10000, message = "No se pueden enviar más de 10000 IDs por solicitud")
+    private List<@NotNull @Positive Long> userIds;
+
+    @Pattern(
+            regexp = "^ROLE_[A-Z_]+$",
+            message = "Nombre del rol debe empezar con 'ROLE_' y contener solo mayúsculas y guiones bajos"
+    )
+    private String roleName;
+
+    private LocalDateTime createdFrom;
+
+    private LocalDateTime createdTo;
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.user.dto.response;
+
+import com.ecommerce.user.entity.AuditAction;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AuditEventResponseDTO {
+
+    private Long id;
+    private LocalDateTime occurredAt;
+    private String actor;
+    private AuditAction action;
+    private String entityType;
+    private Long entityId;
+    private String details;
+}
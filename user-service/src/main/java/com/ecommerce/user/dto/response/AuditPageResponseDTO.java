@@ -0,0 +1,22 @@
+package com.ecommerce.user.dto.response;
+
+import lombok.*;
+
+import java.util.List;
+
+
+/**
+ * Pagina del historial de auditoria, del evento mas reciente al mas antiguo.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AuditPageResponseDTO {
+
+    private List<AuditEventResponseDTO> content;
+    private Integer page;
+    private Integer size;
+    private Long totalElements;
+    private Integer totalPages;
+}
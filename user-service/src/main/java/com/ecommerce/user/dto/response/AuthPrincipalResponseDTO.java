@@ -0,0 +1,23 @@
+package com.ecommerce.user.dto.response;
+
+import lombok.*;
+
+import java.util.Set;
+
+
+/**
+ * Respuesta minima para Auth Service: identidad, estado y nombres de roles.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AuthPrincipalResponseDTO {
+
+    private Long id;
+    private String email;
+    private String firstName;
+    private String lastName;
+    private Boolean isActive;
+    private Set<String> roles;
+}
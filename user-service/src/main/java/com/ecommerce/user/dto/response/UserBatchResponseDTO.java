@@ -0,0 +1,19 @@
+package com.ecommerce.user.dto.response;
+
+import lombok.*;
+
+import java.util.Map;
+import java.util.Set;
+
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserBatchResponseDTO {
+
+    private Map<Long, UserDetailResponseDTO> usersById;
+    private Map<String, UserDetailResponseDTO> usersByEmail;
+    private Set<Long> missingIds;
+    private Set<String> missingEmails;
+}
@@ -0,0 +1,25 @@
+package com.ecommerce.user.dto.response;
+
+import com.ecommerce.user.entity.UserChangeType;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * Cambio del feed. user trae el estado actual del usuario (null si fue eliminado),
+ * asi el consumidor no necesita consultar el usuario por separado.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserChangeDTO {
+
+    private Long seq;
+    private Long userId;
+    private UserChangeType changeType;
+    private Long roleId;
+    private LocalDateTime changedAt;
+    private UserResponseDTO user;
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.user.dto.response;
+
+import lombok.*;
+
+import java.util.List;
+
+
+/**
+ * Lote del change feed. nextSequence es el valor de after para la siguiente peticion.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserChangeFeedResponseDTO {
+
+    private List<UserChangeDTO> changes;
+    private Long nextSequence;
+    private Boolean hasMore;
+}
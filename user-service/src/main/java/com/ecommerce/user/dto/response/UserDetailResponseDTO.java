@@ -21,4 +21,5 @@ public class UserDetailResponseDTO {
     private Set<RoleResponseDTO> roles;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.ecommerce.user.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.util.Map;
+
+
+/**
+ * Resultado de una linea del alta masiva (una linea NDJSON de la respuesta por cada linea recibida).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserImportRowResultDTO {
+
+    public enum Status { CREATED, DUPLICATE, INVALID, FAILED }
+
+    private Long line;
+    private String email;
+    private Status status;
+    private Long id;
+    private String message;
+    private Map<String, String> validationErrors;
+}
@@ -0,0 +1,21 @@
+package com.ecommerce.user.dto.response;
+
+import lombok.*;
+
+
+/**
+ * Ultima linea de la respuesta del alta masiva.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserImportSummaryDTO {
+
+    private Long total;
+    private Long created;
+    private Long duplicates;
+    private Long invalid;
+    private Long failed;
+    private Long elapsedMs;
+}
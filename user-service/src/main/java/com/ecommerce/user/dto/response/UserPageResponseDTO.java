@@ -0,0 +1,24 @@
+package com.ecommerce.user.dto.response;
+
+import lombok.*;
+
+import java.util.List;
+
+
+/**
+ * Pagina del listado filtrado de usuarios.
+ * Si totalExact es false, totalElements y totalPages son una estimacion.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserPageResponseDTO {
+
+    private List<UserResponseDTO> content;
+    private Integer page;
+    private Integer size;
+    private Long totalElements;
+    private Integer totalPages;
+    private Boolean totalExact;
+}
@@ -0,0 +1,27 @@
+package com.ecommerce.user.entity;
+
+/**
+ * Acciones registradas en el historial de auditoria y el tipo de entidad al que afectan.
+ */
+public enum AuditAction {
+    USER_CREATED("USER"),
+    USER_UPDATED("USER"),
+    USER_DEACTIVATED("USER"),
+    USER_STATUS_BULK_UPDATED("USER"),
+    USER_DELETED("USER"),
+    USER_ROLE_ASSIGNED("USER"),
+    USER_ROLE_REMOVED("USER"),
+    ROLE_CREATED("ROLE"),
+    ROLE_UPDATED("ROLE"),
+    ROLE_DELETED("ROLE");
+
+    private final String entityType;
+
+    AuditAction(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+}
@@ -0,0 +1,51 @@
+package com.ecommerce.user.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * Evento de auditoria. Solo lectura desde JPA: lo inserta AuditWriter por lotes.
+ */
+@Entity
+@Immutable
+@Table(name = "audit_event")
+@Getter
+@NoArgsConstructor
+public class AuditEvent {
+
+    @Id
+    private Long id;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    @Column(nullable = false, length = 100)
+    private String actor;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 40)
+    private AuditAction action;
+
+    @Column(name = "entity_type", nullable = false, length = 20)
+    private String entityType;
+
+    @Column(name = "entity_id")
+    private Long entityId;
+
+    @Column(length = 500)
+    private String details;
+
+    @Override
+    public String toString() {
+        return "AuditEvent{" +
+                "id=" + id +
+                ", actor='" + actor + '\'' +
+                ", action=" + action +
+                ", entityId=" + entityId +
+                '}';
+    }
+}
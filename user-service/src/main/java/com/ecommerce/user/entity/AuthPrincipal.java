@@ -0,0 +1,57 @@
+package com.ecommerce.user.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * Proyeccion desnormalizada para el login de Auth Service: una fila por usuario
+ * con los nombres de sus roles en un array.
+ *
+ * Solo se escribe mediante las sentencias nativas de AuthPrincipalRepository,
+ * dentro de la misma transaccion que modifica users/user_roles/roles.
+ */
+@Entity
+@Immutable
+@Table(name = "auth_principal")
+@Getter
+@NoArgsConstructor
+public class AuthPrincipal {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false, unique = true, length = 100)
+    private String email;
+
+    @Column(name = "first_name", nullable = false, length = 50)
+    private String firstName;
+
+    @Column(name = "last_name", nullable = false, length = 50)
+    private String lastName;
+
+    @Column(name = "is_active", nullable = false)
+    private Boolean isActive;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "role_names", nullable = false, columnDefinition = "text[]")
+    private String[] roleNames;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Override
+    public String toString() {
+        return "AuthPrincipal{" +
+                "userId=" + userId +
+                ", email='" + email + '\'' +
+                ", isActive=" + isActive +
+                '}';
+    }
+}
@@ -45,6 +45,13 @@ public class Role {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    /**
+     * Version del rol; forma parte del ETag de /roles/{id}.
+     */
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0 not null")
+    private Long version;
+
     @Override
     public String toString() {
         return "Role{" +
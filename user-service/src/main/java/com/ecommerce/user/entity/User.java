@@ -59,6 +59,13 @@ public class User {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    /**
+     * Version para concurrencia optimista.
+     * Los UPDATE dirigidos de UserRepository la incrementan explicitamente.
+     */
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0 not null")
+    private Long version;
 
 
     // ============================================
@@ -97,6 +104,7 @@ public class User {
                 ", firstName='" + firstName + '\'' +
                 ", lastName='" + lastName + '\'' +
                 ", isActive=" + isActive +
+                ", version=" + version +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.ecommerce.user.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * Entrada del change feed. Solo se escribe con las sentencias nativas de UserChangeRepository.
+ */
+@Entity
+@Immutable
+@Table(name = "user_change_log")
+@Getter
+@NoArgsConstructor
+public class UserChange {
+
+    @Id
+    private Long seq;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", nullable = false, length = 30)
+    private UserChangeType changeType;
+
+    @Column(name = "role_id")
+    private Long roleId;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    @Override
+    public String toString() {
+        return "UserChange{" +
+                "seq=" + seq +
+                ", userId=" + userId +
+                ", changeType=" + changeType +
+                '}';
+    }
+}
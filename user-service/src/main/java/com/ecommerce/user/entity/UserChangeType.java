@@ -0,0 +1,14 @@
+package com.ecommerce.user.entity;
+
+/**
+ * Tipos de cambio publicados en el change feed de usuarios.
+ */
+public enum UserChangeType {
+    CREATED,
+    UPDATED,
+    ACTIVATED,
+    DEACTIVATED,
+    DELETED,
+    ROLE_ASSIGNED,
+    ROLE_REMOVED
+}
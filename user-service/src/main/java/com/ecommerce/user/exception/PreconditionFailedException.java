@@ -0,0 +1,14 @@
+package com.ecommerce.user.exception;
+
+
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+
+    public PreconditionFailedException(String resourceName, Object id, Object expectedVersion) {
+        super(String.format("%s con id '%s' fue modificado por otra operación (versión esperada: %s)",
+                resourceName, id, expectedVersion));
+    }
+}
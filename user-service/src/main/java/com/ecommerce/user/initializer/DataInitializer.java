@@ -1,23 +1,36 @@
 package com.ecommerce.user.initializer;
 
+import com.ecommerce.user.cache.RoleCatalog;
 import com.ecommerce.user.entity.Role;
+import com.ecommerce.user.repository.AuthPrincipalRepository;
 import com.ecommerce.user.repository.RoleRepository;
+import com.ecommerce.user.repository.UserRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
 /**
  * Se ejecuta automaticamente al arrancar la aplicación.
- * Crea los roles por defecto si no existen.
+ * Crea los roles por defecto si no existen y carga el catalogo de roles en memoria.
  */
 @Slf4j
 @Component
 public class DataInitializer implements CommandLineRunner {
 
     private final RoleRepository roleRepository;
+    private final RoleCatalog roleCatalog;
+    private final UserRepository userRepository;
+    private final AuthPrincipalRepository authPrincipalRepository;
 
-    public DataInitializer(RoleRepository roleRepository) {
+    public DataInitializer(
+            RoleRepository roleRepository,
+            RoleCatalog roleCatalog,
+            UserRepository userRepository,
+            AuthPrincipalRepository authPrincipalRepository) {
         this.roleRepository = roleRepository;
+        this.roleCatalog = roleCatalog;
+        this.userRepository = userRepository;
+        this.authPrincipalRepository = authPrincipalRepository;
     }
 
     @Override
@@ -26,6 +39,11 @@ public class DataInitializer implements CommandLineRunner {
 
         initializeRoles();
 
+        // Publicar el catalogo de roles en memoria con los roles ya creados
+        roleCatalog.refresh();
+
+        initializeAuthPrincipals();
+
         log.info("¡Inicialización de datos completada!");
     }
 
@@ -35,6 +53,21 @@ public class DataInitializer implements CommandLineRunner {
         createRoleIfNotExists("ROLE_MANAGER", "Gestor de productos e inventario");
     }
 
+    /**
+     * Rellena la proyeccion auth_principal si falta alguna fila (primer arranque o datos previos).
+     */
+    private void initializeAuthPrincipals() {
+        long users = userRepository.count();
+        long principals = authPrincipalRepository.count();
+
+        if (users != principals) {
+            int refreshed = authPrincipalRepository.refreshAll();
+            log.info("Proyección auth_principal reconstruida: {} fila(s)", refreshed);
+        } else {
+            log.info("Proyección auth_principal al día: {} fila(s)", principals);
+        }
+    }
+
     private void createRoleIfNotExists(String name, String description) {
         if (!roleRepository.existsByName(name)) {
             Role role = Role.builder()
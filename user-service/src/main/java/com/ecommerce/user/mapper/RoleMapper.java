@@ -28,6 +28,7 @@ public class RoleMapper {
                 .description(role.getDescription())
                 .createdAt(role.getCreatedAt())
                 .updatedAt(role.getUpdatedAt())
+                .version(role.getVersion())
                 .build();
     }
 }
\ No newline at end of file
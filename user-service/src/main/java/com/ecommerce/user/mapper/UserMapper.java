@@ -1,13 +1,19 @@
 package com.ecommerce.user.mapper;
 
+import com.ecommerce.user.cache.RoleCatalog;
 import com.ecommerce.user.dto.request.UserCreateRequestDTO;
 import com.ecommerce.user.dto.request.UserUpdateRequestDTO;
+import com.ecommerce.user.dto.response.AuthPrincipalResponseDTO;
 import com.ecommerce.user.dto.response.UserDetailResponseDTO;
 import com.ecommerce.user.dto.response.UserResponseDTO;
+import com.ecommerce.user.entity.AuthPrincipal;
 import com.ecommerce.user.entity.User;
 import com.ecommerce.user.entity.UserRole;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 
@@ -15,9 +21,11 @@ import java.util.stream.Collectors;
 public class UserMapper {
 
     private final RoleMapper roleMapper;
+    private final RoleCatalog roleCatalog;
 
-    public UserMapper(RoleMapper roleMapper) {
+    public UserMapper(RoleMapper roleMapper, RoleCatalog roleCatalog) {
         this.roleMapper = roleMapper;
+        this.roleCatalog = roleCatalog;
     }
 
     /**
@@ -34,24 +42,26 @@ public class UserMapper {
     }
 
     /**
-     * Actualiza una entidad User existente con datos del DTO.
+     * Extrae los campos informados (no null) del DTO para un UPDATE dirigido.
      */
-    public void updateEntityFromDTO(User user, UserUpdateRequestDTO dto) {
+    public Map<String, Object> toFieldUpdates(UserUpdateRequestDTO dto) {
+        Map<String, Object> fields = new LinkedHashMap<>();
         if (dto.getEmail() != null) {
-            user.setEmail(dto.getEmail());
+            fields.put("email", dto.getEmail());
         }
         if (dto.getFirstName() != null) {
-            user.setFirstName(dto.getFirstName());
+            fields.put("firstName", dto.getFirstName());
         }
         if (dto.getLastName() != null) {
-            user.setLastName(dto.getLastName());
+            fields.put("lastName", dto.getLastName());
         }
         if (dto.getPhone() != null) {
-            user.setPhone(dto.getPhone());
+            fields.put("phone", dto.getPhone());
         }
         if (dto.getIsActive() != null) {
-            user.setIsActive(dto.getIsActive());
+            fields.put("isActive", dto.getIsActive());
         }
+        return fields;
     }
 
     /**
@@ -87,6 +97,44 @@ public class UserMapper {
                         .collect(Collectors.toSet()))
                 .createdAt(user.getCreatedAt())
                 .updatedAt(user.getUpdatedAt())
+                .version(user.getVersion())
+                .build();
+    }
+
+    /**
+     * Igual que toDetailResponseDTO, pero resuelve los roles contra RoleCatalog
+     * usando solo el id del proxy, sin inicializar cada Role.
+     */
+    public UserDetailResponseDTO toDetailResponseDTOFromCatalog(User user) {
+        return UserDetailResponseDTO.builder()
+                .id(user.getId())
+                .email(user.getEmail())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .phone(user.getPhone())
+                .isActive(user.getIsActive())
+                .roles(user.getUserRoles().stream()
+                        .map(UserRole::getRole)
+                        .map(role -> roleCatalog.findById(role.getId())
+                                .orElseGet(() -> roleMapper.toResponseDTO(role)))
+                        .collect(Collectors.toSet()))
+                .createdAt(user.getCreatedAt())
+                .updatedAt(user.getUpdatedAt())
+                .version(user.getVersion())
+                .build();
+    }
+
+    /**
+     * Convierte la proyeccion auth_principal a la respuesta minima para Auth Service.
+     */
+    public AuthPrincipalResponseDTO toAuthPrincipalDTO(AuthPrincipal principal) {
+        return AuthPrincipalResponseDTO.builder()
+                .id(principal.getUserId())
+                .email(principal.getEmail())
+                .firstName(principal.getFirstName())
+                .lastName(principal.getLastName())
+                .isActive(principal.getIsActive())
+                .roles(Set.of(principal.getRoleNames()))
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package com.ecommerce.user.mapper;
+
+import com.ecommerce.user.dto.request.UserUpdateRequestDTO;
+import com.ecommerce.user.exception.InvalidOperationException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Convierte un documento JSON Merge Patch (RFC 7396) de usuario en los campos a actualizar.
+ * Un campo presente con valor null significa "borrar", solo permitido en campos opcionales.
+ */
+@Component
+public class UserMergePatchMapper {
+
+    private static final Set<String> PATCHABLE_FIELDS =
+            Set.of("email", "firstName", "lastName", "phone", "isActive");
+
+    private static final Set<String> NULLABLE_FIELDS = Set.of("phone");
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    public UserMergePatchMapper(ObjectMapper objectMapper, Validator validator) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+    }
+
+    /**
+     * Valida el patch con las mismas reglas que UserUpdateRequestDTO y devuelve los campos tipados.
+     */
+    public Map<String, Object> toFieldUpdates(Map<String, Object> patch) {
+        for (Map.Entry<String, Object> entry : patch.entrySet()) {
+            if (!PATCHABLE_FIELDS.contains(entry.getKey())) {
+                throw new InvalidOperationException("Campo no modificable: " + entry.getKey());
+            }
+            if (entry.getValue() == null && !NULLABLE_FIELDS.contains(entry.getKey())) {
+                throw new InvalidOperationException("El campo " + entry.getKey() + " no puede ser null");
+            }
+        }
+
+        UserUpdateRequestDTO dto;
+        try {
+            dto = objectMapper.convertValue(patch, UserUpdateRequestDTO.class);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidOperationException("Merge patch inválido: " + e.getMessage());
+        }
+
+        Set<ConstraintViolation<UserUpdateRequestDTO>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            throw new InvalidOperationException(violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .collect(Collectors.joining(", ")));
+        }
+
+        // Mantener solo las claves presentes en el patch, con el valor ya convertido
+        Map<String, Object> fields = new LinkedHashMap<>();
+        for (String field : patch.keySet()) {
+            fields.put(field, switch (field) {
+                case "email" -> dto.getEmail();
+                case "firstName" -> dto.getFirstName();
+                case "lastName" -> dto.getLastName();
+                case "phone" -> dto.getPhone();
+                default -> dto.getIsActive();
+            });
+        }
+        return fields;
+    }
+}
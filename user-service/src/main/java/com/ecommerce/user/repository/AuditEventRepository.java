@@ -0,0 +1,13 @@
+package com.ecommerce.user.repository;
+
+import com.ecommerce.user.entity.AuditEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Consultas del historial de auditoria. Las inserciones las hace AuditWriter por lotes.
+ */
+@Repository
+public interface AuditEventRepository extends JpaRepository<AuditEvent, Long>, JpaSpecificationExecutor<AuditEvent> {
+}
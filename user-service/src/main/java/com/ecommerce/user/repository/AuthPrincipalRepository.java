@@ -0,0 +1,100 @@
+package com.ecommerce.user.repository;
+
+import com.ecommerce.user.entity.AuthPrincipal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Mantenimiento de la proyeccion auth_principal.
+ * Las escrituras se unen a la transaccion del servicio que modifica el usuario o sus roles.
+ */
+@Repository
+public interface AuthPrincipalRepository extends JpaRepository<AuthPrincipal, Long> {
+
+    String UPSERT_FROM_USERS =
+            "INSERT INTO auth_principal (user_id, email, first_name, last_name, is_active, role_names, updated_at) " +
+            "SELECT u.id, u.email, u.first_name, u.last_name, u.is_active, " +
+            "       ARRAY(SELECT r.name FROM user_roles ur JOIN roles r ON r.id = ur.role_id " +
+            "             WHERE ur.user_id = u.id ORDER BY r.name), " +
+            "       now() " +
+            "FROM users u ";
+
+    String ON_CONFLICT_UPDATE =
+            " ON CONFLICT (user_id) DO UPDATE SET " +
+            "email = EXCLUDED.email, first_name = EXCLUDED.first_name, last_name = EXCLUDED.last_name, " +
+            "is_active = EXCLUDED.is_active, role_names = EXCLUDED.role_names, updated_at = EXCLUDED.updated_at";
+
+
+    /**
+     * Lectura del login: una busqueda por el indice unico ux_auth_principal_email_lower.
+     */
+    @Query("SELECT p FROM AuthPrincipal p WHERE LOWER(p.email) = LOWER(:email)")
+    Optional<AuthPrincipal> findByEmail(@Param("email") String email);
+
+    /**
+     * Lectura de varios logins a la vez (lotes de UserLookupCollapser en Auth Service).
+     * emails en minusculas.
+     */
+    @Query("SELECT p FROM AuthPrincipal p WHERE LOWER(p.email) IN :emails")
+    List<AuthPrincipal> findByEmailIn(@Param("emails") Collection<String> emails);
+
+    /**
+     * Recalcula la fila de un usuario a partir de users/user_roles/roles.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = UPSERT_FROM_USERS + "WHERE u.id = :userId" + ON_CONFLICT_UPDATE, nativeQuery = true)
+    int refreshForUser(@Param("userId") Long userId);
+
+    /**
+     * Recalcula las filas de varios usuarios (alta masiva).
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = UPSERT_FROM_USERS + "WHERE u.id IN (:userIds)" + ON_CONFLICT_UPDATE, nativeQuery = true)
+    int refreshForUsers(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Recalcula la proyeccion completa (carga inicial o reparacion).
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = UPSERT_FROM_USERS + ON_CONFLICT_UPDATE, nativeQuery = true)
+    int refreshAll();
+
+    /**
+     * Copia is_active de users tras una actualizacion masiva de estado.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE auth_principal p SET is_active = u.is_active, updated_at = now() " +
+            "FROM users u WHERE u.id = p.user_id AND p.is_active <> u.is_active",
+            nativeQuery = true)
+    int syncActiveFlags();
+
+    /**
+     * Propaga el cambio de nombre de un rol a todas las filas que lo contienen.
+     * El operador @> (no = ANY) permite usar el indice GIN sobre role_names.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE auth_principal " +
+            "SET role_names = array_replace(role_names, CAST(:oldName AS text), CAST(:newName AS text)), " +
+            "updated_at = now() " +
+            "WHERE role_names @> ARRAY[CAST(:oldName AS text)]",
+            nativeQuery = true)
+    int renameRole(@Param("oldName") String oldName, @Param("newName") String newName);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM auth_principal WHERE user_id = :userId", nativeQuery = true)
+    int deleteByUserId(@Param("userId") Long userId);
+}
@@ -0,0 +1,92 @@
+package com.ecommerce.user.repository;
+
+import com.ecommerce.user.entity.UserChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Acceso al registro de cambios de usuarios.
+ * Las escrituras se unen a la transaccion del servicio que modifica el usuario.
+ */
+@Repository
+public interface UserChangeRepository extends JpaRepository<UserChange, Long> {
+
+    /**
+     * Asigna ya el xid de la transaccion, antes de tomar un seq (ver UserChangeFeedServiceImpl).
+     */
+    @Query(value = "SELECT CAST(pg_current_xact_id() AS text)", nativeQuery = true)
+    String assignTransactionId();
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO user_change_log (user_id, change_type, role_id, changed_at) " +
+            "VALUES (:userId, :changeType, :roleId, now())",
+            nativeQuery = true)
+    int insert(@Param("userId") Long userId,
+               @Param("changeType") String changeType,
+               @Param("roleId") Long roleId);
+
+    /**
+     * El mismo tipo de cambio para varios usuarios, en orden de id (alta masiva).
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO user_change_log (user_id, change_type, changed_at) " +
+            "SELECT u.id, :changeType, now() FROM users u WHERE u.id IN (:userIds) ORDER BY u.id",
+            nativeQuery = true)
+    int insertAll(@Param("userIds") Collection<Long> userIds, @Param("changeType") String changeType);
+
+    /**
+     * Registra los usuarios cuyo is_active difiere de auth_principal.
+     * Debe ejecutarse antes de AuthPrincipalRepository.syncActiveFlags.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO user_change_log (user_id, change_type, changed_at) " +
+            "SELECT u.id, CASE WHEN u.is_active THEN 'ACTIVATED' ELSE 'DEACTIVATED' END, now() " +
+            "FROM users u JOIN auth_principal p ON p.user_id = u.id " +
+            "WHERE p.is_active <> u.is_active " +
+            "ORDER BY u.id",
+            nativeQuery = true)
+    int insertActiveFlagChanges();
+
+    /**
+     * Entradas entre after (excluido) y upTo; upTo debe ser un seq ya confirmado.
+     */
+    List<UserChange> findBySeqGreaterThanAndSeqLessThanEqualOrderBySeqAsc(Long after, Long upTo, Pageable pageable);
+
+    /**
+     * Ultimo seq repartido por la secuencia, haya hecho commit su transaccion o no (0 si no se ha usado).
+     */
+    @Query(value = "SELECT CASE WHEN is_called THEN last_value ELSE 0 END FROM user_change_log_seq_seq",
+            nativeQuery = true)
+    long findLastAllocatedSeq();
+
+    /**
+     * Primer xid que aun no se habia asignado al tomar el snapshot.
+     */
+    @Query(value = "SELECT CAST(CAST(pg_snapshot_xmax(pg_current_snapshot()) AS text) AS bigint)", nativeQuery = true)
+    long currentSnapshotXmax();
+
+    /**
+     * xid mas antiguo aun en curso: todas las transacciones anteriores han terminado.
+     */
+    @Query(value = "SELECT CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS text) AS bigint)", nativeQuery = true)
+    long currentSnapshotXmin();
+
+    /**
+     * Compactacion: borra las entradas anteriores a cutoff que tienen otra posterior del mismo
+     * usuario. Queda al menos la ultima entrada de cada usuario (incluidos los DELETED).
+     */
+    @Modifying
+    @Query(value = "DELETE FROM user_change_log c " +
+            "WHERE c.changed_at < :cutoff " +
+            "AND EXISTS (SELECT 1 FROM user_change_log n WHERE n.user_id = c.user_id AND n.seq > c.seq)",
+            nativeQuery = true)
+    int deleteSuperseded(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.user.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Criterios del listado filtrado de usuarios. Los null se ignoran.
+ *
+ * @param namePrefix prefijo del nombre o del apellido, sin distinguir mayusculas
+ */
+public record UserFilterCriteria(Boolean isActive,
+                                 String roleName,
+                                 LocalDateTime createdFrom,
+                                 LocalDateTime createdTo,
+                                 String namePrefix) {
+}
@@ -1,36 +1,129 @@
 package com.ecommerce.user.repository;
 
+import com.ecommerce.user.dto.response.UserResponseDTO;
 import com.ecommerce.user.entity.User;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.List;
+import java.util.stream.Stream;
 
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
 
+    /**
+     * Proyeccion directa a UserResponseDTO para los listados: no pasa por el contexto de
+     * persistencia (sin entidades gestionadas, sin snapshots de dirty checking y sin cargar
+     * la coleccion EAGER de userRoles).
+     */
+    String RESPONSE_PROJECTION = "SELECT new com.ecommerce.user.dto.response.UserResponseDTO(" +
+            "u.id, u.email, u.firstName, u.lastName, u.phone, u.isActive, u.createdAt, u.updatedAt) " +
+            "FROM User u ";
 
-    Optional<User> findByEmail(String email);
+    /**
+     * Los emails no distinguen mayusculas (indice unico ux_users_email_lower): todas las
+     * busquedas por email comparan lower(email).
+     */
+    @Query("SELECT u FROM User u WHERE LOWER(u.email) = LOWER(:email)")
+    Optional<User> findByEmail(@Param("email") String email);
 
-    boolean existsByEmail(String email);
+    /**
+     * Sin distinguir mayusculas, como el filtro de emails; usa el indice funcional lower(email).
+     */
+    @Query("SELECT CASE WHEN COUNT(u) > 0 THEN true ELSE false END FROM User u WHERE LOWER(u.email) = LOWER(:email)")
+    boolean existsByEmail(@Param("email") String email);
 
-    List<User> findByIsActive(Boolean isActive);
+    /**
+     * Version actual de un usuario sin cargar la entidad ni sus roles (revalidacion de ETags).
+     */
+    @Query("SELECT u.version FROM User u WHERE u.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
 
-    List<User> findByFirstNameContainingIgnoreCaseOrLastNameContainingIgnoreCase(
-            String firstName,
-            String lastName
-    );
+    /**
+     * Id y version por email (revalidacion de ETags en GET /users/email/{email}).
+     */
+    @Query("SELECT new com.ecommerce.user.repository.UserVersion(u.id, u.version) " +
+            "FROM User u WHERE LOWER(u.email) = LOWER(:email)")
+    Optional<UserVersion> findVersionByEmail(@Param("email") String email);
 
+    /**
+     * Bloquea la fila del usuario hasta el final de la transaccion. Serializa los cambios
+     * de user_roles de un mismo usuario para que cada recalculo de auth_principal vea los
+     * cambios ya confirmados de las demas operaciones sobre ese usuario.
+     */
+    @Query(value = "SELECT id FROM users WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockById(@Param("id") Long id);
 
-    @Query("SELECT DISTINCT u FROM User u " +
-            "JOIN u.userRoles ur " +
-            "JOIN ur.role r " +
-            "WHERE r.name = :roleName")
-    List<User> findByRoleName(@Param("roleName") String roleName);
+    /**
+     * Recorre todos los emails sin cargar entidades (para el filtro de emails).
+     * Debe consumirse dentro de una transaccion y cerrarse al terminar.
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("SELECT u.email FROM User u")
+    Stream<String> streamAllEmails();
+
+    @Query("SELECT u.email FROM User u WHERE u.id IN :ids")
+    List<String> findEmailsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(RESPONSE_PROJECTION + "ORDER BY u.id")
+    List<UserResponseDTO> findAllResponses();
+
+    /**
+     * El literal (en vez de un parametro) permite que PostgreSQL use el indice parcial
+     * idx_users_active_id tambien con planes genericos.
+     */
+    @Query(RESPONSE_PROJECTION + "WHERE u.isActive = true ORDER BY u.id")
+    List<UserResponseDTO> findActiveResponses();
+
+    @Query(RESPONSE_PROJECTION + "WHERE u.id IN :ids")
+    List<UserResponseDTO> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Busqueda por subcadena del nombre o apellido; los % y _ del termino se buscan literalmente.
+     */
+    default List<UserResponseDTO> searchResponsesByName(String term) {
+        String pattern = "%" + UserRepositoryCustomImpl.escapeLike(term.toLowerCase(Locale.ROOT)) + "%";
+        return searchResponsesByNamePattern(pattern);
+    }
+
+    @Query(RESPONSE_PROJECTION +
+            "WHERE LOWER(u.firstName) LIKE :pattern ESCAPE '\\' " +
+            "OR LOWER(u.lastName) LIKE :pattern ESCAPE '\\' " +
+            "ORDER BY u.id")
+    List<UserResponseDTO> searchResponsesByNamePattern(@Param("pattern") String pattern);
+
+
+    /**
+     * Carga un lote de usuarios con sus UserRole en una sola consulta (sin N+1 por la coleccion EAGER).
+     * Los Role quedan como proxies; se resuelven contra RoleCatalog.
+     */
+    @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.userRoles WHERE u.id IN :ids")
+    List<User> findAllWithRolesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * emails en minusculas.
+     */
+    @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.userRoles WHERE LOWER(u.email) IN :emails")
+    List<User> findAllWithRolesByEmailIn(@Param("emails") Collection<String> emails);
+
+
+    /**
+     * EXISTS en lugar de JOIN + DISTINCT: cada usuario sale una sola vez sin ordenar ni deduplicar filas.
+     */
+    @Query(RESPONSE_PROJECTION +
+            "WHERE EXISTS (SELECT 1 FROM UserRole ur WHERE ur.user = u AND ur.role.name = :roleName) " +
+            "ORDER BY u.id")
+    List<UserResponseDTO> findResponsesByRoleName(@Param("roleName") String roleName);
 
 
     @Query(value = "SELECT COUNT(DISTINCT u.id) FROM users u " +
@@ -39,4 +132,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
             "WHERE r.name = :roleName",
             nativeQuery = true)
     Long countUsersByRoleName(@Param("roleName") String roleName);
+
+
+    /**
+     * Soft delete en una sola sentencia, sin cargar el usuario ni sus roles.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE User u SET u.isActive = false, u.version = u.version + 1, u.updatedAt = :now " +
+            "WHERE u.id = :id")
+    int deactivateById(@Param("id") Long id, @Param("now") LocalDateTime now);
 }
\ No newline at end of file
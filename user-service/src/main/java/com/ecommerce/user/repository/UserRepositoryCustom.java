@@ -0,0 +1,63 @@
+package com.ecommerce.user.repository;
+
+import com.ecommerce.user.dto.response.UserResponseDTO;
+import com.ecommerce.user.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operaciones que no se pueden expresar como @Query fija.
+ * Las de escritura se ejecutan como un unico UPDATE, sin cargar la entidad.
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Actualiza solo los campos indicados e incrementa la version.
+     *
+     * @param expectedVersion si no es null, solo actualiza si la version coincide
+     * @return filas actualizadas (0 si no existe o la version no coincide)
+     */
+    int updateFields(Long id, Long expectedVersion, Map<String, Object> fields);
+
+    /**
+     * Activa o desactiva en una sola sentencia los usuarios que cumplan todos los criterios informados.
+     * Los criterios null se ignoran; debe informarse al menos uno.
+     */
+    int updateActiveStatus(boolean active,
+                           Collection<Long> userIds,
+                           String roleName,
+                           LocalDateTime createdFrom,
+                           LocalDateTime createdTo);
+
+    /**
+     * Pagina del listado filtrado, ordenada por id. Todos los criterios van en una sola consulta.
+     */
+    List<UserResponseDTO> findFiltered(UserFilterCriteria criteria, long offset, int limit);
+
+    /**
+     * Cuenta los usuarios que cumplen los criterios, sin pasar de cap.
+     * Un resultado igual a cap significa "cap o mas".
+     */
+    long countFilteredUpTo(UserFilterCriteria criteria, long cap);
+
+    /**
+     * Filas estimadas por el planificador de PostgreSQL para los criterios (sin ejecutar la consulta).
+     */
+    long estimateFiltered(UserFilterCriteria criteria);
+
+    /**
+     * Inserta usuarios nuevos en una sola sentencia (sin roles ni contexto de persistencia).
+     * Los emails que ya existen (sin distinguir mayusculas) se omiten con ON CONFLICT.
+     *
+     * @return id asignado a cada email insertado, con el email en minusculas
+     */
+    Map<String, Long> insertAllIgnoringDuplicates(List<User> users);
+
+    /**
+     * Asigna el mismo rol a todos los usuarios indicados en una sola sentencia.
+     */
+    int insertUserRoles(Collection<Long> userIds, Long roleId);
+}
@@ -0,0 +1,311 @@
+package com.ecommerce.user.repository;
+
+import com.ecommerce.user.dto.response.UserResponseDTO;
+import com.ecommerce.user.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Implementacion de UserRepositoryCustom: JPQL construido dinamicamente para las escrituras
+ * y SQL nativo para el listado filtrado (necesita LIMIT en subconsulta y EXPLAIN).
+ */
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    /**
+     * Campos de User que se pueden modificar con updateFields.
+     * El nombre se concatena en el JPQL, por eso solo se aceptan estos.
+     */
+    private static final Set<String> UPDATABLE_FIELDS =
+            Set.of("email", "firstName", "lastName", "phone", "isActive");
+
+    private static final String FILTER_COLUMNS =
+            "u.id, u.email, u.first_name, u.last_name, u.phone, u.is_active, u.created_at, u.updated_at";
+
+    /**
+     * Estimacion de filas del nodo raiz en la primera linea de EXPLAIN: "(cost=... rows=N width=...)".
+     */
+    private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+
+    /**
+     * Alta masiva: una sentencia por lote con un array por columna. El texto del SQL no
+     * depende del numero de filas, asi que PostgreSQL reutiliza el plan entre lotes.
+     */
+    private static final String INSERT_USERS =
+            "INSERT INTO users (email, first_name, last_name, phone, is_active, created_at, updated_at, version) " +
+            "SELECT v.email, v.first_name, v.last_name, v.phone, true, ?, ?, 0 " +
+            "FROM unnest(?, ?, ?, ?) AS v(email, first_name, last_name, phone) " +
+            "ON CONFLICT ((lower(email))) DO NOTHING " +
+            "RETURNING id, email";
+
+    private static final String INSERT_USER_ROLES =
+            "INSERT INTO user_roles (user_id, role_id, assigned_at) " +
+            "SELECT v.user_id, ?, ? FROM unnest(?) AS v(user_id) " +
+            "ON CONFLICT (user_id, role_id) DO NOTHING";
+
+    private static final RowMapper<UserResponseDTO> RESPONSE_ROW_MAPPER = (rs, rowNum) -> new UserResponseDTO(
+            rs.getLong("id"),
+            rs.getString("email"),
+            rs.getString("first_name"),
+            rs.getString("last_name"),
+            rs.getString("phone"),
+            rs.getBoolean("is_active"),
+            rs.getObject("created_at", LocalDateTime.class),
+            rs.getObject("updated_at", LocalDateTime.class));
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int updateFields(Long id, Long expectedVersion, Map<String, Object> fields) {
+        StringBuilder jpql = new StringBuilder(
+                "UPDATE User u SET u.version = u.version + 1, u.updatedAt = :now");
+
+        for (String field : fields.keySet()) {
+            if (!UPDATABLE_FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Campo no actualizable: " + field);
+            }
+            jpql.append(", u.").append(field).append(" = :").append(field);
+        }
+
+        jpql.append(" WHERE u.id = :id");
+        if (expectedVersion != null) {
+            jpql.append(" AND u.version = :version");
+        }
+
+        Query query = entityManager.createQuery(jpql.toString())
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("id", id);
+
+        fields.forEach(query::setParameter);
+        if (expectedVersion != null) {
+            query.setParameter("version", expectedVersion);
+        }
+
+        int updated = query.executeUpdate();
+
+        // El UPDATE no pasa por el contexto de persistencia: descartar la copia obsoleta del usuario
+        evictUsers(id::equals);
+
+        return updated;
+    }
+
+    @Override
+    public int updateActiveStatus(boolean active,
+                                  Collection<Long> userIds,
+                                  String roleName,
+                                  LocalDateTime createdFrom,
+                                  LocalDateTime createdTo) {
+
+        // Solo se tocan las filas cuyo estado cambia realmente
+        StringBuilder jpql = new StringBuilder(
+                "UPDATE User u SET u.isActive = :active, u.version = u.version + 1, u.updatedAt = :now " +
+                        "WHERE u.isActive <> :active");
+        Map<String, Object> params = new HashMap<>();
+        params.put("active", active);
+        params.put("now", LocalDateTime.now());
+
+        if (userIds != null && !userIds.isEmpty()) {
+            jpql.append(" AND u.id IN :userIds");
+            params.put("userIds", userIds);
+        }
+        if (roleName != null) {
+            jpql.append(" AND EXISTS (SELECT 1 FROM UserRole ur WHERE ur.user = u AND ur.role.name = :roleName)");
+            params.put("roleName", roleName);
+        }
+        if (createdFrom != null) {
+            jpql.append(" AND u.createdAt >= :createdFrom");
+            params.put("createdFrom", createdFrom);
+        }
+        if (createdTo != null) {
+            jpql.append(" AND u.createdAt < :createdTo");
+            params.put("createdTo", createdTo);
+        }
+
+        if (params.size() == 2) {
+            throw new IllegalArgumentException("Se requiere al menos un criterio para la actualizacion masiva");
+        }
+
+        Query query = entityManager.createQuery(jpql.toString());
+        params.forEach(query::setParameter);
+
+        int updated = query.executeUpdate();
+        evictUsers(userIds != null && !userIds.isEmpty() ? userIds::contains : userId -> true);
+
+        return updated;
+    }
+
+    /**
+     * Desliga del contexto de persistencia los User afectados por un UPDATE JPQL, para que una
+     * lectura posterior en la misma transaccion vaya a la base de datos. A diferencia de
+     * clear(), el resto de entidades gestionadas del llamador (p. ej. roles) no se tocan.
+     */
+    private void evictUsers(Predicate<Long> affected) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        List<User> stale = new ArrayList<>();
+        for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            if (entry.getKey() instanceof User user && affected.test(user.getId())) {
+                stale.add(user);
+            }
+        }
+        stale.forEach(entityManager::detach);
+    }
+
+    @Override
+    public List<UserResponseDTO> findFiltered(UserFilterCriteria criteria, long offset, int limit) {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT " + FILTER_COLUMNS + " FROM users u" + filterWhere(criteria, args) +
+                " ORDER BY u.id LIMIT ? OFFSET ?";
+        args.add(limit);
+        args.add(offset);
+
+        return jdbcTemplate.query(sql, RESPONSE_ROW_MAPPER, args.toArray());
+    }
+
+    @Override
+    public long countFilteredUpTo(UserFilterCriteria criteria, long cap) {
+        // El LIMIT dentro de la subconsulta corta el recorrido al llegar a cap filas
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT count(*) FROM (SELECT 1 FROM users u" + filterWhere(criteria, args) +
+                " LIMIT ?) AS limited";
+        args.add(cap);
+
+        Long count = jdbcTemplate.queryForObject(sql, Long.class, args.toArray());
+        return count != null ? count : 0;
+    }
+
+    @Override
+    public long estimateFiltered(UserFilterCriteria criteria) {
+        List<Object> args = new ArrayList<>();
+        String sql = "EXPLAIN SELECT 1 FROM users u" + filterWhere(criteria, args);
+
+        List<String> plan = jdbcTemplate.queryForList(sql, String.class, args.toArray());
+        if (plan.isEmpty()) {
+            return 0;
+        }
+        Matcher matcher = PLAN_ROWS.matcher(plan.get(0));
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : 0;
+    }
+
+    @Override
+    public Map<String, Long> insertAllIgnoringDuplicates(List<User> users) {
+        if (users.isEmpty()) {
+            return Map.of();
+        }
+
+        String[] emails = new String[users.size()];
+        String[] firstNames = new String[users.size()];
+        String[] lastNames = new String[users.size()];
+        String[] phones = new String[users.size()];
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            emails[i] = user.getEmail();
+            firstNames[i] = user.getFirstName();
+            lastNames[i] = user.getLastName();
+            phones[i] = user.getPhone();
+        }
+        LocalDateTime now = LocalDateTime.now();
+
+        return jdbcTemplate.execute((ConnectionCallback<Map<String, Long>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_USERS)) {
+                statement.setObject(1, now);
+                statement.setObject(2, now);
+                statement.setArray(3, connection.createArrayOf("varchar", emails));
+                statement.setArray(4, connection.createArrayOf("varchar", firstNames));
+                statement.setArray(5, connection.createArrayOf("varchar", lastNames));
+                statement.setArray(6, connection.createArrayOf("varchar", phones));
+
+                Map<String, Long> ids = new LinkedHashMap<>();
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        ids.put(rs.getString("email").toLowerCase(Locale.ROOT), rs.getLong("id"));
+                    }
+                }
+                return ids;
+            }
+        });
+    }
+
+    @Override
+    public int insertUserRoles(Collection<Long> userIds, Long roleId) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+
+        Integer inserted = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_USER_ROLES)) {
+                Array ids = connection.createArrayOf("bigint", userIds.toArray());
+                statement.setLong(1, roleId);
+                statement.setObject(2, LocalDateTime.now());
+                statement.setArray(3, ids);
+                return statement.executeUpdate();
+            }
+        });
+        return inserted != null ? inserted : 0;
+    }
+
+    /**
+     * WHERE comun al listado, al conteo y a la estimacion, para que los tres usen el mismo plan.
+     * isActive se escribe como literal: con un parametro el planificador no puede elegir el
+     * indice parcial idx_users_active_id.
+     */
+    private static String filterWhere(UserFilterCriteria criteria, List<Object> args) {
+        List<String> predicates = new ArrayList<>();
+
+        if (criteria.isActive() != null) {
+            predicates.add(criteria.isActive() ? "u.is_active = true" : "u.is_active = false");
+        }
+        if (criteria.roleName() != null) {
+            predicates.add("EXISTS (SELECT 1 FROM user_roles ur JOIN roles r ON r.id = ur.role_id " +
+                    "WHERE ur.user_id = u.id AND r.name = ?)");
+            args.add(criteria.roleName());
+        }
+        if (criteria.createdFrom() != null) {
+            predicates.add("u.created_at >= ?");
+            args.add(criteria.createdFrom());
+        }
+        if (criteria.createdTo() != null) {
+            predicates.add("u.created_at < ?");
+            args.add(criteria.createdTo());
+        }
+        if (criteria.namePrefix() != null) {
+            predicates.add("(lower(u.first_name) LIKE ? OR lower(u.last_name) LIKE ?)");
+            String pattern = escapeLike(criteria.namePrefix().toLowerCase(Locale.ROOT)) + "%";
+            args.add(pattern);
+            args.add(pattern);
+        }
+
+        return predicates.isEmpty() ? "" : " WHERE " + String.join(" AND ", predicates);
+    }
+
+    static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,7 @@
+package com.ecommerce.user.repository;
+
+/**
+ * Id y version de un usuario, lo justo para calcular su ETag sin cargar la entidad.
+ */
+public record UserVersion(Long id, Long version) {
+}
@@ -0,0 +1,21 @@
+package com.ecommerce.user.service;
+
+import com.ecommerce.user.dto.response.AuditPageResponseDTO;
+import com.ecommerce.user.entity.AuditAction;
+
+import java.time.LocalDateTime;
+
+public interface AuditService {
+
+    /**
+     * Registra una accion. Si hay transaccion activa, el evento se encola tras el commit
+     * (una mutacion revertida no queda auditada).
+     */
+    void record(AuditAction action, Long entityId, String details);
+
+    /**
+     * Busca eventos con los filtros informados (todos opcionales), paginados.
+     */
+    AuditPageResponseDTO search(String entityType, Long entityId, String actor, AuditAction action,
+                                LocalDateTime from, LocalDateTime to, int page, int size);
+}
@@ -0,0 +1,57 @@
+package com.ecommerce.user.service;
+
+import com.ecommerce.user.dto.response.UserChangeFeedResponseDTO;
+import com.ecommerce.user.entity.UserChange;
+import com.ecommerce.user.entity.UserChangeType;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface UserChangeFeedService {
+
+    /**
+     * Registra un cambio dentro de la transaccion actual (debe existir una).
+     */
+    void record(Long userId, UserChangeType changeType);
+
+    void record(Long userId, UserChangeType changeType, Long roleId);
+
+    /**
+     * Registra el mismo cambio para varios usuarios con una sola insercion.
+     */
+    int recordAll(Collection<Long> userIds, UserChangeType changeType);
+
+    /**
+     * Registra ACTIVATED/DEACTIVATED para los usuarios cuyo estado difiere de auth_principal,
+     * tras una actualizacion masiva y antes de sincronizar la proyeccion.
+     */
+    int recordActiveFlagChanges();
+
+    /**
+     * Mayor seq hasta el que todas las entradas han hecho commit (-1 si aun no se conoce).
+     * Los consumidores solo leen hasta aqui: por encima puede faltar un seq aun en curso.
+     */
+    long committedSequence();
+
+    /**
+     * Entradas confirmadas con seq mayor que after, en orden de seq (consumidores internos).
+     */
+    List<UserChange> readCommitted(long after, int limit);
+
+    /**
+     * Cambios con seq mayor que after, como mucho limit entradas.
+     * Con compact solo se devuelve la ultima entrada de cada usuario del lote.
+     */
+    UserChangeFeedResponseDTO getChanges(long after, int limit, boolean compact);
+
+    /**
+     * Long-poll: responde en cuanto hay cambios posteriores a after o al cumplirse waitMillis.
+     */
+    DeferredResult<UserChangeFeedResponseDTO> pollChanges(long after, int limit, boolean compact, long waitMillis);
+
+    /**
+     * Borra las entradas antiguas sustituidas por otra posterior del mismo usuario.
+     */
+    int compact();
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.user.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface UserImportService {
+
+    /**
+     * Alta masiva desde NDJSON (un UserCreateRequestDTO por linea), leido y procesado por lotes
+     * sin cargar el cuerpo completo. Escribe en out una linea NDJSON con el resultado de cada
+     * linea recibida (UserImportRowResultDTO) y una ultima con el resumen (UserImportSummaryDTO).
+     */
+    void importUsers(InputStream in, OutputStream out) throws IOException;
+}
@@ -1,12 +1,20 @@
 package com.ecommerce.user.service;
 
+import com.ecommerce.user.dto.request.UserBatchRequestDTO;
+import com.ecommerce.user.dto.request.UserBulkStatusRequestDTO;
 import com.ecommerce.user.dto.request.UserCreateRequestDTO;
 import com.ecommerce.user.dto.request.UserUpdateRequestDTO;
+import com.ecommerce.user.dto.response.AuthPrincipalResponseDTO;
+import com.ecommerce.user.dto.response.UserBatchResponseDTO;
 import com.ecommerce.user.dto.response.UserDetailResponseDTO;
+import com.ecommerce.user.dto.response.UserPageResponseDTO;
 import com.ecommerce.user.dto.response.UserResponseDTO;
 import com.ecommerce.user.entity.User;
+import com.ecommerce.user.repository.UserVersion;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 
 public interface UserService {
@@ -16,22 +24,68 @@ public interface UserService {
 
     UserDetailResponseDTO getUserById(Long id);
 
+    /**
+     * Version actual del usuario, con una consulta que no carga la entidad ni sus roles.
+     */
+    Long getUserVersion(Long id);
+
 
     UserDetailResponseDTO getUserByEmail(String email);
 
+    /**
+     * Id y version del usuario con ese email, sin cargar la entidad ni sus roles.
+     */
+    UserVersion getUserVersionByEmail(String email);
+
+    /**
+     * Obtiene varios usuarios por id y/o email en consultas por lotes.
+     */
+    UserBatchResponseDTO getUsersBatch(UserBatchRequestDTO requestDTO);
+
+    /**
+     * Metodo interno para Auth Service: lee la proyeccion auth_principal por email.
+     */
+    AuthPrincipalResponseDTO getAuthPrincipalByEmail(String email);
+
+    /**
+     * Principales por email; los emails sin usuario no aparecen en el mapa.
+     */
+    Map<String, AuthPrincipalResponseDTO> getAuthPrincipalsByEmail(List<String> emails);
+
     List<UserResponseDTO> getAllUsers();
 
 
     List<UserResponseDTO> getActiveUsers();
 
+    /**
+     * Listado paginado con todos los filtros combinados (los null se ignoran).
+     * El total es exacto para resultados pequeños y estimado para los grandes (ver totalExact).
+     */
+    UserPageResponseDTO filterUsers(Boolean isActive, String roleName, LocalDateTime createdFrom,
+                                    LocalDateTime createdTo, String namePrefix, int page, int size);
+
+    /**
+     * Actualiza los campos enviados con un unico UPDATE.
+     * Si expectedVersion no es null, falla con 412 cuando la version ya cambio.
+     */
+    UserDetailResponseDTO updateUser(Long id, UserUpdateRequestDTO requestDTO, Long expectedVersion);
 
-    UserDetailResponseDTO updateUser(Long id, UserUpdateRequestDTO requestDTO);
+    /**
+     * Aplica un JSON Merge Patch con un unico UPDATE.
+     * Si expectedVersion no es null, falla con 412 cuando la version ya cambio.
+     */
+    UserDetailResponseDTO patchUser(Long id, Map<String, Object> patch, Long expectedVersion);
 
     /**
      * Elimina un usuario (soft delete: cambia isActive a false).
      */
     void deactivateUser(Long id);
 
+    /**
+     * Activa o desactiva usuarios en bloque. Devuelve el numero de usuarios modificados.
+     */
+    int updateUsersStatus(UserBulkStatusRequestDTO requestDTO);
+
 
     void deleteUser(Long id);
 
@@ -0,0 +1,146 @@
+package com.ecommerce.user.service.impl;
+
+import com.ecommerce.user.audit.AuditRecord;
+import com.ecommerce.user.audit.AuditWriter;
+import com.ecommerce.user.dto.response.AuditEventResponseDTO;
+import com.ecommerce.user.dto.response.AuditPageResponseDTO;
+import com.ecommerce.user.entity.AuditAction;
+import com.ecommerce.user.entity.AuditEvent;
+import com.ecommerce.user.repository.AuditEventRepository;
+import com.ecommerce.user.service.AuditService;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+
+@Slf4j
+@Service
+public class AuditServiceImpl implements AuditService {
+
+    private static final String SYSTEM_ACTOR = "system";
+    private static final String ANONYMOUS_ACTOR = "anonymous";
+
+    private final AuditWriter auditWriter;
+    private final AuditEventRepository auditEventRepository;
+    private final String actorHeader;
+    private final int maxPageSize;
+
+    public AuditServiceImpl(
+            AuditWriter auditWriter,
+            AuditEventRepository auditEventRepository,
+            @Value("${user-service.audit.actor-header:X-User-Email}") String actorHeader,
+            @Value("${user-service.audit.max-page-size:200}") int maxPageSize) {
+        this.auditWriter = auditWriter;
+        this.auditEventRepository = auditEventRepository;
+        this.actorHeader = actorHeader;
+        this.maxPageSize = maxPageSize;
+    }
+
+    @Override
+    public void record(AuditAction action, Long entityId, String details) {
+        // El actor y el instante se toman ahora, en el hilo de la peticion
+        AuditRecord record = new AuditRecord(LocalDateTime.now(), currentActor(), action, entityId, details);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            auditWriter.enqueue(record);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                auditWriter.enqueue(record);
+            }
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public AuditPageResponseDTO search(String entityType, Long entityId, String actor, AuditAction action,
+                                       LocalDateTime from, LocalDateTime to, int page, int size) {
+        log.info("Consultando auditoría: entidad {} {}, actor {}, acción {}, página {}",
+                entityType, entityId, actor, action, page);
+
+        PageRequest pageRequest = PageRequest.of(
+                Math.max(page, 0),
+                Math.max(1, Math.min(size, maxPageSize)),
+                Sort.by(Sort.Direction.DESC, "id"));
+
+        Page<AuditEvent> result = auditEventRepository.findAll(
+                filters(entityType, entityId, actor, action, from, to), pageRequest);
+
+        return AuditPageResponseDTO.builder()
+                .content(result.getContent().stream().map(this::toResponseDTO).collect(Collectors.toList()))
+                .page(result.getNumber())
+                .size(result.getSize())
+                .totalElements(result.getTotalElements())
+                .totalPages(result.getTotalPages())
+                .build();
+    }
+
+    private Specification<AuditEvent> filters(String entityType, Long entityId, String actor, AuditAction action,
+                                              LocalDateTime from, LocalDateTime to) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (entityType != null) {
+                predicates.add(cb.equal(root.get("entityType"), entityType));
+            }
+            if (entityId != null) {
+                predicates.add(cb.equal(root.get("entityId"), entityId));
+            }
+            if (actor != null) {
+                predicates.add(cb.equal(root.get("actor"), actor));
+            }
+            if (action != null) {
+                predicates.add(cb.equal(root.get("action"), action));
+            }
+            if (from != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("occurredAt"), from));
+            }
+            if (to != null) {
+                predicates.add(cb.lessThan(root.get("occurredAt"), to));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    private String currentActor() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return SYSTEM_ACTOR;
+        }
+
+        HttpServletRequest request = servletAttributes.getRequest();
+        String actor = request.getHeader(actorHeader);
+        return actor == null || actor.isBlank() ? ANONYMOUS_ACTOR : actor.trim();
+    }
+
+    private AuditEventResponseDTO toResponseDTO(AuditEvent event) {
+        return AuditEventResponseDTO.builder()
+                .id(event.getId())
+                .occurredAt(event.getOccurredAt())
+                .actor(event.getActor())
+                .action(event.getAction())
+                .entityType(event.getEntityType())
+                .entityId(event.getEntityId())
+                .details(event.getDetails())
+                .build();
+    }
+}
@@ -1,20 +1,24 @@
 package com.ecommerce.user.service.impl;
 
+import com.ecommerce.user.cache.RoleCatalog;
 import com.ecommerce.user.dto.request.RoleCreateRequestDTO;
 import com.ecommerce.user.dto.response.RoleResponseDTO;
+import com.ecommerce.user.entity.AuditAction;
 import com.ecommerce.user.entity.Role;
 import com.ecommerce.user.exception.DuplicateResourceException;
 import com.ecommerce.user.exception.InvalidOperationException;
 import com.ecommerce.user.exception.ResourceNotFoundException;
 import com.ecommerce.user.mapper.RoleMapper;
+import com.ecommerce.user.repository.AuthPrincipalRepository;
 import com.ecommerce.user.repository.RoleRepository;
+import com.ecommerce.user.service.AuditService;
 import com.ecommerce.user.service.RoleService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -23,10 +27,21 @@ public class RoleServiceImpl implements RoleService {
 
     private final RoleRepository roleRepository;
     private final RoleMapper roleMapper;
-
-    public RoleServiceImpl(RoleRepository roleRepository, RoleMapper roleMapper) {
+    private final RoleCatalog roleCatalog;
+    private final AuthPrincipalRepository authPrincipalRepository;
+    private final AuditService auditService;
+
+    public RoleServiceImpl(
+            RoleRepository roleRepository,
+            RoleMapper roleMapper,
+            RoleCatalog roleCatalog,
+            AuthPrincipalRepository authPrincipalRepository,
+            AuditService auditService) {
         this.roleRepository = roleRepository;
         this.roleMapper = roleMapper;
+        this.roleCatalog = roleCatalog;
+        this.authPrincipalRepository = authPrincipalRepository;
+        this.auditService = auditService;
     }
 
     @Override
@@ -41,42 +56,39 @@ public class RoleServiceImpl implements RoleService {
 
         Role role = roleMapper.toEntity(requestDTO);
         Role savedRole = roleRepository.save(role);
+        roleCatalog.refreshAfterCommit();
+        auditService.record(AuditAction.ROLE_CREATED, savedRole.getId(), "name=" + savedRole.getName());
 
         log.info("Rol creado exitosamente con ID: {}", savedRole.getId());
 
         return roleMapper.toResponseDTO(savedRole);
     }
 
+    // Las lecturas se sirven desde RoleCatalog, sin abrir transaccion ni conexion
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public RoleResponseDTO getRoleById(Long id) {
         log.info("Obteniendo rol por ID: {}", id);
 
-        Role role = roleRepository.findById(id)
+        return roleCatalog.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Role", "id", id));
-
-        return roleMapper.toResponseDTO(role);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public RoleResponseDTO getRoleByName(String name) {
         log.info("Obteniendo rol por nombre: {}", name);
 
-        Role role = roleRepository.findByName(name)
+        return roleCatalog.findByName(name)
                 .orElseThrow(() -> new ResourceNotFoundException("Role", "name", name));
-
-        return roleMapper.toResponseDTO(role);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<RoleResponseDTO> getAllRoles() {
         log.info("Obteniendo todos los roles");
 
-        return roleRepository.findAll().stream()
-                .map(roleMapper::toResponseDTO)
-                .collect(Collectors.toList());
+        return roleCatalog.getAllRoles();
     }
 
     @Override
@@ -92,10 +104,21 @@ public class RoleServiceImpl implements RoleService {
             throw new DuplicateResourceException("Role", "name", requestDTO.getName());
         }
 
+        String previousName = role.getName();
+
         role.setName(requestDTO.getName());
         role.setDescription(requestDTO.getDescription());
 
-        Role updatedRole = roleRepository.save(role);
+        // Flush inmediato para devolver la version ya incrementada
+        Role updatedRole = roleRepository.saveAndFlush(role);
+
+        // Mantener auth_principal en la misma transaccion
+        if (!previousName.equals(updatedRole.getName())) {
+            authPrincipalRepository.renameRole(previousName, updatedRole.getName());
+        }
+        roleCatalog.refreshAfterCommit();
+        auditService.record(AuditAction.ROLE_UPDATED, updatedRole.getId(),
+                "name=" + previousName + " -> " + updatedRole.getName());
 
         log.info("Rol actualizado exitosamente: {}", updatedRole.getId());
 
@@ -116,6 +139,8 @@ public class RoleServiceImpl implements RoleService {
         }
 
         roleRepository.delete(role);
+        roleCatalog.refreshAfterCommit();
+        auditService.record(AuditAction.ROLE_DELETED, id, "name=" + role.getName());
 
         log.info("Rol eliminado exitosamente: {}", id);
     }
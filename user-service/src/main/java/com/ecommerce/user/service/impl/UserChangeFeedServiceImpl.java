@@ -0,0 +1,366 @@
+package com.ecommerce.user.service.impl;
+
+import com.ecommerce.datasource.ReadYourWrites;
+import com.ecommerce.user.dto.response.UserChangeDTO;
+import com.ecommerce.user.dto.response.UserChangeFeedResponseDTO;
+import com.ecommerce.user.dto.response.UserResponseDTO;
+import com.ecommerce.user.entity.UserChange;
+import com.ecommerce.user.entity.UserChangeType;
+import com.ecommerce.user.repository.UserChangeRepository;
+import com.ecommerce.user.repository.UserRepository;
+import com.ecommerce.user.service.UserChangeFeedService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Change feed de usuarios.
+ *
+ * Cada mutacion inserta una fila en user_change_log dentro de su propia transaccion
+ * (si la transaccion falla, el cambio no se publica). Las inserciones no se serializan:
+ * seq sale de la secuencia en orden de insercion, no de commit, y una transaccion lenta
+ * puede hacer commit de un seq menor que otro ya visible.
+ *
+ * Por eso los lectores solo ven hasta committedSequence, un seq por debajo del cual ya no
+ * puede aparecer nada: cada escritor obtiene su xid antes de tomar un seq, asi que todo seq
+ * repartido antes de leer last_value pertenece a un xid menor que el xmax del snapshot
+ * tomado justo despues. Cuando el xmin de un snapshot posterior alcanza ese xmax, todas esas
+ * transacciones han terminado y last_value pasa a ser el nuevo committedSequence. Se
+ * recalcula cada horizon-ms y tras cada commit local. Esas lecturas y las del feed van al
+ * primario: una replica atrasada podria no tener aun filas por debajo del horizonte.
+ *
+ * Los long-polls en espera se despiertan cuando avanza committedSequence.
+ */
+@Slf4j
+@Service
+public class UserChangeFeedServiceImpl implements UserChangeFeedService {
+
+    /**
+     * Candidatos a horizonte pendientes como mucho (con una transaccion muy larga abierta).
+     */
+    private static final int MAX_HORIZON_CANDIDATES = 1000;
+
+    private final UserChangeRepository userChangeRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate readTransaction;
+    private final int maxLimit;
+    private final long maxWaitMillis;
+    private final int maxWaiters;
+    private final long retentionMillis;
+
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean dispatchPending = new AtomicBoolean();
+    private final AtomicBoolean advancePending = new AtomicBoolean();
+    private final ExecutorService dispatcher;
+
+    // Pares (last_value, xmax) a la espera de que el xmin los alcance
+    private final Deque<long[]> horizonCandidates = new ArrayDeque<>();
+    private volatile long committedSeq = -1;
+
+    public UserChangeFeedServiceImpl(
+            UserChangeRepository userChangeRepository,
+            UserRepository userRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${user-service.change-feed.max-limit:1000}") int maxLimit,
+            @Value("${user-service.change-feed.max-wait-ms:30000}") long maxWaitMillis,
+            @Value("${user-service.change-feed.max-waiters:1000}") int maxWaiters,
+            @Value("${user-service.change-feed.retention-ms:86400000}") long retentionMillis) {
+        this.userChangeRepository = userChangeRepository;
+        this.userRepository = userRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.maxLimit = maxLimit;
+        this.maxWaitMillis = maxWaitMillis;
+        this.maxWaiters = maxWaiters;
+        this.retentionMillis = retentionMillis;
+
+        this.dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Long userId, UserChangeType changeType) {
+        record(userId, changeType, null);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Long userId, UserChangeType changeType, Long roleId) {
+        userChangeRepository.assignTransactionId();
+        userChangeRepository.insert(userId, changeType.name(), roleId);
+        advanceAfterCommit();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int recordAll(Collection<Long> userIds, UserChangeType changeType) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        userChangeRepository.assignTransactionId();
+        int recorded = userChangeRepository.insertAll(userIds, changeType.name());
+        advanceAfterCommit();
+        return recorded;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int recordActiveFlagChanges() {
+        userChangeRepository.assignTransactionId();
+        int recorded = userChangeRepository.insertActiveFlagChanges();
+        if (recorded > 0) {
+            advanceAfterCommit();
+        }
+        return recorded;
+    }
+
+    @Override
+    public long committedSequence() {
+        if (committedSeq < 0) {
+            advanceCommittedSequence();
+        }
+        return committedSeq;
+    }
+
+    @Override
+    public List<UserChange> readCommitted(long after, int limit) {
+        long upTo = committedSequence();
+        if (upTo <= after) {
+            return List.of();
+        }
+        return readOnPrimary(status -> userChangeRepository.findBySeqGreaterThanAndSeqLessThanEqualOrderBySeqAsc(
+                after, upTo, PageRequest.of(0, limit)));
+    }
+
+    @Override
+    public UserChangeFeedResponseDTO getChanges(long after, int limit, boolean compact) {
+        return readOnPrimary(status -> loadChanges(after, limit, compact));
+    }
+
+    @Override
+    public DeferredResult<UserChangeFeedResponseDTO> pollChanges(long after, int limit, boolean compact, long waitMillis) {
+        long timeout = Math.min(Math.max(waitMillis, 0), maxWaitMillis);
+        DeferredResult<UserChangeFeedResponseDTO> result = new DeferredResult<>(timeout > 0 ? timeout : null);
+
+        UserChangeFeedResponseDTO immediate = readOnPrimary(status -> loadChanges(after, limit, compact));
+        if (!immediate.getChanges().isEmpty() || timeout == 0 || waiters.size() >= maxWaiters) {
+            result.setResult(immediate);
+            return result;
+        }
+
+        Waiter waiter = new Waiter(after, limit, compact, result);
+        result.onTimeout(() -> {
+            waiters.remove(waiter);
+            result.setResult(immediate);
+        });
+        result.onCompletion(() -> waiters.remove(waiter));
+        waiters.add(waiter);
+
+        // Un commit entre la consulta y el registro no se perderia: se vuelve a comprobar
+        requestDispatch();
+        return result;
+    }
+
+    @Override
+    @Transactional
+    @Scheduled(fixedDelayString = "${user-service.change-feed.compaction-ms:3600000}",
+            initialDelayString = "${user-service.change-feed.compaction-ms:3600000}")
+    public int compact() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(retentionMillis));
+        int deleted = userChangeRepository.deleteSuperseded(cutoff);
+        if (deleted > 0) {
+            log.info("Change feed compactado: {} entrada(s) sustituida(s) anteriores a {}", deleted, cutoff);
+        }
+        return deleted;
+    }
+
+    /**
+     * Recalcula committedSequence (cambios de otras instancias) y despierta los long-polls si avanza.
+     */
+    @Scheduled(fixedDelayString = "${user-service.change-feed.horizon-ms:200}")
+    public synchronized void advanceCommittedSequence() {
+        long[] snapshot;
+        try {
+            snapshot = readOnPrimary(status -> {
+                // last_value antes que el snapshot: todo seq leido pertenece a un xid < xmax
+                long lastAllocated = userChangeRepository.findLastAllocatedSeq();
+                long xmax = userChangeRepository.currentSnapshotXmax();
+                long xmin = userChangeRepository.currentSnapshotXmin();
+                return new long[]{lastAllocated, xmax, xmin};
+            });
+        } catch (RuntimeException e) {
+            log.error("Error calculando el horizonte del change feed: {}", e.getMessage());
+            return;
+        }
+
+        horizonCandidates.addLast(new long[]{snapshot[0], snapshot[1]});
+        if (horizonCandidates.size() > MAX_HORIZON_CANDIDATES) {
+            horizonCandidates.removeFirst();
+        }
+
+        long previous = committedSeq;
+        long horizon = previous;
+        while (!horizonCandidates.isEmpty() && horizonCandidates.peekFirst()[1] <= snapshot[2]) {
+            horizon = Math.max(horizon, horizonCandidates.removeFirst()[0]);
+        }
+
+        if (horizon > previous) {
+            committedSeq = horizon;
+            if (!waiters.isEmpty()) {
+                requestDispatch();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    private UserChangeFeedResponseDTO loadChanges(long after, int limit, boolean compact) {
+        int pageSize = Math.max(1, Math.min(limit, maxLimit));
+        long upTo = committedSequence();
+        List<UserChange> batch = upTo <= after
+                ? List.of()
+                : userChangeRepository.findBySeqGreaterThanAndSeqLessThanEqualOrderBySeqAsc(
+                        after, upTo, PageRequest.of(0, pageSize));
+
+        Collection<UserChange> entries = compact ? latestPerUser(batch) : batch;
+
+        List<Long> liveUserIds = entries.stream()
+                .filter(change -> change.getChangeType() != UserChangeType.DELETED)
+                .map(UserChange::getUserId)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, UserResponseDTO> users = liveUserIds.isEmpty()
+                ? Map.of()
+                : userRepository.findResponsesByIdIn(liveUserIds).stream()
+                        .collect(Collectors.toMap(UserResponseDTO::getId, Function.identity()));
+
+        List<UserChangeDTO> changes = new ArrayList<>(entries.size());
+        for (UserChange change : entries) {
+            changes.add(UserChangeDTO.builder()
+                    .seq(change.getSeq())
+                    .userId(change.getUserId())
+                    .changeType(change.getChangeType())
+                    .roleId(change.getRoleId())
+                    .changedAt(change.getChangedAt())
+                    .user(users.get(change.getUserId()))
+                    .build());
+        }
+
+        return UserChangeFeedResponseDTO.builder()
+                .changes(changes)
+                .nextSequence(batch.isEmpty() ? after : batch.get(batch.size() - 1).getSeq())
+                .hasMore(batch.size() == pageSize)
+                .build();
+    }
+
+    /**
+     * Ultima entrada de cada usuario, en orden de seq.
+     */
+    private static Collection<UserChange> latestPerUser(List<UserChange> batch) {
+        Map<Long, UserChange> latest = new LinkedHashMap<>();
+        for (UserChange change : batch) {
+            latest.remove(change.getUserId());
+            latest.put(change.getUserId(), change);
+        }
+        return latest.values();
+    }
+
+    private <T> T readOnPrimary(TransactionCallback<T> callback) {
+        return ReadYourWrites.onPrimary(() -> readTransaction.execute(callback));
+    }
+
+    private void advanceAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            requestAdvance();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                requestAdvance();
+            }
+        });
+    }
+
+    /**
+     * Tras un commit local: recalcula el horizonte sin esperar a horizon-ms (como mucho una
+     * ejecucion pendiente a la vez).
+     */
+    private void requestAdvance() {
+        if (advancePending.compareAndSet(false, true)) {
+            dispatcher.execute(() -> {
+                advancePending.set(false);
+                advanceCommittedSequence();
+            });
+        }
+    }
+
+    /**
+     * Agrupa las peticiones de despertar: como mucho una ejecucion pendiente a la vez.
+     */
+    private void requestDispatch() {
+        if (dispatchPending.compareAndSet(false, true)) {
+            dispatcher.execute(() -> {
+                dispatchPending.set(false);
+                dispatchWaiters();
+            });
+        }
+    }
+
+    private void dispatchWaiters() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+
+        try {
+            long upTo = committedSeq;
+            for (Waiter waiter : waiters) {
+                if (waiter.after() < upTo && waiters.remove(waiter)) {
+                    waiter.result().setResult(readOnPrimary(status ->
+                            loadChanges(waiter.after(), waiter.limit(), waiter.compact())));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Error despertando long-polls del change feed: {}", e.getMessage());
+        }
+    }
+
+    private record Waiter(long after, int limit, boolean compact, DeferredResult<UserChangeFeedResponseDTO> result) {
+    }
+}
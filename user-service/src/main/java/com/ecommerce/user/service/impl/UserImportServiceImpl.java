@@ -0,0 +1,324 @@
+package com.ecommerce.user.service.impl;
+
+import com.ecommerce.user.cache.EmailExistenceFilter;
+import com.ecommerce.user.dto.request.UserCreateRequestDTO;
+import com.ecommerce.user.dto.response.UserImportRowResultDTO;
+import com.ecommerce.user.dto.response.UserImportRowResultDTO.Status;
+import com.ecommerce.user.dto.response.UserImportSummaryDTO;
+import com.ecommerce.user.entity.AuditAction;
+import com.ecommerce.user.entity.Role;
+import com.ecommerce.user.entity.User;
+import com.ecommerce.user.entity.UserChangeType;
+import com.ecommerce.user.exception.ResourceNotFoundException;
+import com.ecommerce.user.mapper.UserMapper;
+import com.ecommerce.user.repository.AuthPrincipalRepository;
+import com.ecommerce.user.repository.RoleRepository;
+import com.ecommerce.user.repository.UserRepository;
+import com.ecommerce.user.service.AuditService;
+import com.ecommerce.user.service.UserChangeFeedService;
+import com.ecommerce.user.service.UserImportService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Alta masiva de usuarios.
+ *
+ * El cuerpo se lee linea a linea y se procesa en lotes de batch-size lineas. Cada lote es una
+ * transaccion con un numero fijo de sentencias, sea cual sea su tamaño:
+ * INSERT de usuarios con unnest, INSERT de user_roles, refresco de auth_principal y registro
+ * en el change feed.
+ *
+ * Los emails ya registrados los descarta el propio INSERT (ON CONFLICT sobre lower(email),
+ * ux_users_email_lower), sin consulta previa: asi tampoco hay carrera con un alta concurrente
+ * entre la comprobacion y el INSERT.
+ *
+ * Un lote que falla se informa como FAILED sin afectar a los ya confirmados. Los resultados de
+ * cada lote se escriben y se envian (flush) en cuanto termina, en el orden de las lineas.
+ */
+@Slf4j
+@Service
+public class UserImportServiceImpl implements UserImportService {
+
+    private static final String DEFAULT_ROLE = "ROLE_USER";
+    private static final byte[] NEW_LINE = {'\n'};
+
+    private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+    private final AuthPrincipalRepository authPrincipalRepository;
+    private final UserMapper userMapper;
+    private final EmailExistenceFilter emailExistenceFilter;
+    private final UserChangeFeedService userChangeFeedService;
+    private final AuditService auditService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader rowReader;
+    private final TransactionTemplate writeTransaction;
+    private final int batchSize;
+    private final long maxRows;
+
+    public UserImportServiceImpl(
+            UserRepository userRepository,
+            RoleRepository roleRepository,
+            AuthPrincipalRepository authPrincipalRepository,
+            UserMapper userMapper,
+            EmailExistenceFilter emailExistenceFilter,
+            UserChangeFeedService userChangeFeedService,
+            AuditService auditService,
+            Validator validator,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${user-service.import.batch-size:1000}") int batchSize,
+            @Value("${user-service.import.max-rows:1000000}") long maxRows) {
+        this.userRepository = userRepository;
+        this.roleRepository = roleRepository;
+        this.authPrincipalRepository = authPrincipalRepository;
+        this.userMapper = userMapper;
+        this.emailExistenceFilter = emailExistenceFilter;
+        this.userChangeFeedService = userChangeFeedService;
+        this.auditService = auditService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.rowReader = objectMapper.readerFor(UserCreateRequestDTO.class);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxRows = maxRows;
+    }
+
+    @Override
+    public void importUsers(InputStream in, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+
+        Long defaultRoleId = roleRepository.findByName(DEFAULT_ROLE)
+                .map(Role::getId)
+                .orElseThrow(() -> new ResourceNotFoundException("Role", "name", DEFAULT_ROLE));
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        Summary summary = new Summary();
+        List<Row> batch = new ArrayList<>(batchSize);
+        Set<String> batchEmails = new HashSet<>();
+
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (summary.total >= maxRows) {
+                // Cuenta como una fila mas, para que total cuadre con la suma de los resultados
+                summary.total++;
+                batch.add(Row.resolved(lineNumber, null, Status.FAILED,
+                        "Se alcanzó el máximo de " + maxRows + " filas por importación; el resto se ignora"));
+                break;
+            }
+            summary.total++;
+
+            Row row = parse(lineNumber, line);
+            // Repetidos dentro del lote; los de lotes anteriores ya estan en la base de datos
+            if (row.result == null && !batchEmails.add(row.emailKey)) {
+                row.resolve(Status.DUPLICATE, "Email repetido en la importación");
+            }
+            batch.add(row);
+
+            if (batch.size() >= batchSize) {
+                processBatch(batch, defaultRoleId, summary, out);
+                batch.clear();
+                batchEmails.clear();
+            }
+        }
+        processBatch(batch, defaultRoleId, summary, out);
+
+        summary.elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        out.write(objectMapper.writeValueAsBytes(summary.toDTO()));
+        out.write(NEW_LINE);
+        out.flush();
+
+        log.info("Importación masiva terminada: {} fila(s), {} creada(s), {} duplicada(s), {} inválida(s), " +
+                        "{} fallida(s) en {} ms",
+                summary.total, summary.created, summary.duplicates, summary.invalid, summary.failed,
+                summary.elapsedMs);
+    }
+
+    private Row parse(long lineNumber, String line) {
+        UserCreateRequestDTO dto;
+        try {
+            dto = rowReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            return Row.resolved(lineNumber, null, Status.INVALID, "JSON inválido: " + e.getOriginalMessage());
+        }
+
+        Set<ConstraintViolation<UserCreateRequestDTO>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            Map<String, String> errors = new TreeMap<>();
+            violations.forEach(v -> errors.putIfAbsent(v.getPropertyPath().toString(), v.getMessage()));
+            Row row = Row.resolved(lineNumber, dto, Status.INVALID, "Errores de validación en los campos enviados");
+            row.validationErrors = errors;
+            return row;
+        }
+
+        return new Row(lineNumber, dto);
+    }
+
+    private void processBatch(List<Row> batch, Long defaultRoleId, Summary summary, OutputStream out)
+            throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Row> candidates = batch.stream().filter(row -> row.result == null).toList();
+        if (!candidates.isEmpty()) {
+            try {
+                writeTransaction.executeWithoutResult(status -> insertBatch(candidates, defaultRoleId));
+            } catch (RuntimeException e) {
+                log.error("Error insertando un lote de {} usuario(s) (líneas {}-{}): {}",
+                        candidates.size(), candidates.get(0).line,
+                        candidates.get(candidates.size() - 1).line, e.getMessage());
+                candidates.forEach(row -> {
+                    row.id = null;
+                    row.resolve(Status.FAILED, "Error al guardar el lote; se puede reintentar");
+                });
+            }
+        }
+
+        for (Row row : batch) {
+            summary.count(row.result);
+            out.write(objectMapper.writeValueAsBytes(row.toDTO()));
+            out.write(NEW_LINE);
+        }
+        out.flush();
+    }
+
+    /**
+     * Un lote dentro de su transaccion. Los resultados se fijan aqui; si la transaccion
+     * falla, processBatch los sustituye por FAILED.
+     */
+    private void insertBatch(List<Row> candidates, Long defaultRoleId) {
+        List<User> users = new ArrayList<>(candidates.size());
+        for (Row row : candidates) {
+            users.add(userMapper.toEntity(row.dto));
+            // Igual que en createUser: antes del INSERT, como mucho deja un falso positivo
+            emailExistenceFilter.add(row.dto.getEmail());
+        }
+
+        Map<String, Long> ids = userRepository.insertAllIgnoringDuplicates(users);
+        for (Row row : candidates) {
+            Long id = ids.get(row.emailKey);
+            if (id == null) {
+                // Ya registrado, antes o por un alta concurrente
+                row.resolve(Status.DUPLICATE, "El email ya está registrado");
+            } else {
+                row.id = id;
+                row.resolve(Status.CREATED, null);
+            }
+        }
+
+        Collection<Long> createdIds = ids.values();
+        if (createdIds.isEmpty()) {
+            return;
+        }
+        userRepository.insertUserRoles(createdIds, defaultRoleId);
+        authPrincipalRepository.refreshForUsers(createdIds);
+        userChangeFeedService.recordAll(createdIds, UserChangeType.CREATED);
+        for (Row row : candidates) {
+            if (row.id != null) {
+                auditService.record(AuditAction.USER_CREATED, row.id, "email=" + row.dto.getEmail() + ", import");
+            }
+        }
+    }
+
+    /**
+     * Estado de una linea mientras pasa por el lote.
+     */
+    private static final class Row {
+
+        private final long line;
+        private final UserCreateRequestDTO dto;
+        private final String emailKey;
+        private Status result;
+        private String message;
+        private Long id;
+        private Map<String, String> validationErrors;
+
+        private Row(long line, UserCreateRequestDTO dto) {
+            this.line = line;
+            this.dto = dto;
+            this.emailKey = dto != null && dto.getEmail() != null ? dto.getEmail().toLowerCase(Locale.ROOT) : null;
+        }
+
+        private static Row resolved(long line, UserCreateRequestDTO dto, Status result, String message) {
+            Row row = new Row(line, dto);
+            row.resolve(result, message);
+            return row;
+        }
+
+        private void resolve(Status result, String message) {
+            this.result = result;
+            this.message = message;
+        }
+
+        private UserImportRowResultDTO toDTO() {
+            return UserImportRowResultDTO.builder()
+                    .line(line)
+                    .email(dto != null ? dto.getEmail() : null)
+                    .status(result)
+                    .id(id)
+                    .message(message)
+                    .validationErrors(validationErrors)
+                    .build();
+        }
+    }
+
+    private static final class Summary {
+
+        private long total;
+        private long created;
+        private long duplicates;
+        private long invalid;
+        private long failed;
+        private long elapsedMs;
+
+        private void count(Status status) {
+            switch (status) {
+                case CREATED -> created++;
+                case DUPLICATE -> duplicates++;
+                case INVALID -> invalid++;
+                case FAILED -> failed++;
+            }
+        }
+
+        private UserImportSummaryDTO toDTO() {
+            return UserImportSummaryDTO.builder()
+                    .total(total)
+                    .created(created)
+                    .duplicates(duplicates)
+                    .invalid(invalid)
+                    .failed(failed)
+                    .elapsedMs(elapsedMs)
+                    .build();
+        }
+    }
+}
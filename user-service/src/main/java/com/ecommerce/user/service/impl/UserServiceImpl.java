@@ -1,24 +1,51 @@
 package com.ecommerce.user.service.impl;
 
+import com.ecommerce.user.cache.EmailExistenceFilter;
+import com.ecommerce.user.cache.UserDetailCache;
+import com.ecommerce.user.dto.request.UserBatchRequestDTO;
+import com.ecommerce.user.dto.request.UserBulkStatusRequestDTO;
 import com.ecommerce.user.dto.request.UserCreateRequestDTO;
 import com.ecommerce.user.dto.request.UserUpdateRequestDTO;
+import com.ecommerce.user.dto.response.AuthPrincipalResponseDTO;
+import com.ecommerce.user.dto.response.UserBatchResponseDTO;
 import com.ecommerce.user.dto.response.UserDetailResponseDTO;
+import com.ecommerce.user.dto.response.UserPageResponseDTO;
 import com.ecommerce.user.dto.response.UserResponseDTO;
+import com.ecommerce.user.entity.AuditAction;
 import com.ecommerce.user.entity.Role;
 import com.ecommerce.user.entity.User;
+import com.ecommerce.user.entity.UserChangeType;
 import com.ecommerce.user.exception.DuplicateResourceException;
 import com.ecommerce.user.exception.InvalidOperationException;
+import com.ecommerce.user.exception.PreconditionFailedException;
 import com.ecommerce.user.exception.ResourceNotFoundException;
 import com.ecommerce.user.mapper.UserMapper;
+import com.ecommerce.user.mapper.UserMergePatchMapper;
+import com.ecommerce.user.repository.AuthPrincipalRepository;
 import com.ecommerce.user.repository.RoleRepository;
+import com.ecommerce.user.repository.UserFilterCriteria;
 import com.ecommerce.user.repository.UserRepository;
+import com.ecommerce.user.repository.UserVersion;
+import com.ecommerce.user.service.AuditService;
+import com.ecommerce.user.service.UserChangeFeedService;
 import com.ecommerce.user.service.UserService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 
 @Slf4j
@@ -26,17 +53,51 @@ import java.util.stream.Collectors;
 @Transactional
 public class UserServiceImpl implements UserService {
 
+    /**
+     * Maximo de ids + emails por consulta batch.
+     */
+    private static final int MAX_BATCH_SIZE = 500;
+
+    /**
+     * Tamaño de cada lista IN enviada a la base de datos.
+     */
+    private static final int BATCH_CHUNK_SIZE = 100;
+
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
+    private final AuthPrincipalRepository authPrincipalRepository;
     private final UserMapper userMapper;
+    private final UserMergePatchMapper mergePatchMapper;
+    private final EmailExistenceFilter emailExistenceFilter;
+    private final UserChangeFeedService userChangeFeedService;
+    private final AuditService auditService;
+    private final UserDetailCache userDetailCache;
+    private final long exactCountThreshold;
+    private final int maxFilterPageSize;
 
     public UserServiceImpl(
             UserRepository userRepository,
             RoleRepository roleRepository,
-            UserMapper userMapper) {
+            AuthPrincipalRepository authPrincipalRepository,
+            UserMapper userMapper,
+            UserMergePatchMapper mergePatchMapper,
+            EmailExistenceFilter emailExistenceFilter,
+            UserChangeFeedService userChangeFeedService,
+            AuditService auditService,
+            UserDetailCache userDetailCache,
+            @Value("${user-service.filter.exact-count-threshold:10000}") long exactCountThreshold,
+            @Value("${user-service.filter.max-page-size:100}") int maxFilterPageSize) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
+        this.authPrincipalRepository = authPrincipalRepository;
         this.userMapper = userMapper;
+        this.mergePatchMapper = mergePatchMapper;
+        this.emailExistenceFilter = emailExistenceFilter;
+        this.userChangeFeedService = userChangeFeedService;
+        this.auditService = auditService;
+        this.userDetailCache = userDetailCache;
+        this.exactCountThreshold = exactCountThreshold;
+        this.maxFilterPageSize = maxFilterPageSize;
     }
 
     @Override
@@ -44,9 +105,14 @@ public class UserServiceImpl implements UserService {
         log.info("Creando nuevo usuario con email: {}", requestDTO.getEmail());
 
 
-        if (userRepository.existsByEmail(requestDTO.getEmail())) {
-            log.error("El email ya existe: {}", requestDTO.getEmail());
-            throw new DuplicateResourceException("User", "email", requestDTO.getEmail());
+        // Solo se consulta la base de datos si el filtro no descarta el email
+        if (emailExistenceFilter.mightContain(requestDTO.getEmail())) {
+            boolean exists = userRepository.existsByEmail(requestDTO.getEmail());
+            emailExistenceFilter.recordPositiveOutcome(exists);
+            if (exists) {
+                log.error("El email ya existe: {}", requestDTO.getEmail());
+                throw new DuplicateResourceException("User", "email", requestDTO.getEmail());
+            }
         }
 
         User user = userMapper.toEntity(requestDTO);
@@ -56,8 +122,19 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("Role", "name", "ROLE_USER"));
         user.addRole(defaultRole);
 
+        // Se añade antes del INSERT: si la transaccion falla solo queda un falso positivo
+        emailExistenceFilter.add(requestDTO.getEmail());
 
-        User savedUser = userRepository.save(user);
+        User savedUser;
+        try {
+            savedUser = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // Registro concurrente con el mismo email: lo detecta la restriccion unica
+            throw new DuplicateResourceException("User", "email", requestDTO.getEmail());
+        }
+        authPrincipalRepository.refreshForUser(savedUser.getId());
+        userChangeFeedService.record(savedUser.getId(), UserChangeType.CREATED);
+        auditService.record(AuditAction.USER_CREATED, savedUser.getId(), "email=" + savedUser.getEmail());
 
         log.info("Usuario creado exitosamente con ID: {}", savedUser.getId());
 
@@ -76,6 +153,13 @@ public class UserServiceImpl implements UserService {
         return userMapper.toDetailResponseDTO(user);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Long getUserVersion(Long id) {
+        return userRepository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public UserDetailResponseDTO getUserByEmail(String email) {
@@ -87,14 +171,118 @@ public class UserServiceImpl implements UserService {
         return userMapper.toDetailResponseDTO(user);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public UserVersion getUserVersionByEmail(String email) {
+        return userRepository.findVersionByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "email", email));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UserBatchResponseDTO getUsersBatch(UserBatchRequestDTO requestDTO) {
+        Set<Long> ids = requestDTO.getIds() != null
+                ? new LinkedHashSet<>(requestDTO.getIds()) : new LinkedHashSet<>();
+        Set<String> emails = requestDTO.getEmails() != null
+                ? new LinkedHashSet<>(requestDTO.getEmails()) : new LinkedHashSet<>();
+
+        if (ids.size() + emails.size() > MAX_BATCH_SIZE) {
+            throw new InvalidOperationException(
+                    "No se pueden consultar más de " + MAX_BATCH_SIZE + " usuarios por solicitud");
+        }
+
+        log.info("Obteniendo usuarios en lote: {} id(s), {} email(s)", ids.size(), emails.size());
+
+        Map<Long, UserDetailResponseDTO> usersById = new HashMap<>();
+        for (User user : findInChunks(ids, userRepository::findAllWithRolesByIdIn)) {
+            usersById.put(user.getId(), userMapper.toDetailResponseDTOFromCatalog(user));
+        }
+
+        // Los emails no distinguen mayusculas: se responde con la clave tal como se pidio
+        Map<String, UserDetailResponseDTO> usersByLowerEmail = new HashMap<>();
+        for (User user : findInChunks(lowerCase(emails), userRepository::findAllWithRolesByEmailIn)) {
+            usersByLowerEmail.put(lowerCase(user.getEmail()), userMapper.toDetailResponseDTOFromCatalog(user));
+        }
+        Map<String, UserDetailResponseDTO> usersByEmail = new HashMap<>();
+        for (String email : emails) {
+            UserDetailResponseDTO user = usersByLowerEmail.get(lowerCase(email));
+            if (user != null) {
+                usersByEmail.put(email, user);
+            }
+        }
+
+        ids.removeAll(usersById.keySet());
+        emails.removeAll(usersByEmail.keySet());
+
+        return UserBatchResponseDTO.builder()
+                .usersById(usersById)
+                .usersByEmail(usersByEmail)
+                .missingIds(ids)
+                .missingEmails(emails)
+                .build();
+    }
+
+    /**
+     * Ejecuta la consulta en trozos de BATCH_CHUNK_SIZE claves para acotar el tamaño de cada IN.
+     */
+    private <K> List<User> findInChunks(Collection<K> keys, Function<List<K>, List<User>> query) {
+        List<K> keyList = new ArrayList<>(keys);
+        List<User> users = new ArrayList<>(keyList.size());
+        for (int from = 0; from < keyList.size(); from += BATCH_CHUNK_SIZE) {
+            int to = Math.min(from + BATCH_CHUNK_SIZE, keyList.size());
+            users.addAll(query.apply(keyList.subList(from, to)));
+        }
+        return users;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public AuthPrincipalResponseDTO getAuthPrincipalByEmail(String email) {
+        log.debug("Obteniendo principal de autenticación por email: {}", email);
+
+        return authPrincipalRepository.findByEmail(email)
+                .map(userMapper::toAuthPrincipalDTO)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "email", email));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, AuthPrincipalResponseDTO> getAuthPrincipalsByEmail(List<String> emails) {
+        log.debug("Obteniendo {} principal(es) de autenticación por email", emails.size());
+
+        Map<String, AuthPrincipalResponseDTO> principals = new HashMap<>();
+        if (emails.isEmpty()) {
+            return principals;
+        }
+
+        Map<String, AuthPrincipalResponseDTO> byLowerEmail = new HashMap<>();
+        authPrincipalRepository.findByEmailIn(lowerCase(emails))
+                .forEach(principal -> byLowerEmail.put(lowerCase(principal.getEmail()), userMapper.toAuthPrincipalDTO(principal)));
+        for (String email : emails) {
+            AuthPrincipalResponseDTO principal = byLowerEmail.get(lowerCase(email));
+            if (principal != null) {
+                principals.put(email, principal);
+            }
+        }
+        return principals;
+    }
+
+    private static Set<String> lowerCase(Collection<String> emails) {
+        Set<String> lower = new LinkedHashSet<>();
+        emails.forEach(email -> lower.add(lowerCase(email)));
+        return lower;
+    }
+
+    private static String lowerCase(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<UserResponseDTO> getAllUsers() {
         log.info("Obteniendo todos los usuarios");
 
-        return userRepository.findAll().stream()
-                .map(userMapper::toResponseDTO)
-                .collect(Collectors.toList());
+        return userRepository.findAllResponses();
     }
 
     @Override
@@ -102,33 +290,118 @@ public class UserServiceImpl implements UserService {
     public List<UserResponseDTO> getActiveUsers() {
         log.info("Obteniendo usuarios activos");
 
-        return userRepository.findByIsActive(true).stream()
-                .map(userMapper::toResponseDTO)
-                .collect(Collectors.toList());
+        return userRepository.findActiveResponses();
     }
 
+    /**
+     * El total es exacto hasta exact-count-threshold usuarios; por encima se usa la
+     * estimacion del planificador para no recorrer millones de filas en cada pagina.
+     */
     @Override
-    public UserDetailResponseDTO updateUser(Long id, UserUpdateRequestDTO requestDTO) {
-        log.info("Actualizando usuario con ID: {}", id);
+    @Transactional(readOnly = true)
+    public UserPageResponseDTO filterUsers(Boolean isActive, String roleName, LocalDateTime createdFrom,
+                                           LocalDateTime createdTo, String namePrefix, int page, int size) {
+        if (createdFrom != null && createdTo != null && !createdFrom.isBefore(createdTo)) {
+            throw new InvalidOperationException("createdFrom debe ser anterior a createdTo");
+        }
 
+        UserFilterCriteria criteria = new UserFilterCriteria(
+                isActive,
+                roleName,
+                createdFrom,
+                createdTo,
+                namePrefix == null || namePrefix.isBlank() ? null : namePrefix.trim());
+
+        int pageNumber = Math.max(page, 0);
+        int pageSize = Math.max(1, Math.min(size, maxFilterPageSize));
+        long offset = (long) pageNumber * pageSize;
+
+        log.info("Listando usuarios filtrados: {}, página {}", criteria, pageNumber);
+
+        List<UserResponseDTO> content = userRepository.findFiltered(criteria, offset, pageSize);
+
+        long total;
+        boolean exact;
+        if (content.size() < pageSize && (!content.isEmpty() || offset == 0)) {
+            // Ultima pagina: el total sale de la propia pagina sin consulta de conteo
+            total = offset + content.size();
+            exact = true;
+        } else {
+            long bounded = userRepository.countFilteredUpTo(criteria, exactCountThreshold + 1);
+            if (bounded <= exactCountThreshold) {
+                total = bounded;
+                exact = true;
+            } else {
+                // La estimacion puede quedarse corta: nunca por debajo de lo ya contado
+                total = Math.max(userRepository.estimateFiltered(criteria), bounded);
+                exact = false;
+            }
+        }
 
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
+        return UserPageResponseDTO.builder()
+                .content(content)
+                .page(pageNumber)
+                .size(pageSize)
+                .totalElements(total)
+                .totalPages((int) Math.min(Integer.MAX_VALUE, (total + pageSize - 1) / pageSize))
+                .totalExact(exact)
+                .build();
+    }
+
+    @Override
+    public UserDetailResponseDTO updateUser(Long id, UserUpdateRequestDTO requestDTO, Long expectedVersion) {
+        log.info("Actualizando usuario con ID: {} (versión esperada: {})", id, expectedVersion);
 
-        // Si se está cambiando el email, validar que no exista
-        if (requestDTO.getEmail() != null &&
-                !requestDTO.getEmail().equals(user.getEmail())) {
+        return applyFieldUpdates(id, expectedVersion, userMapper.toFieldUpdates(requestDTO));
+    }
 
-            if (userRepository.existsByEmail(requestDTO.getEmail())) {
-                throw new DuplicateResourceException("User", "email", requestDTO.getEmail());
+    @Override
+    public UserDetailResponseDTO patchUser(Long id, Map<String, Object> patch, Long expectedVersion) {
+        log.info("Aplicando merge patch al usuario con ID: {} (versión esperada: {})", id, expectedVersion);
+
+        return applyFieldUpdates(id, expectedVersion, mergePatchMapper.toFieldUpdates(patch));
+    }
+
+    /**
+     * Ejecuta un UPDATE dirigido con solo los campos modificados.
+     * El email duplicado lo detecta la restriccion unica, sin consulta previa.
+     */
+    private UserDetailResponseDTO applyFieldUpdates(Long id, Long expectedVersion, Map<String, Object> fields) {
+        if (!fields.isEmpty()) {
+            String newEmail = (String) fields.get("email");
+            if (newEmail != null) {
+                emailExistenceFilter.add(newEmail);
             }
-        }
 
+            int updated;
+            try {
+                updated = userRepository.updateFields(id, expectedVersion, fields);
+            } catch (DataIntegrityViolationException e) {
+                if (fields.containsKey("email")) {
+                    throw new DuplicateResourceException("User", "email", fields.get("email"));
+                }
+                throw e;
+            }
 
-        userMapper.updateEntityFromDTO(user, requestDTO);
+            if (updated == 0) {
+                if (!userRepository.existsById(id)) {
+                    throw new ResourceNotFoundException("User", "id", id);
+                }
+                throw new PreconditionFailedException("User", id, expectedVersion);
+            }
 
+            if (newEmail != null) {
+                // El email anterior (si cambio) queda obsoleto en el filtro
+                emailExistenceFilter.markStale();
+            }
+            authPrincipalRepository.refreshForUser(id);
+            userChangeFeedService.record(id, UserChangeType.UPDATED);
+            userDetailCache.invalidateAfterCommit(id);
+            auditService.record(AuditAction.USER_UPDATED, id, "fields=" + fields.keySet());
+        }
 
-        User updatedUser = userRepository.save(user);
+        User updatedUser = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
 
         log.info("Usuario actualizado exitosamente: {}", updatedUser.getId());
 
@@ -139,15 +412,54 @@ public class UserServiceImpl implements UserService {
     public void deactivateUser(Long id) {
         log.info("Desactivando usuario con ID: {}", id);
 
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
-
-        user.setIsActive(false);
-        userRepository.save(user);
+        if (userRepository.deactivateById(id, LocalDateTime.now()) == 0) {
+            throw new ResourceNotFoundException("User", "id", id);
+        }
+        authPrincipalRepository.refreshForUser(id);
+        userChangeFeedService.record(id, UserChangeType.DEACTIVATED);
+        userDetailCache.invalidateAfterCommit(id);
+        auditService.record(AuditAction.USER_DEACTIVATED, id, null);
 
         log.info("Usuario desactivado exitosamente: {}", id);
     }
 
+    @Override
+    public int updateUsersStatus(UserBulkStatusRequestDTO requestDTO) {
+        boolean hasIds = requestDTO.getUserIds() != null && !requestDTO.getUserIds().isEmpty();
+        if (!hasIds && requestDTO.getRoleName() == null
+                && requestDTO.getCreatedFrom() == null && requestDTO.getCreatedTo() == null) {
+            throw new InvalidOperationException(
+                    "Debe indicar userIds o al menos un criterio (roleName, createdFrom, createdTo)");
+        }
+
+        log.info("Actualización masiva de estado a isActive={} (ids: {}, rol: {}, desde: {}, hasta: {})",
+                requestDTO.getIsActive(),
+                hasIds ? requestDTO.getUserIds().size() : 0,
+                requestDTO.getRoleName(),
+                requestDTO.getCreatedFrom(),
+                requestDTO.getCreatedTo());
+
+        int updated = userRepository.updateActiveStatus(
+                requestDTO.getIsActive(),
+                hasIds ? requestDTO.getUserIds() : null,
+                requestDTO.getRoleName(),
+                requestDTO.getCreatedFrom(),
+                requestDTO.getCreatedTo());
+
+        if (updated > 0) {
+            // Los cambios se calculan comparando con auth_principal, antes de sincronizarla
+            userChangeFeedService.recordActiveFlagChanges();
+            userDetailCache.invalidateAllAfterCommit();
+            authPrincipalRepository.syncActiveFlags();
+            auditService.record(AuditAction.USER_STATUS_BULK_UPDATED, null,
+                    "isActive=" + requestDTO.getIsActive() + ", updated=" + updated);
+        }
+
+        log.info("Usuarios actualizados en bloque: {}", updated);
+
+        return updated;
+    }
+
     @Override
     public void deleteUser(Long id) {
         log.info("Eliminando usuario con ID: {}", id);
@@ -156,6 +468,11 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
 
         userRepository.delete(user);
+        authPrincipalRepository.deleteByUserId(id);
+        emailExistenceFilter.markStale();
+        userChangeFeedService.record(id, UserChangeType.DELETED);
+        userDetailCache.invalidateAfterCommit(id);
+        auditService.record(AuditAction.USER_DELETED, id, "email=" + user.getEmail());
 
         log.info("Usuario eliminado exitosamente: {}", id);
     }
@@ -164,6 +481,11 @@ public class UserServiceImpl implements UserService {
     public UserDetailResponseDTO assignRoleToUser(Long userId, Long roleId) {
         log.info("Asignando rol {} al usuario {}", roleId, userId);
 
+        // Bloquear la fila del usuario antes de leer sus roles: dos asignaciones o
+        // retiradas concurrentes se ejecutan una detras de otra y el ultimo refreshForUser
+        // ve el estado final de user_roles.
+        userRepository.lockById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
 
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
@@ -184,6 +506,10 @@ public class UserServiceImpl implements UserService {
         user.addRole(role);
 
         User updatedUser = userRepository.save(user);
+        authPrincipalRepository.refreshForUser(userId);
+        userChangeFeedService.record(userId, UserChangeType.ROLE_ASSIGNED, roleId);
+        userDetailCache.invalidateAfterCommit(userId);
+        auditService.record(AuditAction.USER_ROLE_ASSIGNED, userId, "role=" + role.getName());
 
         log.info("Rol asignado exitosamente");
 
@@ -194,6 +520,11 @@ public class UserServiceImpl implements UserService {
     public UserDetailResponseDTO removeRoleFromUser(Long userId, Long roleId) {
         log.info("Removiendo rol {} del usuario {}", roleId, userId);
 
+        // Bloquear la fila del usuario antes de leer sus roles: dos asignaciones o
+        // retiradas concurrentes se ejecutan una detras de otra y el ultimo refreshForUser
+        // ve el estado final de user_roles.
+        userRepository.lockById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
 
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
@@ -221,6 +552,10 @@ public class UserServiceImpl implements UserService {
 
 
         User updatedUser = userRepository.save(user);
+        authPrincipalRepository.refreshForUser(userId);
+        userChangeFeedService.record(userId, UserChangeType.ROLE_REMOVED, roleId);
+        userDetailCache.invalidateAfterCommit(userId);
+        auditService.record(AuditAction.USER_ROLE_REMOVED, userId, "role=" + role.getName());
 
         log.info("Rol removido exitosamente");
 
@@ -232,12 +567,7 @@ public class UserServiceImpl implements UserService {
     public List<UserResponseDTO> searchUsers(String searchTerm) {
         log.info("Buscando usuarios con término: {}", searchTerm);
 
-        return userRepository
-                .findByFirstNameContainingIgnoreCaseOrLastNameContainingIgnoreCase(
-                        searchTerm, searchTerm)
-                .stream()
-                .map(userMapper::toResponseDTO)
-                .collect(Collectors.toList());
+        return userRepository.searchResponsesByName(searchTerm);
     }
 
     @Override
@@ -245,15 +575,22 @@ public class UserServiceImpl implements UserService {
     public List<UserResponseDTO> getUsersByRole(String roleName) {
         log.info("Obteniendo usuarios con rol: {}", roleName);
 
-        return userRepository.findByRoleName(roleName).stream()
-                .map(userMapper::toResponseDTO)
-                .collect(Collectors.toList());
+        return userRepository.findResponsesByRoleName(roleName);
     }
 
+    /**
+     * Los negativos del filtro se responden sin abrir transaccion ni conexion.
+     */
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public boolean existsByEmail(String email) {
-        return userRepository.existsByEmail(email);
+        if (!emailExistenceFilter.mightContain(email)) {
+            return false;
+        }
+
+        boolean exists = userRepository.existsByEmail(email);
+        emailExistenceFilter.recordPositiveOutcome(exists);
+        return exists;
     }
 
     @Override
@@ -0,0 +1,40 @@
+-- Esquema base del User Service (equivalente a lo que generaba ddl-auto: update).
+-- IF NOT EXISTS permite aplicarlo sobre bases de datos creadas antes de usar Flyway.
+
+CREATE TABLE IF NOT EXISTS roles (
+    id          BIGSERIAL    PRIMARY KEY,
+    name        VARCHAR(50)  NOT NULL UNIQUE,
+    description VARCHAR(255),
+    created_at  TIMESTAMP(6) NOT NULL,
+    updated_at  TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS users (
+    id         BIGSERIAL    PRIMARY KEY,
+    email      VARCHAR(100) NOT NULL UNIQUE,
+    first_name VARCHAR(50)  NOT NULL,
+    last_name  VARCHAR(50)  NOT NULL,
+    phone      VARCHAR(20),
+    is_active  BOOLEAN      NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6),
+    version    BIGINT       DEFAULT 0 NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS user_roles (
+    id          BIGSERIAL    PRIMARY KEY,
+    user_id     BIGINT       NOT NULL REFERENCES users (id),
+    role_id     BIGINT       NOT NULL REFERENCES roles (id),
+    assigned_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uk_user_roles_user_role UNIQUE (user_id, role_id)
+);
+
+CREATE TABLE IF NOT EXISTS auth_principal (
+    user_id    BIGINT       PRIMARY KEY,
+    email      VARCHAR(100) NOT NULL UNIQUE,
+    first_name VARCHAR(50)  NOT NULL,
+    last_name  VARCHAR(50)  NOT NULL,
+    is_active  BOOLEAN      NOT NULL,
+    role_names TEXT[]       NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL
+);
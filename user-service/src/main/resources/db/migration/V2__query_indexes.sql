@@ -0,0 +1,30 @@
+-- Indices para las consultas de UserRepository y AuthPrincipalRepository.
+-- UserQueryIndexUsageTest comprueba con EXPLAIN que cada consulta los usa.
+
+-- Busqueda por nombre con LIKE '%termino%' (UserRepository.searchResponsesByName)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Listado de usuarios activos ordenado por id (UserRepository.findActiveResponses).
+-- Parcial: solo indexa los activos, que son los que se listan.
+CREATE INDEX IF NOT EXISTS idx_users_active_id
+    ON users (id)
+    WHERE is_active = true;
+
+-- Comprobacion de email sin distinguir mayusculas (UserRepository.existsByEmail)
+CREATE INDEX IF NOT EXISTS idx_users_email_lower
+    ON users (lower(email));
+
+CREATE INDEX IF NOT EXISTS idx_users_first_name_trgm
+    ON users USING gin (lower(first_name) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_users_last_name_trgm
+    ON users USING gin (lower(last_name) gin_trgm_ops);
+
+-- Usuarios de un rol (findResponsesByRoleName, countUsersByRoleName).
+-- El unico (user_id, role_id) ya cubre las busquedas por usuario.
+CREATE INDEX IF NOT EXISTS idx_user_roles_role_user
+    ON user_roles (role_id, user_id);
+
+-- Renombrado de roles en la proyeccion (AuthPrincipalRepository.renameRole)
+CREATE INDEX IF NOT EXISTS idx_auth_principal_role_names
+    ON auth_principal USING gin (role_names);
@@ -0,0 +1,15 @@
+-- Registro de cambios de usuarios para el change feed (/users/internal/changes).
+-- Las inserciones se serializan con un advisory lock de transaccion, asi el orden de seq
+-- coincide con el orden de commit y un consumidor nunca se salta un cambio.
+
+CREATE TABLE IF NOT EXISTS user_change_log (
+    seq         BIGSERIAL    PRIMARY KEY,
+    user_id     BIGINT       NOT NULL,
+    change_type VARCHAR(30)  NOT NULL,
+    role_id     BIGINT,
+    changed_at  TIMESTAMP(6) NOT NULL
+);
+
+-- Compactacion: buscar entradas posteriores del mismo usuario
+CREATE INDEX IF NOT EXISTS idx_user_change_log_user_seq
+    ON user_change_log (user_id, seq);
@@ -0,0 +1,20 @@
+-- Historial de auditoria de usuarios y roles. Lo escribe AuditWriter en lotes
+-- (INSERT multi-fila) fuera de la transaccion de la mutacion.
+
+CREATE TABLE IF NOT EXISTS audit_event (
+    id          BIGSERIAL    PRIMARY KEY,
+    occurred_at TIMESTAMP(6) NOT NULL,
+    actor       VARCHAR(100) NOT NULL,
+    action      VARCHAR(40)  NOT NULL,
+    entity_type VARCHAR(20)  NOT NULL,
+    entity_id   BIGINT,
+    details     VARCHAR(500)
+);
+
+-- Historial de una entidad, mas reciente primero
+CREATE INDEX IF NOT EXISTS idx_audit_event_entity
+    ON audit_event (entity_type, entity_id, id DESC);
+
+-- Acciones de un usuario concreto
+CREATE INDEX IF NOT EXISTS idx_audit_event_actor
+    ON audit_event (actor, id DESC);
@@ -0,0 +1,13 @@
+-- Indices del listado filtrado (UserRepositoryCustomImpl.findFiltered).
+
+-- Rango de fechas de alta; id como segunda columna sigue el ORDER BY u.id del listado
+CREATE INDEX IF NOT EXISTS idx_users_created_at_id
+    ON users (created_at, id);
+
+-- Prefijo de nombre (LIKE 'ana%'). Los indices trigram no sirven para prefijos de menos de
+-- tres caracteres; text_pattern_ops permite el rango de prefijo con cualquier collation.
+CREATE INDEX IF NOT EXISTS idx_users_first_name_prefix
+    ON users (lower(first_name) text_pattern_ops);
+
+CREATE INDEX IF NOT EXISTS idx_users_last_name_prefix
+    ON users (lower(last_name) text_pattern_ops);
@@ -0,0 +1,3 @@
+-- Version de los roles para los ETag de /roles/{id} (ResourceETags.role)
+ALTER TABLE roles
+    ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,12 @@
+-- Los emails no distinguen mayusculas: la unicidad y las busquedas usan lower(email).
+-- Falla si ya hay emails que solo difieren en mayusculas; hay que fusionarlos antes.
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_users_email_lower
+    ON users (lower(email));
+
+-- Sustituido por el indice unico anterior
+DROP INDEX IF EXISTS idx_users_email_lower;
+
+-- Login (AuthPrincipalRepository.findByEmail / findByEmailIn)
+CREATE UNIQUE INDEX IF NOT EXISTS ux_auth_principal_email_lower
+    ON auth_principal (lower(email));
@@ -0,0 +1,71 @@
+package com.ecommerce.user.audit;
+
+import com.ecommerce.user.entity.AuditAction;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Orden, vuelta del anillo y cola llena, en un solo hilo.
+ */
+class AuditRingBufferTest {
+
+    @Test
+    void roundsCapacityUpToAPowerOfTwo() {
+        assertEquals(8, new AuditRingBuffer(5).capacity());
+        assertEquals(8, new AuditRingBuffer(8).capacity());
+        assertEquals(2, new AuditRingBuffer(1).capacity());
+    }
+
+    @Test
+    void offerFailsWhenFullAndSucceedsOnceDrained() {
+        AuditRingBuffer buffer = new AuditRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, buffer.offer(record(i)));
+        }
+
+        assertEquals(-1, buffer.offer(record(4)));
+        assertEquals(4, buffer.size());
+
+        List<AuditRecord> drained = new ArrayList<>();
+        assertEquals(1, buffer.drainTo(drained, 1));
+        // La celda liberada se reutiliza con la siguiente posicion
+        assertEquals(4, buffer.offer(record(4)));
+    }
+
+    @Test
+    void keepsOrderAcrossWrapAround() {
+        AuditRingBuffer buffer = new AuditRingBuffer(4);
+        List<AuditRecord> offered = new ArrayList<>();
+        List<AuditRecord> drained = new ArrayList<>();
+
+        // 10 vueltas al anillo, drenando de 3 en 3 para que head y tail no coincidan con el borde
+        for (int i = 0; i < 40; i++) {
+            AuditRecord record = record(i);
+            if (buffer.offer(record) < 0) {
+                buffer.drainTo(drained, 3);
+                assertEquals(i, buffer.offer(record));
+            }
+            offered.add(record);
+        }
+        while (buffer.drainTo(drained, 3) > 0) {
+            // vaciar el resto
+        }
+
+        assertEquals(offered.size(), drained.size());
+        for (int i = 0; i < offered.size(); i++) {
+            assertSame(offered.get(i), drained.get(i));
+        }
+        assertEquals(40, buffer.consumedUpTo());
+        assertEquals(0, buffer.size());
+    }
+
+    private static AuditRecord record(long id) {
+        return new AuditRecord(LocalDateTime.now(), "test", AuditAction.USER_UPDATED, id, null);
+    }
+}
@@ -0,0 +1,150 @@
+package com.ecommerce.user.audit;
+
+import com.ecommerce.user.entity.AuditAction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Esperas commit y backpressure del escritor, con el INSERT simulado.
+ */
+class AuditWriterTest {
+
+    private static final long COMMIT_TIMEOUT_MS = 5_000;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Retienen al hilo escritor dentro del INSERT para poder llenar la cola
+    private final CountDownLatch writing = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private AuditWriter writer;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (writer != null) {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    void commitWaiterIsReleasedOnceTheBatchIsWritten() {
+        writer = writer("commit", "block", 8, 10);
+
+        long start = System.nanoTime();
+        writer.enqueue(record(1));
+
+        assertTrue(elapsedMillis(start) < COMMIT_TIMEOUT_MS);
+        assertEquals(1, events("written"));
+        assertEquals(0, meterRegistry.get("audit.commit.timeouts").counter().count());
+    }
+
+    @Test
+    void commitWaiterIsReportedWhenTheBatchFails() {
+        doThrow(new DataAccessResourceFailureException("sin conexion"))
+                .when(jdbcTemplate).update(anyString(), any(Object[].class));
+        writer = writer("commit", "block", 8, 10);
+
+        long start = System.nanoTime();
+        writer.enqueue(record(1));
+
+        // La espera termina al fallar el lote, no al vencer commit-timeout-ms
+        assertTrue(elapsedMillis(start) < COMMIT_TIMEOUT_MS);
+        assertEquals(1, events("failed"));
+        assertEquals(0, events("written"));
+        assertEquals(0, meterRegistry.get("audit.commit.timeouts").counter().count());
+    }
+
+    @Test
+    void dropDiscardsEventsWhileTheQueueIsFull() throws InterruptedException {
+        holdWriterInInsert();
+        writer = writer("periodic", "drop", 2, 1);
+        fillQueueWhileWriterIsBusy();
+
+        writer.enqueue(record(4));
+
+        assertEquals(1, events("dropped"));
+        assertEquals(3, events("enqueued"));
+    }
+
+    @Test
+    void blockWaitsForSpaceInsteadOfDropping() throws InterruptedException {
+        holdWriterInInsert();
+        writer = writer("periodic", "block", 2, 1);
+        fillQueueWhileWriterIsBusy();
+
+        Thread releaser = new Thread(() -> {
+            sleep(100);
+            release.countDown();
+        });
+        releaser.start();
+        writer.enqueue(record(4));
+        releaser.join();
+
+        assertEquals(0, events("dropped"));
+        assertEquals(4, events("enqueued"));
+        writer.shutdown();
+        assertEquals(4, events("written"));
+    }
+
+    private void holdWriterInInsert() {
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(COMMIT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            return 1;
+        }).when(jdbcTemplate).update(anyString(), any(Object[].class));
+    }
+
+    /**
+     * El primer evento deja al escritor bloqueado en el INSERT; los dos siguientes
+     * ocupan las dos celdas de la cola.
+     */
+    private void fillQueueWhileWriterIsBusy() throws InterruptedException {
+        writer.enqueue(record(1));
+        assertTrue(writing.await(COMMIT_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        writer.enqueue(record(2));
+        writer.enqueue(record(3));
+        assertEquals(0, events("dropped"));
+    }
+
+    private AuditWriter writer(String durability, String backpressure, int capacity, int batchSize) {
+        return new AuditWriter(jdbcTemplate, meterRegistry, durability, backpressure,
+                capacity, batchSize, 10, 2_000, COMMIT_TIMEOUT_MS);
+    }
+
+    private double events(String result) {
+        return meterRegistry.get("audit.events").tag("result", result).counter().count();
+    }
+
+    private static AuditRecord record(long id) {
+        return new AuditRecord(LocalDateTime.now(), "test", AuditAction.USER_UPDATED, id, null);
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.ecommerce.user.cache;
+
+import com.ecommerce.user.entity.UserChange;
+import com.ecommerce.user.entity.UserChangeType;
+import com.ecommerce.user.repository.UserRepository;
+import com.ecommerce.user.service.UserChangeFeedService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Carga, altas locales y sincronizacion con el change feed, con repositorio y feed simulados.
+ */
+class EmailExistenceFilterTest {
+
+    private static final int SYNC_BATCH = 2;
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserChangeFeedService changeFeed = mock(UserChangeFeedService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private EmailExistenceFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new EmailExistenceFilter(userRepository, changeFeed, mock(PlatformTransactionManager.class),
+                meterRegistry, 1000, 0.01, 0.2, SYNC_BATCH, 60_000);
+        when(changeFeed.committedSequence()).thenReturn(10L);
+        when(userRepository.streamAllEmails()).thenAnswer(invocation -> Stream.of("ana@example.com"));
+    }
+
+    @Test
+    void answersMaybeUntilLoaded() {
+        assertTrue(filter.mightContain("nadie@example.com"));
+
+        filter.rebuild();
+
+        assertTrue(filter.mightContain(" ANA@example.com "));
+        assertFalse(filter.mightContain("nadie@example.com"));
+        assertEquals(1, meterRegistry.get("user.email.filter.lookups").tag("result", "negative").counter().count());
+    }
+
+    @Test
+    void localAddsAreVisibleAtOnce() {
+        filter.rebuild();
+
+        filter.add("Luis@Example.com");
+
+        assertTrue(filter.mightContain("luis@example.com"));
+    }
+
+    @Test
+    void syncAddsEmailsCreatedOrChangedOnOtherInstances() {
+        filter.rebuild();
+        // Lote completo (SYNC_BATCH entradas): se sigue leyendo hasta un lote incompleto
+        List<UserChange> firstBatch = List.of(
+                change(11, 2L, UserChangeType.CREATED),
+                change(12, 3L, UserChangeType.DELETED));
+        List<UserChange> secondBatch = List.of(change(13, 4L, UserChangeType.UPDATED));
+        when(changeFeed.readCommitted(10L, SYNC_BATCH)).thenReturn(firstBatch);
+        when(changeFeed.readCommitted(12L, SYNC_BATCH)).thenReturn(secondBatch);
+        when(userRepository.findEmailsByIdIn(List.of(2L))).thenReturn(List.of("bea@example.com"));
+        when(userRepository.findEmailsByIdIn(List.of(4L))).thenReturn(List.of("Carlos@Example.com"));
+
+        assertFalse(filter.mightContain("bea@example.com"));
+        filter.syncRemoteChanges();
+
+        assertTrue(filter.mightContain("bea@example.com"));
+        assertTrue(filter.mightContain("carlos@example.com"));
+        verify(userRepository, never()).findEmailsByIdIn(List.of(3L));
+
+        // La siguiente sincronizacion sigue donde se quedo
+        when(changeFeed.readCommitted(13L, SYNC_BATCH)).thenReturn(List.of());
+        filter.syncRemoteChanges();
+        verify(changeFeed).readCommitted(13L, SYNC_BATCH);
+    }
+
+    @Test
+    void syncDoesNothingBeforeTheFirstLoad() {
+        filter.syncRemoteChanges();
+
+        verify(changeFeed, never()).readCommitted(anyLong(), anyInt());
+    }
+
+    private static UserChange change(long seq, Long userId, UserChangeType type) {
+        UserChange change = mock(UserChange.class);
+        when(change.getSeq()).thenReturn(seq);
+        when(change.getUserId()).thenReturn(userId);
+        when(change.getChangeType()).thenReturn(type);
+        return change;
+    }
+}
@@ -0,0 +1,57 @@
+package com.ecommerce.user.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrequencySketchTest {
+
+    @Test
+    void countsIncrementsUpToFifteen() {
+        FrequencySketch sketch = new FrequencySketch(1024);
+
+        assertEquals(0, sketch.frequency(42L));
+        for (int i = 1; i <= 5; i++) {
+            sketch.increment(42L);
+        }
+        assertEquals(5, sketch.frequency(42L));
+
+        for (int i = 0; i < 20; i++) {
+            sketch.increment(42L);
+        }
+        assertEquals(15, sketch.frequency(42L));
+    }
+
+    @Test
+    void keepsKeysApart() {
+        FrequencySketch sketch = new FrequencySketch(1024);
+        for (int i = 0; i < 10; i++) {
+            sketch.increment(1L);
+        }
+        sketch.increment(2L);
+
+        assertEquals(10, sketch.frequency(1L));
+        assertEquals(1, sketch.frequency(2L));
+        assertEquals(0, sketch.frequency(3L));
+    }
+
+    @Test
+    void halvesAllCountersAfterTheSample() {
+        // 16 palabras: el sketch se reinicia cada 160 incrementos
+        FrequencySketch sketch = new FrequencySketch(16);
+        for (int i = 0; i < 15; i++) {
+            sketch.increment(7L);
+        }
+        assertEquals(15, sketch.frequency(7L));
+
+        // Otras claves hasta que se produzca el reinicio (la clave 7 esta en el maximo)
+        long key = 1_000;
+        while (sketch.frequency(7L) == 15 && key < 2_000) {
+            sketch.increment(key++);
+        }
+
+        assertTrue(key < 2_000, "El sketch no se reinicio");
+        assertEquals(7, sketch.frequency(7L));
+    }
+}
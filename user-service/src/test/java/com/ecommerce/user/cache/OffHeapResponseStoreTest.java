@@ -0,0 +1,104 @@
+package com.ecommerce.user.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapResponseStoreTest {
+
+    private static final int BLOCK_SIZE = 512;
+    private static final int PAGE_SIZE = 4096;
+
+    // Un segmento de una pagina: 8 bloques, valores de como mucho un bloque
+    private final List<String> discarded = new ArrayList<>();
+    private final OffHeapResponseStore<String> store = new OffHeapResponseStore<>(
+            PAGE_SIZE, 1, BLOCK_SIZE, PAGE_SIZE, (key, meta) -> discarded.add(key + "=" + meta));
+
+    @Test
+    void returnsValuesSpanningSeveralBlocks() {
+        OffHeapResponseStore<String> large = new OffHeapResponseStore<>(64 * PAGE_SIZE, 1, BLOCK_SIZE, PAGE_SIZE);
+        byte[] value = bytes(3 * BLOCK_SIZE + 17, (byte) 7);
+
+        assertTrue(large.put(1L, value, "a"));
+
+        OffHeapResponseStore.Hit<String> hit = large.get(1L);
+        assertNotNull(hit);
+        assertArrayEquals(value, hit.value());
+        assertEquals("a", hit.meta());
+        assertEquals(4L * BLOCK_SIZE, large.usedBytes());
+    }
+
+    @Test
+    void replacingAndRemovingReleaseBlocks() {
+        store.put(1L, bytes(100, (byte) 1), "v1");
+        store.put(1L, bytes(200, (byte) 2), "v2");
+
+        assertEquals(BLOCK_SIZE, store.usedBytes());
+        assertEquals(List.of("1=v1"), discarded);
+
+        assertEquals("v2", store.remove(1L));
+        assertEquals(0, store.usedBytes());
+        assertEquals(PAGE_SIZE, store.reservedBytes());
+        // remove no avisa: el llamador ya sabe lo que quita
+        assertEquals(List.of("1=v1"), discarded);
+    }
+
+    @Test
+    void rejectsValuesLargerThanAnEighthOfTheSegment() {
+        assertFalse(store.put(1L, bytes(BLOCK_SIZE + 1, (byte) 1), "big"));
+
+        assertNull(store.get(1L));
+        assertEquals(1, store.rejections());
+    }
+
+    @Test
+    void admitsANewKeyOnlyWhenMoreFrequentThanTheVictim() {
+        for (long key = 1; key <= 8; key++) {
+            assertTrue(store.put(key, bytes(100, (byte) key), "v" + key));
+        }
+
+        // Lleno y la clave nueva no se ha pedido nunca: no desplaza a nadie
+        assertFalse(store.put(9L, bytes(100, (byte) 9), "v9"));
+        assertEquals(8, store.size());
+        assertTrue(discarded.isEmpty());
+
+        for (int i = 0; i < 3; i++) {
+            store.get(9L);
+        }
+        assertTrue(store.put(9L, bytes(100, (byte) 9), "v9"));
+
+        // Sale la menos reciente (la 1) y se avisa para limpiar los indices del llamador
+        assertNull(store.get(1L));
+        assertNotNull(store.get(9L));
+        assertEquals(1, store.evictions());
+        assertEquals(List.of("1=v1"), discarded);
+    }
+
+    @Test
+    void clearKeepsReservedPages() {
+        store.put(1L, bytes(100, (byte) 1), "v1");
+        store.put(2L, bytes(100, (byte) 2), "v2");
+
+        store.clear();
+
+        assertEquals(0, store.size());
+        assertEquals(0, store.usedBytes());
+        assertEquals(PAGE_SIZE, store.reservedBytes());
+        assertNull(store.get(1L));
+    }
+
+    private static byte[] bytes(int length, byte fill) {
+        byte[] value = new byte[length];
+        Arrays.fill(value, fill);
+        return value;
+    }
+}
@@ -0,0 +1,79 @@
+package com.ecommerce.user.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScalableBloomFilterTest {
+
+    private static final int CAPACITY = 10_000;
+    private static final double FPP = 0.01;
+    private static final int PROBES = 100_000;
+
+    @Test
+    void hasNoFalseNegativesAcrossStages() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(CAPACITY, FPP);
+        for (int i = 0; i < 5 * CAPACITY; i++) {
+            filter.put("user" + i + "@example.com");
+        }
+
+        for (int i = 0; i < 5 * CAPACITY; i++) {
+            assertTrue(filter.mightContain("user" + i + "@example.com"), "falso negativo: user" + i);
+        }
+    }
+
+    @Test
+    void addsAStageOnceTheCurrentOneIsFull() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(CAPACITY, FPP);
+        long firstStageBytes = filter.sizeInBytes();
+
+        // Los falsos positivos no se insertan: se sigue hasta llenar la etapa
+        int next = 0;
+        while (filter.size() < CAPACITY) {
+            filter.put("user" + next++ + "@example.com");
+        }
+        assertEquals(firstStageBytes, filter.sizeInBytes());
+
+        while (filter.size() == CAPACITY) {
+            filter.put("user" + next++ + "@example.com");
+        }
+        // La segunda etapa tiene el doble de capacidad y la mitad de fpp: mas del doble de bits
+        assertTrue(filter.sizeInBytes() > 3 * firstStageBytes, "bytes: " + filter.sizeInBytes());
+    }
+
+    @Test
+    void repeatedValuesDoNotConsumeCapacity() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(CAPACITY, FPP);
+        long firstStageBytes = filter.sizeInBytes();
+
+        for (int i = 0; i < 3 * CAPACITY; i++) {
+            filter.put("same@example.com");
+        }
+
+        assertEquals(1, filter.size());
+        assertEquals(firstStageBytes, filter.sizeInBytes());
+    }
+
+    @Test
+    void falsePositiveRateStaysWithinTargetAsItGrows() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(CAPACITY, FPP);
+        int inserted = 0;
+
+        for (int stageLimit : new int[]{CAPACITY, 3 * CAPACITY, 7 * CAPACITY}) {
+            for (; inserted < stageLimit; inserted++) {
+                filter.put("user" + inserted + "@example.com");
+            }
+
+            int falsePositives = 0;
+            for (int i = 0; i < PROBES; i++) {
+                if (filter.mightContain("absent" + i + "@example.org")) {
+                    falsePositives++;
+                }
+            }
+            double rate = (double) falsePositives / PROBES;
+            assertTrue(rate <= FPP, inserted + " emails: tasa de falsos positivos " + rate);
+            assertTrue(filter.expectedFpp() <= FPP, inserted + " emails: fpp esperada " + filter.expectedFpp());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.ecommerce.user.repository;
+
+import com.ecommerce.user.dto.response.UserResponseDTO;
+import com.ecommerce.user.mapper.RoleMapper;
+import com.ecommerce.user.mapper.UserMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compara latencia y memoria asignada de los listados de usuarios:
+ * entidades gestionadas + UserMapper frente a la proyeccion JPQL directa a UserResponseDTO.
+ *
+ * Es lento y consume mucha memoria con 1M de usuarios, por eso solo se ejecuta con
+ * -Dbenchmark=true. Los tamaños se pueden cambiar con -Dbenchmark.sizes=10000,100000.
+ */
+@Slf4j
+@DataJpaTest(properties = {
+        // Las migraciones son especificas de PostgreSQL; en H2 el esquema lo crea Hibernate
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class UserListProjectionBenchmarkTest {
+
+    private static final int MEASURED_RUNS = 3;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // toResponseDTO no usa el catalogo de roles
+    private final UserMapper userMapper = new UserMapper(new RoleMapper(), null);
+
+    @Test
+    void compareEntityMappingWithProjection() {
+        TransactionTemplate readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+
+        for (int size : sizes()) {
+            seed(size);
+
+            Supplier<List<UserResponseDTO>> entities = () -> readTransaction.execute(status ->
+                    userRepository.findAll().stream().map(userMapper::toResponseDTO).toList());
+            Supplier<List<UserResponseDTO>> projection = () -> readTransaction.execute(status ->
+                    userRepository.findAllResponses());
+            Supplier<List<UserResponseDTO>> roleProjection = () -> readTransaction.execute(status ->
+                    userRepository.findResponsesByRoleName("USER"));
+
+            measure(size, "entidades + mapper", entities);
+            measure(size, "proyeccion", projection);
+            measure(size, "proyeccion por rol", roleProjection);
+        }
+    }
+
+    private void measure(int size, String label, Supplier<List<UserResponseDTO>> query) {
+        // Calentamiento: JIT y cache de planes de Hibernate
+        assertEquals(size, query.get().size());
+
+        long totalNanos = 0;
+        long totalBytes = 0;
+        for (int run = 0; run < MEASURED_RUNS; run++) {
+            long bytesBefore = allocatedBytes();
+            long start = System.nanoTime();
+
+            List<UserResponseDTO> result = query.get();
+
+            totalNanos += System.nanoTime() - start;
+            totalBytes += allocatedBytes() - bytesBefore;
+            assertEquals(size, result.size());
+        }
+
+        log.info("{} usuarios, {}: {} ms y {} MB asignados de media", size, label,
+                String.format("%.1f", totalNanos / 1_000_000.0 / MEASURED_RUNS),
+                String.format("%.1f", totalBytes / (1024.0 * 1024.0) / MEASURED_RUNS));
+    }
+
+    private void seed(int size) {
+        jdbcTemplate.update("DELETE FROM user_roles");
+        jdbcTemplate.update("DELETE FROM users");
+        jdbcTemplate.update("DELETE FROM roles");
+
+        jdbcTemplate.update("INSERT INTO roles (name, description, created_at, updated_at) " +
+                "VALUES ('USER', 'Usuario', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO users (email, first_name, last_name, phone, is_active, created_at, updated_at, version) " +
+                "SELECT 'user' || X || '@bench.test', 'Nombre' || X, 'Apellido' || X, '600000000', " +
+                "MOD(X, 10) <> 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0 FROM SYSTEM_RANGE(1, ?)", size);
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id, assigned_at) " +
+                "SELECT u.id, r.id, CURRENT_TIMESTAMP FROM users u CROSS JOIN roles r");
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static int[] sizes() {
+        return Arrays.stream(System.getProperty("benchmark.sizes", "10000,100000,1000000").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+    }
+}
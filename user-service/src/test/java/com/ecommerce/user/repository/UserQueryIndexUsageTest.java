@@ -0,0 +1,237 @@
+package com.ecommerce.user.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Regresion de indices: ejecuta los metodos de UserRepository y AuthPrincipalRepository,
+ * captura el SQL que envian (con sus parametros) y comprueba con EXPLAIN que pueden
+ * resolverse con los indices de las migraciones.
+ *
+ * Necesita un PostgreSQL real (las migraciones usan pg_trgm, indices parciales y text[]):
+ * lo arranca Testcontainers, y el test se omite si no hay Docker.
+ *
+ * Con tablas pequeñas el planificador prefiere Seq Scan aunque exista el indice, asi que
+ * cada EXPLAIN se ejecuta con enable_seqscan desactivado: si aun asi aparece un Seq Scan,
+ * la consulta no tiene indice utilizable.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import(UserQueryIndexUsageTest.StatementCapture.class)
+class UserQueryIndexUsageTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AuthPrincipalRepository authPrincipalRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StatementCapture statementCapture;
+
+    @BeforeEach
+    void disableSequentialScans() {
+        // SET LOCAL: solo afecta a la transaccion del test, que se deshace al terminar
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+    }
+
+    @Test
+    void findActiveResponsesUsesPartialIndex() {
+        assertUsesIndex(explain(userRepository::findActiveResponses), "idx_users_active_id");
+    }
+
+    @Test
+    void existsByEmailUsesLowerEmailIndex() {
+        assertUsesIndex(explain(() -> userRepository.existsByEmail("Ana@Example.com")), "ux_users_email_lower");
+    }
+
+    @Test
+    void findByEmailUsesLowerEmailIndex() {
+        assertUsesIndex(explain(() -> userRepository.findByEmail("Ana@Example.com")), "ux_users_email_lower");
+    }
+
+    @Test
+    void searchResponsesByNameUsesTrigramIndexes() {
+        String plan = explain(() -> userRepository.searchResponsesByName("ana"));
+
+        assertTrue(plan.contains("idx_users_first_name_trgm"), plan);
+        assertTrue(plan.contains("idx_users_last_name_trgm"), plan);
+    }
+
+    @Test
+    void findResponsesByRoleNameAvoidsSequentialScans() {
+        assertNoSequentialScan(explain(() -> userRepository.findResponsesByRoleName("ADMIN")));
+    }
+
+    @Test
+    void countUsersByRoleNameAvoidsSequentialScans() {
+        assertNoSequentialScan(explain(() -> userRepository.countUsersByRoleName("ADMIN")));
+    }
+
+    @Test
+    void filterByCreatedAtRangeUsesCreatedAtIndex() {
+        UserFilterCriteria criteria = new UserFilterCriteria(null, null,
+                LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(2024, 2, 1, 0, 0), null);
+
+        assertUsesIndex(explain(() -> userRepository.findFiltered(criteria, 0, 20)), "idx_users_created_at_id");
+    }
+
+    @Test
+    void filterByShortNamePrefixAvoidsSequentialScans() {
+        // Prefijo de dos letras: demasiado corto para los indices trigram
+        UserFilterCriteria criteria = new UserFilterCriteria(null, null, null, null, "an");
+
+        assertNoSequentialScan(explain(() -> userRepository.countFilteredUpTo(criteria, 10001)));
+    }
+
+    @Test
+    void authPrincipalFindByEmailUsesLowerEmailIndex() {
+        assertUsesIndex(explain(() -> authPrincipalRepository.findByEmail("Ana@Example.com")),
+                "ux_auth_principal_email_lower");
+    }
+
+    @Test
+    void authPrincipalRenameRoleUsesGinIndex() {
+        assertUsesIndex(explain(() -> authPrincipalRepository.renameRole("ADMIN", "ROOT")),
+                "idx_auth_principal_role_names");
+    }
+
+    private static void assertUsesIndex(String plan, String indexName) {
+        assertTrue(plan.contains(indexName), () -> "Se esperaba " + indexName + " en el plan:\n" + plan);
+        assertFalse(plan.contains("Seq Scan"), () -> "Plan con Seq Scan:\n" + plan);
+    }
+
+    private static void assertNoSequentialScan(String plan) {
+        assertFalse(plan.contains("Seq Scan"), () -> "Plan con Seq Scan:\n" + plan);
+    }
+
+    /**
+     * Ejecuta la llamada al repositorio y devuelve el plan de la ultima sentencia que envio,
+     * con los mismos parametros.
+     */
+    private String explain(Runnable repositoryCall) {
+        statementCapture.clear();
+        repositoryCall.run();
+        CapturedStatement statement = statementCapture.last();
+
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + statement.sql())) {
+                for (Map.Entry<Integer, Object> parameter : statement.parameters().entrySet()) {
+                    if (parameter.getValue() == null) {
+                        explain.setNull(parameter.getKey(), Types.NULL);
+                    } else {
+                        explain.setObject(parameter.getKey(), parameter.getValue());
+                    }
+                }
+
+                List<String> lines = new ArrayList<>();
+                try (ResultSet rs = explain.executeQuery()) {
+                    while (rs.next()) {
+                        lines.add(rs.getString(1));
+                    }
+                }
+                return statement.sql() + "\n" + String.join("\n", lines);
+            }
+        });
+    }
+
+    record CapturedStatement(String sql, Map<Integer, Object> parameters) {
+    }
+
+    /**
+     * Envuelve el DataSource para guardar el SQL y los parametros de cada PreparedStatement,
+     * tanto los de Hibernate como los de JdbcTemplate.
+     */
+    static class StatementCapture implements BeanPostProcessor {
+
+        private final List<CapturedStatement> statements = new CopyOnWriteArrayList<>();
+
+        void clear() {
+            statements.clear();
+        }
+
+        CapturedStatement last() {
+            assertFalse(statements.isEmpty(), "La llamada no envio ninguna sentencia");
+            return statements.get(statements.size() - 1);
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource) {
+                return wrap(DataSource.class, dataSource, (method, args, result) ->
+                        result instanceof Connection connection ? wrapConnection(connection) : result);
+            }
+            return bean;
+        }
+
+        private Connection wrapConnection(Connection connection) {
+            return wrap(Connection.class, connection, (method, args, result) -> {
+                if (!method.getName().equals("prepareStatement") || !(result instanceof PreparedStatement prepared)) {
+                    return result;
+                }
+
+                CapturedStatement statement = new CapturedStatement((String) args[0], new TreeMap<>());
+                statements.add(statement);
+                return wrap(PreparedStatement.class, prepared, (setter, setterArgs, setterResult) -> {
+                    if (setter.getName().startsWith("set") && setterArgs != null && setterArgs.length >= 2
+                            && setterArgs[0] instanceof Integer index) {
+                        statement.parameters().put(index, setter.getName().equals("setNull") ? null : setterArgs[1]);
+                    }
+                    return setterResult;
+                });
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T wrap(Class<T> type, T target, AfterCall afterCall) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                try {
+                    return afterCall.apply(method, args, method.invoke(target, args));
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+        }
+
+        private interface AfterCall {
+            Object apply(Method method, Object[] args, Object result) throws Exception;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.ecommerce.user.service.impl;
+
+import com.ecommerce.user.dto.response.UserImportSummaryDTO;
+import com.ecommerce.user.service.UserImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rendimiento del alta masiva (/users/import) contra PostgreSQL real: objetivo de 10.000
+ * usuarios por segundo con el tamaño de lote por defecto, incluidos roles, auth_principal,
+ * change feed y auditoria.
+ *
+ * Arranca PostgreSQL con Testcontainers y tarda, por eso solo se ejecuta con -Dbenchmark=true.
+ * Filas y ritmo minimo: -Dbenchmark.import-rows=100000 -Dbenchmark.import-min-rate=10000.
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "eureka.client.enabled=false",
+        "spring.jpa.show-sql=false"
+})
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class UserImportThroughputBenchmarkTest {
+
+    private static final int WARM_UP_ROWS = 10_000;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void importsAtLeastTheTargetRate() throws IOException {
+        int rows = Integer.getInteger("benchmark.import-rows", 100_000);
+        double minRate = Double.parseDouble(System.getProperty("benchmark.import-min-rate", "10000"));
+
+        // Calentamiento: JIT, pool de conexiones y planes de las sentencias del lote
+        importRows("warmup", WARM_UP_ROWS);
+
+        UserImportSummaryDTO summary = importRows("bench", rows);
+        double rate = rows / (summary.getElapsedMs() / 1000.0);
+
+        log.info("Importacion: {} usuarios en {} ms ({} usuarios/s)",
+                rows, summary.getElapsedMs(), Math.round(rate));
+
+        assertEquals(rows, summary.getCreated());
+        assertTrue(rate >= minRate, () -> String.format("%.0f usuarios/s, por debajo de %.0f", rate, minRate));
+    }
+
+    private UserImportSummaryDTO importRows(String prefix, int rows) throws IOException {
+        StringBuilder body = new StringBuilder(rows * 100);
+        for (int i = 0; i < rows; i++) {
+            body.append("{\"email\":\"").append(prefix).append(i).append("@import.test\",")
+                    .append("\"firstName\":\"Nombre").append(i).append("\",")
+                    .append("\"lastName\":\"Apellido").append(i).append("\",")
+                    .append("\"phone\":\"+34600000000\"}\n");
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        userImportService.importUsers(
+                new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8)), out);
+
+        // La ultima linea de la respuesta es el resumen
+        String response = out.toString(StandardCharsets.UTF_8).trim();
+        String summaryLine = response.substring(response.lastIndexOf('\n') + 1);
+        return objectMapper.readValue(summaryLine, UserImportSummaryDTO.class);
+    }
+}